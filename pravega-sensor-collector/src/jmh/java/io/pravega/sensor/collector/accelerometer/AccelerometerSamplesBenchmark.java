@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.accelerometer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import io.pravega.sensor.collector.simple.SamplesFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode raw accelerometer samples, as read from the IIO device, and serialize them to an event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccelerometerSamplesBenchmark {
+    private static final int SAMPLES_PER_QUEUE_ELEMENT = 16;
+    private static final int BYTES_PER_SAMPLE = 16;
+
+    @Param({"100", "1600"})
+    public int samplesPerEvent;
+
+    @Param({"JSON", "BINARY"})
+    public SamplesFormat samplesFormat;
+
+    private final List<Double> scales = ImmutableList.of(0.0383, 0.0383, 0.0383);
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<byte[]> rawData = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        long timestampNanos = 1_700_000_000_000_000_000L;
+        for (int i = 0; i < samplesPerEvent; i += SAMPLES_PER_QUEUE_ELEMENT) {
+            final ByteBuffer buffer = ByteBuffer.allocate(SAMPLES_PER_QUEUE_ELEMENT * BYTES_PER_SAMPLE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int j = 0; j < SAMPLES_PER_QUEUE_ELEMENT; j++) {
+                buffer.put((byte) random.nextInt()).put((byte) random.nextInt()).put((byte) random.nextInt());
+                buffer.put((byte) 0).putInt(0);
+                timestampNanos += 625_000;
+                buffer.putLong(timestampNanos);
+            }
+            rawData.add(buffer.array());
+        }
+    }
+
+    @Benchmark
+    public byte[] decodeAndSerialize() throws Exception {
+        final AccelerometerSamples samples = new AccelerometerSamples("127.0.0.1");
+        for (byte[] bytes : rawData) {
+            AccelerometerDriver.decodeSamples(samples, bytes, scales);
+        }
+        return AccelerometerDriver.serializeSamples(samples, samplesFormat, scales, mapper);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.file;
+
+import io.pravega.sensor.collector.file.csvfile.CsvFileEventGenerator;
+import io.pravega.sensor.collector.file.parquet.ParquetEventGenerator;
+import io.pravega.sensor.collector.file.rawfile.RawEventGenerator;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generate the events of one bundled sample file.
+ * The sample files are resolved relative to the working directory, which is the repository root when run with "gradle jmh".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventGeneratorBenchmark {
+    @Param({"csv", "parquet", "raw"})
+    public String fileType;
+
+    private EventGenerator eventGenerator;
+    private FileNameWithOffset file;
+
+    @Setup
+    public void setup() throws Exception {
+        final Path path;
+        switch (fileType) {
+            case "csv":
+                path = Paths.get("log-file-sample-data", "Accelerometer.0000080013.csv");
+                eventGenerator = CsvFileEventGenerator.create("routingKey", 100);
+                break;
+            case "parquet":
+                path = Paths.get("parquet-file-sample-data", "sub1.parquet");
+                eventGenerator = ParquetEventGenerator.create("routingKey", 100);
+                break;
+            case "raw":
+                path = Paths.get("log-file-sample-data", "Accelerometer.0000080013.csv");
+                eventGenerator = RawEventGenerator.create("routingKey");
+                break;
+            default:
+                throw new IllegalArgumentException(fileType);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalStateException("Sample file " + path.toAbsolutePath() + " not found. Run from the repository root.");
+        }
+        file = new FileNameWithOffset(path.toString(), 0);
+    }
+
+    @Benchmark
+    public long generateEventsFromFile(Blackhole blackhole) throws Exception {
+        return eventGenerator.generateEventsFromFile(file, 0, blackhole::consume).getLeft();
+    }
+}
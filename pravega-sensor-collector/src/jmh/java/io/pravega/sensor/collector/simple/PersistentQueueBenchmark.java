@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Add a batch of events to the persistent queue, then peek and remove them as PersistentQueueToPravegaService does.
+ * The queue is stored in a temporary directory so that the cost of syncing to disk is included.
+ * The score is the time per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistentQueueBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"sqlite", "segment-log"})
+    public String persistentQueueType;
+
+    @Param({"1000"})
+    public int eventSizeBytes;
+
+    private Path directory;
+    private PersistentQueue persistentQueue;
+    private byte[] eventBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("psc-benchmark");
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(directory.resolve("psc.db").toString());
+        final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, null);
+        switch (persistentQueueType) {
+            case "sqlite":
+                persistentQueue = new PersistentQueueSQLiteImpl(connection, transactionCoordinator, 1000 * 1000);
+                break;
+            case "segment-log":
+                persistentQueue = new PersistentQueueSegmentLogImpl(connection, transactionCoordinator,
+                        directory.resolve("segments"), 64 * 1024 * 1024, 1000 * 1000);
+                break;
+            default:
+                throw new IllegalArgumentException(persistentQueueType);
+        }
+        eventBytes = new byte[eventSizeBytes];
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        persistentQueue.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void addPeekRemove() throws Exception {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            persistentQueue.add(new PersistentQueueElement(eventBytes, "routingKey", System.currentTimeMillis()));
+        }
+        final List<PersistentQueueElement> elements = persistentQueue.peek(BATCH_SIZE);
+        final Optional<UUID> txnId = Optional.of(UUID.randomUUID());
+        persistentQueue.remove(elements.get(elements.size() - 1).id, txnId);
+        persistentQueue.deleteTransactionToCommit(txnId);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the whole life cycle of the SQLite records of an ingested file, including the cleanup pass.
+ * Each invocation records a batch of pending files, then for each file reads the next pending file,
+ * marks it as completed together with a transaction to commit, and deletes the transaction to commit.
+ * Finally the completed records of all files are read and deleted, as {@code deleteCompletedFiles} does.
+ * The database is stored in a temporary file so that the cost of syncing to disk is included.
+ * The score is the time per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionStateBenchmark {
+    private static final int FILES_PER_INVOCATION = 100;
+
+    private Path directory;
+    private TransactionStateSQLiteImpl state;
+    private long round;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("psc-benchmark");
+        final Connection connection = SQliteDBUtility.createDatabase(directory.resolve("psc.db").toString());
+        state = new TransactionStateSQLiteImpl(connection, new TransactionCoordinator(connection, null));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        state.close();
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES_PER_INVOCATION)
+    public void ingestAndCleanUpFiles() throws Exception {
+        final List<FileNameWithOffset> files = new ArrayList<>();
+        for (int i = 0; i < FILES_PER_INVOCATION; i++) {
+            files.add(new FileNameWithOffset(String.format("/data/round%d/file%08d.csv", round, i), 0));
+        }
+        round++;
+        state.addPendingFileRecords(files);
+        Pair<FileNameWithOffset, Long> nextFile;
+        while ((nextFile = state.getNextPendingFileRecord()) != null) {
+            final Optional<UUID> txnId = Optional.of(UUID.randomUUID());
+            state.addCompletedFileRecord(nextFile.getLeft().fileName, nextFile.getLeft().offset, 1000, nextFile.getRight() + 10, txnId);
+            state.deleteTransactionToCommit(txnId);
+        }
+        final List<String> completedFileNames = new ArrayList<>();
+        for (FileNameWithOffset file : state.getCompletedFileRecords()) {
+            completedFileNames.add(file.fileName);
+        }
+        state.deleteCompletedFileRecords(completedFileNames);
+    }
+}
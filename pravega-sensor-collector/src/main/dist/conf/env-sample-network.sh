@@ -15,9 +15,12 @@ export PRAVEGA_SENSOR_COLLECTOR_NET1_CLASS=io.pravega.sensor.collector.network.N
 export PRAVEGA_SENSOR_COLLECTOR_NET1_NETWORK_INTERFACE=ens33
 export PRAVEGA_SENSOR_COLLECTOR_NET1_MEMORY_QUEUE_CAPACITY_ELEMENTS=10000
 export PRAVEGA_SENSOR_COLLECTOR_NET1_SAMPLES_PER_EVENT=100
+export PRAVEGA_SENSOR_COLLECTOR_NET1_SAMPLES_FORMAT=json
 export PRAVEGA_SENSOR_COLLECTOR_NET1_SAMPLES_PER_SEC=100
 export PRAVEGA_SENSOR_COLLECTOR_NET1_PERSISTENT_QUEUE_FILE=/opt/pravega-sensor-collector/network-ens33.db
 export PRAVEGA_SENSOR_COLLECTOR_NET1_PERSISTENT_QUEUE_CAPACITY_EVENTS=100
+export PRAVEGA_SENSOR_COLLECTOR_NET1_PERSISTENT_QUEUE_COMMIT_MAX_EVENTS=100
+export PRAVEGA_SENSOR_COLLECTOR_NET1_PERSISTENT_QUEUE_COMMIT_MAX_DELAY_MS=100
 export PRAVEGA_SENSOR_COLLECTOR_NET1_PRAVEGA_CONTROLLER_URI=tls://pravega-controller.sdp.cluster1.sdp-demo.org:443
 export PRAVEGA_SENSOR_COLLECTOR_NET1_SCOPE=edge
 export PRAVEGA_SENSOR_COLLECTOR_NET1_CREATE_SCOPE=false
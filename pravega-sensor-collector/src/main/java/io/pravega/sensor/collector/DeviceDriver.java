@@ -10,10 +10,12 @@
 package io.pravega.sensor.collector;
 
 import com.google.common.util.concurrent.AbstractService;
-import io.pravega.client.ClientConfig;
 import io.pravega.client.EventStreamClientFactory;
-import io.pravega.client.admin.StreamManager;
-import io.pravega.client.stream.StreamConfiguration;
+import io.pravega.client.stream.EventWriterConfig;
+import io.pravega.client.stream.impl.ByteArraySerializer;
+import io.pravega.sensor.collector.metrics.MetricsRegistry;
+import io.pravega.sensor.collector.util.DriverExecutors;
+import io.pravega.sensor.collector.util.EventWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,10 +30,12 @@ public abstract class DeviceDriver extends AbstractService implements AutoClosea
     private final DeviceDriverConfig config;
 
     private static final String CREATE_SCOPE_KEY = "CREATE_SCOPE";
+    private static final String SHARED_WRITER_KEY = "SHARED_WRITER";
 
     public DeviceDriver(DeviceDriverConfig config) {
         this.config = config;
         LOGGER.info("Create Scope: {}", isCreateScope());
+        LOGGER.info("Shared Writer: {}", isSharedWriter());
     }
 
     public String getProperty(String key) {
@@ -50,10 +54,18 @@ public abstract class DeviceDriver extends AbstractService implements AutoClosea
     public void close() throws Exception {
     }
 
+    public String getInstanceName() {
+        return config.getInstanceName();
+    }
+
     private boolean isCreateScope() {
         return Boolean.parseBoolean(getProperty(CREATE_SCOPE_KEY, Boolean.toString(false)));
     }
 
+    private boolean isSharedWriter() {
+        return Boolean.parseBoolean(getProperty(SHARED_WRITER_KEY, Boolean.toString(false)));
+    }
+
     private PravegaClientConfig getPravegaClientConfig(String scopeName) {
         return new PravegaClientConfig(config.getProperties(), scopeName);
     }
@@ -62,17 +74,39 @@ public abstract class DeviceDriver extends AbstractService implements AutoClosea
         return config.getDeviceDriverManager().getPravegaClientPool().getEventStreamClientFactory(getPravegaClientConfig(scopeName));
     }
 
-    private ClientConfig getClientConfig(String scopeName) {
-        return config.getDeviceDriverManager().getPravegaClientPool().getClientConfig(getPravegaClientConfig(scopeName));
+    /**
+     * @return the registry of metrics that are served by the device driver manager
+     */
+    protected MetricsRegistry getMetricsRegistry() {
+        return config.getDeviceDriverManager().getMetricsRegistry();
     }
 
-    protected void createStream(String scopeName, String streamName) {
-        try (final StreamManager streamManager = StreamManager.create(getClientConfig(scopeName))) {
-            if (isCreateScope()) {
-                streamManager.createScope(scopeName);
-            }
-            final StreamConfiguration streamConfig = StreamConfiguration.builder().build();
-            streamManager.createStream(scopeName, streamName, streamConfig);
+    /**
+     * @return the threads on which the services of the device driver run
+     */
+    protected DriverExecutors getDriverExecutors() {
+        return config.getDeviceDriverManager().getDriverExecutors();
+    }
+
+    /**
+     * Create the writer of this device driver instance.
+     * If SHARED_WRITER is true, the instance shares one Pravega writer with the other instances
+     * of this process that write to the same stream.
+     */
+    protected EventWriter<byte[]> createEventWriter(String writerId, String scopeName, String streamName,
+                                                    EventWriterConfig writerConfig, boolean exactlyOnce) {
+        if (isSharedWriter()) {
+            return config.getDeviceDriverManager().getPravegaClientPool().getSharedEventWriter(
+                    getPravegaClientConfig(scopeName), streamName, writerId, writerConfig, exactlyOnce);
         }
+        return EventWriter.create(getEventStreamClientFactory(scopeName), writerId, streamName, new ByteArraySerializer(), writerConfig, exactlyOnce);
+    }
+
+    /**
+     * Create the stream, and its scope if CREATE_SCOPE is true.
+     * Each stream is created once per process, with a stream manager that is shared by all device drivers.
+     */
+    protected void createStream(String scopeName, String streamName) {
+        config.getDeviceDriverManager().getPravegaClientPool().createStream(getPravegaClientConfig(scopeName), streamName, isCreateScope());
     }
 }
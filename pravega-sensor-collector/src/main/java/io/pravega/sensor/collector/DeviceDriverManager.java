@@ -10,12 +10,23 @@
 package io.pravega.sensor.collector;
 
 import com.google.common.util.concurrent.AbstractService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.pravega.sensor.collector.metrics.MetricsHttpServer;
+import io.pravega.sensor.collector.metrics.MetricsRegistry;
+import io.pravega.sensor.collector.util.DriverExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,20 +36,60 @@ public class DeviceDriverManager extends AbstractService {
     private static final String PREFIX = Parameters.getEnvPrefix();
     private static final String SEPARATOR = "_";
     private static final String CLASS_KEY = "CLASS";
+    private static final String METRICS_HTTP_PORT_KEY = "METRICS_HTTP_PORT";
+    private static final String METRICS_HTTP_HOST_KEY = "METRICS_HTTP_HOST";
+    private static final String EXECUTION_MODE_KEY = "EXECUTION_MODE";
+    private static final String SHARED_SCHEDULER_THREADS_KEY = "SHARED_SCHEDULER_THREADS";
+    private static final String STARTUP_PARALLELISM_KEY = "STARTUP_PARALLELISM";
 
     private final List<DeviceDriverConfig> configs;
     private final PravegaClientPool pravegaClientPool = new PravegaClientPool();
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final DriverExecutors driverExecutors;
+    /**
+     * The port of the metrics HTTP server, or empty if metrics are not served.
+     */
+    private final String metricsHttpPort;
+    private final String metricsHttpHost;
+    /**
+     * The maximum number of device drivers that are created at the same time.
+     */
+    private final int startupParallelism;
+    private MetricsHttpServer metricsHttpServer;
     private List<DeviceDriver> drivers;
 
     public DeviceDriverManager(Map<String, String> properties) {
         configs = configFromProperties(PREFIX, SEPARATOR, properties);
+        metricsHttpPort = properties.getOrDefault(PREFIX + METRICS_HTTP_PORT_KEY, "");
+        metricsHttpHost = properties.getOrDefault(PREFIX + METRICS_HTTP_HOST_KEY, "127.0.0.1");
+        final DriverExecutors.Mode executionMode = DriverExecutors.parseMode(
+                properties.getOrDefault(PREFIX + EXECUTION_MODE_KEY, DriverExecutors.Mode.PLATFORM.name()));
+        final int sharedSchedulerThreads = Integer.parseInt(properties.getOrDefault(PREFIX + SHARED_SCHEDULER_THREADS_KEY,
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        LOGGER.info("Execution mode: {}, shared scheduler threads: {}", executionMode, sharedSchedulerThreads);
+        driverExecutors = new DriverExecutors(executionMode, sharedSchedulerThreads);
+        startupParallelism = Integer.parseInt(properties.getOrDefault(PREFIX + STARTUP_PARALLELISM_KEY, "16"));
+        LOGGER.info("Startup parallelism: {}", startupParallelism);
     }
 
     @Override
     protected void doStart() {
+        if (!metricsHttpPort.isEmpty()) {
+            try {
+                metricsHttpServer = new MetricsHttpServer(metricsRegistry, metricsHttpHost, Integer.parseInt(metricsHttpPort));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            metricsHttpServer.start();
+        }
         LOGGER.info("Starting device drivers");
-        final DeviceDriverFactory factory = new DeviceDriverFactory();
-        drivers = configs.stream().map(factory::create).collect(Collectors.toList());
+        try {
+            drivers = createDrivers();
+        } catch (RuntimeException e) {
+            driverExecutors.close();
+            closeMetricsHttpServer();
+            throw e;
+        }
         drivers.stream().forEach((driver) -> driver.startAsync());
         drivers.stream().forEach((driver) -> driver.awaitRunning());
         LOGGER.info("All device drivers started successfully");
@@ -48,8 +99,63 @@ public class DeviceDriverManager extends AbstractService {
     @Override
     protected void doStop() {
         drivers.stream().forEach((driver) -> driver.stopAsync());
-        drivers.stream().forEach((driver) -> driver.awaitTerminated());
+        drivers.stream().forEach((driver) -> {
+            driver.awaitTerminated();
+            metricsRegistry.removeInstance(driver.getInstanceName());
+        });
         drivers = null;
+        driverExecutors.close();
+        closeMetricsHttpServer();
+    }
+
+    private void closeMetricsHttpServer() {
+        if (metricsHttpServer != null) {
+            metricsHttpServer.close();
+            metricsHttpServer = null;
+        }
+    }
+
+    /**
+     * Create the device drivers in parallel, because each one may wait for the Pravega controller
+     * and recover its persistent queue. If any driver cannot be created, the others are closed.
+     */
+    private List<DeviceDriver> createDrivers() {
+        final DeviceDriverFactory factory = new DeviceDriverFactory();
+        final int threads = Math.max(1, Math.min(startupParallelism, configs.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("driver-startup-%d").setDaemon(true).build());
+        try {
+            final List<CompletableFuture<DeviceDriver>> futures = configs.stream()
+                    .map(config -> CompletableFuture.supplyAsync(() -> factory.create(config), executor))
+                    .collect(Collectors.toList());
+            final List<DeviceDriver> created = new ArrayList<>();
+            RuntimeException failure = null;
+            for (CompletableFuture<DeviceDriver> future : futures) {
+                try {
+                    created.add(future.join());
+                } catch (CompletionException e) {
+                    final RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                for (DeviceDriver driver : created) {
+                    try {
+                        driver.close();
+                    } catch (Exception e) {
+                        LOGGER.warn("Unable to close device driver", e);
+                    }
+                }
+                throw failure;
+            }
+            return created;
+        } finally {
+            executor.shutdown();
+        }
     }
 
     /**
@@ -99,4 +205,12 @@ public class DeviceDriverManager extends AbstractService {
     public PravegaClientPool getPravegaClientPool() {
         return pravegaClientPool;
     }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public DriverExecutors getDriverExecutors() {
+        return driverExecutors;
+    }
 }
@@ -30,6 +30,10 @@ public class PravegaClientConfig {
         this(URI.create(properties.getOrDefault(PRAVEGA_CONTROLLER_URI_KEY, "tcp://localhost:9090")), scopeName);
     }
 
+    public URI getControllerURI() {
+        return controllerURI;
+    }
+
     public String getScopeName() {
         return scopeName;
     }
@@ -11,17 +11,32 @@ package io.pravega.sensor.collector;
 
 import io.pravega.client.ClientConfig;
 import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.stream.EventWriterConfig;
+import io.pravega.client.stream.StreamConfiguration;
+import io.pravega.client.stream.impl.ByteArraySerializer;
+import io.pravega.sensor.collector.util.EventWriter;
+import io.pravega.sensor.collector.util.MultiplexedEventWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class PravegaClientPool implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(PravegaClientPool.class);
 
     private final Map<PravegaClientConfig, ClientConfig> clientConfigs = new HashMap<>();
     private final Map<PravegaClientConfig, EventStreamClientFactory> eventStreamClientFactories = new HashMap<>();
+    private final Map<URI, StreamManager> streamManagers = new HashMap<>();
+    /**
+     * The scopes and streams that have been created or are being created, so that each is created only once
+     * even when device drivers start in parallel.
+     */
+    private final Map<String, CompletableFuture<Void>> createdScopesAndStreams = new HashMap<>();
+    private final Map<String, MultiplexedEventWriter<byte[]>> sharedEventWriters = new HashMap<>();
 
     public synchronized ClientConfig getClientConfig(PravegaClientConfig config) {
         final ClientConfig clientConfig = clientConfigs.get(config);
@@ -47,8 +62,102 @@ public class PravegaClientPool implements AutoCloseable {
         return newFactory;
     }
 
+    /**
+     * Get the stream manager for the controller of the config. One stream manager is shared by all scopes.
+     */
+    public synchronized StreamManager getStreamManager(PravegaClientConfig config) {
+        final StreamManager streamManager = streamManagers.get(config.getControllerURI());
+        if (streamManager != null) {
+            return streamManager;
+        }
+        log.info("Creating new stream manager for {}", config.getControllerURI());
+        final StreamManager newStreamManager = createStreamManager(getClientConfig(config));
+        streamManagers.put(config.getControllerURI(), newStreamManager);
+        return newStreamManager;
+    }
+
+    /**
+     * Create the stream, and its scope if createScope is true, unless this has already been done.
+     * If another thread is creating the same stream, this waits for it.
+     */
+    public void createStream(PravegaClientConfig config, String streamName, boolean createScope) {
+        final String scopeKey = config.getControllerURI() + "/" + config.getScopeName();
+        if (createScope) {
+            runOnce(scopeKey, () -> getStreamManager(config).createScope(config.getScopeName()));
+        }
+        runOnce(scopeKey + "/" + streamName, () -> getStreamManager(config).createStream(
+                config.getScopeName(), streamName, StreamConfiguration.builder().build()));
+    }
+
+    /**
+     * Get a writer for a device driver instance that shares one Pravega writer with the other instances
+     * that write to the same stream, with the same controller and the same exactlyOnce setting.
+     * The Pravega writer is created with the writer ID and the config of the first instance.
+     */
+    public synchronized EventWriter<byte[]> getSharedEventWriter(PravegaClientConfig config, String streamName, String writerId,
+                                                                 EventWriterConfig writerConfig, boolean exactlyOnce) {
+        final String key = config.getControllerURI() + "/" + config.getScopeName() + "/" + streamName + (exactlyOnce ? " (transactional)" : "");
+        final MultiplexedEventWriter<byte[]> sharedEventWriter = sharedEventWriters.get(key);
+        if (sharedEventWriter != null) {
+            final EventWriter<byte[]> writer = sharedEventWriter.newInstanceWriter();
+            // The shared writer is closed when its last instance is closed.
+            if (writer != null) {
+                log.info("Reusing shared writer for {}", key);
+                return writer;
+            }
+        }
+        log.info("Creating new shared writer {} for {}", writerId, key);
+        final MultiplexedEventWriter<byte[]> newSharedEventWriter = MultiplexedEventWriter.create(
+                getEventStreamClientFactory(config), writerId, streamName, new ByteArraySerializer(), writerConfig, exactlyOnce);
+        sharedEventWriters.put(key, newSharedEventWriter);
+        return newSharedEventWriter.newInstanceWriter();
+    }
+
+    protected StreamManager createStreamManager(ClientConfig clientConfig) {
+        return StreamManager.create(clientConfig);
+    }
+
+    /**
+     * Run the action unless an action with the same key has already succeeded.
+     * The action runs outside the lock so that different keys can be created concurrently.
+     */
+    private void runOnce(String key, Runnable action) {
+        final CompletableFuture<Void> future;
+        final boolean run;
+        synchronized (this) {
+            final CompletableFuture<Void> existing = createdScopesAndStreams.get(key);
+            if (existing == null) {
+                future = new CompletableFuture<>();
+                createdScopesAndStreams.put(key, future);
+                run = true;
+            } else {
+                future = existing;
+                run = false;
+            }
+        }
+        if (!run) {
+            log.info("Reusing {}", key);
+            future.join();
+            return;
+        }
+        try {
+            log.info("Creating {}", key);
+            action.run();
+            future.complete(null);
+        } catch (RuntimeException e) {
+            // Allow a later caller to try again.
+            synchronized (this) {
+                createdScopesAndStreams.remove(key);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
     @Override
     public void close() throws Exception {
+        sharedEventWriters.values().forEach(MultiplexedEventWriter::close);
         eventStreamClientFactories.values().forEach(EventStreamClientFactory::close);
+        streamManagers.values().forEach(StreamManager::close);
     }
 }
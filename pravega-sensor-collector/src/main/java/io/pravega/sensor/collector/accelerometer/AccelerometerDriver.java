@@ -13,7 +13,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Files;
 import io.pravega.sensor.collector.DeviceDriverConfig;
+import io.pravega.sensor.collector.simple.SamplesFormat;
 import io.pravega.sensor.collector.simple.SimpleDeviceDriver;
+import io.pravega.sensor.collector.util.ColumnarSamplesEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,9 +41,11 @@ public class AccelerometerDriver extends SimpleDeviceDriver<AccelerometerRawData
     private final List<Double> scales;
     private final RandomAccessFile randomAccessFile;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final SamplesFormat samplesFormat;
 
     public AccelerometerDriver(DeviceDriverConfig config) {
         super(config);
+        samplesFormat = getSamplesFormat();
 
         final String sensorConfigurationDeviceFileName = getSensorConfigurationDeviceFileName();
         final String sensorDataDeviceFileName = getSensorDataDeviceFileName();
@@ -91,12 +95,23 @@ public class AccelerometerDriver extends SimpleDeviceDriver<AccelerometerRawData
 
     @Override
     public void decodeRawDataToSamples(AccelerometerSamples samples, AccelerometerRawData rawSensorData) {
-        final ByteBuffer byteBuffer = ByteBuffer.wrap(rawSensorData.bytes).order(ByteOrder.LITTLE_ENDIAN);
+        decodeSamples(samples, rawSensorData.bytes, scales);
+    }
+
+    /**
+     * Decode raw samples read from the IIO device. This does not depend on the device, so it can be benchmarked.
+     * @param scales scale for x, y, z
+     */
+    static void decodeSamples(AccelerometerSamples samples, byte[] bytes, List<Double> scales) {
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        final double xScale = scales.get(0);
+        final double yScale = scales.get(1);
+        final double zScale = scales.get(2);
         while (byteBuffer.hasRemaining()) {
             // 1 byte for each direction.
-            samples.x.add(byteBuffer.get() * scales.get(0));
-            samples.y.add(byteBuffer.get() * scales.get(1));
-            samples.z.add(byteBuffer.get() * scales.get(2));
+            samples.x.add(byteBuffer.get() * xScale);
+            samples.y.add(byteBuffer.get() * yScale);
+            samples.z.add(byteBuffer.get() * zScale);
             // Skip 5 bytes of padding.
             byteBuffer.get();
             byteBuffer.getInt();
@@ -112,6 +127,20 @@ public class AccelerometerDriver extends SimpleDeviceDriver<AccelerometerRawData
 
     @Override
     public byte[] serializeSamples(AccelerometerSamples samples) throws Exception {
+        return serializeSamples(samples, samplesFormat, scales, mapper);
+    }
+
+    static byte[] serializeSamples(AccelerometerSamples samples, SamplesFormat samplesFormat, List<Double> scales, ObjectMapper mapper) throws Exception {
+        if (samplesFormat == SamplesFormat.BINARY) {
+            // Each axis is a raw byte multiplied by its scale, so fixed-point encoding is lossless.
+            return new ColumnarSamplesEncoder(samples.size())
+                    .addAttribute("RemoteAddr", samples.remoteAddr)
+                    .addLongColumn("TimestampNanos", samples.timestampNanos)
+                    .addFixedPointColumn("X", samples.x, scales.get(0))
+                    .addFixedPointColumn("Y", samples.y, scales.get(1))
+                    .addFixedPointColumn("Z", samples.z, scales.get(2))
+                    .toByteArray();
+        }
         samples.setLastTimestampFormatted();
         return mapper.writeValueAsBytes(samples);
     }
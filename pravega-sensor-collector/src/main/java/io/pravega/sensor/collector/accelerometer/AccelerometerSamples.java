@@ -11,14 +11,14 @@ package io.pravega.sensor.collector.accelerometer;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.pravega.sensor.collector.simple.Samples;
+import io.pravega.sensor.collector.util.DoubleArrayList;
+import io.pravega.sensor.collector.util.LongArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.TimeZone;
 
 public class AccelerometerSamples implements Samples {
@@ -31,13 +31,13 @@ public class AccelerometerSamples implements Samples {
 
     // Timestamps as nanoseconds since 1970-01-01.
     @JsonProperty("TimestampNanos")
-    public final List<Long> timestampNanos = new ArrayList<>();
+    public final LongArrayList timestampNanos = new LongArrayList();
     @JsonProperty("X")
-    public final List<Double> x = new ArrayList<>();
+    public final DoubleArrayList x = new DoubleArrayList();
     @JsonProperty("Y")
-    public final List<Double> y = new ArrayList<>();
+    public final DoubleArrayList y = new DoubleArrayList();
     @JsonProperty("Z")
-    public final List<Double> z = new ArrayList<>();
+    public final DoubleArrayList z = new DoubleArrayList();
     @JsonProperty("RemoteAddr")
     public final String remoteAddr;
     // The last timestamp formatted as a string.
@@ -71,7 +71,7 @@ public class AccelerometerSamples implements Samples {
     }
 
     @Override
-    public List<Long> getTimestampNanos() {
-        return timestampNanos;
+    public long timestampAt(int index) {
+        return timestampNanos.get(index);
     }
 }
@@ -9,11 +9,15 @@
  */
 package io.pravega.sensor.collector.file;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CountingInputStream;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.PravegaWriterEvent;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.function.Consumer;
 
 /**
@@ -32,4 +36,41 @@ public interface EventGenerator {
      */
     Pair<Long, Long> generateEventsFromInputStream(CountingInputStream inputStream, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException;
 
+    /**
+     * Generate events from a file, starting at the given offset.
+     * By default, the file is opened as a stream and passed to {@link #generateEventsFromInputStream}.
+     * File types that need random access can override this to read the file in place.
+     * @param file file name and offset at which to begin reading
+     * @param firstSequenceNumber
+     * @param consumer
+     * @return next sequence number, end offset
+     * @throws IOException
+     */
+    default Pair<Long, Long> generateEventsFromFile(FileNameWithOffset file, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
+        try (final InputStream inputStream = new FileInputStream(file.fileName)) {
+            final CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+            countingInputStream.skip(file.offset);
+            return generateEventsFromInputStream(countingInputStream, firstSequenceNumber, consumer);
+        }
+    }
+
+    /**
+     * Generate events from the region of a file between the given offset and end offset.
+     * This is used to tail a file that is still being written to, so only the bytes up to end offset may be read.
+     * By default, the region is opened as a stream and passed to {@link #generateEventsFromInputStream}.
+     * @param file file name and offset at which to begin reading
+     * @param endOffset offset at which to stop reading
+     * @param firstSequenceNumber
+     * @param consumer
+     * @return next sequence number, end offset
+     * @throws IOException
+     */
+    default Pair<Long, Long> generateEventsFromFile(FileNameWithOffset file, long endOffset, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
+        try (final InputStream inputStream = new FileInputStream(file.fileName)) {
+            final CountingInputStream countingInputStream = new CountingInputStream(ByteStreams.limit(inputStream, endOffset));
+            countingInputStream.skip(file.offset);
+            return generateEventsFromInputStream(countingInputStream, firstSequenceNumber, consumer);
+        }
+    }
+
 }
@@ -9,6 +9,8 @@
  */
 package io.pravega.sensor.collector.file;
 
+import io.pravega.sensor.collector.util.EventCompressor;
+
 /*
  * Configuration file.
  */
@@ -31,7 +33,52 @@ public class FileConfig {
 
     public final long minTimeInMillisToUpdateFile;
 
+    /**
+     * Number of files that may be ingested concurrently, each in its own Pravega transaction.
+     */
+    public final int parallelism;
+
+    /**
+     * Comma-separated names of the Parquet columns to ingest. Empty to ingest all columns.
+     */
+    public final String parquetColumns;
+
+    /**
+     * If greater than 0, raw files are split into chunks of at most this many bytes, each written as its own event.
+     */
+    public final int rawFileChunkSizeBytes;
+
+    /**
+     * If true, files are tailed: only whole lines appended since the last committed offset are ingested,
+     * and files are never moved or deleted.
+     */
+    public final boolean tailMode;
+
+    /**
+     * If true, new and modified files are discovered from file system change events instead of by listing
+     * the directories on every iteration.
+     */
+    public final boolean useWatchService;
+
+    /**
+     * The codec used to compress each event before it is written to Pravega.
+     */
+    public final EventCompressor.Codec eventCompression;
+
+    /**
+     * The compression level, from 0 to 9.
+     */
+    public final int eventCompressionLevel;
+
     public FileConfig(String stateDatabaseFileName, String fileSpec, String fileExtension, String routingKey, String streamName, String eventTemplateStr, int maxRecordsPerEvent, boolean enableDeleteCompletedFiles, boolean exactlyOnce, double transactionTimeoutMinutes, long minTimeInMillisToUpdateFile, String fileType) {
+        this(stateDatabaseFileName, fileSpec, fileExtension, routingKey, streamName, eventTemplateStr, maxRecordsPerEvent, enableDeleteCompletedFiles, exactlyOnce, transactionTimeoutMinutes, minTimeInMillisToUpdateFile, fileType, 1, "", 0, false, false);
+    }
+
+    public FileConfig(String stateDatabaseFileName, String fileSpec, String fileExtension, String routingKey, String streamName, String eventTemplateStr, int maxRecordsPerEvent, boolean enableDeleteCompletedFiles, boolean exactlyOnce, double transactionTimeoutMinutes, long minTimeInMillisToUpdateFile, String fileType, int parallelism, String parquetColumns, int rawFileChunkSizeBytes, boolean tailMode, boolean useWatchService) {
+        this(stateDatabaseFileName, fileSpec, fileExtension, routingKey, streamName, eventTemplateStr, maxRecordsPerEvent, enableDeleteCompletedFiles, exactlyOnce, transactionTimeoutMinutes, minTimeInMillisToUpdateFile, fileType, parallelism, parquetColumns, rawFileChunkSizeBytes, tailMode, useWatchService, EventCompressor.Codec.NONE, 6);
+    }
+
+    public FileConfig(String stateDatabaseFileName, String fileSpec, String fileExtension, String routingKey, String streamName, String eventTemplateStr, int maxRecordsPerEvent, boolean enableDeleteCompletedFiles, boolean exactlyOnce, double transactionTimeoutMinutes, long minTimeInMillisToUpdateFile, String fileType, int parallelism, String parquetColumns, int rawFileChunkSizeBytes, boolean tailMode, boolean useWatchService, EventCompressor.Codec eventCompression, int eventCompressionLevel) {
         this.stateDatabaseFileName = stateDatabaseFileName;
         this.fileSpec = fileSpec;
         this.fileExtension = fileExtension;
@@ -44,6 +91,13 @@ public class FileConfig {
         this.transactionTimeoutMinutes = transactionTimeoutMinutes;
         this.minTimeInMillisToUpdateFile = minTimeInMillisToUpdateFile;
         this.fileType = fileType;
+        this.parallelism = parallelism;
+        this.parquetColumns = parquetColumns;
+        this.rawFileChunkSizeBytes = rawFileChunkSizeBytes;
+        this.tailMode = tailMode;
+        this.useWatchService = useWatchService;
+        this.eventCompression = eventCompression;
+        this.eventCompressionLevel = eventCompressionLevel;
     }
 
     @Override
@@ -60,6 +114,13 @@ public class FileConfig {
                 + ", enableDeleteCompletedFiles=" + enableDeleteCompletedFiles
                 + ", exactlyOnce=" + exactlyOnce
                 + ", transactionTimeoutMinutes=" + transactionTimeoutMinutes
+                + ", parallelism=" + parallelism
+                + ", parquetColumns='" + parquetColumns + '\''
+                + ", rawFileChunkSizeBytes=" + rawFileChunkSizeBytes
+                + ", tailMode=" + tailMode
+                + ", useWatchService=" + useWatchService
+                + ", eventCompression=" + eventCompression
+                + ", eventCompressionLevel=" + eventCompressionLevel
                 + '}';
     }
 }
@@ -9,17 +9,17 @@
  */
 package io.pravega.sensor.collector.file;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.pravega.client.EventStreamClientFactory;
 import io.pravega.sensor.collector.DeviceDriver;
 import io.pravega.sensor.collector.DeviceDriverConfig;
+import io.pravega.sensor.collector.util.EventCompressor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,6 +42,13 @@ public abstract class FileIngestService extends DeviceDriver {
     private static final String EXACTLY_ONCE_KEY = "EXACTLY_ONCE";
     private static final String TRANSACTION_TIMEOUT_MINUTES_KEY = "TRANSACTION_TIMEOUT_MINUTES";
     private static final String MIN_TIME_IN_MILLIS_TO_UPDATE_FILE_KEY = "MIN_TIME_IN_MILLIS_TO_UPDATE_FILE";
+    private static final String FILE_INGEST_PARALLELISM_KEY = "FILE_INGEST_PARALLELISM";
+    private static final String PARQUET_COLUMNS_KEY = "PARQUET_COLUMNS";
+    private static final String RAW_FILE_CHUNK_SIZE_BYTES_KEY = "RAW_FILE_CHUNK_SIZE_BYTES";
+    private static final String TAIL_MODE_KEY = "TAIL_MODE";
+    private static final String USE_WATCH_SERVICE_KEY = "USE_WATCH_SERVICE";
+    private static final String EVENT_COMPRESSION_KEY = "EVENT_COMPRESSION";
+    private static final String EVENT_COMPRESSION_LEVEL_KEY = "EVENT_COMPRESSION_LEVEL";
 
     private static final int DEFAULT_SAMPLES_PER_EVENT_KEY = 100;
 
@@ -51,7 +58,7 @@ public abstract class FileIngestService extends DeviceDriver {
     private final ScheduledExecutorService executor;
 
     private ScheduledFuture<?> watchFiletask;
-    private ScheduledFuture<?> processFileTask;
+    private final List<ScheduledFuture<?>> processFileTasks = new ArrayList<>();
 
     public FileIngestService(DeviceDriverConfig config) {
         super(config);
@@ -67,16 +74,23 @@ public abstract class FileIngestService extends DeviceDriver {
                 getExactlyOnce(),
                 getTransactionTimeoutMinutes(),
                 getMinTimeInMillisToUpdateFile(),
-                config.getClassName());
+                config.getClassName(),
+                getFileIngestParallelism(),
+                getParquetColumns(),
+                getRawFileChunkSizeBytes(),
+                getTailMode(),
+                getUseWatchService(),
+                getEventCompression(),
+                getEventCompressionLevel());
         LOG.info("File Ingest Config: {}", fileSequenceConfig);
         final String scopeName = getScopeName();
         LOG.info("Scope: {}", scopeName);
         createStream(scopeName, getStreamName());
         final EventStreamClientFactory clientFactory = getEventStreamClientFactory(scopeName);
-        processor = FileProcessor.create(fileSequenceConfig, clientFactory);
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat(
-                FileIngestService.class.getSimpleName() + "-" + config.getInstanceName() + "-%d").build();
-        executor = Executors.newScheduledThreadPool(1, namedThreadFactory);
+        processor = FileProcessor.create(fileSequenceConfig, clientFactory, getMetricsRegistry(), config.getInstanceName());
+        // One thread watches for new files and the remaining threads are file workers.
+        executor = getDriverExecutors().scheduledExecutor(
+                FileIngestService.class.getSimpleName() + "-" + config.getInstanceName() + "-%d", 1 + fileSequenceConfig.parallelism);
     }
 
     String getFileSpec() {
@@ -134,6 +148,61 @@ public abstract class FileIngestService extends DeviceDriver {
         return Long.parseLong(getProperty(MIN_TIME_IN_MILLIS_TO_UPDATE_FILE_KEY, "5000"));
     }
 
+    /**
+     * Number of files that are ingested concurrently. Each file worker uses its own Pravega transaction.
+     * Files are ingested in alphabetical order only when this is 1.
+     */
+    int getFileIngestParallelism() {
+        return Math.max(1, Integer.parseInt(getProperty(FILE_INGEST_PARALLELISM_KEY, "1")));
+    }
+
+    /**
+     * Comma-separated names of the Parquet columns to ingest. Other columns are not decoded.
+     * Empty to ingest all columns.
+     */
+    String getParquetColumns() {
+        return getProperty(PARQUET_COLUMNS_KEY, "");
+    }
+
+    /**
+     * If greater than 0, raw files are split into chunks of at most this many bytes, each written as its own event.
+     * 0 writes each raw file as a single event.
+     */
+    int getRawFileChunkSizeBytes() {
+        return Integer.parseInt(getProperty(RAW_FILE_CHUNK_SIZE_BYTES_KEY, "0"));
+    }
+
+    /**
+     * If true, files that are still being written to are ingested incrementally.
+     * Each iteration ingests the whole lines appended since the last committed offset.
+     */
+    boolean getTailMode() {
+        return Boolean.parseBoolean(getProperty(TAIL_MODE_KEY, Boolean.toString(false)));
+    }
+
+    /**
+     * If true, new files are discovered from file system change events, and the directories are listed
+     * only at startup and when change events were lost.
+     * Otherwise, the directories are listed on every iteration.
+     */
+    boolean getUseWatchService() {
+        return Boolean.parseBoolean(getProperty(USE_WATCH_SERVICE_KEY, Boolean.toString(false)));
+    }
+
+    /**
+     * The codec used to compress each event: none or deflate.
+     */
+    EventCompressor.Codec getEventCompression() {
+        return EventCompressor.Codec.valueOf(getProperty(EVENT_COMPRESSION_KEY, EventCompressor.Codec.NONE.name()).toUpperCase());
+    }
+
+    /**
+     * The compression level, from 0 (fastest) to 9 (smallest).
+     */
+    int getEventCompressionLevel() {
+        return Integer.parseInt(getProperty(EVENT_COMPRESSION_LEVEL_KEY, Integer.toString(6)));
+    }
+
     protected void watchFiles() {
         LOG.trace("watchFiles: BEGIN");
         try {
@@ -164,15 +233,17 @@ public abstract class FileIngestService extends DeviceDriver {
                 getIntervalMs(),
                 TimeUnit.MILLISECONDS);
         /*
-        Submits a periodic action that becomes enabled immediately  for the first time,
+        Submits a periodic action per file worker that becomes enabled immediately  for the first time,
         and subsequently with the delay of 1 milliseconds between the termination of one execution and the commencement of the next
         ie immediately after completion of first action.
          */
-        processFileTask = executor.scheduleWithFixedDelay(
-                this::processFiles,
-                0,
-                1,
-                TimeUnit.MILLISECONDS);
+        for (int i = 0; i < getFileIngestParallelism(); i++) {
+            processFileTasks.add(executor.scheduleWithFixedDelay(
+                    this::processFiles,
+                    0,
+                    1,
+                    TimeUnit.MILLISECONDS));
+        }
         notifyStarted();
     }
 
@@ -180,6 +251,7 @@ public abstract class FileIngestService extends DeviceDriver {
     protected void doStop() {
         LOG.info("doStop: Cancelling ingestion task and process file task");
         watchFiletask.cancel(false);
-        processFileTask.cancel(false);
+        processFileTasks.forEach(task -> task.cancel(false));
+        processor.stopWatching();
     }
 }
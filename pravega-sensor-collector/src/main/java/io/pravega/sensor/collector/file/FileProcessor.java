@@ -9,16 +9,21 @@
  */
 package io.pravega.sensor.collector.file;
 
-import com.google.common.io.CountingInputStream;
 import io.pravega.client.EventStreamClientFactory;
 import io.pravega.client.stream.EventWriterConfig;
 import io.pravega.client.stream.Transaction;
 import io.pravega.client.stream.TxnFailedException;
 import io.pravega.client.stream.impl.ByteArraySerializer;
+import io.pravega.sensor.collector.metrics.Counter;
+import io.pravega.sensor.collector.metrics.LatencyHistogram;
+import io.pravega.sensor.collector.metrics.MetricsRegistry;
+import io.pravega.sensor.collector.util.DirectoryWatcher;
+import io.pravega.sensor.collector.util.EventCompressor;
 import io.pravega.sensor.collector.util.EventWriter;
 import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.FileUtils;
 import io.pravega.sensor.collector.util.PersistentId;
+import io.pravega.sensor.collector.util.PravegaWriterEvent;
 import io.pravega.sensor.collector.util.SQliteDBUtility;
 import io.pravega.sensor.collector.util.TransactionCoordinator;
 import io.pravega.sensor.collector.util.TransactionStateDB;
@@ -28,9 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.Path;
@@ -38,15 +41,24 @@ import java.sql.Connection;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.UUID;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Get list of files obtained from config. Process each file for ingestion.
  * Keep track of new files and delete ingested files if "DELETE_COMPLETED_FILES"=true.
+ *
+ * {@link #processFiles()} may be called concurrently by up to {@link FileConfig#parallelism} threads.
+ * Each call borrows its own writer, so each file is ingested in its own Pravega transaction,
+ * and a pending file is claimed by at most one thread at a time.
  */
 public abstract class FileProcessor {
     private static final Logger log = LoggerFactory.getLogger(FileProcessor.class);
@@ -56,7 +68,41 @@ public abstract class FileProcessor {
     private final EventWriter<byte[]> writer;
     private final TransactionCoordinator transactionCoordinator;
     private final EventGenerator eventGenerator;
+    private final EventCompressor eventCompressor;
     private final Path movedFilesDirectory;
+    /**
+     * Writers that are not currently used by a file worker.
+     */
+    private final BlockingQueue<EventWriter<byte[]>> idleWriters = new LinkedBlockingQueue<>();
+    /**
+     * Names of pending files that are currently being processed by a file worker.
+     */
+    private final Set<String> claimedFiles = new HashSet<>();
+    /**
+     * The next sequence number to assign to an event written by a file worker. Guarded by claimedFiles.
+     * Workers that claim files concurrently read the same next sequence number from the state database,
+     * so events are numbered from here as they are written.
+     */
+    private long nextAssignedSequenceNumber;
+    /**
+     * Discovers changed files from file system events if {@link FileConfig#useWatchService} is set.
+     * Guarded by watchLock.
+     */
+    private DirectoryWatcher directoryWatcher;
+    private final Object watchLock = new Object();
+    /**
+     * Set by {@link #stopWatching()}. Guarded by watchLock.
+     */
+    private boolean watchingStopped;
+    /**
+     * Metrics are registered again by {@link #create} before any file worker starts.
+     */
+    private Counter eventsWritten;
+    private Counter bytesWritten;
+    private Counter filesIngested;
+    private LatencyHistogram scanLatency;
+    private LatencyHistogram commitLatency;
+    private LatencyHistogram stateUpdateLatency;
 
     public FileProcessor(FileConfig config, TransactionStateDB state, EventWriter<byte[]> writer, TransactionCoordinator transactionCoordinator) {
         this.config = config;
@@ -64,18 +110,54 @@ public abstract class FileProcessor {
         this.writer = writer;
         this.transactionCoordinator = transactionCoordinator;
         this.eventGenerator = getEventGenerator(config);
+        this.eventCompressor = new EventCompressor(config.eventCompression, config.eventCompressionLevel);
         this.movedFilesDirectory = Paths.get(config.stateDatabaseFileName).getParent();
+        this.idleWriters.add(writer);
+        registerMetrics(new MetricsRegistry(), config.streamName);
     }
 
     public static FileProcessor create(
             FileConfig config, EventStreamClientFactory clientFactory) {
+        return create(config, clientFactory, new MetricsRegistry(), config.streamName);
+    }
+
+    public static FileProcessor create(
+            FileConfig config, EventStreamClientFactory clientFactory, MetricsRegistry metricsRegistry, String instanceName) {
 
         final Connection connection = SQliteDBUtility.createDatabase(config.stateDatabaseFileName);
 
         final String writerId = new PersistentId(connection).getPersistentId().toString();
         log.info("Writer ID: {}", writerId);
 
-        final EventWriter<byte[]> writer = EventWriter.create(
+        final EventWriter<byte[]> writer = createWriter(config, clientFactory, writerId);
+
+        final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, writer);
+        transactionCoordinator.performRecovery();
+
+        final TransactionStateDB state = new TransactionStateSQLiteImpl(connection, transactionCoordinator);
+        final FileProcessor processor = FileProcessorFactory.createFileSequenceProcessor(config, state, writer, transactionCoordinator, writerId);
+        // Each additional file worker needs its own writer because a writer has at most one open transaction.
+        for (int i = 1; i < config.parallelism; i++) {
+            processor.idleWriters.add(createWriter(config, clientFactory, writerId + "-" + i));
+        }
+        processor.registerMetrics(metricsRegistry, instanceName);
+        return processor;
+    }
+
+    private void registerMetrics(MetricsRegistry metricsRegistry, String instanceName) {
+        eventsWritten = metricsRegistry.counter("psc_events_written_total", "Events written to Pravega.", instanceName);
+        bytesWritten = metricsRegistry.counter("psc_bytes_written_total", "Bytes written to Pravega.", instanceName);
+        filesIngested = metricsRegistry.counter("psc_files_ingested_total", "Files whose events were committed to Pravega.", instanceName);
+        scanLatency = metricsRegistry.latencyHistogram("psc_file_scan_seconds",
+                "Time to list the directories and record new files.", instanceName);
+        commitLatency = metricsRegistry.latencyHistogram("psc_pravega_commit_seconds",
+                "Time to commit a Pravega transaction.", instanceName);
+        stateUpdateLatency = metricsRegistry.latencyHistogram("psc_file_state_update_seconds",
+                "Time to record an ingested file in the state database.", instanceName);
+    }
+
+    private static EventWriter<byte[]> createWriter(FileConfig config, EventStreamClientFactory clientFactory, String writerId) {
+        return EventWriter.create(
                 clientFactory,
                 writerId,
                 config.streamName,
@@ -85,13 +167,6 @@ public abstract class FileProcessor {
                         .transactionTimeoutTime((long) (config.transactionTimeoutMinutes * 60.0 * 1000.0))
                         .build(),
                 config.exactlyOnce);
-
-        final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, writer);
-        transactionCoordinator.performRecovery();
-
-        final TransactionStateDB state = new TransactionStateSQLiteImpl(connection, transactionCoordinator);
-        return FileProcessorFactory.createFileSequenceProcessor(config, state, writer, transactionCoordinator, writerId);
-
     }
 
     /* The abstract method serves as an Event Generator responsible for generating events.
@@ -102,7 +177,31 @@ public abstract class FileProcessor {
     public abstract EventGenerator getEventGenerator(FileConfig config);
 
     public void watchFiles() throws Exception {
-        findAndRecordNewFiles();
+        synchronized (watchLock) {
+            if (watchingStopped) {
+                return;
+            }
+            final long startNanos = System.nanoTime();
+            findAndRecordNewFiles();
+            scanLatency.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Stop discovering new files and close the directory watcher. Waits for a scan in progress to finish.
+     */
+    public void stopWatching() {
+        synchronized (watchLock) {
+            watchingStopped = true;
+            if (directoryWatcher != null) {
+                try {
+                    directoryWatcher.close();
+                } catch (IOException e) {
+                    log.warn("stopWatching: Unable to close directory watcher", e);
+                }
+                directoryWatcher = null;
+            }
+        }
     }
 
     public void processFiles() throws Exception {
@@ -116,21 +215,76 @@ public abstract class FileProcessor {
     }
 
     public void processNewFiles() throws Exception {
-        for (;;) {
-            // If nextFile is null then check for new files to process is handled as part of scheduleWithDelay
-            final Pair<FileNameWithOffset, Long> nextFile = state.getNextPendingFileRecord();
-            if (nextFile == null) {
-                log.debug("processNewFiles: No more files to watch");
-                break;
-            } else {
-                processFile(nextFile.getLeft(), nextFile.getRight());
+        final EventWriter<byte[]> workerWriter = idleWriters.take();
+        try {
+            for (;;) {
+                // If nextFile is null then check for new files to process is handled as part of scheduleWithDelay
+                final Pair<FileNameWithOffset, Long> nextFile = claimNextPendingFile();
+                if (nextFile == null) {
+                    log.debug("processNewFiles: No more files to watch");
+                    break;
+                } else {
+                    try {
+                        processFile(nextFile.getLeft(), nextFile.getRight(), workerWriter);
+                    } finally {
+                        releaseClaimedFile(nextFile.getLeft());
+                    }
+                }
+            }
+        } finally {
+            idleWriters.add(workerWriter);
+        }
+    }
+
+    /**
+     * Get the next pending file that is not being processed by another file worker and claim it.
+     * @return ((file name, begin offset), sequence number) or null if there is no unclaimed pending file
+     */
+    private Pair<FileNameWithOffset, Long> claimNextPendingFile() throws Exception {
+        synchronized (claimedFiles) {
+            final Pair<FileNameWithOffset, Long> nextFile = claimedFiles.isEmpty()
+                    ? state.getNextPendingFileRecord()
+                    : state.getNextPendingFileRecord(claimedFiles);
+            if (nextFile != null) {
+                claimedFiles.add(nextFile.getLeft().fileName);
             }
+            return nextFile;
+        }
+    }
+
+    /**
+     * Assign a sequence number to an event that is unique among the events of this process.
+     * @param claimedSequenceNumber next sequence number when the file of the event was claimed
+     * @return the assigned sequence number, which follows the claimed one unless files are processed concurrently
+     */
+    private long assignSequenceNumber(long claimedSequenceNumber) {
+        synchronized (claimedFiles) {
+            final long sequenceNumber = Long.max(nextAssignedSequenceNumber, claimedSequenceNumber);
+            nextAssignedSequenceNumber = sequenceNumber + 1;
+            return sequenceNumber;
+        }
+    }
+
+    private void releaseClaimedFile(FileNameWithOffset file) {
+        synchronized (claimedFiles) {
+            claimedFiles.remove(file.fileName);
         }
     }
 
     protected void findAndRecordNewFiles() throws Exception {
         final List<FileNameWithOffset> directoryListing = getDirectoryListing();
-        final List<FileNameWithOffset> completedFiles = state.getCompletedFileRecords();
+        if (config.tailMode) {
+            final List<FileNameWithOffset> tailedFiles = state.getTailedFileRecords();
+            // A file worker may commit a tailed file after this snapshot, so the state database
+            // rejects pending records that begin before the committed offset.
+            state.addTailedPendingFileRecords(getGrownFiles(directoryListing, tailedFiles), getTruncatedFiles(directoryListing, tailedFiles));
+            deleteVanishedTailedFiles(directoryListing, tailedFiles);
+            return;
+        }
+        if (directoryListing.isEmpty()) {
+            return;
+        }
+        final List<FileNameWithOffset> completedFiles = state.getCompletedFileRecords(directoryListing);
         final List<FileNameWithOffset> newFiles = getNewFiles(directoryListing, completedFiles);
         state.addPendingFileRecords(newFiles);
     }
@@ -141,14 +295,50 @@ public abstract class FileProcessor {
      * @throws IOException If unable to list files
      */
     protected List<FileNameWithOffset> getDirectoryListing() throws IOException {
+        if (config.useWatchService) {
+            if (directoryWatcher == null) {
+                final List<Path> directories = new ArrayList<>();
+                for (String directory : config.fileSpec.split(",")) {
+                    directories.add(Paths.get(directory));
+                }
+                directoryWatcher = new DirectoryWatcher(directories);
+            }
+            if (directoryWatcher.isRescanNeeded()) {
+                try {
+                    // The rescan collects every file, including those that are too recent for a directory listing.
+                    directoryWatcher.prepareRescan();
+                } catch (IOException e) {
+                    log.warn("getDirectoryListing: Unable to watch directories, they will be listed on every iteration", e);
+                }
+            }
+            if (!directoryWatcher.isRescanNeeded()) {
+                return getChangedFileListing();
+            }
+        }
         log.debug("getDirectoryListing: fileSpec={}", config.fileSpec);
         //Invalid files will be moved to a separate folder Failed_Files parallel to the database file
         log.debug("movedFilesDirectory: {}", movedFilesDirectory);
-        final List<FileNameWithOffset> directoryListing = FileUtils.getDirectoryListing(config.fileSpec, config.fileExtension, movedFilesDirectory, config.minTimeInMillisToUpdateFile);
+        // Tailed files are expected to be written to, so they are listed regardless of their last modified time.
+        final List<FileNameWithOffset> directoryListing = config.tailMode
+                ? FileUtils.getDirectoryListing(config.fileSpec, config.fileExtension, movedFilesDirectory, 0, true)
+                : FileUtils.getDirectoryListing(config.fileSpec, config.fileExtension, movedFilesDirectory, config.minTimeInMillisToUpdateFile);
         log.debug("getDirectoryListing: directoryListing={}", directoryListing);
         return directoryListing;
     }
 
+    /**
+     * Get the files that were created or modified since the previous iteration, as reported by the directory watcher.
+     * @return list of file name and file size in bytes
+     * @throws IOException If unable to move an invalid file
+     */
+    private List<FileNameWithOffset> getChangedFileListing() throws IOException {
+        final long minTimeInMillisToUpdateFile = config.tailMode ? 0 : config.minTimeInMillisToUpdateFile;
+        final List<Path> changedFiles = directoryWatcher.getChangedFiles(minTimeInMillisToUpdateFile);
+        final List<FileNameWithOffset> fileListing = FileUtils.getFileListing(changedFiles, config.fileExtension, movedFilesDirectory, config.tailMode);
+        log.debug("getChangedFileListing: fileListing={}", fileListing);
+        return fileListing;
+    }
+
     /**
      * Get list of new files.
      * @param directoryListing list of directories
@@ -177,9 +367,76 @@ public abstract class FileProcessor {
         return newFiles;
     }
 
+    /**
+     * Get list of tailed files that have grown since their committed offset.
+     * A file that is smaller than its committed offset was truncated or replaced, so it is read again from the beginning.
+     * @param directoryListing list of file name and file size in bytes
+     * @param tailedFiles list of file name and committed offset
+     * @return sorted list of file name and offset from which to continue reading
+     */
+    protected List<FileNameWithOffset> getGrownFiles(List<FileNameWithOffset> directoryListing, List<FileNameWithOffset> tailedFiles) {
+        final ArrayList<FileNameWithOffset> sortedDirectoryListing = new ArrayList<>(directoryListing);
+        Collections.sort(sortedDirectoryListing);
+        final Map<String, Long> committedOffsets = new HashMap<>();
+        tailedFiles.forEach(file -> committedOffsets.put(file.fileName, file.offset));
+        final List<FileNameWithOffset> grownFiles = new ArrayList<>();
+        sortedDirectoryListing.forEach(dirFile -> {
+            final long committedOffset = committedOffsets.getOrDefault(dirFile.fileName, 0L);
+            if (dirFile.offset > committedOffset) {
+                grownFiles.add(new FileNameWithOffset(dirFile.fileName, committedOffset));
+            } else if (dirFile.offset < committedOffset) {
+                log.warn("File: {} is smaller than its committed offset {}, it will be read again from the beginning", dirFile.fileName, committedOffset);
+                grownFiles.add(new FileNameWithOffset(dirFile.fileName, 0));
+            }
+        });
+        log.debug("getGrownFiles: grown file lists = {}", grownFiles);
+        return grownFiles;
+    }
+
+    /**
+     * Get list of tailed files that are smaller than their committed offset.
+     * @param directoryListing list of file name and file size in bytes
+     * @param tailedFiles list of file name and committed offset
+     * @return list of file name and file size in bytes
+     */
+    protected List<FileNameWithOffset> getTruncatedFiles(List<FileNameWithOffset> directoryListing, List<FileNameWithOffset> tailedFiles) {
+        final Map<String, Long> committedOffsets = new HashMap<>();
+        tailedFiles.forEach(file -> committedOffsets.put(file.fileName, file.offset));
+        final List<FileNameWithOffset> truncatedFiles = new ArrayList<>();
+        directoryListing.forEach(dirFile -> {
+            if (dirFile.offset < committedOffsets.getOrDefault(dirFile.fileName, 0L)) {
+                truncatedFiles.add(dirFile);
+            }
+        });
+        return truncatedFiles;
+    }
+
+    /**
+     * Forget the committed offsets of tailed files that no longer exist.
+     */
+    private void deleteVanishedTailedFiles(List<FileNameWithOffset> directoryListing, List<FileNameWithOffset> tailedFiles) throws Exception {
+        final Set<String> listedFileNames = new HashSet<>();
+        directoryListing.forEach(file -> listedFileNames.add(file.fileName));
+        for (FileNameWithOffset file : tailedFiles) {
+            if (!listedFileNames.contains(file.fileName) && Files.notExists(Paths.get(file.fileName))) {
+                log.info("deleteVanishedTailedFiles: File {} no longer exists", file.fileName);
+                state.deleteTailedFileRecord(file.fileName);
+            }
+        }
+    }
+
     void processFile(FileNameWithOffset fileNameWithBeginOffset, long firstSequenceNumber) throws Exception {
-        log.info("processFile: Ingesting file {}; beginOffset={}, firstSequenceNumber={}",
-                fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset, firstSequenceNumber);
+        processFile(fileNameWithBeginOffset, firstSequenceNumber, writer);
+    }
+
+    void processFile(FileNameWithOffset pendingFileNameWithOffset, long firstSequenceNumber, EventWriter<byte[]> writer) throws Exception {
+        // A pending record of a tailed file may be older than the latest commit. Never read committed bytes again.
+        final FileNameWithOffset fileNameWithBeginOffset = config.tailMode
+                ? new FileNameWithOffset(pendingFileNameWithOffset.fileName,
+                        Long.max(pendingFileNameWithOffset.offset, state.getTailedFileOffset(pendingFileNameWithOffset.fileName)))
+                : pendingFileNameWithOffset;
+        log.info("processFile: Ingesting file {}; beginOffset={}",
+                fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset);
 
         AtomicLong numOfBytes = new AtomicLong(0);
         long timestamp = System.nanoTime();
@@ -201,39 +458,69 @@ public abstract class FileProcessor {
             return;
         }
 
-        try (final InputStream inputStream = new FileInputStream(fileNameWithBeginOffset.fileName)) {
-            final CountingInputStream countingInputStream = new CountingInputStream(inputStream);
-            countingInputStream.skip(fileNameWithBeginOffset.offset);
-            final Pair<Long, Long> result = eventGenerator.generateEventsFromInputStream(countingInputStream, firstSequenceNumber,
-                    e -> {
-                        log.trace("processFile: event={}", e);
-                        try {
-                             writer.writeEvent(e.routingKey, e.bytes);
-                            numOfBytes.addAndGet(e.bytes.length);
-                        } catch (TxnFailedException ex) {
-                            log.error("processFile: Write event to transaction failed with exception {} while processing file: {}, event: {}", ex, fileNameWithBeginOffset.fileName, e);
-
-                            /* TODO while writing event if we get Transaction failed exception then should we abort the trasaction and process again?
-                               This will occur only if Transaction state is not open */
-
-                            throw new RuntimeException(ex);
-                        }
-                    });
-            final Optional<UUID> txnId = writer.flush();
-            final long nextSequenceNumber = result.getLeft();
-            final long endOffset = result.getRight();
+        // When tailing, only whole lines are ingested. A partially written last line is left for the next iteration.
+        final long tailEndOffset = config.tailMode
+                ? FileUtils.findEndOfLastLine(pendingFile.toPath(), fileNameWithBeginOffset.offset, pendingFile.length())
+                : -1;
+        if (config.tailMode && tailEndOffset <= fileNameWithBeginOffset.offset) {
+            log.debug("processFile: No complete line was appended to file {}", fileNameWithBeginOffset.fileName);
+            state.deletePendingFile(fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset);
+            return;
+        }
+
+        // Generators number events from firstSequenceNumber, which another file worker may have claimed too.
+        final AtomicLong nextSequenceNumberOfFile = new AtomicLong(firstSequenceNumber);
+        final Consumer<PravegaWriterEvent> consumer = generatedEvent -> {
+            final PravegaWriterEvent e = new PravegaWriterEvent(generatedEvent.routingKey,
+                    assignSequenceNumber(firstSequenceNumber), generatedEvent.bytes);
+            nextSequenceNumberOfFile.set(e.sequenceNumber + 1);
+            log.trace("processFile: event={}", e);
+            try {
+                final byte[] eventBytes = eventCompressor.compress(e.bytes);
+                writer.writeEvent(e.routingKey, eventBytes);
+                numOfBytes.addAndGet(e.bytes.length);
+                eventsWritten.increment();
+                bytesWritten.add(eventBytes.length);
+            } catch (TxnFailedException ex) {
+                log.error("processFile: Write event to transaction failed with exception {} while processing file: {}, event: {}", ex, fileNameWithBeginOffset.fileName, e);
+
+                /* TODO while writing event if we get Transaction failed exception then should we abort the trasaction and process again?
+                   This will occur only if Transaction state is not open */
 
+                throw new RuntimeException(ex);
+            }
+        };
+        final Pair<Long, Long> result = config.tailMode
+                ? eventGenerator.generateEventsFromFile(fileNameWithBeginOffset, tailEndOffset, firstSequenceNumber, consumer)
+                : eventGenerator.generateEventsFromFile(fileNameWithBeginOffset, firstSequenceNumber, consumer);
+        final Optional<UUID> txnId = writer.flush();
+        final long nextSequenceNumber = nextSequenceNumberOfFile.get();
+        final long endOffset = result.getRight();
+
+        // Prevent recovery performed by other file workers from committing this transaction concurrently.
+        transactionCoordinator.trackInFlightTransaction(txnId);
+        try {
             // injectCommitFailure();
             try {
                 // commit fails only if Transaction is not in open state.
                 log.info("processFile: Commit transaction for Id: {}; file: {}", txnId.orElse(null), fileNameWithBeginOffset.fileName);
+                final long commitStartNanos = System.nanoTime();
                 writer.commit();
+                commitLatency.recordSince(commitStartNanos);
             } catch (TxnFailedException ex) {
                 log.error("processFile: Commit transaction for id: {}, file : {}, failed with exception: {}", txnId, fileNameWithBeginOffset.fileName, ex);
                 throw new RuntimeException(ex);
             }
-            log.debug("processFile: Adding completed file: {}",  fileNameWithBeginOffset.fileName);
-            state.addCompletedFileRecord(fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset, endOffset, nextSequenceNumber, txnId);
+            final long stateUpdateStartNanos = System.nanoTime();
+            if (config.tailMode) {
+                log.debug("processFile: Committing offset {} of tailed file: {}", endOffset, fileNameWithBeginOffset.fileName);
+                state.addTailedFileRecord(fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset, endOffset, nextSequenceNumber, txnId);
+            } else {
+                log.debug("processFile: Adding completed file: {}", fileNameWithBeginOffset.fileName);
+                state.addCompletedFileRecord(fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset, endOffset, nextSequenceNumber, txnId);
+            }
+            stateUpdateLatency.recordSince(stateUpdateStartNanos);
+            filesIngested.increment();
             // Add to completed file list only if commit is successfull else it will be taken care as part of recovery
             if (txnId.isPresent()) {
                 Transaction.Status status = writer.getTransactionStatus(txnId.get());
@@ -241,13 +528,20 @@ public abstract class FileProcessor {
                     state.deleteTransactionToCommit(txnId);
                 }
             }
+        } finally {
+            // Any transaction left in TransactionsToCommit is now the responsibility of recovery.
+            transactionCoordinator.untrackInFlightTransaction(txnId);
+        }
 
-            double elapsedSec = (System.nanoTime() - timestamp) / 1_000_000_000.0;
-            double megabyteCount = numOfBytes.getAndSet(0) / 1_000_000.0;
-            double megabytesPerSec = megabyteCount / elapsedSec;
-            log.info("Sent {} MB in {} sec. Transfer rate: {} MB/sec ", megabyteCount, elapsedSec, megabytesPerSec);
-            log.info("processFile: Finished ingesting file {}; endOffset={}, nextSequenceNumber={}",
-                    fileNameWithBeginOffset.fileName, endOffset, nextSequenceNumber);
+        double elapsedSec = (System.nanoTime() - timestamp) / 1_000_000_000.0;
+        double megabyteCount = numOfBytes.getAndSet(0) / 1_000_000.0;
+        double megabytesPerSec = megabyteCount / elapsedSec;
+        log.info("Sent {} MB in {} sec. Transfer rate: {} MB/sec ", megabyteCount, elapsedSec, megabytesPerSec);
+        log.info("processFile: Finished ingesting file {}; endOffset={}, nextSequenceNumber={}",
+                fileNameWithBeginOffset.fileName, endOffset, nextSequenceNumber);
+        if (config.tailMode) {
+            // Tailed files may still be written to, so they are never moved or deleted.
+            return;
         }
         FileUtils.moveCompletedFile(fileNameWithBeginOffset, movedFilesDirectory);
         // Delete file right after ingesting
@@ -258,6 +552,7 @@ public abstract class FileProcessor {
 
     void deleteCompletedFiles() throws Exception {
         final List<FileNameWithOffset> completedFiles = state.getCompletedFileRecords();
+        final List<String> deletedFileNames = new ArrayList<>();
         completedFiles.forEach(file -> {
             //Obtain a lock on file
             Path completedFilesPath = movedFilesDirectory.resolve(FileUtils.COMPLETED_FILES);
@@ -268,7 +563,7 @@ public abstract class FileProcessor {
                 /* If file gets deleted from completed files directory, or it does not exist in default ingestion directory
                  * then only remove the record from DB. */
                 if (Files.deleteIfExists(filePath) || Files.notExists(Paths.get(file.fileName))) {
-                    state.deleteCompletedFileRecord(file.fileName);
+                    deletedFileNames.add(file.fileName);
                     log.debug("deleteCompletedFiles: Deleted File default name:{}, and it's completed file name:{}.", file.fileName, filePath);
                 } else {
                     /* This situation occurs because at first attempt moving file to completed directory fails, but the file still exists in default ingestion directory.
@@ -281,6 +576,8 @@ public abstract class FileProcessor {
                 // We can continue on this error. Deletion will be retried on the next iteration.
             }
         });
+        // Remove the records of all deleted files in a single transaction.
+        state.deleteCompletedFileRecords(deletedFileNames);
     }
 
     /**
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.file.csvfile;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Type of a CSV column, as inferred by {@link CsvSchema}.
+ * Each type checks cells without throwing exceptions and writes them as the matching JSON type.
+ * Cells that do not match the type of their column are written as strings, except that numbers in a
+ * {@link #LONG} column that do not fit a long are widened to doubles.
+ */
+public enum CsvColumnType {
+    LONG {
+        @Override
+        public boolean accepts(String s) {
+            return isLong(s);
+        }
+
+        @Override
+        void writeTyped(JsonGenerator generator, String s) throws IOException {
+            generator.writeNumber(Long.parseLong(s));
+        }
+
+        @Override
+        public void write(JsonGenerator generator, String s) throws IOException {
+            if (!accepts(s) && DOUBLE.accepts(s)) {
+                DOUBLE.writeTyped(generator, s);
+            } else {
+                super.write(generator, s);
+            }
+        }
+    },
+    DOUBLE {
+        @Override
+        public boolean accepts(String s) {
+            return isDecimal(s);
+        }
+
+        @Override
+        void writeTyped(JsonGenerator generator, String s) throws IOException {
+            generator.writeNumber(Double.parseDouble(s));
+        }
+    },
+    BOOLEAN {
+        @Override
+        public boolean accepts(String s) {
+            return "true".equalsIgnoreCase(s) || "false".equalsIgnoreCase(s);
+        }
+
+        @Override
+        void writeTyped(JsonGenerator generator, String s) throws IOException {
+            generator.writeBoolean("true".equalsIgnoreCase(s));
+        }
+    },
+    /**
+     * ISO-8601 style date and time such as 2020-07-15 23:59:50.352 or 2020-07-15T23:59:50Z.
+     * Timestamps are written unchanged as strings.
+     */
+    TIMESTAMP {
+        @Override
+        public boolean accepts(String s) {
+            return isTimestamp(s);
+        }
+
+        @Override
+        void writeTyped(JsonGenerator generator, String s) throws IOException {
+            generator.writeString(s);
+        }
+    },
+    STRING {
+        @Override
+        public boolean accepts(String s) {
+            return true;
+        }
+
+        @Override
+        void writeTyped(JsonGenerator generator, String s) throws IOException {
+            generator.writeString(s);
+        }
+    };
+
+    private static final String MAX_LONG_DIGITS = Long.toString(Long.MAX_VALUE);
+    private static final String MIN_LONG_DIGITS = Long.toString(Long.MIN_VALUE).substring(1);
+    /**
+     * d is a digit and ? is the separator between date and time.
+     */
+    private static final String DATE_TIME_PATTERN = "dddd-dd-dd?dd:dd:dd";
+
+    /**
+     * @return true if the cell can be parsed as this type.
+     */
+    public abstract boolean accepts(String s);
+
+    /**
+     * Write a cell that is known to be accepted by this type.
+     */
+    abstract void writeTyped(JsonGenerator generator, String s) throws IOException;
+
+    /**
+     * Write a cell as this type, or as a string if the cell cannot be parsed as this type.
+     */
+    public void write(JsonGenerator generator, String s) throws IOException {
+        if (accepts(s)) {
+            writeTyped(generator, s);
+        } else {
+            generator.writeString(s);
+        }
+    }
+
+    /**
+     * @return true if {@link Long#parseLong(String)} will succeed.
+     */
+    static boolean isLong(String s) {
+        final int length = s.length();
+        final boolean negative = length > 0 && s.charAt(0) == '-';
+        final int start = length > 0 && (negative || s.charAt(0) == '+') ? 1 : 0;
+        final int numDigits = length - start;
+        if (numDigits == 0 || numDigits > MAX_LONG_DIGITS.length()) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        if (numDigits < MAX_LONG_DIGITS.length()) {
+            return true;
+        }
+        // Same number of digits as the limit, so lexicographic order is numeric order.
+        final String limit = negative ? MIN_LONG_DIGITS : MAX_LONG_DIGITS;
+        return s.substring(start).compareTo(limit) <= 0;
+    }
+
+    /**
+     * @return true if the string is a plain decimal number, with optional sign, fraction and exponent.
+     * Every such string is accepted by {@link Double#parseDouble(String)}.
+     */
+    static boolean isDecimal(String s) {
+        final int length = s.length();
+        int i = 0;
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            i++;
+        }
+        int mantissaDigits = 0;
+        while (i < length && isDigit(s.charAt(i))) {
+            i++;
+            mantissaDigits++;
+        }
+        if (i < length && s.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+                mantissaDigits++;
+            }
+        }
+        if (mantissaDigits == 0) {
+            return false;
+        }
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                i++;
+            }
+            final int exponentStart = i;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    /**
+     * @return true if the string looks like yyyy-MM-dd[ T]HH:mm:ss, with optional fraction of a second
+     * and optional zone (Z, +HH:mm or +HHmm).
+     */
+    static boolean isTimestamp(String s) {
+        if (!matchesDateTime(s)) {
+            return false;
+        }
+        final int zoneStart = skipFraction(s, DATE_TIME_PATTERN.length());
+        return zoneStart >= 0 && isZone(s.substring(zoneStart));
+    }
+
+    private static boolean matchesDateTime(String s) {
+        if (s.length() < DATE_TIME_PATTERN.length()) {
+            return false;
+        }
+        for (int i = 0; i < DATE_TIME_PATTERN.length(); i++) {
+            final char p = DATE_TIME_PATTERN.charAt(i);
+            final char c = s.charAt(i);
+            final boolean matches = p == 'd' ? isDigit(c) : p == '?' ? c == ' ' || c == 'T' : c == p;
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index after the optional fraction of a second that starts at i, or -1 if the fraction has no digits.
+     */
+    private static int skipFraction(String s, int i) {
+        if (i >= s.length() || s.charAt(i) != '.') {
+            return i;
+        }
+        int end = i + 1;
+        while (end < s.length() && isDigit(s.charAt(end))) {
+            end++;
+        }
+        return end == i + 1 ? -1 : end;
+    }
+
+    private static boolean isZone(String zone) {
+        if (zone.isEmpty() || zone.equals("Z")) {
+            return true;
+        }
+        if (zone.charAt(0) != '+' && zone.charAt(0) != '-') {
+            return false;
+        }
+        final String offset = zone.length() == 6 && zone.charAt(3) == ':'
+                ? zone.substring(1, 3) + zone.substring(4) : zone.substring(1);
+        return offset.length() == 4 && offset.chars().allMatch(c -> isDigit((char) c));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
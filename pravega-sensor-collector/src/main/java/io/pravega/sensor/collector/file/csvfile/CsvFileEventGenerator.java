@@ -9,10 +9,16 @@
  */
 package io.pravega.sensor.collector.file.csvfile;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Iterators;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CountingInputStream;
 import io.pravega.sensor.collector.file.EventGenerator;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.PravegaWriterEvent;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -22,9 +28,13 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
@@ -33,26 +43,53 @@ import java.util.function.Consumer;
  * Generate Event from CSV file.
  */
 public class CsvFileEventGenerator implements EventGenerator {
+    /**
+     * Default number of rows at the beginning of each file that are used to infer the column types.
+     */
+    public static final int DEFAULT_SCHEMA_SAMPLE_ROWS = 100;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(CsvFileEventGenerator.class);
 
     private final String routingKey;
     private final int maxRecordsPerEvent;
     private final ObjectNode eventTemplate;
     private final ObjectMapper mapper;
+    private final int schemaSampleRows;
+    /**
+     * Receives the schema inferred for each file, on the thread that generates the events of the file,
+     * before the first event of the file.
+     */
+    private final Consumer<CsvSchema> schemaListener;
 
     public CsvFileEventGenerator(String routingKey, int maxRecordsPerEvent, ObjectNode eventTemplate, ObjectMapper mapper) {
+        this(routingKey, maxRecordsPerEvent, eventTemplate, mapper, DEFAULT_SCHEMA_SAMPLE_ROWS);
+    }
+
+    public CsvFileEventGenerator(String routingKey, int maxRecordsPerEvent, ObjectNode eventTemplate, ObjectMapper mapper, int schemaSampleRows) {
+        this(routingKey, maxRecordsPerEvent, eventTemplate, mapper, schemaSampleRows, schema -> { });
+    }
+
+    public CsvFileEventGenerator(String routingKey, int maxRecordsPerEvent, ObjectNode eventTemplate, ObjectMapper mapper, int schemaSampleRows,
+                                 Consumer<CsvSchema> schemaListener) {
         this.routingKey = routingKey;
         this.maxRecordsPerEvent = maxRecordsPerEvent;
         this.eventTemplate = eventTemplate;
         this.mapper = mapper;
+        this.schemaSampleRows = Math.max(1, schemaSampleRows);
+        this.schemaListener = schemaListener;
     }
 
     public static CsvFileEventGenerator create(String routingKey, int maxRecordsPerEvent, String eventTemplateStr, String writerId) {
+        return create(routingKey, maxRecordsPerEvent, eventTemplateStr, writerId, schema -> { });
+    }
+
+    public static CsvFileEventGenerator create(String routingKey, int maxRecordsPerEvent, String eventTemplateStr, String writerId,
+                                               Consumer<CsvSchema> schemaListener) {
         try {
             final ObjectMapper mapper = new ObjectMapper();
             final ObjectNode eventTemplate = (ObjectNode) mapper.readTree(eventTemplateStr);
             eventTemplate.put("WriterId", writerId);
-            return new CsvFileEventGenerator(routingKey, maxRecordsPerEvent, eventTemplate, mapper);
+            return new CsvFileEventGenerator(routingKey, maxRecordsPerEvent, eventTemplate, mapper, DEFAULT_SCHEMA_SAMPLE_ROWS, schemaListener);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -62,7 +99,11 @@ public class CsvFileEventGenerator implements EventGenerator {
         return create(routingKey, maxRecordsPerEvent, "{}", "MyWriterId");
     }
 
-    /** Generate event from input stream. number of records in one event is defined in input config file
+    /** Generate event from input stream. number of records in one event is defined in input config file.
+     * Each batch of records is encoded as a JSON array of objects directly into a buffer that is reused for the
+     * whole file. Header names are encoded once per file, so no per-record maps are allocated.
+     * The type of each column is inferred from the first rows of the file (see {@link CsvSchema})
+     * and passed to the schema listener.
      * @param inputStream
      * @param firstSequenceNumber
      * @param consumer
@@ -70,42 +111,94 @@ public class CsvFileEventGenerator implements EventGenerator {
      * @return next sequence number, end offset
      */
     public Pair<Long, Long> generateEventsFromInputStream(CountingInputStream inputStream, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
-        final CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        return generateEvents(inputStream, CSVFormat.DEFAULT.withFirstRecordAsHeader(), firstSequenceNumber, consumer);
+    }
+
+    /**
+     * Generate events from a region of a CSV file.
+     * If the region does not start at the beginning of the file, the header is read from the first line of the file.
+     */
+    @Override
+    public Pair<Long, Long> generateEventsFromFile(FileNameWithOffset file, long endOffset, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
+        if (file.offset == 0) {
+            return EventGenerator.super.generateEventsFromFile(file, endOffset, firstSequenceNumber, consumer);
+        }
+        final String[] header;
+        try (CSVParser headerParser = CSVParser.parse(Paths.get(file.fileName), StandardCharsets.UTF_8, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+            header = headerParser.getHeaderNames().toArray(new String[0]);
+        }
+        try (final InputStream inputStream = new FileInputStream(file.fileName)) {
+            final CountingInputStream countingInputStream = new CountingInputStream(ByteStreams.limit(inputStream, endOffset));
+            countingInputStream.skip(file.offset);
+            return generateEvents(countingInputStream, CSVFormat.DEFAULT.withHeader(header), firstSequenceNumber, consumer);
+        }
+    }
+
+    private Pair<Long, Long> generateEvents(CountingInputStream inputStream, CSVFormat format, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
         final CSVParser parser = CSVParser.parse(inputStream, StandardCharsets.UTF_8, format);
+        final Iterator<CSVRecord> records = parser.iterator();
+        final List<CSVRecord> sample = new ArrayList<>();
+        while (sample.size() < schemaSampleRows && records.hasNext()) {
+            sample.add(records.next());
+        }
+        final CsvSchema schema = CsvSchema.infer(parser.getHeaderNames(), sample);
+        LOGGER.debug("generateEvents: schema={}", schema);
+        schemaListener.accept(schema);
+        final SerializableString[] fieldNames = parser.getHeaderNames().stream()
+                .map(SerializedString::new)
+                .toArray(SerializableString[]::new);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         long nextSequenceNumber = firstSequenceNumber;
         int numRecordsInEvent = 0;
-        List<HashMap<String, Object>> eventBatch = new ArrayList<>();
-        for (CSVRecord record : parser) {
-            HashMap<String, Object> recordDataMap = new HashMap<String, Object>();
-            for (int i = 0; i < record.size(); i++) {
-                recordDataMap.put(parser.getHeaderNames().get(i), convertValue(record.get(i)));
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+            // Each event is a separate JSON document, so nothing may be written between them.
+            generator.setRootValueSeparator(null);
+            final Iterator<CSVRecord> allRecords = Iterators.concat(sample.iterator(), records);
+            while (allRecords.hasNext()) {
+                final CSVRecord record = allRecords.next();
+                if (numRecordsInEvent == 0) {
+                    generator.writeStartArray();
+                }
+                generator.writeStartObject();
+                for (int i = 0; i < record.size(); i++) {
+                    generator.writeFieldName(fieldNames[i]);
+                    schema.getColumnType(i).write(generator, record.get(i));
+                }
+                generator.writeEndObject();
+                numRecordsInEvent++;
+                if (numRecordsInEvent >= maxRecordsPerEvent) {
+                    consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, endEvent(generator, buffer)));
+                    nextSequenceNumber++;
+                    numRecordsInEvent = 0;
+                }
             }
-            eventBatch.add(recordDataMap);
-            numRecordsInEvent++;
-            if (numRecordsInEvent >= maxRecordsPerEvent) {
-                consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, mapper.writeValueAsBytes(eventBatch)));
+            if (numRecordsInEvent > 0) {
+                consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, endEvent(generator, buffer)));
                 nextSequenceNumber++;
-                eventBatch.clear();
-                numRecordsInEvent = 0;
             }
         }
-        if (!eventBatch.isEmpty()) {
-            consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, mapper.writeValueAsBytes(eventBatch)));
-            nextSequenceNumber++;
-            eventBatch.clear();
-        }
         final long endOffset = inputStream.getCount();
         return new ImmutablePair<>(nextSequenceNumber, endOffset);
     }
 
+    /**
+     * Close the current JSON array and return its bytes. The buffer is reset so that it can be reused for the next event.
+     */
+    private static byte[] endEvent(JsonGenerator generator, ByteArrayOutputStream buffer) throws IOException {
+        generator.writeEndArray();
+        generator.flush();
+        final byte[] bytes = buffer.toByteArray();
+        buffer.reset();
+        return bytes;
+    }
+
     public Object convertValue(String s) {
-        // TODO: convert timestamp
-        try {
+        if (CsvColumnType.LONG.accepts(s)) {
             return Long.parseLong(s);
-        } catch (NumberFormatException ignored) { }
-        try {
+        }
+        if (CsvColumnType.DOUBLE.accepts(s)) {
             return Double.parseDouble(s);
-        } catch (NumberFormatException ignored) { }
+        }
         return s;
     }
 }
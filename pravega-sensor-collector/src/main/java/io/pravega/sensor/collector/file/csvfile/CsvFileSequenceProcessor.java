@@ -31,7 +31,7 @@ public class CsvFileSequenceProcessor extends FileProcessor {
     }
 
     /**
-     * Event generator for CSV file.
+     * Event generator for CSV file. The schema inferred for each file is logged by the file worker that processes it.
      * @param config configurations parameters
      * @return eventGenerator
      */
@@ -41,6 +41,7 @@ public class CsvFileSequenceProcessor extends FileProcessor {
                 config.routingKey,
                 config.maxRecordsPerEvent,
                 config.eventTemplateStr,
-                writerId);
+                writerId,
+                schema -> LOGGER.info("Inferred CSV schema {}", schema));
     }
 }
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.file.csvfile;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.csv.CSVRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column names and types of a CSV file.
+ * Types are inferred from a sample of rows at the beginning of the file.
+ */
+public class CsvSchema {
+    /**
+     * Candidate types, from most to least specific. A column gets the first type that accepts every non-empty
+     * sampled cell.
+     */
+    private static final CsvColumnType[] CANDIDATE_TYPES = {
+        CsvColumnType.LONG, CsvColumnType.DOUBLE, CsvColumnType.BOOLEAN, CsvColumnType.TIMESTAMP};
+
+    private final List<String> columnNames;
+    private final List<CsvColumnType> columnTypes;
+
+    public CsvSchema(List<String> columnNames, List<CsvColumnType> columnTypes) {
+        if (columnNames.size() != columnTypes.size()) {
+            throw new IllegalArgumentException("Number of column names and column types must be equal");
+        }
+        this.columnNames = ImmutableList.copyOf(columnNames);
+        this.columnTypes = ImmutableList.copyOf(columnTypes);
+    }
+
+    /**
+     * Infer the type of each column from a sample of records.
+     * Columns without any non-empty cell in the sample are strings.
+     * @param columnNames header names of the file
+     * @param sample records at the beginning of the file
+     * @return the inferred schema
+     */
+    public static CsvSchema infer(List<String> columnNames, List<CSVRecord> sample) {
+        final List<CsvColumnType> columnTypes = new ArrayList<>(columnNames.size());
+        for (int column = 0; column < columnNames.size(); column++) {
+            columnTypes.add(inferColumnType(column, sample));
+        }
+        return new CsvSchema(columnNames, columnTypes);
+    }
+
+    private static CsvColumnType inferColumnType(int column, List<CSVRecord> sample) {
+        // Bit i is set while CANDIDATE_TYPES[i] still accepts every cell seen so far.
+        int candidates = (1 << CANDIDATE_TYPES.length) - 1;
+        boolean sawValue = false;
+        for (CSVRecord record : sample) {
+            if (column >= record.size() || record.get(column).isEmpty()) {
+                continue;
+            }
+            final String value = record.get(column);
+            sawValue = true;
+            for (int i = 0; i < CANDIDATE_TYPES.length; i++) {
+                if ((candidates & (1 << i)) != 0 && !CANDIDATE_TYPES[i].accepts(value)) {
+                    candidates &= ~(1 << i);
+                }
+            }
+            if (candidates == 0) {
+                break;
+            }
+        }
+        if (!sawValue || candidates == 0) {
+            return CsvColumnType.STRING;
+        }
+        return CANDIDATE_TYPES[Integer.numberOfTrailingZeros(candidates)];
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<CsvColumnType> getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * @return the type of the column, or {@link CsvColumnType#STRING} for cells beyond the last named column.
+     */
+    public CsvColumnType getColumnType(int column) {
+        return column < columnTypes.size() ? columnTypes.get(column) : CsvColumnType.STRING;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CsvSchema{");
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columnNames.get(i)).append('=').append(columnTypes.get(i));
+        }
+        return sb.append('}').toString();
+    }
+}
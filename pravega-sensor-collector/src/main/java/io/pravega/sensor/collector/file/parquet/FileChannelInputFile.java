@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.file.parquet;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parquet {@link InputFile} that reads a local file in place through a {@link FileChannel}.
+ * The Parquet file begins at the given offset in the local file; all positions are relative to this offset.
+ * This avoids copying the file and does not require a Hadoop file system.
+ * Reads use positional {@link FileChannel#read(ByteBuffer, long)} instead of a memory mapping, because a mapped file
+ * cannot be moved or deleted on Windows until the mapping is garbage collected.
+ */
+public class FileChannelInputFile implements InputFile {
+    private final Path path;
+    private final long offset;
+    private final long length;
+
+    public FileChannelInputFile(Path path, long offset) throws IOException {
+        final long fileSize = Files.size(path);
+        if (offset < 0 || offset > fileSize) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside of file " + path + " with size " + fileSize);
+        }
+        this.path = path;
+        this.offset = offset;
+        this.length = fileSize - offset;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        return new FileChannelInputStream(FileChannel.open(path, StandardOpenOption.READ), offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return "FileChannelInputFile{" +
+                "path=" + path +
+                ", offset=" + offset +
+                ", length=" + length +
+                '}';
+    }
+
+    /**
+     * Seekable stream over a region of a file channel. The channel position is never used, so reads do not depend on
+     * any other user of the channel.
+     */
+    static class FileChannelInputStream extends SeekableInputStream {
+        private final FileChannel channel;
+        private final long offset;
+        private final long length;
+        private final ByteBuffer singleByte = ByteBuffer.allocate(1);
+        private long pos;
+
+        FileChannelInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public long getPos() {
+            return pos;
+        }
+
+        @Override
+        public void seek(long newPos) throws IOException {
+            if (newPos < 0 || newPos > length) {
+                throw new EOFException("Cannot seek to " + newPos + " in stream of length " + length);
+            }
+            pos = newPos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            singleByte.clear();
+            if (read(singleByte) <= 0) {
+                return -1;
+            }
+            return singleByte.get(0) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int start, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            return read(ByteBuffer.wrap(bytes, start, len));
+        }
+
+        @Override
+        public int read(ByteBuffer buf) throws IOException {
+            final long remaining = length - pos;
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int originalLimit = buf.limit();
+            if (buf.remaining() > remaining) {
+                buf.limit(buf.position() + (int) remaining);
+            }
+            try {
+                final int bytesRead = channel.read(buf, offset + pos);
+                if (bytesRead > 0) {
+                    pos += bytesRead;
+                }
+                return bytesRead;
+            } finally {
+                buf.limit(originalLimit);
+            }
+        }
+
+        @Override
+        public void readFully(byte[] bytes) throws IOException {
+            readFully(ByteBuffer.wrap(bytes));
+        }
+
+        @Override
+        public void readFully(byte[] bytes, int start, int len) throws IOException {
+            readFully(ByteBuffer.wrap(bytes, start, len));
+        }
+
+        @Override
+        public void readFully(ByteBuffer buf) throws IOException {
+            while (buf.hasRemaining()) {
+                if (read(buf) < 0) {
+                    throw new EOFException("Reached the end of stream with " + buf.remaining() + " bytes left to read");
+                }
+            }
+        }
+
+        @Override
+        public long skip(long n) {
+            final long skipped = Math.max(0, Math.min(n, length - pos));
+            pos += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - pos);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
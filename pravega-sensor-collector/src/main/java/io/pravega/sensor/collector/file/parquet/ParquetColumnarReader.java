@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.file.parquet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.google.common.collect.ImmutableSet;
+import io.pravega.sensor.collector.util.PravegaWriterEvent;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReadStore;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Converts Parquet row groups to Json events column by column with the low-level {@link ColumnReader} API.
+ * Unlike the Avro reader, no record objects are created and only the requested columns are decoded.
+ * Only flat schemas of required or optional primitive columns are supported (see {@link #isSupported}).
+ * The Json produced is the same as the Avro reader: field names have special characters replaced by underscores
+ * and binary values are written as base64.
+ */
+final class ParquetColumnarReader {
+    private static final Set<PrimitiveType.PrimitiveTypeName> SUPPORTED_TYPES = ImmutableSet.of(
+            PrimitiveType.PrimitiveTypeName.BOOLEAN,
+            PrimitiveType.PrimitiveTypeName.INT32,
+            PrimitiveType.PrimitiveTypeName.INT64,
+            PrimitiveType.PrimitiveTypeName.FLOAT,
+            PrimitiveType.PrimitiveTypeName.DOUBLE,
+            PrimitiveType.PrimitiveTypeName.BINARY);
+
+    private ParquetColumnarReader() {
+    }
+
+    /**
+     * @param schema requested schema
+     * @return true if every field of the schema can be read by this reader.
+     */
+    static boolean isSupported(MessageType schema) {
+        return schema.getFields().stream().allMatch(field ->
+                field.isPrimitive()
+                && !field.isRepetition(Type.Repetition.REPEATED)
+                && SUPPORTED_TYPES.contains(field.asPrimitiveType().getPrimitiveTypeName()));
+    }
+
+    /**
+     * Read all remaining row groups of the file and write them as Json events.
+     * The requested schema must already be set on the file reader.
+     *
+     * @param fileReader file reader with the requested schema set
+     * @param requestedSchema columns to read; must be supported
+     * @param jsonFactory factory used to create the Json generator
+     * @param routingKey routing key of the events
+     * @param maxRecordsPerEvent maximum number of rows in each event
+     * @param firstSequenceNumber sequence number of the first event
+     * @param consumer receives the events
+     * @return next sequence number
+     * @throws IOException If the file cannot be read.
+     */
+    static long generateEvents(ParquetFileReader fileReader, MessageType requestedSchema, JsonFactory jsonFactory,
+                               String routingKey, int maxRecordsPerEvent, long firstSequenceNumber,
+                               Consumer<PravegaWriterEvent> consumer) throws IOException {
+        final List<ColumnDescriptor> columns = requestedSchema.getColumns();
+        final SerializableString[] fieldNames = requestedSchema.getFields().stream()
+                .map(field -> new SerializedString(field.getName().replaceAll("[^A-Za-z0-9_]+", "_")))
+                .toArray(SerializableString[]::new);
+        final GroupConverter converter = new NoOpGroupConverter();
+        final String createdBy = fileReader.getFooter().getFileMetaData().getCreatedBy();
+        final ColumnReader[] readers = new ColumnReader[columns.size()];
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long nextSequenceNumber = firstSequenceNumber;
+        int numRecordsInEvent = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            // Each event is a separate JSON document, so nothing may be written between them.
+            generator.setRootValueSeparator(null);
+            PageReadStore rowGroup;
+            while ((rowGroup = fileReader.readNextRowGroup()) != null) {
+                final ColumnReadStore columnReadStore = new ColumnReadStoreImpl(rowGroup, converter, requestedSchema, createdBy);
+                for (int i = 0; i < columns.size(); i++) {
+                    readers[i] = columnReadStore.getColumnReader(columns.get(i));
+                }
+                final long rowCount = rowGroup.getRowCount();
+                for (long row = 0; row < rowCount; row++) {
+                    if (numRecordsInEvent == 0) {
+                        generator.writeStartArray();
+                    }
+                    generator.writeStartObject();
+                    for (int i = 0; i < readers.length; i++) {
+                        generator.writeFieldName(fieldNames[i]);
+                        writeValue(generator, readers[i], columns.get(i));
+                        readers[i].consume();
+                    }
+                    generator.writeEndObject();
+                    numRecordsInEvent++;
+                    if (numRecordsInEvent >= maxRecordsPerEvent) {
+                        consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, endEvent(generator, buffer)));
+                        nextSequenceNumber++;
+                        numRecordsInEvent = 0;
+                    }
+                }
+            }
+            if (numRecordsInEvent > 0) {
+                consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, endEvent(generator, buffer)));
+                nextSequenceNumber++;
+            }
+        }
+        return nextSequenceNumber;
+    }
+
+    private static void writeValue(JsonGenerator generator, ColumnReader reader, ColumnDescriptor column) throws IOException {
+        if (reader.getCurrentDefinitionLevel() < column.getMaxDefinitionLevel()) {
+            generator.writeNull();
+            return;
+        }
+        switch (column.getPrimitiveType().getPrimitiveTypeName()) {
+            case BOOLEAN:
+                generator.writeBoolean(reader.getBoolean());
+                break;
+            case INT32:
+                generator.writeNumber(reader.getInteger());
+                break;
+            case INT64:
+                generator.writeNumber(reader.getLong());
+                break;
+            case FLOAT:
+                generator.writeNumber(reader.getFloat());
+                break;
+            case DOUBLE:
+                generator.writeNumber(reader.getDouble());
+                break;
+            case BINARY:
+                final ByteBuffer bytes = reader.getBinary().toByteBuffer();
+                if (bytes.hasArray()) {
+                    generator.writeBinary(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                } else {
+                    final byte[] copy = new byte[bytes.remaining()];
+                    bytes.get(copy);
+                    generator.writeBinary(copy);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported column type: " + column);
+        }
+    }
+
+    /**
+     * Close the current JSON array and return its bytes. The buffer is reset so that it can be reused for the next event.
+     */
+    private static byte[] endEvent(JsonGenerator generator, ByteArrayOutputStream buffer) throws IOException {
+        generator.writeEndArray();
+        generator.flush();
+        final byte[] bytes = buffer.toByteArray();
+        buffer.reset();
+        return bytes;
+    }
+
+    /**
+     * Values are read directly from the column readers, so the converters are never called.
+     * They are only needed to construct the {@link ColumnReadStoreImpl}.
+     */
+    private static class NoOpGroupConverter extends GroupConverter {
+        private final PrimitiveConverter primitiveConverter = new PrimitiveConverter() { };
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return primitiveConverter;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
@@ -11,8 +11,10 @@ package io.pravega.sensor.collector.file.parquet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.CountingInputStream;
 import io.pravega.sensor.collector.file.EventGenerator;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.PravegaWriterEvent;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
@@ -21,14 +23,12 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.Path;
 import org.apache.parquet.avro.AvroParquetReader;
 import org.apache.parquet.avro.AvroReadSupport;
 import org.apache.parquet.avro.AvroSchemaConverter;
-import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
-import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.InputFile;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.Type;
@@ -38,9 +38,13 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -54,25 +58,47 @@ public class ParquetEventGenerator implements EventGenerator {
     private final int maxRecordsPerEvent;
     private final ObjectNode eventTemplate;
     private final ObjectMapper mapper;
+    /**
+     * Names of the columns to ingest. Empty to ingest all columns.
+     */
+    private final Set<String> projectedColumns;
 
     public ParquetEventGenerator(String routingKey, int maxRecordsPerEvent, ObjectNode eventTemplate, ObjectMapper mapper) {
+        this(routingKey, maxRecordsPerEvent, eventTemplate, mapper, Collections.emptySet());
+    }
+
+    public ParquetEventGenerator(String routingKey, int maxRecordsPerEvent, ObjectNode eventTemplate, ObjectMapper mapper, Set<String> projectedColumns) {
         this.routingKey = routingKey;
         this.maxRecordsPerEvent = maxRecordsPerEvent;
         this.eventTemplate = eventTemplate;
         this.mapper = mapper;
+        this.projectedColumns = ImmutableSet.copyOf(projectedColumns);
     }
 
-    public static ParquetEventGenerator create(String routingKey, int maxRecordsPerEvent, String eventTemplateStr, String writerId) {
+    /**
+     * @param projectedColumns comma-separated list of column names to ingest, or an empty string to ingest all columns.
+     *                         A name may be either the original column name or the name with special characters
+     *                         replaced by underscores.
+     */
+    public static ParquetEventGenerator create(String routingKey, int maxRecordsPerEvent, String eventTemplateStr, String writerId, String projectedColumns) {
         try {
             final ObjectMapper mapper = new ObjectMapper();
             final ObjectNode eventTemplate = (ObjectNode) mapper.readTree(eventTemplateStr);
             eventTemplate.put("WriterId", writerId);
-            return new ParquetEventGenerator(routingKey, maxRecordsPerEvent, eventTemplate, mapper);
+            final Set<String> columns = Arrays.stream(projectedColumns.split(","))
+                    .map(String::trim)
+                    .filter(column -> !column.isEmpty())
+                    .collect(Collectors.toSet());
+            return new ParquetEventGenerator(routingKey, maxRecordsPerEvent, eventTemplate, mapper, columns);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    public static ParquetEventGenerator create(String routingKey, int maxRecordsPerEvent, String eventTemplateStr, String writerId) {
+        return create(routingKey, maxRecordsPerEvent, eventTemplateStr, writerId, "");
+    }
+
     public static ParquetEventGenerator create(String routingKey, int maxRecordsPerEvent) throws IOException {
         return create(routingKey, maxRecordsPerEvent, "{}", "MyWriterId");
     }
@@ -81,6 +107,8 @@ public class ParquetEventGenerator implements EventGenerator {
     /**
      * Generate event from input stream. number of records in one event is defined in input config file
      * Convert Parquet to Json.
+     * Parquet requires random access, so the stream is copied to a temporary file.
+     * {@link #generateEventsFromFile} avoids this copy and should be used for local files.
      *
      * @param inputStream
      * @param firstSequenceNumber
@@ -89,14 +117,64 @@ public class ParquetEventGenerator implements EventGenerator {
      * @return next sequence number, end offset
      */
     public Pair<Long, Long> generateEventsFromInputStream(CountingInputStream inputStream, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
-        File tempFile = File.createTempFile("temp", ".parquet");
-        FileOutputStream outputStream = new FileOutputStream(tempFile);
-        IOUtils.copy(inputStream, outputStream);
-        outputStream.close();
-        Path tempFilePath = new Path(tempFile.toString());
+        final File tempFile = File.createTempFile("temp", ".parquet");
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                IOUtils.copy(inputStream, outputStream);
+            }
+            final long nextSequenceNumber = generateEvents(new FileChannelInputFile(tempFile.toPath(), 0), firstSequenceNumber, consumer);
+            final long endOffset = inputStream.getCount();
+            return new ImmutablePair<>(nextSequenceNumber, endOffset);
+        } finally {
+            if (!tempFile.delete()) {
+                LOGGER.warn("generateEventsFromInputStream: Unable to delete temporary file {}", tempFile);
+            }
+        }
+    }
+
+    /**
+     * Generate events from a Parquet file that begins at the given offset.
+     * The footer and row groups are read in place, without copying the file.
+     *
+     * @param file file name and offset at which the Parquet file begins
+     * @param firstSequenceNumber
+     * @param consumer
+     * @throws IOException
+     * @return next sequence number, end offset
+     */
+    @Override
+    public Pair<Long, Long> generateEventsFromFile(FileNameWithOffset file, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
+        final FileChannelInputFile inputFile = new FileChannelInputFile(Paths.get(file.fileName), file.offset);
+        final long nextSequenceNumber = generateEvents(inputFile, firstSequenceNumber, consumer);
+        final long endOffset = file.offset + inputFile.getLength();
+        return new ImmutablePair<>(nextSequenceNumber, endOffset);
+    }
+
+    /**
+     * Convert all records of the Parquet file to Json events.
+     * Flat files are read column by column with {@link ParquetColumnarReader}, decoding only the projected columns.
+     * Other files are read with the Avro reader.
+     *
+     * @return next sequence number
+     */
+    private long generateEvents(InputFile inputFile, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
         Configuration conf = new Configuration();
-        MessageType schema = ParquetFileReader.readFooter(HadoopInputFile.fromPath(tempFilePath, conf), ParquetMetadataConverter.NO_FILTER).getFileMetaData().getSchema();
-        
+        final MessageType fileSchema;
+        try (ParquetFileReader fileReader = ParquetFileReader.open(inputFile)) {
+            fileSchema = fileReader.getFooter().getFileMetaData().getSchema();
+            final MessageType requestedSchema = new MessageType(fileSchema.getName(), fileSchema.getFields().stream()
+                    .filter(this::isProjected)
+                    .collect(Collectors.toList()));
+            if (ParquetColumnarReader.isSupported(requestedSchema)) {
+                fileReader.setRequestedSchema(requestedSchema);
+                return ParquetColumnarReader.generateEvents(fileReader, requestedSchema, mapper.getFactory(),
+                        routingKey, maxRecordsPerEvent, firstSequenceNumber, consumer);
+            }
+        }
+        LOGGER.debug("generateEvents: Schema is not supported by the columnar reader, using Avro reader. schema={}", fileSchema);
+        // The Avro reader decodes all columns. Columns that are not projected are dropped from the events.
+        final MessageType schema = fileSchema;
+
         //Modifying field names in extracted schema (removing special characters) 
         List<Type> fields = schema.getFields().stream()
                                 .map(field -> new PrimitiveType(field.getRepetition(),  
@@ -113,30 +191,34 @@ public class ParquetEventGenerator implements EventGenerator {
             avroSchema.getFields().get(i).addAlias(originalFieldName);
         }
 
-        final AvroParquetReader.Builder<GenericRecord> builder = AvroParquetReader.<GenericRecord>builder(tempFilePath);
-        AvroReadSupport.setAvroReadSchema(conf, avroSchema);        
-        final ParquetReader<GenericRecord> reader = builder.withDataModel(GenericData.get()).withConf(conf).build();
+        final AvroParquetReader.Builder<GenericRecord> builder = AvroParquetReader.<GenericRecord>builder(inputFile);
+        AvroReadSupport.setAvroReadSchema(conf, avroSchema);
 
         long nextSequenceNumber = firstSequenceNumber;
         int numRecordsInEvent = 0;
         List<HashMap<String, Object>> eventBatch = new ArrayList<>();
-        GenericRecord record;
-        while ((record = reader.read()) != null) {
-            HashMap<String, Object> dataMap = new HashMap<String, Object>();
-            for (Schema.Field field : record.getSchema().getFields()) {
-                String key = field.name();
-                Object value;
-                value = record.get(key);
-                dataMap.put(key, value);
-            }
-            eventBatch.add(dataMap);
-            numRecordsInEvent++;
-            if (numRecordsInEvent >= maxRecordsPerEvent) {
-                byte[] batchJsonEvent = mapper.writeValueAsBytes(eventBatch);
-                consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, batchJsonEvent));
-                nextSequenceNumber++;
-                numRecordsInEvent = 0;
-                eventBatch.clear();
+        try (ParquetReader<GenericRecord> reader = builder.withDataModel(GenericData.get()).withConf(conf).build()) {
+            GenericRecord record;
+            while ((record = reader.read()) != null) {
+                HashMap<String, Object> dataMap = new HashMap<String, Object>();
+                for (Schema.Field field : record.getSchema().getFields()) {
+                    if (!isProjected(schema.getFields().get(field.pos()))) {
+                        continue;
+                    }
+                    String key = field.name();
+                    Object value;
+                    value = record.get(key);
+                    dataMap.put(key, value);
+                }
+                eventBatch.add(dataMap);
+                numRecordsInEvent++;
+                if (numRecordsInEvent >= maxRecordsPerEvent) {
+                    byte[] batchJsonEvent = mapper.writeValueAsBytes(eventBatch);
+                    consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, batchJsonEvent));
+                    nextSequenceNumber++;
+                    numRecordsInEvent = 0;
+                    eventBatch.clear();
+                }
             }
         }
         if (!eventBatch.isEmpty()) {
@@ -144,9 +226,13 @@ public class ParquetEventGenerator implements EventGenerator {
             consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, batchJsonEvent));
             nextSequenceNumber++;
         }
-        final long endOffset = inputStream.getCount();
-        tempFile.delete();
-        return new ImmutablePair<>(nextSequenceNumber, endOffset);
+        return nextSequenceNumber;
+    }
+
+    private boolean isProjected(Type field) {
+        return projectedColumns.isEmpty()
+                || projectedColumns.contains(field.getName())
+                || projectedColumns.contains(field.getName().replaceAll("[^A-Za-z0-9_]+", "_"));
     }
 
 }
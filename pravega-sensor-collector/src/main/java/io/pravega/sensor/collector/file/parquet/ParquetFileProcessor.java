@@ -27,6 +27,10 @@ public class ParquetFileProcessor extends FileProcessor {
 
     public ParquetFileProcessor(FileConfig config, TransactionStateDB state, EventWriter<byte[]> writer, TransactionCoordinator transactionCoordinator, String writerId) {
        super(config, state, writer, transactionCoordinator);
+        if (config.tailMode) {
+            // A Parquet file can only be read once its footer has been written.
+            throw new IllegalArgumentException("Tail mode is not supported for Parquet files");
+        }
         this.config = config;
         this.writerId = writerId;
     }
@@ -41,7 +45,8 @@ public class ParquetFileProcessor extends FileProcessor {
                 config.routingKey,
                 config.maxRecordsPerEvent,
                 config.eventTemplateStr,
-                writerId);
+                writerId,
+                config.parquetColumns);
     }
 
 }
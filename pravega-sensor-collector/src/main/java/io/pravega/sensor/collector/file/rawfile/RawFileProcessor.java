@@ -38,7 +38,8 @@ public class RawFileProcessor extends FileProcessor {
         return RawEventGenerator.create(
                 config.routingKey,
                 config.eventTemplateStr,
-                writerId);
+                writerId,
+                config.rawFileChunkSizeBytes);
     }
 
 }
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Counters, gauges and latency histograms of all device driver instances.
+ *
+ * Each metric has a name and is labeled with the name of the device driver instance that updates it.
+ * Metrics are created once, when a driver or service is created, and are then updated without allocation or locking.
+ * {@link #writePrometheus} renders all metrics in the Prometheus text exposition format.
+ */
+public class MetricsRegistry {
+    private static final String INSTANCE_LABEL = "driver";
+
+    private final Map<String, Family<?>> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * @return the counter with this name for the instance, created if needed
+     */
+    public Counter counter(String name, String help, String instanceName) {
+        return this.<Counter>getFamily(name, help, Type.COUNTER).get(instanceName, Counter::new);
+    }
+
+    /**
+     * Register a gauge whose value is read from the supplier when metrics are scraped.
+     * A gauge registered again for the same instance replaces the previous one.
+     */
+    public void gauge(String name, String help, String instanceName, LongSupplier supplier) {
+        this.<LongSupplier>getFamily(name, help, Type.GAUGE).put(instanceName, supplier);
+    }
+
+    /**
+     * @return the latency histogram with this name for the instance, created if needed
+     */
+    public LatencyHistogram latencyHistogram(String name, String help, String instanceName) {
+        return this.<LatencyHistogram>getFamily(name, help, Type.HISTOGRAM).get(instanceName, LatencyHistogram::new);
+    }
+
+    /**
+     * Remove all metrics of an instance, such as when its driver is stopped.
+     */
+    public void removeInstance(String instanceName) {
+        families.values().forEach(family -> family.metrics.remove(instanceName));
+    }
+
+    public void writePrometheus(StringBuilder sb) {
+        for (Map.Entry<String, Family<?>> entry : families.entrySet()) {
+            final String name = entry.getKey();
+            final Family<?> family = entry.getValue();
+            if (family.metrics.isEmpty()) {
+                continue;
+            }
+            sb.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+            for (Map.Entry<String, ?> metric : family.metrics.entrySet()) {
+                final String instanceName = metric.getKey();
+                switch (family.type) {
+                    case COUNTER:
+                        writeSample(sb, name, instanceName, null, ((Counter) metric.getValue()).getCount());
+                        break;
+                    case GAUGE:
+                        writeSample(sb, name, instanceName, null, ((LongSupplier) metric.getValue()).getAsLong());
+                        break;
+                    case HISTOGRAM:
+                        writeHistogram(sb, name, instanceName, (LatencyHistogram) metric.getValue());
+                        break;
+                    default:
+                        throw new IllegalStateException();
+                }
+            }
+        }
+    }
+
+    public String toPrometheusString() {
+        final StringBuilder sb = new StringBuilder();
+        writePrometheus(sb);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Family<T> getFamily(String name, String help, Type type) {
+        final Family<?> family = families.computeIfAbsent(name, k -> new Family<>(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+        }
+        return (Family<T>) family;
+    }
+
+    private static void writeHistogram(StringBuilder sb, String name, String instanceName, LatencyHistogram histogram) {
+        final long[] counts = histogram.getBucketCounts();
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulativeCount += counts[i];
+            final String le = i < LatencyHistogram.BUCKET_BOUNDS_SECONDS.length
+                    ? Double.toString(LatencyHistogram.BUCKET_BOUNDS_SECONDS[i])
+                    : "+Inf";
+            writeSample(sb, name + "_bucket", instanceName, le, cumulativeCount);
+        }
+        sb.append(name).append("_sum");
+        writeLabels(sb, instanceName, null);
+        sb.append(' ').append(histogram.getSumSeconds()).append('\n');
+        writeSample(sb, name + "_count", instanceName, null, cumulativeCount);
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String instanceName, String le, long value) {
+        sb.append(name);
+        writeLabels(sb, instanceName, le);
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void writeLabels(StringBuilder sb, String instanceName, String le) {
+        sb.append('{').append(INSTANCE_LABEL).append("=\"");
+        for (int i = 0; i < instanceName.length(); i++) {
+            final char c = instanceName.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+        if (le != null) {
+            sb.append(",le=\"").append(le).append('"');
+        }
+        sb.append('}');
+    }
+
+    private enum Type {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    /**
+     * All metrics with the same name, by instance name.
+     */
+    private static final class Family<T> {
+        private final String help;
+        private final Type type;
+        private final Map<String, T> metrics = new ConcurrentSkipListMap<>();
+
+        Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+
+        T get(String instanceName, Supplier<T> factory) {
+            return metrics.computeIfAbsent(instanceName, k -> factory.get());
+        }
+
+        void put(String instanceName, T metric) {
+            metrics.put(instanceName, metric);
+        }
+    }
+}
@@ -15,7 +15,9 @@ import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Bucket4j;
 import io.github.bucket4j.UninterruptibleBlockingStrategy;
 import io.pravega.sensor.collector.DeviceDriverConfig;
+import io.pravega.sensor.collector.simple.SamplesFormat;
 import io.pravega.sensor.collector.simple.SimpleDeviceDriver;
+import io.pravega.sensor.collector.util.ColumnarSamplesEncoder;
 import io.pravega.sensor.collector.util.SpinBlockingStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,11 +43,13 @@ public class NetworkDriver extends SimpleDeviceDriver<NetworkRawData, NetworkSam
     private final List<NetworkStatisticFile> networkStatisticFiles = new ArrayList<>();
     private final Map<String, Integer> statisticNameToIndex = new HashMap<>();
     private final ObjectMapper mapper = new ObjectMapper();
+    private final SamplesFormat samplesFormat;
     private final Bucket bucket;
     private final UninterruptibleBlockingStrategy blockingStrategy;
 
     public NetworkDriver(DeviceDriverConfig config) {
         super(config);
+        samplesFormat = getSamplesFormat();
 
         final String interfaceName = getInterfaceName();
         final List<String> statisticNames = getStatisticNames();
@@ -144,6 +148,15 @@ public class NetworkDriver extends SimpleDeviceDriver<NetworkRawData, NetworkSam
 
     @Override
     public byte[] serializeSamples(NetworkSamples samples) throws Exception {
+        if (samplesFormat == SamplesFormat.BINARY) {
+            return new ColumnarSamplesEncoder(samples.size())
+                    .addAttribute("RemoteAddr", samples.remoteAddr)
+                    .addAttribute("Interface", samples.interfaceName)
+                    .addLongColumn("TimestampNanos", samples.timestampNanos)
+                    .addLongColumn("RxBytes", samples.rxBytes)
+                    .addLongColumn("TxBytes", samples.txBytes)
+                    .toByteArray();
+        }
         samples.setLastTimestampFormatted();
         LOGGER.info("samples={}", samples);
         return mapper.writeValueAsBytes(samples);
@@ -11,14 +11,13 @@ package io.pravega.sensor.collector.network;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.pravega.sensor.collector.simple.Samples;
+import io.pravega.sensor.collector.util.LongArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.TimeZone;
 
 public class NetworkSamples implements Samples {
@@ -31,11 +30,11 @@ public class NetworkSamples implements Samples {
 
     // Timestamps as nanoseconds since 1970-01-01.
     @JsonProperty("TimestampNanos")
-    public final List<Long> timestampNanos = new ArrayList<>();
+    public final LongArrayList timestampNanos = new LongArrayList();
     @JsonProperty("RxBytes")
-    public final List<Long> rxBytes = new ArrayList<>();
+    public final LongArrayList rxBytes = new LongArrayList();
     @JsonProperty("TxBytes")
-    public final List<Long> txBytes = new ArrayList<>();
+    public final LongArrayList txBytes = new LongArrayList();
     @JsonProperty("RemoteAddr")
     public final String remoteAddr;
     @JsonProperty("Interface")
@@ -75,7 +74,7 @@ public class NetworkSamples implements Samples {
     }
 
     @Override
-    public List<Long> getTimestampNanos() {
-        return timestampNanos;
+    public long timestampAt(int index) {
+        return timestampNanos.get(index);
     }
 }
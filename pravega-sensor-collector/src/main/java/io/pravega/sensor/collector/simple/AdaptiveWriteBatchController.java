@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adapts the batch size and delay to the backlog in the persistent queue.
+ *
+ * While events remain in the queue after a batch, the next batch is read immediately and, if the batch was full,
+ * its size is doubled as long as a batch takes less than the target latency and stays under the maximum number of bytes.
+ * This quickly drains a backlog, such as after a network outage, with few large transactions.
+ * When the queue is empty, the batch size returns to its initial value and the delay adapts to the arrival rate:
+ * it is halved after a batch that read events, down to the minimum delay, and doubled after an empty batch,
+ * up to the maximum delay.
+ */
+public class AdaptiveWriteBatchController extends WriteBatchController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveWriteBatchController.class);
+
+    private final int maxAdaptiveEventsPerWriteBatch;
+    private final long maxBytesPerWriteBatch;
+    private final long targetBatchLatencyNanos;
+    private final long minDelayBetweenWriteBatchesMs;
+    private int batchSize;
+    private long delayMs;
+
+    /**
+     * @param maxEventsPerWriteBatch         initial batch size, used when there is no backlog
+     * @param delayBetweenWriteBatchesMs     maximum delay when the queue is empty
+     * @param maxAdaptiveEventsPerWriteBatch maximum batch size while draining a backlog
+     * @param maxBytesPerWriteBatch          maximum number of bytes in a batch while draining a backlog
+     * @param targetBatchLatencyMs           the batch size stops growing when a batch takes longer than this
+     * @param minDelayBetweenWriteBatchesMs  minimum delay when the queue is empty
+     */
+    public AdaptiveWriteBatchController(int maxEventsPerWriteBatch, long delayBetweenWriteBatchesMs,
+                                        int maxAdaptiveEventsPerWriteBatch, long maxBytesPerWriteBatch,
+                                        long targetBatchLatencyMs, long minDelayBetweenWriteBatchesMs) {
+        super(maxEventsPerWriteBatch, delayBetweenWriteBatchesMs);
+        this.maxAdaptiveEventsPerWriteBatch = Integer.max(maxEventsPerWriteBatch, maxAdaptiveEventsPerWriteBatch);
+        this.maxBytesPerWriteBatch = maxBytesPerWriteBatch;
+        this.targetBatchLatencyNanos = targetBatchLatencyMs * 1000 * 1000;
+        this.minDelayBetweenWriteBatchesMs = Long.min(minDelayBetweenWriteBatchesMs, delayBetweenWriteBatchesMs);
+        this.batchSize = maxEventsPerWriteBatch;
+        this.delayMs = delayBetweenWriteBatchesMs;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public long getDelayMs() {
+        return delayMs;
+    }
+
+    @Override
+    public void update(int eventCount, long byteCount, long elapsedNanos, long queueSize) {
+        final int previousBatchSize = batchSize;
+        if (queueSize > 0) {
+            // Drain the backlog without waiting.
+            delayMs = 0;
+            if (eventCount >= batchSize && elapsedNanos < targetBatchLatencyNanos && 2 * byteCount <= maxBytesPerWriteBatch) {
+                batchSize = Integer.min(maxAdaptiveEventsPerWriteBatch, 2 * batchSize);
+            } else if (elapsedNanos > targetBatchLatencyNanos || byteCount > maxBytesPerWriteBatch) {
+                batchSize = Integer.max(maxEventsPerWriteBatch, batchSize / 2);
+            }
+        } else {
+            batchSize = maxEventsPerWriteBatch;
+            if (eventCount == 0) {
+                delayMs = Long.min(delayBetweenWriteBatchesMs, Long.max(minDelayBetweenWriteBatchesMs, 2 * delayMs));
+            } else {
+                delayMs = Long.max(minDelayBetweenWriteBatchesMs, delayMs / 2);
+            }
+        }
+        if (batchSize != previousBatchSize) {
+            LOGGER.debug("Batch size changed from {} to {}; queueSize={}, byteCount={}, elapsedMs={}",
+                    previousBatchSize, batchSize, queueSize, byteCount, elapsedNanos / 1000 / 1000);
+        }
+    }
+}
@@ -10,11 +10,13 @@
 package io.pravega.sensor.collector.simple;
 
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import io.pravega.sensor.collector.util.DriverExecutors;
+import io.pravega.sensor.collector.util.RingBufferQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,15 +25,23 @@ import java.util.concurrent.TimeUnit;
  */
 public class DataCollectorService<R, S extends Samples> extends AbstractExecutionThreadService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataCollectorService.class);
+    private static final long DROPPED_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
 
     private final String instanceName;
-    private final BlockingQueue<R> memoryQueue;
+    private final RingBufferQueue<R> memoryQueue;
     private final SimpleDeviceDriver<R, S> driver;
+    private final DriverExecutors driverExecutors;
 
-    public DataCollectorService(String instanceName, BlockingQueue<R> memoryQueue, SimpleDeviceDriver<R, S> driver) {
+    public DataCollectorService(String instanceName, RingBufferQueue<R> memoryQueue, SimpleDeviceDriver<R, S> driver) {
+        this(instanceName, memoryQueue, driver, new DriverExecutors());
+    }
+
+    public DataCollectorService(String instanceName, RingBufferQueue<R> memoryQueue, SimpleDeviceDriver<R, S> driver,
+                                DriverExecutors driverExecutors) {
         this.instanceName = instanceName;
         this.memoryQueue = memoryQueue;
         this.driver = driver;
+        this.driverExecutors = driverExecutors;
     }
 
     @Override
@@ -39,14 +49,26 @@ public class DataCollectorService<R, S extends Samples> extends AbstractExecutio
         return super.serviceName() + "-" + instanceName;
     }
 
+    @Override
+    protected Executor executor() {
+        return driverExecutors.serviceExecutor(serviceName());
+    }
+
     @Override
     protected void run() throws Exception {
         LOGGER.info("Running");
+        long lastDroppedWarningNanos = System.nanoTime() - DROPPED_WARNING_INTERVAL_NANOS;
         for (;;) {
             try {
                 final R rawSensorData = driver.readRawData();
-                if (!memoryQueue.offer(rawSensorData, 10, TimeUnit.SECONDS)) {
-                    LOGGER.warn("Memory queue is full. Data will be discarded. Writing to persistent queue took too long.");
+                if (!memoryQueue.offer(rawSensorData)) {
+                    // Limit the warnings because data may be read thousands of times per second.
+                    final long now = System.nanoTime();
+                    if (now - lastDroppedWarningNanos >= DROPPED_WARNING_INTERVAL_NANOS) {
+                        LOGGER.warn("Memory queue is full. Data will be discarded. Writing to persistent queue took too long. " +
+                                "{} elements have been discarded.", memoryQueue.getDroppedCount());
+                        lastDroppedWarningNanos = now;
+                    }
                 }
             } catch (EOFException e) {
                 LOGGER.warn("EOF");
@@ -10,32 +10,66 @@
 package io.pravega.sensor.collector.simple;
 
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import io.pravega.sensor.collector.metrics.Counter;
+import io.pravega.sensor.collector.metrics.LatencyHistogram;
+import io.pravega.sensor.collector.metrics.MetricsRegistry;
+import io.pravega.sensor.collector.util.DriverExecutors;
+import io.pravega.sensor.collector.util.EventCompressor;
+import io.pravega.sensor.collector.util.RingBufferQueue;
 import io.pravega.sensor.collector.util.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Read raw data from the memory queue, decode it to Samples, serialize to JSON, and write to the persistent queue.
- * Serialized JSON bytes will be exactly what gets written to Pravega.
+ * Read raw data from the memory queue, decode it to Samples, serialize, optionally compress, and write to the persistent queue.
+ * These bytes will be exactly what gets written to Pravega.
  */
 public class MemoryQueueToPersistentQueueService<R, S extends Samples> extends AbstractExecutionThreadService {
     private static final Logger log = LoggerFactory.getLogger(MemoryQueueToPersistentQueueService.class);
 
     private final String instanceName;
-    private final BlockingQueue<R> memoryQueue;
+    private final RingBufferQueue<R> memoryQueue;
     private final PersistentQueue persistentQueue;
     private final SimpleDeviceDriver<R, S> driver;
     private final int samplesPerEvent;
+    private final EventCompressor eventCompressor;
+    private final Counter eventsAdded;
+    private final Counter bytesAdded;
+    private final LatencyHistogram addLatency;
+    private final DriverExecutors driverExecutors;
 
-    public MemoryQueueToPersistentQueueService(String instanceName, BlockingQueue<R> memoryQueue, PersistentQueue persistentQueue, SimpleDeviceDriver<R, S> driver, int samplesPerEvent) {
+    public MemoryQueueToPersistentQueueService(String instanceName, RingBufferQueue<R> memoryQueue, PersistentQueue persistentQueue, SimpleDeviceDriver<R, S> driver, int samplesPerEvent) {
+        this(instanceName, memoryQueue, persistentQueue, driver, samplesPerEvent, new EventCompressor(EventCompressor.Codec.NONE, 0));
+    }
+
+    public MemoryQueueToPersistentQueueService(String instanceName, RingBufferQueue<R> memoryQueue, PersistentQueue persistentQueue, SimpleDeviceDriver<R, S> driver, int samplesPerEvent,
+                                               EventCompressor eventCompressor) {
+        this(instanceName, memoryQueue, persistentQueue, driver, samplesPerEvent, eventCompressor, new MetricsRegistry());
+    }
+
+    public MemoryQueueToPersistentQueueService(String instanceName, RingBufferQueue<R> memoryQueue, PersistentQueue persistentQueue, SimpleDeviceDriver<R, S> driver, int samplesPerEvent,
+                                               EventCompressor eventCompressor, MetricsRegistry metricsRegistry) {
+        this(instanceName, memoryQueue, persistentQueue, driver, samplesPerEvent, eventCompressor, metricsRegistry, new DriverExecutors());
+    }
+
+    public MemoryQueueToPersistentQueueService(String instanceName, RingBufferQueue<R> memoryQueue, PersistentQueue persistentQueue, SimpleDeviceDriver<R, S> driver, int samplesPerEvent,
+                                               EventCompressor eventCompressor, MetricsRegistry metricsRegistry, DriverExecutors driverExecutors) {
         this.instanceName = instanceName;
         this.memoryQueue = memoryQueue;
         this.persistentQueue = persistentQueue;
         this.driver = driver;
         this.samplesPerEvent = samplesPerEvent;
+        this.eventCompressor = eventCompressor;
+        this.eventsAdded = metricsRegistry.counter("psc_persistent_queue_events_added_total",
+                "Events added to the persistent queue.", instanceName);
+        this.bytesAdded = metricsRegistry.counter("psc_persistent_queue_bytes_added_total",
+                "Bytes added to the persistent queue.", instanceName);
+        this.addLatency = metricsRegistry.latencyHistogram("psc_persistent_queue_add_seconds",
+                "Time to add an event to the persistent queue.", instanceName);
+        this.driverExecutors = driverExecutors;
     }
 
     @Override
@@ -43,6 +77,11 @@ public class MemoryQueueToPersistentQueueService<R, S extends Samples> extends A
         return super.serviceName() + "-" + instanceName;
     }
 
+    @Override
+    protected Executor executor() {
+        return driverExecutors.serviceExecutor(serviceName());
+    }
+
     @Override
     protected void run() throws Exception {
         log.info("Running");
@@ -63,20 +102,27 @@ public class MemoryQueueToPersistentQueueService<R, S extends Samples> extends A
                 // Do not include first event in statistics because the FIFO buffer may have had some very old samples.
                 if (warmupEvents == 0) {
                     final Statistics statsForEvent = new Statistics("For event");
-                    samples.getTimestampNanos().forEach(statsForEvent::addTimestampNanos);
-                    samples.getTimestampNanos().forEach(statsSinceStart::addTimestampNanos);
+                    for (int i = 0; i < samples.size(); i++) {
+                        final long timestampNanos = samples.timestampAt(i);
+                        statsForEvent.addTimestampNanos(timestampNanos);
+                        statsSinceStart.addTimestampNanos(timestampNanos);
+                    }
                     statsForEvent.logStatistics();
                     statsSinceStart.logStatistics();
                 } else {
                     warmupEvents--;
                 }
 
-                final byte[] eventBytes = driver.serializeSamples(samples);
+                final byte[] eventBytes = eventCompressor.compress(driver.serializeSamples(samples));
                 final String routingKey = driver.getRoutingKey(samples);
                 final long timestamp = driver.getTimestamp(samples);
                 final PersistentQueueElement element = new PersistentQueueElement(eventBytes, routingKey, timestamp);
                 log.trace("Adding element {}", element);
+                final long addStartNanos = System.nanoTime();
                 persistentQueue.add(element);
+                addLatency.recordSince(addStartNanos);
+                eventsAdded.increment();
+                bytesAdded.add(eventBytes.length);
             } catch (Exception e) {
                 log.error("Error", e);
                 Thread.sleep(10000);
@@ -9,208 +9,71 @@
  */
 package io.pravega.sensor.collector.simple;
 
-import io.pravega.sensor.collector.util.AutoRollback;
-import io.pravega.sensor.collector.util.TransactionCoordinator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
-
-import static java.sql.Connection.TRANSACTION_SERIALIZABLE;
 
 /**
- * A persistent queue that uses a SQLite database on disk.
+ * A persistent queue of events that are waiting to be written to Pravega.
+ *
+ * Elements are removed in the same local transaction that records the Pravega transaction to commit
+ * (see {@link io.pravega.sensor.collector.util.TransactionCoordinator}),
+ * so that each element is written to Pravega exactly once even if the process fails.
  */
-public class PersistentQueue implements AutoCloseable {
-    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentQueue.class);
+public interface PersistentQueue extends AutoCloseable {
 
     /**
-     * The connection should not be used concurrently. Currently, this is enforced
-     * by synchronizing access to methods that use it.
+     * Add an element. Blocks until there is enough capacity.
+     * @param element element with an id of 0
+     * @throws Exception If the element cannot be persisted
      */
-    private final Connection connection;
-    private final TransactionCoordinator transactionCoordinator;
-    private final Semaphore semaphore;
+    void add(PersistentQueueElement element) throws Exception;
 
     /**
-     * create persistent queue
-     * @param connection
-     * @param transactionCoordinator
-     * @param capacity Maximum number of elements that can be queued.
+     * Retrieve up to limit elements in the order in which they were added. Does not remove elements.
+     * @param limit maximum number of elements to return
+     * @return list of elements
+     * @throws Exception If the elements cannot be read
      */
-    public PersistentQueue(Connection connection, TransactionCoordinator transactionCoordinator, long capacity) {
-        try {
-            this.connection = connection;
-            this.transactionCoordinator = transactionCoordinator;
-            final long initialSize = getDatabaseRecordCount();
-            LOGGER.info("Persistent queue has {} elements.", initialSize);
-            final int permits = (int) Long.max(Integer.MIN_VALUE, Long.min(Integer.MAX_VALUE, capacity - initialSize));
-            LOGGER.info("Semaphore Permits: {}", permits);
-            semaphore = new Semaphore(permits);
-            performRecovery();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
+    List<PersistentQueueElement> peek(long limit) throws Exception;
 
     /**
-     * create a database connection.
-     * @param fileName Name of SQLite database file.
-     * @return database connection
+     * @return number of elements in the queue. This may include elements that are being added.
      */
-    public static Connection createDatabase(String fileName) {
-        try {
-            final Connection connection = DriverManager.getConnection("jdbc:sqlite:" + fileName);
-            try (final Statement statement = connection.createStatement()) {
-                // Use SQLite exclusive locking mode to ensure that another process or device
-                // driver instance is not using this database.
-                // statement.execute("PRAGMA locking_mode = EXCLUSIVE");
-                statement.execute("create table if not exists Queue (" + 
-                    "id integer primary key autoincrement, " + 
-                    "bytes blob not null, " + 
-                    "routingKey string not null, " + 
-                    "timestamp integer not null)");
-            }
-            connection.setAutoCommit(false);
-            connection.setTransactionIsolation(TRANSACTION_SERIALIZABLE);
-            return connection;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    public Connection getConnection() {
-        return connection;
-    }
+    long size();
 
     /**
-     * Add an element. Blocks until there is enough capacity.
-     * @param element
+     * Remove all elements with an id less than or equal to maxId. Before this method is called, it is expected
+     * that the elements have been written to Pravega in the Pravega transaction
+     * txnId, flushed, but not committed.
+     * The next call to {@link #peek} returns the elements after maxId.
+     * @param maxId id of the last element to remove, normally the last element returned by {@link #peek}
+     * @param txnId Pravega transaction id
+     * @throws Exception If the elements cannot be removed
      */
-    public void add(PersistentQueueElement element) throws SQLException, InterruptedException {
-        if (element.id != 0) {
-            throw new IllegalArgumentException();
-        }
-        if (!semaphore.tryAcquire(1)) {
-            LOGGER.warn("Persistent queue is full. No more elements can be added until elements are removed.");
-            semaphore.acquire(1);
-            LOGGER.info("Persistent queue now has capacity.");
-        }
-        synchronized (this) {
-            try (final PreparedStatement insertStatement = connection
-                    .prepareStatement("insert into Queue (bytes, routingKey, timestamp) values (?, ?, ?)");
-                    final AutoRollback autoRollback = new AutoRollback(connection)) {
-                insertStatement.setBytes(1, element.bytes);
-                insertStatement.setString(2, element.routingKey);
-                insertStatement.setLong(3, element.timestamp);
-                insertStatement.execute();
-                autoRollback.commit();
-            }
-        }
-    }
+    void remove(long maxId, Optional<UUID> txnId) throws Exception;
 
     /**
-     * Adds an element to the queue without committing. Blocks until there is enough
-     * capacity.
-     * @param element
-     * @throws SQLException
-     * @throws InterruptedException
+     * Delete the Pravega transaction from the list of transactions to commit after it has been committed.
+     * @param txnId Pravega transaction id
      */
-    public void addWithoutCommit(PersistentQueueElement element) throws SQLException, InterruptedException {
-        if (element.id != 0) {
-            throw new IllegalArgumentException();
-        }
-        if (!semaphore.tryAcquire(1)) {
-            LOGGER.warn("Persistent queue is full. No more elements can be added until elements are removed.");
-            semaphore.acquire(1);
-            LOGGER.info("Persistent queue now has capacity.");
-        }
-        synchronized (this) {
-            try (final PreparedStatement insertStatement = connection
-                    .prepareStatement("insert into Queue (bytes, routingKey, timestamp) values (?, ?, ?)")) {
-                insertStatement.setBytes(1, element.bytes);
-                insertStatement.setString(2, element.routingKey);
-                insertStatement.setLong(3, element.timestamp);
-                insertStatement.execute();
-            }
-        }
-    }
+    void deleteTransactionToCommit(Optional<UUID> txnId);
 
     /**
-     * Retrieve up to limit elements. Does not remove elements.
-     * @param limit
-     * @throws SQLException
+     * Mark a flushed Pravega transaction as being committed by the caller so that recovery does not commit it concurrently.
+     * @param txnId Pravega transaction id
      */
-    public synchronized List<PersistentQueueElement> peek(long limit) throws SQLException {
-        try (final Statement statement = connection.createStatement();
-                final ResultSet rs = statement.executeQuery(
-                        "select id, bytes, routingKey, timestamp from Queue order by id limit " + limit)) {
-            final List<PersistentQueueElement> result = new ArrayList<>();
-            while (rs.next()) {
-                final PersistentQueueElement element = new PersistentQueueElement(rs.getLong("id"),
-                        rs.getBytes("bytes"), rs.getString("routingKey"), rs.getLong("timestamp"));
-                result.add(element);
-            }
-            return result;
-        }
-    }
+    void trackInFlightTransaction(Optional<UUID> txnId);
 
     /**
-     * Remove elements from the queue. Before this method is called, it is expected
-     * that the elements have been written to Pravega in the Pravega transaction
-     * txnId, flushed, but not committed.
-     * @param elements
-     * @param txnId
-     * @throws SQLException
+     * Release a transaction marked by {@link #trackInFlightTransaction}.
+     * If it has not been deleted with {@link #deleteTransactionToCommit}, the next recovery commits it.
+     * @param txnId Pravega transaction id
      */
-    public synchronized void remove(List<PersistentQueueElement> elements, Optional<UUID> txnId) throws SQLException {
-        if (!elements.isEmpty()) {
-            try (final Statement statement = connection.createStatement();
-                    final AutoRollback autoRollback = new AutoRollback(connection)) {
-                // Create comma-separated list of ids.
-                final String idsStr = String.join(",",
-                        elements.stream().map(e -> Long.toString(e.id)).collect(Collectors.toList()));
-                final String deleteSql = "delete from Queue where id in (" + idsStr + ")";
-                statement.execute(deleteSql);
-                transactionCoordinator.addTransactionToCommit(txnId);
-                autoRollback.commit();
-                semaphore.release(elements.size());
-            }
-        }
-    }
-
-    public synchronized void deleteTransactionToCommit(Optional<UUID> txnId) {
-        transactionCoordinator.deleteTransactionToCommit(txnId);
-    }
-
-    public synchronized void performRecovery() {
-        transactionCoordinator.performRecovery();
-    }
+    void untrackInFlightTransaction(Optional<UUID> txnId);
 
-    private synchronized long getDatabaseRecordCount() throws SQLException {
-        try (final Statement statement = connection.createStatement();
-                final ResultSet rs = statement.executeQuery("select count(id) from Queue")) {
-            if (rs.next()) {
-                return rs.getLong(1);
-            } else {
-                throw new SQLException("Unexpected query response");
-            }
-        }
-    }
-
-    @Override
-    public void close() throws Exception {
-        connection.close();
-    }
+    /**
+     * Commit Pravega transactions that were flushed but not committed by a previous iteration or process.
+     */
+    void performRecovery();
 }
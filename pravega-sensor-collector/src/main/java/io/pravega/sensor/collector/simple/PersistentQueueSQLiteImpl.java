@@ -0,0 +1,393 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.pravega.sensor.collector.util.AutoRollback;
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static java.sql.Connection.TRANSACTION_SERIALIZABLE;
+
+/**
+ * A persistent queue that uses a SQLite database on disk.
+ *
+ * By default, each added element is committed before {@link #add} returns.
+ * With group commit, added elements are committed together once a maximum number of elements have been added
+ * or a maximum delay has passed since the first uncommitted element was added, whichever comes first.
+ * This reduces the number of disk syncs at the cost of losing the uncommitted elements if the process fails.
+ * Uncommitted elements are always committed before elements are read by {@link #peek} or removed.
+ * If a commit fails, the uncommitted elements are kept and the commit is retried.
+ */
+public class PersistentQueueSQLiteImpl implements PersistentQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentQueueSQLiteImpl.class);
+
+    /**
+     * The connection should not be used concurrently. Currently, this is enforced
+     * by synchronizing access to methods that use it.
+     */
+    private final Connection connection;
+    private final TransactionCoordinator transactionCoordinator;
+    private final long capacity;
+    private final Semaphore semaphore;
+    private final int maxElementsPerCommit;
+    private final long maxCommitDelayMs;
+    /**
+     * Commits added elements after the maximum delay. Null if group commit is disabled.
+     */
+    private final ScheduledExecutorService commitExecutor;
+    /**
+     * Prepared statements by SQL text. Only used while synchronized on this.
+     */
+    private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+    /**
+     * Id of the last removed element. Elements are read starting after it.
+     */
+    private long removedId;
+    /**
+     * Number of elements that were added but not committed.
+     */
+    private int uncommittedElements;
+    private ScheduledFuture<?> scheduledCommit;
+
+    /**
+     * create persistent queue
+     * @param connection
+     * @param transactionCoordinator
+     * @param capacity Maximum number of elements that can be queued.
+     */
+    public PersistentQueueSQLiteImpl(Connection connection, TransactionCoordinator transactionCoordinator, long capacity) {
+        this(connection, transactionCoordinator, capacity, 1, 0);
+    }
+
+    /**
+     * create persistent queue with group commit.
+     * @param connection
+     * @param transactionCoordinator
+     * @param capacity Maximum number of elements that can be queued.
+     * @param maxElementsPerCommit Maximum number of added elements that are committed together.
+     * @param maxCommitDelayMs Maximum time that an added element may remain uncommitted. If 0, group commit is disabled.
+     */
+    public PersistentQueueSQLiteImpl(Connection connection, TransactionCoordinator transactionCoordinator, long capacity,
+                           int maxElementsPerCommit, long maxCommitDelayMs) {
+        try {
+            this.connection = connection;
+            this.transactionCoordinator = transactionCoordinator;
+            this.capacity = capacity;
+            final boolean groupCommit = maxElementsPerCommit > 1 && maxCommitDelayMs > 0;
+            this.maxElementsPerCommit = groupCommit ? maxElementsPerCommit : 1;
+            this.maxCommitDelayMs = maxCommitDelayMs;
+            this.commitExecutor = groupCommit
+                    ? Executors.newSingleThreadScheduledExecutor(
+                            new ThreadFactoryBuilder().setNameFormat(PersistentQueueSQLiteImpl.class.getSimpleName() + "-commit-%d").setDaemon(true).build())
+                    : null;
+            LOGGER.info("Persistent queue commits up to {} elements at once.", this.maxElementsPerCommit);
+            final long initialSize = getDatabaseRecordCount();
+            LOGGER.info("Persistent queue has {} elements.", initialSize);
+            final int permits = (int) Long.max(Integer.MIN_VALUE, Long.min(Integer.MAX_VALUE, capacity - initialSize));
+            LOGGER.info("Semaphore Permits: {}", permits);
+            semaphore = new Semaphore(permits);
+            performRecovery();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * create a database connection.
+     * @param fileName Name of SQLite database file.
+     * @return database connection
+     */
+    public static Connection createDatabase(String fileName) {
+        try {
+            final Connection connection = DriverManager.getConnection("jdbc:sqlite:" + fileName);
+            try (final Statement statement = connection.createStatement()) {
+                // Use SQLite exclusive locking mode to ensure that another process or device
+                // driver instance is not using this database.
+                // statement.execute("PRAGMA locking_mode = EXCLUSIVE");
+                statement.execute("create table if not exists Queue (" + 
+                    "id integer primary key autoincrement, " + 
+                    "bytes blob not null, " + 
+                    "routingKey string not null, " + 
+                    "timestamp integer not null)");
+            }
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(TRANSACTION_SERIALIZABLE);
+            return connection;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Add an element. Blocks until there is enough capacity.
+     * @param element
+     */
+    @Override
+    public void add(PersistentQueueElement element) throws SQLException, InterruptedException {
+        if (element.id != 0) {
+            throw new IllegalArgumentException();
+        }
+        if (!semaphore.tryAcquire(1)) {
+            LOGGER.warn("Persistent queue is full. No more elements can be added until elements are removed.");
+            semaphore.acquire(1);
+            LOGGER.info("Persistent queue now has capacity.");
+        }
+        synchronized (this) {
+            // Elements that were added before this one have already been acknowledged,
+            // so a failure must only undo this element.
+            final Savepoint savepoint;
+            try {
+                savepoint = connection.setSavepoint();
+            } catch (SQLException e) {
+                semaphore.release(1);
+                throw e;
+            }
+            boolean inserted = false;
+            try {
+                final PreparedStatement insertStatement = prepare("insert into Queue (bytes, routingKey, timestamp) values (?, ?, ?)");
+                insertStatement.setBytes(1, element.bytes);
+                insertStatement.setString(2, element.routingKey);
+                insertStatement.setLong(3, element.timestamp);
+                insertStatement.execute();
+                inserted = true;
+                uncommittedElements++;
+                if (uncommittedElements >= maxElementsPerCommit) {
+                    commitAddedElements();
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                    if (scheduledCommit == null) {
+                        scheduledCommit = commitExecutor.schedule(this::commitAddedElementsAfterDelay, maxCommitDelayMs, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (SQLException e) {
+                if (inserted) {
+                    uncommittedElements--;
+                }
+                rollbackElement(savepoint, e);
+                semaphore.release(1);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Commit the elements that were added but not committed.
+     * @throws SQLException
+     */
+    public synchronized void commitAddedElements() throws SQLException {
+        if (scheduledCommit != null) {
+            scheduledCommit.cancel(false);
+            scheduledCommit = null;
+        }
+        if (uncommittedElements > 0) {
+            connection.commit();
+            uncommittedElements = 0;
+        }
+    }
+
+    /**
+     * Commit the added elements. If the commit fails, the elements are kept and the commit is retried after the maximum delay.
+     */
+    private synchronized void commitAddedElementsAfterDelay() {
+        scheduledCommit = null;
+        try {
+            commitAddedElements();
+        } catch (SQLException e) {
+            LOGGER.error("Unable to commit {} added elements, retrying in {} ms", uncommittedElements, maxCommitDelayMs, e);
+            if (scheduledCommit == null && !commitExecutor.isShutdown()) {
+                scheduledCommit = commitExecutor.schedule(this::commitAddedElementsAfterDelay, maxCommitDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Undo the insert of the element that failed to be added, but keep the elements that were added before it.
+     */
+    private void rollbackElement(Savepoint savepoint, SQLException cause) {
+        try {
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Adds an element to the queue without committing. Blocks until there is enough
+     * capacity.
+     * @param element
+     * @throws SQLException
+     * @throws InterruptedException
+     */
+    public void addWithoutCommit(PersistentQueueElement element) throws SQLException, InterruptedException {
+        if (element.id != 0) {
+            throw new IllegalArgumentException();
+        }
+        if (!semaphore.tryAcquire(1)) {
+            LOGGER.warn("Persistent queue is full. No more elements can be added until elements are removed.");
+            semaphore.acquire(1);
+            LOGGER.info("Persistent queue now has capacity.");
+        }
+        synchronized (this) {
+            try (final PreparedStatement insertStatement = connection
+                    .prepareStatement("insert into Queue (bytes, routingKey, timestamp) values (?, ?, ?)")) {
+                insertStatement.setBytes(1, element.bytes);
+                insertStatement.setString(2, element.routingKey);
+                insertStatement.setLong(3, element.timestamp);
+                insertStatement.execute();
+            }
+        }
+    }
+
+    /**
+     * Retrieve up to limit elements, starting after the last removed element. Does not remove elements.
+     * @param limit
+     * @throws SQLException
+     */
+    @Override
+    public synchronized List<PersistentQueueElement> peek(long limit) throws SQLException {
+        commitAddedElements();
+        final PreparedStatement peekStatement = prepare("select id, bytes, routingKey, timestamp from Queue where id > ? order by id limit ?");
+        peekStatement.setLong(1, removedId);
+        peekStatement.setLong(2, limit);
+        try (final ResultSet rs = peekStatement.executeQuery()) {
+            final List<PersistentQueueElement> result = new ArrayList<>();
+            while (rs.next()) {
+                final PersistentQueueElement element = new PersistentQueueElement(rs.getLong("id"),
+                        rs.getBytes("bytes"), rs.getString("routingKey"), rs.getLong("timestamp"));
+                result.add(element);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public long size() {
+        return capacity - semaphore.availablePermits();
+    }
+
+    /**
+     * Remove all elements with an id less than or equal to maxId. Before this method is called, it is expected
+     * that the elements have been written to Pravega in the Pravega transaction
+     * txnId, flushed, but not committed.
+     * @param maxId
+     * @param txnId
+     * @throws SQLException
+     */
+    @Override
+    public synchronized void remove(long maxId, Optional<UUID> txnId) throws SQLException {
+        if (maxId > removedId) {
+            commitAddedElements();
+            try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                final PreparedStatement deleteStatement = prepare("delete from Queue where id <= ?");
+                deleteStatement.setLong(1, maxId);
+                final int removedCount = deleteStatement.executeUpdate();
+                transactionCoordinator.addTransactionToCommit(txnId);
+                autoRollback.commit();
+                removedId = maxId;
+                semaphore.release(removedCount);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void deleteTransactionToCommit(Optional<UUID> txnId) {
+        commitAddedElementsBeforeCoordinator();
+        transactionCoordinator.deleteTransactionToCommit(txnId);
+    }
+
+    @Override
+    public void trackInFlightTransaction(Optional<UUID> txnId) {
+        transactionCoordinator.trackInFlightTransaction(txnId);
+    }
+
+    @Override
+    public void untrackInFlightTransaction(Optional<UUID> txnId) {
+        transactionCoordinator.untrackInFlightTransaction(txnId);
+    }
+
+    @Override
+    public synchronized void performRecovery() {
+        commitAddedElementsBeforeCoordinator();
+        transactionCoordinator.performRecovery();
+    }
+
+    /**
+     * The transaction coordinator uses the same connection and rolls it back if it fails,
+     * so the elements that were added but not committed must be committed first.
+     */
+    private synchronized void commitAddedElementsBeforeCoordinator() {
+        try {
+            commitAddedElements();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized long getDatabaseRecordCount() throws SQLException {
+        try (final Statement statement = connection.createStatement();
+                final ResultSet rs = statement.executeQuery("select count(id) from Queue")) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            } else {
+                throw new SQLException("Unexpected query response");
+            }
+        }
+    }
+
+    private synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = preparedStatements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            preparedStatements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (commitExecutor != null) {
+            commitExecutor.shutdown();
+        }
+        synchronized (this) {
+            commitAddedElements();
+            for (PreparedStatement statement : preparedStatements.values()) {
+                statement.close();
+            }
+            preparedStatements.clear();
+        }
+        connection.close();
+    }
+}
@@ -0,0 +1,494 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import io.pravega.sensor.collector.util.AutoRollback;
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent queue that appends elements to segment files.
+ *
+ * Elements are assigned consecutive ids. Each segment file is named after the id of its first element
+ * and contains a sequence of records, each framed as (payload length, CRC32 of payload, payload).
+ * The payload is (timestamp, routing key length, routing key, bytes).
+ * The records of a segment end at the end of the file or at the first record that is not valid.
+ * A record is durable when {@link #add} returns.
+ *
+ * Segments are written and read with positional {@link FileChannel} operations instead of a memory mapping,
+ * because a mapped file cannot be deleted on Windows until the mapping is garbage collected.
+ *
+ * The id of the next element to read is the durable read cursor.
+ * It is stored in the SQLite database in the same transaction that records the Pravega transaction to commit,
+ * so that removal works with the two-phase commit of {@link TransactionCoordinator}.
+ * Space is reclaimed by deleting segments that only contain removed elements.
+ */
+public class PersistentQueueSegmentLogImpl implements PersistentQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentQueueSegmentLogImpl.class);
+
+    private static final String SEGMENT_FILE_EXTENSION = ".log";
+    /**
+     * Payload length and CRC32.
+     */
+    private static final int FRAME_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    /**
+     * Timestamp and routing key length.
+     */
+    private static final int PAYLOAD_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * The connection is only used to store the read cursor and the transactions to commit.
+     */
+    private final Connection connection;
+    private final TransactionCoordinator transactionCoordinator;
+    private final Path directory;
+    private final int segmentSizeBytes;
+    private final Semaphore semaphore;
+    /**
+     * Segments by the id of their first element. The last segment is the one being written.
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    /**
+     * Id of the next element to read. All elements with a lower id have been removed.
+     */
+    private long readId;
+    private Segment readSegment;
+    private int readPosition;
+    /**
+     * Id of the next element to add.
+     */
+    private long writeId;
+
+    /**
+     * create persistent queue.
+     * @param connection             SQLite connection used for the read cursor and the transactions to commit
+     * @param transactionCoordinator transaction coordinator using the same connection
+     * @param directory              directory containing the segment files
+     * @param segmentSizeBytes       size at which a new segment file is started
+     * @param capacity               Maximum number of elements that can be queued.
+     */
+    public PersistentQueueSegmentLogImpl(Connection connection, TransactionCoordinator transactionCoordinator,
+                                         Path directory, int segmentSizeBytes, long capacity) {
+        try {
+            this.connection = connection;
+            this.transactionCoordinator = transactionCoordinator;
+            this.directory = directory;
+            this.segmentSizeBytes = segmentSizeBytes;
+            Files.createDirectories(directory);
+            readId = initializeDatabase();
+            openSegments();
+            final long initialSize = writeId - readId;
+            LOGGER.info("Persistent queue has {} elements in {} segments.", initialSize, segments.size());
+            final int permits = (int) Long.max(Integer.MIN_VALUE, Long.min(Integer.MAX_VALUE, capacity - initialSize));
+            LOGGER.info("Semaphore Permits: {}", permits);
+            semaphore = new Semaphore(permits);
+            performRecovery();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Create the read cursor table if needed.
+     * @return the id of the next element to read
+     */
+    private long initializeDatabase() throws SQLException {
+        synchronized (connection) {
+            try (final Statement statement = connection.createStatement();
+                 final AutoRollback autoRollback = new AutoRollback(connection)) {
+                statement.execute(
+                        "create table if not exists SegmentLogCursor (" +
+                                "id integer primary key check (id = 0), " +
+                                "nextId bigint not null)");
+                statement.execute("insert or ignore into SegmentLogCursor (id, nextId) values (0, 0)");
+                final long nextId;
+                try (final ResultSet rs = statement.executeQuery("select nextId from SegmentLogCursor")) {
+                    if (!rs.next()) {
+                        throw new SQLException("Unexpected query response");
+                    }
+                    nextId = rs.getLong(1);
+                }
+                autoRollback.commit();
+                return nextId;
+            }
+        }
+    }
+
+    /**
+     * Open the existing segment files, delete those that only contain removed elements,
+     * and position the reader at the read cursor and the writer after the last valid record.
+     */
+    private void openSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_FILE_EXTENSION)) {
+            for (Path path : stream) {
+                final String name = path.getFileName().toString();
+                final long firstId = Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_EXTENSION.length()));
+                segments.put(firstId, new Segment(firstId, path));
+            }
+        }
+        // Delete segments whose elements have all been removed. A segment is complete when a later segment exists.
+        while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= readId) {
+            deleteSegment(segments.firstEntry().getValue());
+        }
+        if (segments.isEmpty() || segments.firstKey() > readId) {
+            if (!segments.isEmpty()) {
+                LOGGER.error("Persistent queue elements {} to {} are missing", readId, segments.firstKey() - 1);
+                readId = segments.firstKey();
+            } else {
+                segments.put(readId, createSegment(readId));
+            }
+        }
+        Segment previous = null;
+        for (Segment segment : segments.values()) {
+            final int recordCount = segment.recover();
+            if (previous != null && previous.firstId + previous.recordCount != segment.firstId) {
+                LOGGER.error("Persistent queue elements {} to {} are missing or corrupt",
+                        previous.firstId + previous.recordCount, segment.firstId - 1);
+            }
+            segment.recordCount = recordCount;
+            previous = segment;
+        }
+        Segment lastSegment = segments.lastEntry().getValue();
+        writeId = lastSegment.firstId + lastSegment.recordCount;
+        lastSegment.truncateAfterLastRecord();
+        if (writeId < readId) {
+            LOGGER.error("Persistent queue elements {} to {} are missing", writeId, readId - 1);
+            while (!segments.isEmpty()) {
+                deleteSegment(segments.firstEntry().getValue());
+            }
+            lastSegment = createSegment(readId);
+            segments.put(readId, lastSegment);
+            writeId = readId;
+        }
+        readSegment = segments.floorEntry(readId).getValue();
+        readPosition = 0;
+        final long skipCount = readId - readSegment.firstId;
+        readId = readSegment.firstId;
+        skip(skipCount);
+    }
+
+    /**
+     * Add an element. Blocks until there is enough capacity.
+     * @param element
+     */
+    @Override
+    public void add(PersistentQueueElement element) throws IOException, InterruptedException {
+        if (element.id != 0) {
+            throw new IllegalArgumentException();
+        }
+        if (!semaphore.tryAcquire(1)) {
+            LOGGER.warn("Persistent queue is full. No more elements can be added until elements are removed.");
+            semaphore.acquire(1);
+            LOGGER.info("Persistent queue now has capacity.");
+        }
+        try {
+            synchronized (this) {
+                final byte[] routingKey = element.routingKey.getBytes(StandardCharsets.UTF_8);
+                final int payloadSize = PAYLOAD_HEADER_SIZE + routingKey.length + element.bytes.length;
+                final int recordSize = FRAME_HEADER_SIZE + payloadSize;
+                Segment segment = segments.lastEntry().getValue();
+                // A record that is larger than a segment is written alone to a segment.
+                if (segment.writePosition > 0 && segment.writePosition + recordSize > segmentSizeBytes) {
+                    segment = createSegment(writeId);
+                    segments.put(writeId, segment);
+                }
+                final ByteBuffer record = ByteBuffer.allocate(recordSize);
+                record.position(FRAME_HEADER_SIZE);
+                record.putLong(element.timestamp);
+                record.putInt(routingKey.length);
+                record.put(routingKey);
+                record.put(element.bytes);
+                final CRC32 crc = new CRC32();
+                crc.update(record.array(), FRAME_HEADER_SIZE, payloadSize);
+                record.putInt(0, payloadSize);
+                record.putInt(Integer.BYTES, (int) crc.getValue());
+                record.flip();
+                segment.append(record);
+                segment.recordCount++;
+                writeId++;
+            }
+        } catch (IOException | RuntimeException e) {
+            semaphore.release(1);
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized List<PersistentQueueElement> peek(long limit) throws IOException {
+        final List<PersistentQueueElement> result = new ArrayList<>();
+        Segment segment = readSegment;
+        int position = readPosition;
+        long id = readId;
+        while (result.size() < limit && id < writeId) {
+            if (position >= segment.endPosition()) {
+                segment = segments.higherEntry(segment.firstId).getValue();
+                position = 0;
+                id = segment.firstId;
+                continue;
+            }
+            final int payloadSize = segment.read(position, Integer.BYTES).getInt();
+            final ByteBuffer payload = segment.read(position + FRAME_HEADER_SIZE, payloadSize);
+            final long timestamp = payload.getLong();
+            final byte[] routingKey = new byte[payload.getInt()];
+            payload.get(routingKey);
+            final byte[] bytes = new byte[payloadSize - PAYLOAD_HEADER_SIZE - routingKey.length];
+            payload.get(bytes);
+            result.add(new PersistentQueueElement(id, bytes, new String(routingKey, StandardCharsets.UTF_8), timestamp));
+            position += FRAME_HEADER_SIZE + payloadSize;
+            id++;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long size() {
+        return writeId - readId;
+    }
+
+    @Override
+    public synchronized void remove(long maxId, Optional<UUID> txnId) throws SQLException, IOException {
+        if (maxId >= readId) {
+            if (maxId >= writeId) {
+                throw new IllegalArgumentException("Element " + maxId + " has not been added");
+            }
+            final long nextId = maxId + 1;
+            synchronized (connection) {
+                try (final PreparedStatement updateStatement = connection.prepareStatement(
+                        "update SegmentLogCursor set nextId = ?");
+                     final AutoRollback autoRollback = new AutoRollback(connection)) {
+                    updateStatement.setLong(1, nextId);
+                    updateStatement.execute();
+                    transactionCoordinator.addTransactionToCommit(txnId);
+                    autoRollback.commit();
+                }
+            }
+            final long removedCount = nextId - readId;
+            skip(removedCount);
+            semaphore.release((int) removedCount);
+            // Segments before the read segment only contain removed elements.
+            while (segments.firstEntry().getValue() != readSegment) {
+                deleteSegment(segments.firstEntry().getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void deleteTransactionToCommit(Optional<UUID> txnId) {
+        transactionCoordinator.deleteTransactionToCommit(txnId);
+    }
+
+    @Override
+    public void trackInFlightTransaction(Optional<UUID> txnId) {
+        transactionCoordinator.trackInFlightTransaction(txnId);
+    }
+
+    @Override
+    public void untrackInFlightTransaction(Optional<UUID> txnId) {
+        transactionCoordinator.untrackInFlightTransaction(txnId);
+    }
+
+    @Override
+    public synchronized void performRecovery() {
+        transactionCoordinator.performRecovery();
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        connection.close();
+    }
+
+    /**
+     * Advance the reader by count elements.
+     */
+    private void skip(long count) throws IOException {
+        final long targetId = readId + count;
+        while (readId < targetId) {
+            if (readPosition >= readSegment.endPosition()) {
+                final Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.firstId);
+                if (next == null) {
+                    throw new IllegalStateException("Unable to skip past the last element");
+                }
+                readSegment = next.getValue();
+                readPosition = 0;
+                readId = readSegment.firstId;
+            } else {
+                readPosition += FRAME_HEADER_SIZE + readSegment.read(readPosition, Integer.BYTES).getInt();
+                readId++;
+            }
+        }
+        // Move to the next segment when the read segment has been fully read so that it can be deleted.
+        if (readPosition >= readSegment.endPosition() && segments.higherKey(readSegment.firstId) != null) {
+            readSegment = segments.higherEntry(readSegment.firstId).getValue();
+            readPosition = 0;
+            readId = readSegment.firstId;
+        }
+    }
+
+    private Segment createSegment(long firstId) throws IOException {
+        final Path path = directory.resolve(String.format("%020d%s", firstId, SEGMENT_FILE_EXTENSION));
+        LOGGER.info("Creating segment {}", path);
+        return new Segment(firstId, path);
+    }
+
+    private void deleteSegment(Segment segment) {
+        LOGGER.info("Deleting segment {}", segment.path);
+        segments.remove(segment.firstId);
+        try {
+            segment.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete segment {}", segment.path, e);
+        }
+    }
+
+    /**
+     * A segment file, which is kept open until it is deleted or the queue is closed.
+     */
+    private static final class Segment implements AutoCloseable {
+        private final long firstId;
+        private final Path path;
+        private final FileChannel channel;
+        private int recordCount;
+        /**
+         * Position after the last record.
+         */
+        private int writePosition;
+
+        /**
+         * Open or create a segment file.
+         */
+        Segment(long firstId, Path path) throws IOException {
+            this.firstId = firstId;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Write a record after the last record and sync it to disk.
+         * Only the data of the file is synced. Its size is also synced if it is needed to read the data.
+         */
+        void append(ByteBuffer record) throws IOException {
+            long position = writePosition;
+            try {
+                while (record.hasRemaining()) {
+                    position += channel.write(record, position);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                // Remove the partially written record so that the next record does not follow it.
+                try {
+                    channel.truncate(writePosition);
+                } catch (IOException truncateException) {
+                    e.addSuppressed(truncateException);
+                }
+                throw e;
+            }
+            writePosition = (int) position;
+        }
+
+        /**
+         * @return a buffer with length bytes read from position
+         */
+        ByteBuffer read(long position, int length) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of segment " + path);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Find the valid records and set the write position after the last one.
+         * A record that was partially written when the process failed fails the CRC check.
+         * @return number of valid records
+         */
+        int recover() throws IOException {
+            final long size = channel.size();
+            int count = 0;
+            long position = 0;
+            final CRC32 crc = new CRC32();
+            while (position + FRAME_HEADER_SIZE <= size) {
+                final ByteBuffer header = read(position, FRAME_HEADER_SIZE);
+                final int payloadSize = header.getInt();
+                final int checksum = header.getInt();
+                if (payloadSize < PAYLOAD_HEADER_SIZE || payloadSize > size - position - FRAME_HEADER_SIZE) {
+                    break;
+                }
+                crc.reset();
+                crc.update(read(position + FRAME_HEADER_SIZE, payloadSize));
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                position += FRAME_HEADER_SIZE + payloadSize;
+                count++;
+            }
+            writePosition = (int) position;
+            return count;
+        }
+
+        /**
+         * Remove any partially written record after the last valid record so that the next record follows the last valid one.
+         * Segments that were preallocated with zeros are truncated too.
+         */
+        void truncateAfterLastRecord() throws IOException {
+            final long size = channel.size();
+            if (size > writePosition) {
+                if (size >= writePosition + Integer.BYTES && read(writePosition, Integer.BYTES).getInt() != 0) {
+                    LOGGER.warn("Discarding partially written record at position {} in segment {}", writePosition, path);
+                }
+                channel.truncate(writePosition);
+                channel.force(false);
+            }
+        }
+
+        /**
+         * @return position after the last record that can be read
+         */
+        int endPosition() {
+            return writePosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
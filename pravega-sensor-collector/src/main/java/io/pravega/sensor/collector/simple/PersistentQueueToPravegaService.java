@@ -10,16 +10,34 @@
 package io.pravega.sensor.collector.simple;
 
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.pravega.sensor.collector.metrics.Counter;
+import io.pravega.sensor.collector.metrics.LatencyHistogram;
+import io.pravega.sensor.collector.metrics.MetricsRegistry;
+import io.pravega.sensor.collector.util.DriverExecutors;
 import io.pravega.sensor.collector.util.EventWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Read events from the persistent queue and write them to Pravega.
+ *
+ * Each batch of events is written in its own Pravega transaction.
+ * By default, a transaction is committed before the next batch is read.
+ * In pipelined mode, up to maxOutstandingTransactions transactions are committed in the background
+ * while the next batches are written, so that the commit latency does not limit the throughput.
+ * Transactions are committed by a single thread in the order in which they were flushed.
  */
 public class PersistentQueueToPravegaService extends AbstractExecutionThreadService {
     private static final Logger log = LoggerFactory.getLogger(PersistentQueueToPravegaService.class);
@@ -27,15 +45,62 @@ public class PersistentQueueToPravegaService extends AbstractExecutionThreadServ
     private final String instanceName;
     private final PersistentQueue persistentQueue;
     private final EventWriter<byte[]> writer;
-    private final int maxEventsPerWriteBatch;
-    private final long delayBetweenWriteBatchesMs;
+    private final WriteBatchController batchController;
+    private final int maxOutstandingTransactions;
+    /**
+     * Commits transactions in pipelined mode. Null if transactions are committed synchronously.
+     */
+    private final ExecutorService commitExecutor;
+    private final Counter eventsWritten;
+    private final Counter bytesWritten;
+    private final LatencyHistogram peekLatency;
+    private final LatencyHistogram removeLatency;
+    private final LatencyHistogram flushLatency;
+    private final LatencyHistogram commitLatency;
+    private final DriverExecutors driverExecutors;
 
     public PersistentQueueToPravegaService(String instanceName, PersistentQueue persistentQueue, EventWriter<byte[]> writer, int maxEventsPerWriteBatch, long delayBetweenWriteBatchesMs) {
+        this(instanceName, persistentQueue, writer, new WriteBatchController(maxEventsPerWriteBatch, delayBetweenWriteBatchesMs), 1);
+    }
+
+    public PersistentQueueToPravegaService(String instanceName, PersistentQueue persistentQueue, EventWriter<byte[]> writer, int maxEventsPerWriteBatch,
+                                           long delayBetweenWriteBatchesMs, int maxOutstandingTransactions) {
+        this(instanceName, persistentQueue, writer, new WriteBatchController(maxEventsPerWriteBatch, delayBetweenWriteBatchesMs),
+                maxOutstandingTransactions);
+    }
+
+    public PersistentQueueToPravegaService(String instanceName, PersistentQueue persistentQueue, EventWriter<byte[]> writer,
+                                           WriteBatchController batchController, int maxOutstandingTransactions) {
+        this(instanceName, persistentQueue, writer, batchController, maxOutstandingTransactions, new MetricsRegistry());
+    }
+
+    public PersistentQueueToPravegaService(String instanceName, PersistentQueue persistentQueue, EventWriter<byte[]> writer,
+                                           WriteBatchController batchController, int maxOutstandingTransactions, MetricsRegistry metricsRegistry) {
+        this(instanceName, persistentQueue, writer, batchController, maxOutstandingTransactions, metricsRegistry, new DriverExecutors());
+    }
+
+    public PersistentQueueToPravegaService(String instanceName, PersistentQueue persistentQueue, EventWriter<byte[]> writer,
+                                           WriteBatchController batchController, int maxOutstandingTransactions, MetricsRegistry metricsRegistry,
+                                           DriverExecutors driverExecutors) {
         this.instanceName = instanceName;
         this.persistentQueue = persistentQueue;
         this.writer = writer;
-        this.maxEventsPerWriteBatch = maxEventsPerWriteBatch;
-        this.delayBetweenWriteBatchesMs = delayBetweenWriteBatchesMs;
+        this.batchController = batchController;
+        this.maxOutstandingTransactions = Integer.max(1, maxOutstandingTransactions);
+        this.commitExecutor = this.maxOutstandingTransactions > 1
+                ? Executors.newSingleThreadExecutor(driverExecutors.threadFactory("commit-" + instanceName + "-%d"))
+                : null;
+        this.eventsWritten = metricsRegistry.counter("psc_events_written_total", "Events written to Pravega.", instanceName);
+        this.bytesWritten = metricsRegistry.counter("psc_bytes_written_total", "Bytes written to Pravega.", instanceName);
+        this.peekLatency = metricsRegistry.latencyHistogram("psc_persistent_queue_peek_seconds",
+                "Time to read a batch of events from the persistent queue.", instanceName);
+        this.removeLatency = metricsRegistry.latencyHistogram("psc_persistent_queue_remove_seconds",
+                "Time to remove a batch of events from the persistent queue.", instanceName);
+        this.flushLatency = metricsRegistry.latencyHistogram("psc_pravega_flush_seconds",
+                "Time to write and flush a batch of events to Pravega.", instanceName);
+        this.commitLatency = metricsRegistry.latencyHistogram("psc_pravega_commit_seconds",
+                "Time to commit a Pravega transaction.", instanceName);
+        this.driverExecutors = driverExecutors;
     }
 
     @Override
@@ -43,21 +108,37 @@ public class PersistentQueueToPravegaService extends AbstractExecutionThreadServ
         return super.serviceName() + "-" + instanceName;
     }
 
+    @Override
+    protected Executor executor() {
+        return driverExecutors.serviceExecutor(serviceName());
+    }
+
     @Override
     protected void run() throws Exception {
         log.info("Running");
+        final Executor executor = commitExecutor == null ? MoreExecutors.directExecutor() : commitExecutor;
+        // Transactions that have been flushed and recorded in the persistent queue, in the order in which they were flushed.
+        final Deque<OutstandingTransaction> outstandingTransactions = new ArrayDeque<>();
+        // The persistent queue performs recovery when it is opened.
+        boolean recoveryNeeded = false;
         for (;;) {
             try {
-                // In case a previous iteration encountered an error, we need to ensure that
-                // previous flushed transactions are committed and any unflushed transactions are aborted.
-                persistentQueue.performRecovery();
-                writer.abort();
+                if (recoveryNeeded) {
+                    // A previous iteration encountered an error, so we need to ensure that
+                    // previous flushed transactions are committed and any unflushed transactions are aborted.
+                    releaseOutstandingTransactions(outstandingTransactions);
+                    persistentQueue.performRecovery();
+                    writer.abort();
+                    recoveryNeeded = false;
+                }
 
-                List<PersistentQueueElement> events = persistentQueue.peek(maxEventsPerWriteBatch);
+                final long peekStartNanos = System.nanoTime();
+                List<PersistentQueueElement> events = persistentQueue.peek(batchController.getBatchSize());
+                final long t0 = System.nanoTime();
+                peekLatency.recordNanos(t0 - peekStartNanos);
+                long byteCount = 0;
                 if (!events.isEmpty()) {
                     log.info("Writing {} events to Pravega", events.size());
-                    final long t0 = System.nanoTime();
-                    long byteCount = 0;
                     long timestamp = 0;
                     for (PersistentQueueElement event : events) {
                         log.trace("Writing event={}", event);
@@ -67,26 +148,84 @@ public class PersistentQueueToPravegaService extends AbstractExecutionThreadServ
                         writer.writeEvent(event.routingKey, eventBytes);
                     }
                     final Optional<UUID> txnId = writer.flush();
-                    final double ms = (System.nanoTime() - t0) * 1e-6;
-                    persistentQueue.remove(events, txnId);
+                    final long flushEndNanos = System.nanoTime();
+                    flushLatency.recordNanos(flushEndNanos - t0);
+                    final double ms = (flushEndNanos - t0) * 1e-6;
+                    // Recovery must not commit this transaction while it is outstanding.
+                    persistentQueue.trackInFlightTransaction(txnId);
+                    try {
+                        persistentQueue.remove(events.get(events.size() - 1).id, txnId);
+                        removeLatency.recordSince(flushEndNanos);
+                    } catch (Exception e) {
+                        persistentQueue.untrackInFlightTransaction(txnId);
+                        throw e;
+                    }
                     // injectCommitFailure();
-                    writer.commit(timestamp);
-                    persistentQueue.deleteTransactionToCommit(txnId);
+                    final long commitStartNanos = System.nanoTime();
+                    final int eventCount = events.size();
+                    final long batchByteCount = byteCount;
+                    final CompletableFuture<Void> commitFuture = writer.commitAsync(timestamp, executor).whenComplete((result, e) -> {
+                        if (e == null) {
+                            commitLatency.recordSince(commitStartNanos);
+                            eventsWritten.add(eventCount);
+                            bytesWritten.add(batchByteCount);
+                        }
+                    });
+                    outstandingTransactions.add(new OutstandingTransaction(txnId, commitFuture));
                     log.info(String.format("Done writing %d bytes in %d events in %.3f ms to Pravega",
                             byteCount, events.size(), ms));
                 }
-                // Only sleep if the batch was not full.
-                if (events.size() < maxEventsPerWriteBatch) {
-                    Thread.sleep(delayBetweenWriteBatchesMs);
+                batchController.update(events.size(), byteCount, System.nanoTime() - t0, persistentQueue.size());
+                // Before sleeping, wait for all outstanding commits.
+                final long delayMs = batchController.getDelayMs();
+                completeTransactions(outstandingTransactions, delayMs == 0 ? maxOutstandingTransactions - 1 : 0);
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
                 }
             } catch (Exception e) {
                 log.error("Error", e);
+                recoveryNeeded = true;
                 Thread.sleep(10000);
                 // Continue on any errors. We will retry on the next iteration.
             }
         }
     }
 
+    @Override
+    protected void shutDown() {
+        if (commitExecutor != null) {
+            commitExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Wait for the oldest transactions to be committed until no more than maxRemaining are outstanding,
+     * then delete all committed transactions from the persistent queue in order.
+     * @throws CompletionException If a transaction could not be committed
+     */
+    private void completeTransactions(Deque<OutstandingTransaction> outstandingTransactions, int maxRemaining) {
+        while (!outstandingTransactions.isEmpty()
+                && (outstandingTransactions.size() > maxRemaining || outstandingTransactions.peek().commitFuture.isDone())) {
+            final OutstandingTransaction transaction = outstandingTransactions.peek();
+            transaction.commitFuture.join();
+            outstandingTransactions.remove();
+            persistentQueue.deleteTransactionToCommit(transaction.txnId);
+            persistentQueue.untrackInFlightTransaction(transaction.txnId);
+        }
+    }
+
+    /**
+     * After an error, wait for the outstanding commits to finish, successfully or not,
+     * and let recovery commit any transactions that remain to be committed.
+     */
+    private void releaseOutstandingTransactions(Deque<OutstandingTransaction> outstandingTransactions) {
+        for (OutstandingTransaction transaction : outstandingTransactions) {
+            transaction.commitFuture.handle((result, e) -> null).join();
+            persistentQueue.untrackInFlightTransaction(transaction.txnId);
+        }
+        outstandingTransactions.clear();
+    }
+
     /**
      * Inject a failure before commit for testing.
      */
@@ -95,4 +234,17 @@ public class PersistentQueueToPravegaService extends AbstractExecutionThreadServ
             throw new RuntimeException("injectCommitFailure: Commit failure test exception");
         }
     }
+
+    /**
+     * A transaction that is being committed.
+     */
+    private static final class OutstandingTransaction {
+        private final Optional<UUID> txnId;
+        private final CompletableFuture<Void> commitFuture;
+
+        OutstandingTransaction(Optional<UUID> txnId, CompletableFuture<Void> commitFuture) {
+            this.txnId = txnId;
+            this.commitFuture = commitFuture;
+        }
+    }
 }
@@ -11,8 +11,6 @@ package io.pravega.sensor.collector.simple;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.util.List;
-
 public interface Samples {
     /**
      * @return the number of samples
@@ -20,16 +18,16 @@ public interface Samples {
     int size();
 
     /**
-     * @return the list of sample timestamps as nanoseconds since 1970-01-01
+     * @param index the index of the sample
+     * @return the timestamp of the sample as nanoseconds since 1970-01-01
      */
-    List<Long> getTimestampNanos();
+    long timestampAt(int index);
 
     /**
      * @return the maximum timestamp as nanoseconds since 1970-01-01
      */
     @JsonIgnore
     default long getMaxTimestampNanos() {
-        final List<Long> timestampsNanos = getTimestampNanos();
-        return timestampsNanos.get(timestampsNanos.size() - 1);
+        return timestampAt(size() - 1);
     }
 }
@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+/**
+ * The format used to serialize samples to event bytes.
+ */
+public enum SamplesFormat {
+    /**
+     * A JSON object with an array of numbers for each column.
+     */
+    JSON,
+    /**
+     * A compact, self-describing binary columnar encoding.
+     * See {@link io.pravega.sensor.collector.util.ColumnarSamplesEncoder}.
+     */
+    BINARY
+}
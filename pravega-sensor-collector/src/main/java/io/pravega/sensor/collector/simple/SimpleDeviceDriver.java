@@ -11,36 +11,55 @@ package io.pravega.sensor.collector.simple;
 
 import io.pravega.client.EventStreamClientFactory;
 import io.pravega.client.stream.EventWriterConfig;
-import io.pravega.client.stream.impl.ByteArraySerializer;
 import io.pravega.sensor.collector.DeviceDriver;
 import io.pravega.sensor.collector.DeviceDriverConfig;
+import io.pravega.sensor.collector.metrics.MetricsRegistry;
+import io.pravega.sensor.collector.util.EventCompressor;
 import io.pravega.sensor.collector.util.EventWriter;
 import io.pravega.sensor.collector.util.PersistentId;
+import io.pravega.sensor.collector.util.RingBufferQueue;
 import io.pravega.sensor.collector.util.TransactionCoordinator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * This is an abstract class that uses a memory queue and a SQLite persistent queue, and writes to a single Pravega stream.
+ * This is an abstract class that uses a memory queue and a persistent queue, and writes to a single Pravega stream.
+ * The persistent queue is stored in SQLite by default, or in append-only segment files if PERSISTENT_QUEUE_TYPE is segment-log.
  */
 public abstract class SimpleDeviceDriver<R, S extends Samples> extends DeviceDriver {
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleDeviceDriver.class);
 
     private static final String MEMORY_QUEUE_CAPACITY_ELEMENTS_KEY = "MEMORY_QUEUE_CAPACITY_ELEMENTS";
+    private static final String MEMORY_QUEUE_WAIT_STRATEGY_KEY = "MEMORY_QUEUE_WAIT_STRATEGY";
+    private static final String MEMORY_QUEUE_FULL_POLICY_KEY = "MEMORY_QUEUE_FULL_POLICY";
 
     private static final String PERSISTENT_QUEUE_FILE_KEY = "PERSISTENT_QUEUE_FILE";
     private static final String PERSISTENT_QUEUE_CAPACITY_EVENTS_KEY = "PERSISTENT_QUEUE_CAPACITY_EVENTS";
+    private static final String PERSISTENT_QUEUE_TYPE_KEY = "PERSISTENT_QUEUE_TYPE";
+    private static final String PERSISTENT_QUEUE_SEGMENT_SIZE_BYTES_KEY = "PERSISTENT_QUEUE_SEGMENT_SIZE_BYTES";
+    private static final String PERSISTENT_QUEUE_COMMIT_MAX_EVENTS_KEY = "PERSISTENT_QUEUE_COMMIT_MAX_EVENTS";
+    private static final String PERSISTENT_QUEUE_COMMIT_MAX_DELAY_MS_KEY = "PERSISTENT_QUEUE_COMMIT_MAX_DELAY_MS";
+    private static final String PERSISTENT_QUEUE_TYPE_SQLITE = "sqlite";
+    private static final String PERSISTENT_QUEUE_TYPE_SEGMENT_LOG = "segment-log";
     protected static final String SAMPLES_PER_EVENT_KEY = "SAMPLES_PER_EVENT";
+    private static final String SAMPLES_FORMAT_KEY = "SAMPLES_FORMAT";
+    private static final String EVENT_COMPRESSION_KEY = "EVENT_COMPRESSION";
+    private static final String EVENT_COMPRESSION_LEVEL_KEY = "EVENT_COMPRESSION_LEVEL";
 
     private static final String SCOPE_KEY = "SCOPE";
     private static final String STREAM_KEY = "STREAM";
     private static final String ROUTING_KEY_KEY = "ROUTING_KEY";
     private static final String MAX_EVENTS_PER_WRITE_BATCH_KEY = "MAX_EVENTS_PER_WRITE_BATCH";
     private static final String DELAY_BETWEEN_WRITE_BATCHES_MS_KEY = "DELAY_BETWEEN_WRITE_BATCHES_MS";
+    private static final String MAX_OUTSTANDING_TRANSACTIONS_KEY = "MAX_OUTSTANDING_TRANSACTIONS";
+    private static final String ADAPTIVE_WRITE_BATCHES_KEY = "ADAPTIVE_WRITE_BATCHES";
+    private static final String MAX_ADAPTIVE_EVENTS_PER_WRITE_BATCH_KEY = "MAX_ADAPTIVE_EVENTS_PER_WRITE_BATCH";
+    private static final String MAX_BYTES_PER_WRITE_BATCH_KEY = "MAX_BYTES_PER_WRITE_BATCH";
+    private static final String TARGET_WRITE_BATCH_LATENCY_MS_KEY = "TARGET_WRITE_BATCH_LATENCY_MS";
+    private static final String MIN_DELAY_BETWEEN_WRITE_BATCHES_MS_KEY = "MIN_DELAY_BETWEEN_WRITE_BATCHES_MS";
     private static final String EXACTLY_ONCE_KEY = "EXACTLY_ONCE";
     private static final String TRANSACTION_TIMEOUT_MINUTES_KEY = "TRANSACTION_TIMEOUT_MINUTES";
 
@@ -56,47 +75,75 @@ public abstract class SimpleDeviceDriver<R, S extends Samples> extends DeviceDri
         super(config);
 
         final int memoryQueueCapacityElements = getMemoryQueueCapacityElements();
+        final RingBufferQueue.WaitStrategy memoryQueueWaitStrategy = getMemoryQueueWaitStrategy();
+        final RingBufferQueue.FullPolicy memoryQueueFullPolicy = getMemoryQueueFullPolicy();
         LOGGER.info("Memory Queue Capacity: {} elements", memoryQueueCapacityElements);
+        LOGGER.info("Memory Queue Wait Strategy: {}", memoryQueueWaitStrategy);
+        LOGGER.info("Memory Queue Full Policy: {}", memoryQueueFullPolicy);
 
         final String persistentQueueFileName = getPersistentQueueFileName();
         final int persistentQueueCapacityEvents = getPersistentQueueCapacityEvents();
+        final String persistentQueueType = getPersistentQueueType();
+        final int persistentQueueCommitMaxEvents = getPersistentQueueCommitMaxEvents();
+        final long persistentQueueCommitMaxDelayMs = getPersistentQueueCommitMaxDelayMs();
         final int samplesPerEvent = getSamplesPerEvent();
         LOGGER.info("Persistent Queue File: {}", persistentQueueFileName);
         LOGGER.info("Persistent Queue Capacity Events: {}", persistentQueueCapacityEvents);
+        LOGGER.info("Persistent Queue Type: {}", persistentQueueType);
+        LOGGER.info("Persistent Queue Commit Max Events: {}", persistentQueueCommitMaxEvents);
+        LOGGER.info("Persistent Queue Commit Max Delay: {} ms", persistentQueueCommitMaxDelayMs);
         LOGGER.info("Samples Per Event: {}", samplesPerEvent);
+        LOGGER.info("Samples Format: {}", getSamplesFormat());
+        final EventCompressor eventCompressor = new EventCompressor(getEventCompression(), getEventCompressionLevel());
+        LOGGER.info("Event Compression: {}, level {}", eventCompressor.getCodec(), eventCompressor.getLevel());
 
         final String scopeName = getScopeName();
         final String streamName = getStreamName();
         routingKey = getRoutingKey();
         final int maxEventsPerWriteBatch = getMaxEventsPerWriteBatch();
         final long delayBetweenWriteBatchesMs = getDelayBetweenWriteBatchesMs();
+        final int maxOutstandingTransactions = getMaxOutstandingTransactions();
         final boolean exactlyOnce = getExactlyOnce();
         final double transactionTimeoutMinutes = getTransactionTimeoutMinutes();
         LOGGER.info("Stream: {}/{}", scopeName, streamName);
         LOGGER.info("Routing Key: {}", routingKey);
         LOGGER.info("Max Events Per Write Batch: {}", maxEventsPerWriteBatch);
         LOGGER.info("Delay Between Write Batches: {} ms", delayBetweenWriteBatchesMs);
+        LOGGER.info("Max Outstanding Transactions: {}", maxOutstandingTransactions);
+        final WriteBatchController batchController;
+        if (getAdaptiveWriteBatches()) {
+            final int maxAdaptiveEventsPerWriteBatch = getMaxAdaptiveEventsPerWriteBatch();
+            final long maxBytesPerWriteBatch = getMaxBytesPerWriteBatch();
+            final long targetWriteBatchLatencyMs = getTargetWriteBatchLatencyMs();
+            final long minDelayBetweenWriteBatchesMs = getMinDelayBetweenWriteBatchesMs();
+            LOGGER.info("Adaptive Write Batches: Max Events Per Write Batch: {}, Max Bytes Per Write Batch: {}, " +
+                            "Target Write Batch Latency: {} ms, Min Delay Between Write Batches: {} ms",
+                    maxAdaptiveEventsPerWriteBatch, maxBytesPerWriteBatch, targetWriteBatchLatencyMs, minDelayBetweenWriteBatchesMs);
+            batchController = new AdaptiveWriteBatchController(maxEventsPerWriteBatch, delayBetweenWriteBatchesMs,
+                    maxAdaptiveEventsPerWriteBatch, maxBytesPerWriteBatch, targetWriteBatchLatencyMs, minDelayBetweenWriteBatchesMs);
+        } else {
+            batchController = new WriteBatchController(maxEventsPerWriteBatch, delayBetweenWriteBatchesMs);
+        }
         LOGGER.info("Exactly Once: {}", exactlyOnce);
         LOGGER.info("Transaction Timeout: {} minutes", transactionTimeoutMinutes);
 
-        final BlockingQueue<R> memoryQueue = new LinkedBlockingQueue<>(memoryQueueCapacityElements);
+        final RingBufferQueue<R> memoryQueue = new RingBufferQueue<>(memoryQueueCapacityElements, memoryQueueWaitStrategy, memoryQueueFullPolicy);
 
-        dataCollectorService = new DataCollectorService<>(config.getInstanceName(), memoryQueue, this);
+        dataCollectorService = new DataCollectorService<>(config.getInstanceName(), memoryQueue, this, getDriverExecutors());
 
         createStream(scopeName, streamName);
 
-        final Connection connection = PersistentQueue.createDatabase(getPersistentQueueFileName());
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(getPersistentQueueFileName());
 
         final String writerId = new PersistentId(connection).getPersistentId().toString();
         LOGGER.info("Writer ID: {}", writerId);
 
         clientFactory = getEventStreamClientFactory(scopeName);
 
-        writer = EventWriter.create(
-            clientFactory,
+        writer = createEventWriter(
             writerId,
+            scopeName,
             streamName,
-            new ByteArraySerializer(),
             EventWriterConfig.builder()
                     .enableConnectionPooling(true)
                     .retryAttempts(Integer.MAX_VALUE)
@@ -106,35 +153,98 @@ public abstract class SimpleDeviceDriver<R, S extends Samples> extends DeviceDri
 
         final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, writer);
 
-        persistentQueue = new PersistentQueue(connection, transactionCoordinator, persistentQueueCapacityEvents);
+        if (PERSISTENT_QUEUE_TYPE_SEGMENT_LOG.equalsIgnoreCase(persistentQueueType)) {
+            final int segmentSizeBytes = getPersistentQueueSegmentSizeBytes();
+            LOGGER.info("Persistent Queue Segment Size: {} bytes", segmentSizeBytes);
+            persistentQueue = new PersistentQueueSegmentLogImpl(connection, transactionCoordinator,
+                    Paths.get(persistentQueueFileName + ".segments"), segmentSizeBytes, persistentQueueCapacityEvents);
+        } else if (PERSISTENT_QUEUE_TYPE_SQLITE.equalsIgnoreCase(persistentQueueType)) {
+            persistentQueue = new PersistentQueueSQLiteImpl(connection, transactionCoordinator, persistentQueueCapacityEvents,
+                    persistentQueueCommitMaxEvents, persistentQueueCommitMaxDelayMs);
+        } else {
+            throw new IllegalArgumentException("Unsupported persistent queue type: " + persistentQueueType);
+        }
 
         memoryQueueToPersistentQueueService = new MemoryQueueToPersistentQueueService<>(
                 config.getInstanceName(),
                 memoryQueue,
                 persistentQueue,
                 this,
-                samplesPerEvent);
+                samplesPerEvent,
+                eventCompressor,
+                getMetricsRegistry(),
+                getDriverExecutors());
 
         persistentQueueToPravegaService = new PersistentQueueToPravegaService(
                 config.getInstanceName(),
                 persistentQueue,
                 writer,
-                maxEventsPerWriteBatch,
-                delayBetweenWriteBatchesMs);
+                batchController,
+                maxOutstandingTransactions,
+                getMetricsRegistry(),
+                getDriverExecutors());
+
+        final MetricsRegistry metricsRegistry = getMetricsRegistry();
+        final String instanceName = config.getInstanceName();
+        metricsRegistry.gauge("psc_memory_queue_size", "Elements in the memory queue.", instanceName, memoryQueue::size);
+        metricsRegistry.gauge("psc_memory_queue_high_water_mark", "Maximum number of elements in the memory queue.",
+                instanceName, memoryQueue::getHighWaterMark);
+        metricsRegistry.gauge("psc_memory_queue_dropped_total", "Elements dropped because the memory queue was full.",
+                instanceName, memoryQueue::getDroppedCount);
+        metricsRegistry.gauge("psc_persistent_queue_size", "Events in the persistent queue.", instanceName, persistentQueue::size);
     }
 
     int getMemoryQueueCapacityElements() {
         return Integer.parseInt(getProperty(MEMORY_QUEUE_CAPACITY_ELEMENTS_KEY, Integer.toString(100)));
     }
 
+    RingBufferQueue.WaitStrategy getMemoryQueueWaitStrategy() {
+        return RingBufferQueue.WaitStrategy.valueOf(getProperty(MEMORY_QUEUE_WAIT_STRATEGY_KEY, RingBufferQueue.WaitStrategy.PARK.name()).toUpperCase().replace('-', '_'));
+    }
+
+    RingBufferQueue.FullPolicy getMemoryQueueFullPolicy() {
+        return RingBufferQueue.FullPolicy.valueOf(getProperty(MEMORY_QUEUE_FULL_POLICY_KEY, RingBufferQueue.FullPolicy.BLOCK.name()).toUpperCase());
+    }
+
     int getPersistentQueueCapacityEvents() {
         return Integer.parseInt(getProperty(PERSISTENT_QUEUE_CAPACITY_EVENTS_KEY, Integer.toString(1000 * 1000)));
     }
 
+    String getPersistentQueueType() {
+        return getProperty(PERSISTENT_QUEUE_TYPE_KEY, PERSISTENT_QUEUE_TYPE_SQLITE);
+    }
+
+    int getPersistentQueueSegmentSizeBytes() {
+        return Integer.parseInt(getProperty(PERSISTENT_QUEUE_SEGMENT_SIZE_BYTES_KEY, Integer.toString(64 * 1024 * 1024)));
+    }
+
+    int getPersistentQueueCommitMaxEvents() {
+        return Integer.parseInt(getProperty(PERSISTENT_QUEUE_COMMIT_MAX_EVENTS_KEY, Integer.toString(100)));
+    }
+
+    long getPersistentQueueCommitMaxDelayMs() {
+        return Long.parseLong(getProperty(PERSISTENT_QUEUE_COMMIT_MAX_DELAY_MS_KEY, Long.toString(0)));
+    }
+
     int getSamplesPerEvent() {
         return Integer.parseInt(getProperty(SAMPLES_PER_EVENT_KEY, Integer.toString(100)));
     }
 
+    /**
+     * @return the format used by {@link #serializeSamples} to serialize samples to event bytes
+     */
+    protected SamplesFormat getSamplesFormat() {
+        return SamplesFormat.valueOf(getProperty(SAMPLES_FORMAT_KEY, SamplesFormat.JSON.name()).toUpperCase());
+    }
+
+    EventCompressor.Codec getEventCompression() {
+        return EventCompressor.Codec.valueOf(getProperty(EVENT_COMPRESSION_KEY, EventCompressor.Codec.NONE.name()).toUpperCase());
+    }
+
+    int getEventCompressionLevel() {
+        return Integer.parseInt(getProperty(EVENT_COMPRESSION_LEVEL_KEY, Integer.toString(6)));
+    }
+
     String getPersistentQueueFileName() {
         return getProperty(PERSISTENT_QUEUE_FILE_KEY);
     }
@@ -151,6 +261,30 @@ public abstract class SimpleDeviceDriver<R, S extends Samples> extends DeviceDri
         return Long.parseLong(getProperty(DELAY_BETWEEN_WRITE_BATCHES_MS_KEY, Long.toString(1000)));
     }
 
+    int getMaxOutstandingTransactions() {
+        return Integer.parseInt(getProperty(MAX_OUTSTANDING_TRANSACTIONS_KEY, Integer.toString(1)));
+    }
+
+    boolean getAdaptiveWriteBatches() {
+        return Boolean.parseBoolean(getProperty(ADAPTIVE_WRITE_BATCHES_KEY, Boolean.toString(false)));
+    }
+
+    int getMaxAdaptiveEventsPerWriteBatch() {
+        return Integer.parseInt(getProperty(MAX_ADAPTIVE_EVENTS_PER_WRITE_BATCH_KEY, Integer.toString(10000)));
+    }
+
+    long getMaxBytesPerWriteBatch() {
+        return Long.parseLong(getProperty(MAX_BYTES_PER_WRITE_BATCH_KEY, Long.toString(16 * 1024 * 1024)));
+    }
+
+    long getTargetWriteBatchLatencyMs() {
+        return Long.parseLong(getProperty(TARGET_WRITE_BATCH_LATENCY_MS_KEY, Long.toString(1000)));
+    }
+
+    long getMinDelayBetweenWriteBatchesMs() {
+        return Long.parseLong(getProperty(MIN_DELAY_BETWEEN_WRITE_BATCHES_MS_KEY, Long.toString(10)));
+    }
+
     boolean getExactlyOnce() {
         return Boolean.parseBoolean(getProperty(EXACTLY_ONCE_KEY, Boolean.toString(true)));
     }
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+/**
+ * Decides how many events {@link PersistentQueueToPravegaService} reads from the persistent queue for each batch
+ * and how long it waits before reading the next batch.
+ *
+ * This implementation uses a fixed batch size and waits a fixed delay whenever a batch is not full.
+ */
+public class WriteBatchController {
+    protected final int maxEventsPerWriteBatch;
+    protected final long delayBetweenWriteBatchesMs;
+    private boolean lastBatchFull;
+
+    public WriteBatchController(int maxEventsPerWriteBatch, long delayBetweenWriteBatchesMs) {
+        this.maxEventsPerWriteBatch = maxEventsPerWriteBatch;
+        this.delayBetweenWriteBatchesMs = delayBetweenWriteBatchesMs;
+    }
+
+    /**
+     * @return maximum number of events to write in the next batch
+     */
+    public int getBatchSize() {
+        return maxEventsPerWriteBatch;
+    }
+
+    /**
+     * @return time to wait before reading the next batch, or 0 to read it immediately
+     */
+    public long getDelayMs() {
+        return lastBatchFull ? 0 : delayBetweenWriteBatchesMs;
+    }
+
+    /**
+     * Record the result of a batch.
+     * @param eventCount   number of events in the batch, which may be 0
+     * @param byteCount    number of bytes in the events
+     * @param elapsedNanos time taken to write, flush and (unless pipelined) commit the batch
+     * @param queueSize    number of events remaining in the persistent queue
+     */
+    public void update(int eventCount, long byteCount, long elapsedNanos, long queueSize) {
+        lastBatchFull = eventCount >= getBatchSize();
+    }
+}
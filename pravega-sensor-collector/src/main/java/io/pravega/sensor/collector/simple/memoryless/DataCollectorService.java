@@ -11,11 +11,13 @@
 package io.pravega.sensor.collector.simple.memoryless;
 
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import io.pravega.sensor.collector.util.DriverExecutors;
 import io.pravega.sensor.collector.util.EventWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class DataCollectorService<R> extends AbstractExecutionThreadService {
 
@@ -23,14 +25,21 @@ public class DataCollectorService<R> extends AbstractExecutionThreadService {
     private final SimpleMemorylessDriver<R> driver;
     private final EventWriter<byte[]> writer;
     private final long readPeriodicityMs;
+    private final DriverExecutors driverExecutors;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataCollectorService.class);
 
     public DataCollectorService(String instanceName, SimpleMemorylessDriver<R> driver, EventWriter<byte[]> writer, long readPeriodicityMs) {
+        this(instanceName, driver, writer, readPeriodicityMs, new DriverExecutors());
+    }
+
+    public DataCollectorService(String instanceName, SimpleMemorylessDriver<R> driver, EventWriter<byte[]> writer, long readPeriodicityMs,
+                                DriverExecutors driverExecutors) {
         this.instanceName = instanceName;
         this.driver = driver;
         this.writer = writer;
         this.readPeriodicityMs = readPeriodicityMs;
+        this.driverExecutors = driverExecutors;
     }
 
     @Override
@@ -38,6 +47,11 @@ public class DataCollectorService<R> extends AbstractExecutionThreadService {
         return super.serviceName() + "-" + instanceName;
     }
 
+    @Override
+    protected Executor executor() {
+        return driverExecutors.serviceExecutor(serviceName());
+    }
+
     @Override
     protected void run() throws InterruptedException {
         for (;;) {
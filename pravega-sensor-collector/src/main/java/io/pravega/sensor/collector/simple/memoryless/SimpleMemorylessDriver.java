@@ -12,7 +12,6 @@ package io.pravega.sensor.collector.simple.memoryless;
 
 import io.pravega.client.EventStreamClientFactory;
 import io.pravega.client.stream.EventWriterConfig;
-import io.pravega.client.stream.impl.ByteArraySerializer;
 import io.pravega.sensor.collector.DeviceDriver;
 import io.pravega.sensor.collector.DeviceDriverConfig;
 import io.pravega.sensor.collector.util.EventWriter;
@@ -49,18 +48,17 @@ public abstract class SimpleMemorylessDriver<R> extends DeviceDriver {
         routingKey = getRoutingKey("");
         readPeriodicityMs = getReadPeriodicityMs();
         createStream(scopeName, streamName);
-        writer = EventWriter.create(
-                clientFactory,
+        writer = createEventWriter(
                 writerId,
+                scopeName,
                 streamName,
-                new ByteArraySerializer(),
                 EventWriterConfig.builder()
                         .enableConnectionPooling(true)
                         .retryAttempts(Integer.MAX_VALUE)
                         .transactionTimeoutTime((long) (transactionTimeoutMinutes * 60.0 * 1000.0))
                         .build(),
                 exactlyOnce);
-        dataCollectorService = new DataCollectorService<>(config.getInstanceName(), this, writer, readPeriodicityMs);
+        dataCollectorService = new DataCollectorService<>(config.getInstanceName(), this, writer, readPeriodicityMs, getDriverExecutors());
     }
 
     @Override
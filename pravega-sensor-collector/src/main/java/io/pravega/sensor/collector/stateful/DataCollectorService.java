@@ -14,8 +14,11 @@ import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.pravega.sensor.collector.simple.PersistentQueue;
+import io.pravega.sensor.collector.simple.PersistentQueueSQLiteImpl;
 import io.pravega.sensor.collector.util.AutoRollback;
+import io.pravega.sensor.collector.util.DriverExecutors;
+
+import java.util.concurrent.Executor;
 
 /**
  */
@@ -23,14 +26,21 @@ public class DataCollectorService<S> extends AbstractExecutionThreadService {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataCollectorService.class);
 
     private final String instanceName;
-    private final PersistentQueue persistentQueue;
+    private final PersistentQueueSQLiteImpl persistentQueue;
     private final StatefulSensorDeviceDriver<S> driver;
+    private final DriverExecutors driverExecutors;
 
-    public DataCollectorService(String instanceName, PersistentQueue persistentQueue,
+    public DataCollectorService(String instanceName, PersistentQueueSQLiteImpl persistentQueue,
             StatefulSensorDeviceDriver<S> driver) {
+        this(instanceName, persistentQueue, driver, new DriverExecutors());
+    }
+
+    public DataCollectorService(String instanceName, PersistentQueueSQLiteImpl persistentQueue,
+            StatefulSensorDeviceDriver<S> driver, DriverExecutors driverExecutors) {
         this.instanceName = instanceName;
         this.persistentQueue = persistentQueue;
         this.driver = driver;
+        this.driverExecutors = driverExecutors;
     }
 
     @Override
@@ -38,6 +48,11 @@ public class DataCollectorService<S> extends AbstractExecutionThreadService {
         return super.serviceName() + "-" + instanceName;
     }
 
+    @Override
+    protected Executor executor() {
+        return driverExecutors.serviceExecutor(serviceName());
+    }
+
     @Override
     protected void run() throws Exception {
         LOGGER.info("Running");
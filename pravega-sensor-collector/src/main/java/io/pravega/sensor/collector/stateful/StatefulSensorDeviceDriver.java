@@ -16,11 +16,11 @@ import org.slf4j.LoggerFactory;
 
 import io.pravega.client.EventStreamClientFactory;
 import io.pravega.client.stream.EventWriterConfig;
-import io.pravega.client.stream.impl.ByteArraySerializer;
 import io.pravega.sensor.collector.DeviceDriver;
 import io.pravega.sensor.collector.DeviceDriverConfig;
-import io.pravega.sensor.collector.simple.PersistentQueue;
+import io.pravega.sensor.collector.simple.PersistentQueueSQLiteImpl;
 import io.pravega.sensor.collector.simple.PersistentQueueToPravegaService;
+import io.pravega.sensor.collector.simple.WriteBatchController;
 import io.pravega.sensor.collector.util.EventWriter;
 import io.pravega.sensor.collector.util.PersistentId;
 import io.pravega.sensor.collector.util.TransactionCoordinator;
@@ -40,7 +40,7 @@ abstract public class StatefulSensorDeviceDriver<S> extends DeviceDriver {
 
     private final String routingKey;
     private final DataCollectorService<S> dataCollectorService;
-    private final PersistentQueue persistentQueue;
+    private final PersistentQueueSQLiteImpl persistentQueue;
     private final EventStreamClientFactory clientFactory;
     private final EventWriter<byte[]> writer;
     private final PersistentQueueToPravegaService persistentQueueToPravegaService;
@@ -69,18 +69,17 @@ abstract public class StatefulSensorDeviceDriver<S> extends DeviceDriver {
 
         createStream(scopeName, streamName);
 
-        final Connection connection = PersistentQueue.createDatabase(getPersistentQueueFileName());
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(getPersistentQueueFileName());
 
         final String writerId = new PersistentId(connection).getPersistentId().toString();
         log.info("Writer ID: {}", writerId);
 
         clientFactory = getEventStreamClientFactory(scopeName);
 
-        writer = EventWriter.create(
-            clientFactory,
+        writer = createEventWriter(
             writerId,
+            scopeName,
             streamName,
-            new ByteArraySerializer(),
             EventWriterConfig.builder()
                     .enableConnectionPooling(true)
                     .retryAttempts(Integer.MAX_VALUE)
@@ -90,16 +89,18 @@ abstract public class StatefulSensorDeviceDriver<S> extends DeviceDriver {
 
         final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, writer);
 
-        persistentQueue = new PersistentQueue(connection, transactionCoordinator, persistentQueueCapacityEvents);
+        persistentQueue = new PersistentQueueSQLiteImpl(connection, transactionCoordinator, persistentQueueCapacityEvents);
 
         persistentQueueToPravegaService = new PersistentQueueToPravegaService(
                 config.getInstanceName(),
                 persistentQueue,
                 writer,
-                maxEventsPerWriteBatch,
-                delayBetweenWriteBatchesMs);
+                new WriteBatchController(maxEventsPerWriteBatch, delayBetweenWriteBatchesMs),
+                1,
+                getMetricsRegistry(),
+                getDriverExecutors());
 
-        dataCollectorService = new DataCollectorService<>(config.getInstanceName(), persistentQueue, this);
+        dataCollectorService = new DataCollectorService<>(config.getInstanceName(), persistentQueue, this, getDriverExecutors());
     }
 
     int getPersistentQueueCapacityEvents() {
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decode an event written by {@link ColumnarSamplesEncoder}.
+ */
+public class ColumnarSamplesDecoder {
+    private final int sampleCount;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final Map<String, Object> columns = new LinkedHashMap<>();
+
+    public ColumnarSamplesDecoder(byte[] bytes) {
+        if (!isColumnarSamples(bytes)) {
+            throw new IllegalArgumentException("Not a columnar samples event");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(ColumnarSamplesEncoder.MAGIC.length);
+        final byte version = buffer.get();
+        if (version != ColumnarSamplesEncoder.VERSION) {
+            throw new IllegalArgumentException("Unsupported columnar samples version " + version);
+        }
+        sampleCount = Math.toIntExact(readVarLong(buffer));
+        final long attributeCount = readVarLong(buffer);
+        for (long i = 0; i < attributeCount; i++) {
+            attributes.put(readString(buffer), readString(buffer));
+        }
+        final long columnCount = readVarLong(buffer);
+        for (long i = 0; i < columnCount; i++) {
+            final String name = readString(buffer);
+            final byte encoding = buffer.get();
+            switch (encoding) {
+                case ColumnarSamplesEncoder.LONG_DELTA:
+                    columns.put(name, readDeltas(buffer));
+                    break;
+                case ColumnarSamplesEncoder.FIXED_POINT_DELTA:
+                    final double scale = buffer.getDouble();
+                    final long[] fixedPoint = readDeltas(buffer);
+                    final double[] values = new double[sampleCount];
+                    for (int j = 0; j < sampleCount; j++) {
+                        values[j] = fixedPoint[j] * scale;
+                    }
+                    columns.put(name, values);
+                    break;
+                case ColumnarSamplesEncoder.DOUBLE:
+                    final double[] doubles = new double[sampleCount];
+                    buffer.asDoubleBuffer().get(doubles);
+                    buffer.position(buffer.position() + sampleCount * Double.BYTES);
+                    columns.put(name, doubles);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown encoding " + encoding + " for column " + name);
+            }
+        }
+    }
+
+    /**
+     * @return true if the bytes begin with the columnar samples magic number
+     */
+    public static boolean isColumnarSamples(byte[] bytes) {
+        return bytes.length >= ColumnarSamplesEncoder.MAGIC.length
+                && Arrays.equals(bytes, 0, ColumnarSamplesEncoder.MAGIC.length,
+                ColumnarSamplesEncoder.MAGIC, 0, ColumnarSamplesEncoder.MAGIC.length);
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * @return the names of the columns in the order in which they were encoded
+     */
+    public Iterable<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    public long[] getLongColumn(String name) {
+        return getColumn(name, long[].class);
+    }
+
+    public double[] getDoubleColumn(String name) {
+        return getColumn(name, double[].class);
+    }
+
+    private <T> T getColumn(String name, Class<T> type) {
+        final Object column = columns.get(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("No column " + name + " of type " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    private long[] readDeltas(ByteBuffer buffer) {
+        final long[] values = new long[sampleCount];
+        long previous = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            final long delta = readVarLong(buffer);
+            previous += (delta >>> 1) ^ -(delta & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[Math.toIntExact(readVarLong(buffer))];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encode samples in a compact, self-describing binary columnar format.
+ *
+ * <pre>
+ * event     = magic:"PSCB" version:byte sampleCount:varint
+ *             attributeCount:varint (name:string value:string)*
+ *             columnCount:varint column*
+ * column    = name:string encoding:byte [scale:double] value{sampleCount}
+ * string    = length:varint UTF-8 bytes
+ * </pre>
+ *
+ * Column encodings:
+ * <ul>
+ *     <li>{@link #LONG_DELTA}: the first value, then the difference from the previous value, as zigzag varints.</li>
+ *     <li>{@link #FIXED_POINT_DELTA}: each value divided by the scale and rounded to a long,
+ *     then encoded as in LONG_DELTA. The decoded value is within scale/2 of the original.</li>
+ *     <li>{@link #DOUBLE}: 8-byte big-endian IEEE 754 values.</li>
+ * </ul>
+ * Use {@link ColumnarSamplesDecoder} to decode an event.
+ */
+public class ColumnarSamplesEncoder {
+    public static final byte[] MAGIC = {'P', 'S', 'C', 'B'};
+    public static final byte VERSION = 1;
+    public static final byte LONG_DELTA = 1;
+    public static final byte FIXED_POINT_DELTA = 2;
+    public static final byte DOUBLE = 3;
+
+    private final int sampleCount;
+    // Attribute names and values, alternating.
+    private final List<String> attributes = new ArrayList<>();
+    private byte[] columns;
+    private int columnsLength;
+    private int columnCount;
+
+    public ColumnarSamplesEncoder(int sampleCount) {
+        this.sampleCount = sampleCount;
+        this.columns = new byte[64 + sampleCount * 8];
+    }
+
+    public ColumnarSamplesEncoder addAttribute(String name, String value) {
+        attributes.add(name);
+        attributes.add(value == null ? "" : value);
+        return this;
+    }
+
+    public ColumnarSamplesEncoder addLongColumn(String name, LongArrayList values) {
+        beginColumn(name, LONG_DELTA, values.size());
+        long previous = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            final long value = values.get(i);
+            writeSignedVarLong(value - previous);
+            previous = value;
+        }
+        return this;
+    }
+
+    public ColumnarSamplesEncoder addFixedPointColumn(String name, DoubleArrayList values, double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive: " + scale);
+        }
+        beginColumn(name, FIXED_POINT_DELTA, values.size());
+        writeLong(Double.doubleToLongBits(scale));
+        long previous = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            final long value = Math.round(values.get(i) / scale);
+            writeSignedVarLong(value - previous);
+            previous = value;
+        }
+        return this;
+    }
+
+    public ColumnarSamplesEncoder addDoubleColumn(String name, DoubleArrayList values) {
+        beginColumn(name, DOUBLE, values.size());
+        for (int i = 0; i < sampleCount; i++) {
+            writeLong(Double.doubleToLongBits(values.get(i)));
+        }
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        final ColumnarSamplesEncoder header = new ColumnarSamplesEncoder(0);
+        header.write(MAGIC);
+        header.writeByte(VERSION);
+        header.writeVarLong(sampleCount);
+        header.writeVarLong(attributes.size() / 2);
+        for (String attribute : attributes) {
+            header.writeString(attribute);
+        }
+        header.writeVarLong(columnCount);
+        final byte[] result = Arrays.copyOf(header.columns, header.columnsLength + columnsLength);
+        System.arraycopy(columns, 0, result, header.columnsLength, columnsLength);
+        return result;
+    }
+
+    private void beginColumn(String name, byte encoding, int size) {
+        if (size != sampleCount) {
+            throw new IllegalArgumentException("Column " + name + " has " + size + " values but expected " + sampleCount);
+        }
+        writeString(name);
+        writeByte(encoding);
+        columnCount++;
+    }
+
+    private void ensureCapacity(int length) {
+        if (columnsLength + length > columns.length) {
+            columns = Arrays.copyOf(columns, Integer.max(columns.length * 2, columnsLength + length));
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        columns[columnsLength++] = (byte) b;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, columns, columnsLength, bytes.length);
+        columnsLength += bytes.length;
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            columns[columnsLength++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            columns[columnsLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        columns[columnsLength++] = (byte) value;
+    }
+
+    private void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeString(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        write(bytes);
+    }
+}
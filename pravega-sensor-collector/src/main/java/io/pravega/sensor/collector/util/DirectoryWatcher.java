@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Discover created and modified files in directory trees using a {@link WatchService}
+ * (inotify on Linux) instead of listing the trees on every iteration.
+ *
+ * The trees must be listed in full when the watcher starts and whenever change events were lost,
+ * for example because the event queue overflowed. This is indicated by {@link #isRescanNeeded()}.
+ * A rescan is done by {@link #prepareRescan()}, which registers the directories before it lists them
+ * so that no change that occurs during the listing is lost.
+ *
+ * This class is not thread-safe. It is used by the single thread that discovers new files.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    private final List<Path> rootDirectories;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    /**
+     * Files that changed or were found by a rescan but have not yet been returned.
+     */
+    private final Set<Path> changedFiles = new LinkedHashSet<>();
+    private boolean rescanNeeded = true;
+
+    public DirectoryWatcher(Collection<Path> rootDirectories) throws IOException {
+        this.rootDirectories = new ArrayList<>(rootDirectories);
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * @return true if the directory trees must be listed in full because changes may have been missed
+     */
+    public boolean isRescanNeeded() {
+        return rescanNeeded;
+    }
+
+    /**
+     * Register all directories in the trees and collect all of their files.
+     * The files are returned by {@link #getChangedFiles(long)}, each once it has not been modified for the given time,
+     * so files that are too recent when the trees are listed are not missed.
+     * @throws IOException If a directory cannot be registered. A rescan is still needed in this case.
+     */
+    public void prepareRescan() throws IOException {
+        changedFiles.clear();
+        for (Path root : rootDirectories) {
+            registerTree(root);
+        }
+        rescanNeeded = false;
+    }
+
+    /**
+     * Collect the change events that occurred since the previous call.
+     * Files are only returned once they have not been modified for the given time, so that
+     * files that are still being written are returned on a later call.
+     * @param minTimeInMillisToUpdateFile minimum time since the last modification of a returned file
+     * @return files that were created or modified, in the order in which they first changed
+     */
+    public List<Path> getChangedFiles(long minTimeInMillisToUpdateFile) {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            processEvents(key);
+        }
+        final List<Path> readyFiles = new ArrayList<>();
+        if (rescanNeeded) {
+            return readyFiles;
+        }
+        final long maxLastModifiedTime = System.currentTimeMillis() - minTimeInMillisToUpdateFile;
+        final Iterator<Path> iterator = changedFiles.iterator();
+        while (iterator.hasNext()) {
+            final Path file = iterator.next();
+            try {
+                final BasicFileAttributes attr = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attr.lastModifiedTime().toMillis() <= maxLastModifiedTime) {
+                    readyFiles.add(file);
+                    iterator.remove();
+                }
+            } catch (IOException e) {
+                // The file was deleted or moved away.
+                iterator.remove();
+            }
+        }
+        LOGGER.debug("getChangedFiles: readyFiles={}, deferredFiles={}", readyFiles.size(), changedFiles.size());
+        return readyFiles;
+    }
+
+    private void processEvents(WatchKey key) {
+        final Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                LOGGER.warn("processEvents: Change events were lost, the directories will be listed again");
+                rescanNeeded = true;
+            } else if (directory != null) {
+                final Path path = directory.resolve((Path) event.context());
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        registerNewDirectory(path);
+                    }
+                } else {
+                    changedFiles.add(path);
+                }
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+            if (rootDirectories.contains(directory)) {
+                LOGGER.warn("processEvents: Directory {} is no longer accessible", directory);
+                rescanNeeded = true;
+            }
+        }
+    }
+
+    /**
+     * Register a directory that was created after the trees were registered.
+     * Files may have been created in it before it was registered, so they are collected too.
+     */
+    private void registerNewDirectory(Path directory) {
+        try {
+            registerTree(directory);
+        } catch (IOException e) {
+            LOGGER.warn("registerNewDirectory: Unable to watch directory {}, the directories will be listed again", directory, e);
+            rescanNeeded = true;
+        }
+    }
+
+    /**
+     * Register the directories of a tree and collect its files.
+     */
+    private void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                final WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                changedFiles.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides the threads on which the services of the device drivers run.
+ * One instance is shared by all device drivers of a process.
+ *
+ * In {@link Mode#PLATFORM} mode, each service loop runs in its own platform thread
+ * and each file ingestion instance has its own scheduled thread pool.
+ * In {@link Mode#SHARED} mode, the periodic tasks of all file ingestion instances run on one bounded scheduled thread pool.
+ * In {@link Mode#VIRTUAL} mode, service loops additionally run in virtual threads, which use much less memory than
+ * platform threads while they are blocked. Virtual threads require Java 21 or later. On an older JVM, platform threads are used.
+ */
+public class DriverExecutors implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DriverExecutors.class);
+
+    public enum Mode {
+        PLATFORM,
+        SHARED,
+        VIRTUAL,
+    }
+
+    private final Mode mode;
+    private final int sharedSchedulerThreads;
+    /**
+     * Creates virtual threads, or null if service loops run in platform threads.
+     */
+    private final ThreadFactory virtualThreadFactory;
+    private ScheduledExecutorService sharedScheduler;
+
+    /**
+     * Create an instance in {@link Mode#PLATFORM} mode.
+     */
+    public DriverExecutors() {
+        this(Mode.PLATFORM, 1);
+    }
+
+    /**
+     * @param sharedSchedulerThreads the number of threads of the scheduled thread pool shared in
+     *                               {@link Mode#SHARED} and {@link Mode#VIRTUAL} modes
+     */
+    public DriverExecutors(Mode mode, int sharedSchedulerThreads) {
+        this.mode = mode;
+        this.sharedSchedulerThreads = Math.max(1, sharedSchedulerThreads);
+        if (mode == Mode.VIRTUAL) {
+            virtualThreadFactory = createVirtualThreadFactory();
+            if (virtualThreadFactory == null) {
+                LOGGER.warn("Virtual threads are not supported by Java {}. Platform threads will be used.",
+                        System.getProperty("java.version"));
+            }
+        } else {
+            virtualThreadFactory = null;
+        }
+    }
+
+    /**
+     * Parse a mode such as "virtual".
+     */
+    public static Mode parseMode(String mode) {
+        return Mode.valueOf(mode.trim().toUpperCase());
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return true if service loops run in virtual threads
+     */
+    public boolean isVirtual() {
+        return virtualThreadFactory != null;
+    }
+
+    /**
+     * Get the executor that runs the loop of a service, for use in
+     * {@link com.google.common.util.concurrent.AbstractExecutionThreadService#executor()}.
+     * Each command runs in a new thread.
+     * @param threadName the name of the thread
+     */
+    public Executor serviceExecutor(String threadName) {
+        final ThreadFactory threadFactory = virtualThreadFactory == null ? MoreExecutors.platformThreadFactory() : virtualThreadFactory;
+        return command -> {
+            final Thread thread = threadFactory.newThread(command);
+            thread.setName(threadName);
+            thread.start();
+        };
+    }
+
+    /**
+     * Get a factory for the daemon threads of a thread pool that belongs to a single service.
+     * @param nameFormat a format such as "commit-instance-%d"
+     */
+    public ThreadFactory threadFactory(String nameFormat) {
+        final ThreadFactoryBuilder builder = new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true);
+        if (virtualThreadFactory != null) {
+            builder.setThreadFactory(virtualThreadFactory);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get a scheduled executor for periodic tasks.
+     * In {@link Mode#PLATFORM} mode, this returns a new thread pool with the given number of threads.
+     * Otherwise, this returns the thread pool that is shared by all callers, which must not be shut down by the caller.
+     * @param nameFormat a format such as "FileIngestService-instance-%d", only used in {@link Mode#PLATFORM} mode
+     * @param threads the number of threads, only used in {@link Mode#PLATFORM} mode
+     */
+    public synchronized ScheduledExecutorService scheduledExecutor(String nameFormat, int threads) {
+        if (mode == Mode.PLATFORM) {
+            return Executors.newScheduledThreadPool(threads, new ThreadFactoryBuilder().setNameFormat(nameFormat).build());
+        }
+        if (sharedScheduler == null) {
+            LOGGER.info("Creating shared scheduler with {} threads", sharedSchedulerThreads);
+            sharedScheduler = Executors.newScheduledThreadPool(sharedSchedulerThreads,
+                    new ThreadFactoryBuilder().setNameFormat("shared-scheduler-%d").build());
+        }
+        return sharedScheduler;
+    }
+
+    /**
+     * Shut down the shared scheduled executor.
+     */
+    @Override
+    public synchronized void close() {
+        if (sharedScheduler != null) {
+            sharedScheduler.shutdown();
+            sharedScheduler = null;
+        }
+    }
+
+    /**
+     * This project is compiled for Java 11, so virtual threads are created with reflection.
+     * @return a factory for virtual threads, or null if they are not supported
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Unable to create virtual thread factory", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compress event bytes before they are stored in the persistent queue or written to Pravega.
+ *
+ * A compressed event begins with a header so that readers can detect the codec:
+ * <pre>
+ * magic:"PSCZ" codec:byte uncompressedLength:int payload
+ * </pre>
+ * If an event does not become smaller, it is framed with codec {@link Codec#NONE} and stored as is.
+ * Events are not framed at all if compression is disabled.
+ * Deflaters, Inflaters and output buffers are borrowed for a single event from pools that are shared by all compressors,
+ * rather than kept per thread, because threads may be short-lived virtual threads.
+ * Each pool keeps at most as many idle Deflaters or Inflaters as there are processors. Extra ones are ended when they
+ * are returned, so their native memory is freed without waiting for garbage collection.
+ */
+public class EventCompressor {
+    public static final byte[] MAGIC = {'P', 'S', 'C', 'Z'};
+    public static final int HEADER_LENGTH = MAGIC.length + 1 + Integer.BYTES;
+    /**
+     * Deflate cannot compress data by more than this ratio, so a larger uncompressed length in a header is corrupt.
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private static final int MAX_IDLE_PER_POOL = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Idle compressor contexts, indexed by compression level.
+     */
+    private static final List<Queue<Context>> IDLE_CONTEXTS = IntStream.rangeClosed(Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION)
+            .mapToObj(level -> new ArrayBlockingQueue<Context>(MAX_IDLE_PER_POOL))
+            .collect(Collectors.toList());
+    private static final Queue<Inflater> IDLE_INFLATERS = new ArrayBlockingQueue<>(MAX_IDLE_PER_POOL);
+
+    public enum Codec {
+        NONE,
+        DEFLATE
+    }
+
+    private final Codec codec;
+    private final int level;
+
+    /**
+     * @param codec the codec used to compress events, or NONE to write events uncompressed and unframed
+     * @param level the Deflate compression level, from 0 to 9
+     */
+    public EventCompressor(Codec codec, int level) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.codec = codec;
+        this.level = level;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public byte[] compress(byte[] bytes) {
+        if (codec == Codec.NONE) {
+            return bytes;
+        }
+        final Queue<Context> idleContexts = IDLE_CONTEXTS.get(level);
+        Context context = idleContexts.poll();
+        if (context == null) {
+            context = new Context(level);
+        }
+        try {
+            final Deflater deflater = context.deflater;
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            // Allow the payload to be at most as long as the input. If it does not fit, the event is stored.
+            if (context.buffer.length < HEADER_LENGTH + bytes.length) {
+                context.buffer = new byte[HEADER_LENGTH + bytes.length];
+            }
+            final int length = deflater.deflate(context.buffer, HEADER_LENGTH, bytes.length);
+            if (!deflater.finished() || length >= bytes.length) {
+                final byte[] stored = new byte[HEADER_LENGTH + bytes.length];
+                writeHeader(stored, Codec.NONE, bytes.length);
+                System.arraycopy(bytes, 0, stored, HEADER_LENGTH, bytes.length);
+                return stored;
+            }
+            writeHeader(context.buffer, Codec.DEFLATE, bytes.length);
+            return Arrays.copyOf(context.buffer, HEADER_LENGTH + length);
+        } finally {
+            if (!idleContexts.offer(context)) {
+                context.deflater.end();
+            }
+        }
+    }
+
+    /**
+     * @return true if the bytes begin with the compressed event header
+     */
+    public static boolean isCompressed(byte[] bytes) {
+        return bytes.length >= HEADER_LENGTH && Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Decompress an event written by {@link #compress}. Events without the header are returned as is.
+     */
+    public static byte[] decompress(byte[] bytes) throws IOException {
+        if (!isCompressed(bytes)) {
+            return bytes;
+        }
+        final ByteBuffer header = ByteBuffer.wrap(bytes, MAGIC.length, HEADER_LENGTH - MAGIC.length);
+        final int codecOrdinal = header.get();
+        final int uncompressedLength = header.getInt();
+        final int payloadLength = bytes.length - HEADER_LENGTH;
+        if (codecOrdinal == Codec.NONE.ordinal()) {
+            if (uncompressedLength != payloadLength) {
+                throw new IOException("Invalid uncompressed length " + uncompressedLength + " of a stored event with " + payloadLength + " bytes");
+            }
+            return Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+        } else if (codecOrdinal == Codec.DEFLATE.ordinal()) {
+            if (uncompressedLength < 0 || uncompressedLength > (long) payloadLength * MAX_DEFLATE_RATIO) {
+                throw new IOException("Invalid uncompressed length " + uncompressedLength + " of a compressed event with " + payloadLength + " bytes");
+            }
+            Inflater inflater = IDLE_INFLATERS.poll();
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            try {
+                inflater.reset();
+                inflater.setInput(bytes, HEADER_LENGTH, payloadLength);
+                final byte[] result = new byte[uncompressedLength];
+                final int length = inflater.inflate(result);
+                if (length != uncompressedLength || !inflater.finished()) {
+                    throw new IOException("Expected " + uncompressedLength + " bytes but decompressed " + length);
+                }
+                return result;
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                if (!IDLE_INFLATERS.offer(inflater)) {
+                    inflater.end();
+                }
+            }
+        }
+        throw new IOException("Unknown compression codec " + codecOrdinal);
+    }
+
+    private static void writeHeader(byte[] bytes, Codec codec, int uncompressedLength) {
+        ByteBuffer.wrap(bytes).put(MAGIC).put((byte) codec.ordinal()).putInt(uncompressedLength);
+    }
+
+    /**
+     * A Deflater and its output buffer.
+     */
+    private static final class Context {
+        private final Deflater deflater;
+        private byte[] buffer = new byte[0];
+
+        Context(int level) {
+            this.deflater = new Deflater(level);
+        }
+    }
+}
@@ -17,6 +17,8 @@ import io.pravega.client.stream.TxnFailedException;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A wrapper for a Pravega transactional or non-transactional writer.
@@ -70,6 +72,22 @@ public interface EventWriter<T> extends AutoCloseable {
      */
     void commit(UUID txnId) throws TxnFailedException;
 
+    /**
+     * Commit the current transaction asynchronously. Events written after this method returns go into a new transaction.
+     * The default implementation commits synchronously.
+     * @param timestamp is the number of nanoseconds since 1970-01-01
+     * @param executor  performs the commit
+     * @return a future that completes when the transaction has been committed
+     */
+    default CompletableFuture<Void> commitAsync(long timestamp, Executor executor) {
+        try {
+            commit(timestamp);
+            return CompletableFuture.completedFuture(null);
+        } catch (TxnFailedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * This should called be prior to writing events to ensure that they go into a new transaction.
      * This is a no-op if a transaction is not open.
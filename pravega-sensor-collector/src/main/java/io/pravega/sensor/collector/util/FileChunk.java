@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * A piece of a raw file that is written as a single event when a file is too large for one event.
+ * Each event begins with a fixed-size header followed by the chunk data. All numbers are big-endian.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     4  magic (0x50534346, "PSCF")
+ *      4     1  version (1)
+ *      5     1  flags (bit 0 set on the last chunk of the file)
+ *      6    16  file id (UUID, most significant bits first)
+ *     22     8  chunk index, starting at 0
+ *     30     8  offset of the chunk data in the file
+ *     38     8  total length of the file, or -1 if it is not yet known
+ *     46     -  chunk data
+ * </pre>
+ *
+ * A reader reassembles a file by concatenating the data of all chunks with the same file id in order of chunk index,
+ * up to and including the chunk with the last chunk flag.
+ */
+public class FileChunk {
+    public static final int MAGIC = 0x50534346;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 46;
+    public static final long UNKNOWN_LENGTH = -1;
+
+    private static final byte FLAG_LAST_CHUNK = 1;
+
+    public final UUID fileId;
+    public final long chunkIndex;
+    public final long chunkOffset;
+    public final long totalLength;
+    public final boolean lastChunk;
+    public final byte[] data;
+
+    public FileChunk(UUID fileId, long chunkIndex, long chunkOffset, long totalLength, boolean lastChunk, byte[] data) {
+        this.fileId = fileId;
+        this.chunkIndex = chunkIndex;
+        this.chunkOffset = chunkOffset;
+        this.totalLength = totalLength;
+        this.lastChunk = lastChunk;
+        this.data = data;
+    }
+
+    /**
+     * Encode a chunk as event bytes. The remaining bytes of data are consumed.
+     */
+    public static byte[] encode(UUID fileId, long chunkIndex, long chunkOffset, long totalLength, boolean lastChunk, ByteBuffer data) {
+        final ByteBuffer event = ByteBuffer.allocate(HEADER_SIZE + data.remaining());
+        event.putInt(MAGIC);
+        event.put(VERSION);
+        event.put(lastChunk ? FLAG_LAST_CHUNK : 0);
+        event.putLong(fileId.getMostSignificantBits());
+        event.putLong(fileId.getLeastSignificantBits());
+        event.putLong(chunkIndex);
+        event.putLong(chunkOffset);
+        event.putLong(totalLength);
+        event.put(data);
+        return event.array();
+    }
+
+    /**
+     * Decode event bytes written by {@link #encode}.
+     * @throws IllegalArgumentException If the event is not a file chunk.
+     */
+    public static FileChunk decode(byte[] event) {
+        final ByteBuffer buffer = ByteBuffer.wrap(event);
+        if (event.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Event is not a file chunk");
+        }
+        final byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported file chunk version " + version);
+        }
+        final boolean lastChunk = (buffer.get() & FLAG_LAST_CHUNK) != 0;
+        final UUID fileId = new UUID(buffer.getLong(), buffer.getLong());
+        final long chunkIndex = buffer.getLong();
+        final long chunkOffset = buffer.getLong();
+        final long totalLength = buffer.getLong();
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return new FileChunk(fileId, chunkIndex, chunkOffset, totalLength, lastChunk, data);
+    }
+
+    @Override
+    public String toString() {
+        return "FileChunk{" +
+                "fileId=" + fileId +
+                ", chunkIndex=" + chunkIndex +
+                ", chunkOffset=" + chunkOffset +
+                ", totalLength=" + totalLength +
+                ", lastChunk=" + lastChunk +
+                ", dataLength=" + data.length +
+                '}';
+    }
+}
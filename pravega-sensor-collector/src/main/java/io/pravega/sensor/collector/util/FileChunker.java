@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import io.pravega.client.stream.Serializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Splits a file into fixed-size {@link FileChunk} events so that files of any size can be ingested in constant memory.
+ * Data is read into two direct buffers that are reused for all chunks of all files read by the same thread.
+ * One chunk is read ahead so that the last chunk can be flagged even when the file length is not known.
+ */
+public class FileChunker {
+    /**
+     * Largest chunk that fits in a Pravega event together with the chunk header.
+     */
+    public static final int MAX_CHUNK_SIZE_BYTES = Serializer.MAX_EVENT_SIZE - FileChunk.HEADER_SIZE;
+
+    private final int chunkSizeBytes;
+    private final ThreadLocal<ByteBuffer[]> buffers;
+
+    public FileChunker(int chunkSizeBytes) {
+        if (chunkSizeBytes <= 0 || chunkSizeBytes > MAX_CHUNK_SIZE_BYTES) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE_BYTES + " bytes but was " + chunkSizeBytes);
+        }
+        this.chunkSizeBytes = chunkSizeBytes;
+        this.buffers = ThreadLocal.withInitial(() -> new ByteBuffer[] {
+            ByteBuffer.allocateDirect(chunkSizeBytes), ByteBuffer.allocateDirect(chunkSizeBytes)});
+    }
+
+    public int getChunkSizeBytes() {
+        return chunkSizeBytes;
+    }
+
+    /**
+     * Read the channel and emit one event per chunk. An empty channel produces no events.
+     * When the total length is known, only that many bytes are read, even if the channel has grown since.
+     * Otherwise the channel is read to the end.
+     *
+     * @param channel source of the file data
+     * @param fileId id of the file, included in each chunk
+     * @param totalLength number of bytes that will be read from the channel, or {@link FileChunk#UNKNOWN_LENGTH}
+     * @param routingKey routing key of the events
+     * @param firstSequenceNumber sequence number of the first event
+     * @param consumer receives the events
+     * @return next sequence number
+     * @throws IOException If the channel cannot be read or ends before the total length.
+     */
+    public long generateEvents(ReadableByteChannel channel, UUID fileId, long totalLength, String routingKey,
+                               long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
+        final ByteBuffer[] threadBuffers = buffers.get();
+        ByteBuffer current = threadBuffers[0];
+        ByteBuffer next = threadBuffers[1];
+        long remaining = totalLength == FileChunk.UNKNOWN_LENGTH ? Long.MAX_VALUE : totalLength;
+        current.clear();
+        remaining -= fill(channel, current, remaining);
+        long nextSequenceNumber = firstSequenceNumber;
+        long chunkIndex = 0;
+        long chunkOffset = 0;
+        while (current.position() > 0) {
+            next.clear();
+            remaining -= fill(channel, next, remaining);
+            final boolean lastChunk = next.position() == 0;
+            current.flip();
+            final int chunkLength = current.remaining();
+            if (lastChunk && totalLength != FileChunk.UNKNOWN_LENGTH && chunkOffset + chunkLength != totalLength) {
+                throw new IOException("Expected " + totalLength + " bytes but the channel ended after " + (chunkOffset + chunkLength) + " bytes");
+            }
+            final long length = lastChunk && totalLength == FileChunk.UNKNOWN_LENGTH ? chunkOffset + chunkLength : totalLength;
+            final byte[] event = FileChunk.encode(fileId, chunkIndex, chunkOffset, length, lastChunk, current);
+            consumer.accept(new PravegaWriterEvent(routingKey, nextSequenceNumber, event));
+            nextSequenceNumber++;
+            chunkIndex++;
+            chunkOffset += chunkLength;
+            final ByteBuffer swap = current;
+            current = next;
+            next = swap;
+        }
+        if (chunkIndex == 0 && totalLength > 0) {
+            throw new IOException("Expected " + totalLength + " bytes but the channel was empty");
+        }
+        return nextSequenceNumber;
+    }
+
+    /**
+     * Read until the buffer is full, the maximum number of bytes has been read, or the end of the channel is reached.
+     *
+     * @return number of bytes read
+     */
+    private static int fill(ReadableByteChannel channel, ByteBuffer buffer, long maxBytes) throws IOException {
+        buffer.limit((int) Math.min(buffer.capacity(), maxBytes));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+}
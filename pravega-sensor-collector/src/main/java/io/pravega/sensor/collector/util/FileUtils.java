@@ -9,8 +9,10 @@
  */
 package io.pravega.sensor.collector.util;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.DirectoryStream;
@@ -21,6 +23,7 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -48,6 +51,21 @@ public class FileUtils {
      *
      */
     public static List<FileNameWithOffset> getDirectoryListing(String fileSpec, String fileExtension, Path movedFilesDirectory, long minTimeInMillisToUpdateFile) throws IOException {
+        return getDirectoryListing(fileSpec, fileExtension, movedFilesDirectory, minTimeInMillisToUpdateFile, false);
+    }
+
+    /**
+     * Get directory list.
+     * @param fileSpec
+     * @param fileExtension
+     * @param movedFilesDirectory
+     * @param minTimeInMillisToUpdateFile
+     * @param skipEmptyFiles if true, empty files are left in place and not listed instead of being moved to the failed files directory.
+     *                       This is used when tailing files that may not have been written to yet.
+     * @throws IOException
+     * @return list of file name and file size in bytes
+     */
+    public static List<FileNameWithOffset> getDirectoryListing(String fileSpec, String fileExtension, Path movedFilesDirectory, long minTimeInMillisToUpdateFile, boolean skipEmptyFiles) throws IOException {
         String[] directories = fileSpec.split(SEPARATOR);
         List<FileNameWithOffset> directoryListing = new ArrayList<>();
         for (String directory : directories) {
@@ -56,7 +74,7 @@ public class FileUtils {
                 LOGGER.error("getDirectoryListing: Directory does not exist or spec is not valid : {}", pathSpec.toAbsolutePath());
                 throw new IOException("Directory does not exist or spec is not valid");
             }
-            getDirectoryFiles(pathSpec, fileExtension, directoryListing, movedFilesDirectory, minTimeInMillisToUpdateFile);
+            getDirectoryFiles(pathSpec, fileExtension, directoryListing, movedFilesDirectory, minTimeInMillisToUpdateFile, skipEmptyFiles);
         }
         return directoryListing;
     }
@@ -68,21 +86,17 @@ public class FileUtils {
      * @param directoryListing
      * @param movedFilesDirectory
      * @param minTimeInMillisToUpdateFile
+     * @param skipEmptyFiles
      * @throws IOException
      */
-    protected static void getDirectoryFiles(Path pathSpec, String fileExtension, List<FileNameWithOffset> directoryListing, Path movedFilesDirectory, long minTimeInMillisToUpdateFile) throws IOException {
+    protected static void getDirectoryFiles(Path pathSpec, String fileExtension, List<FileNameWithOffset> directoryListing, Path movedFilesDirectory, long minTimeInMillisToUpdateFile, boolean skipEmptyFiles) throws IOException {
         DirectoryStream.Filter<Path> lastModifiedTimeFilter = getLastModifiedTimeFilter(minTimeInMillisToUpdateFile);
         try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(pathSpec, lastModifiedTimeFilter)) {
             for (Path path: dirStream) {
                 if (Files.isDirectory(path)) {        //traverse subdirectories
-                    getDirectoryFiles(path, fileExtension, directoryListing, movedFilesDirectory, minTimeInMillisToUpdateFile);
+                    getDirectoryFiles(path, fileExtension, directoryListing, movedFilesDirectory, minTimeInMillisToUpdateFile, skipEmptyFiles);
                 } else {
-                    FileNameWithOffset fileEntry = new FileNameWithOffset(path.toAbsolutePath().toString(), path.toFile().length());                    
-                    if (isValidFile(fileEntry, fileExtension)) {
-                        directoryListing.add(fileEntry);
-                    } else {                            //move failed file to different folder
-                        moveFailedFile(fileEntry, movedFilesDirectory);
-                    }
+                    addFileEntry(path, fileExtension, directoryListing, movedFilesDirectory, skipEmptyFiles);
                 }
             }
         } catch (Exception ex) {
@@ -96,6 +110,37 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Get the file size in bytes of each of the given files, for example files reported by a {@link DirectoryWatcher}.
+     * Files that no longer exist are ignored, and invalid files are moved in the same way as by {@link #getDirectoryListing}.
+     * @param files
+     * @param fileExtension
+     * @param movedFilesDirectory
+     * @param skipEmptyFiles
+     * @throws IOException
+     * @return list of file name and file size in bytes
+     */
+    public static List<FileNameWithOffset> getFileListing(Collection<Path> files, String fileExtension, Path movedFilesDirectory, boolean skipEmptyFiles) throws IOException {
+        final List<FileNameWithOffset> fileListing = new ArrayList<>();
+        for (Path path : files) {
+            if (Files.isRegularFile(path)) {
+                addFileEntry(path, fileExtension, fileListing, movedFilesDirectory, skipEmptyFiles);
+            }
+        }
+        return fileListing;
+    }
+
+    private static void addFileEntry(Path path, String fileExtension, List<FileNameWithOffset> directoryListing, Path movedFilesDirectory, boolean skipEmptyFiles) throws IOException {
+        FileNameWithOffset fileEntry = new FileNameWithOffset(path.toAbsolutePath().toString(), path.toFile().length());
+        if (skipEmptyFiles && fileEntry.offset <= 0) {
+            LOGGER.debug("addFileEntry: Skipping empty file {}", fileEntry.fileName);
+        } else if (isValidFile(fileEntry, fileExtension)) {
+            directoryListing.add(fileEntry);
+        } else {                            //move failed file to different folder
+            moveFailedFile(fileEntry, movedFilesDirectory);
+        }
+    }
+
     /**
      * The last modified time filter for files older than #{timeBefore} milliseconds from current timestamp.
      * This filter helps to eliminate the files that are partially written in to lookup directory by external services.
@@ -132,6 +177,39 @@ public class FileUtils {
         return false;
     }
 
+    /**
+     * Find the end of the last whole line in a region of a file.
+     * The region is scanned backwards so that only the bytes after the last line feed are read.
+     * @param path          file to scan
+     * @param beginOffset   start of the region
+     * @param endOffset     end of the region, usually the file size
+     * @throws IOException
+     * @return the offset just after the last line feed in the region, or beginOffset if the region contains no line feed
+     */
+    public static long findEndOfLastLine(Path path, long beginOffset, long endOffset) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long blockEnd = endOffset;
+            while (blockEnd > beginOffset) {
+                final long blockBegin = Math.max(beginOffset, blockEnd - buffer.capacity());
+                buffer.clear();
+                buffer.limit((int) (blockEnd - blockBegin));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, blockBegin + buffer.position()) < 0) {
+                        throw new EOFException("File " + path + " was truncated while scanning for the end of the last line");
+                    }
+                }
+                for (int i = buffer.limit() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return blockBegin + i + 1;
+                    }
+                }
+                blockEnd = blockBegin;
+            }
+        }
+        return beginOffset;
+    }
+
     static void moveFailedFile(FileNameWithOffset fileEntry, Path filesDirectory) throws IOException {
         Path sourcePath = Paths.get(fileEntry.fileName);
         Path targetPath = filesDirectory.resolve(FAILED_FILES).resolve(sourcePath.getFileName());
@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.stream.EventStreamWriter;
+import io.pravega.client.stream.EventWriterConfig;
+import io.pravega.client.stream.Serializer;
+import io.pravega.client.stream.Transaction;
+import io.pravega.client.stream.TransactionalEventStreamWriter;
+import io.pravega.client.stream.TxnFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Pravega writer that is shared by the device driver instances of a process that write to the same stream.
+ * Each instance writes through its own {@link EventWriter}, returned by {@link #newInstanceWriter()},
+ * and the Pravega writer is closed when the last of them is closed.
+ *
+ * With a non-transactional writer, the events of all instances are appended to the same segment writers,
+ * and a flush that starts while another is in progress is skipped if the other flush covered all of its events.
+ * With a transactional writer, each instance still writes to its own transactions,
+ * so that it can record and recover them exactly once in its own persistent queue.
+ *
+ * A Pravega writer has a single time for watermarks, so the time noted or committed is the minimum
+ * of the latest times of the instances, and it never decreases.
+ */
+public class MultiplexedEventWriter<T> implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiplexedEventWriter.class);
+
+    /**
+     * The non-transactional writer, or null.
+     */
+    private final EventStreamWriter<T> eventWriter;
+    /**
+     * The transactional writer, or null.
+     */
+    private final TransactionalEventStreamWriter<T> transactionalWriter;
+
+    /**
+     * The number of events whose write has returned.
+     */
+    private final AtomicLong writeCount = new AtomicLong();
+    private final Object flushLock = new Object();
+    /**
+     * The number of events that have been flushed. Guarded by flushLock.
+     */
+    private long flushedWriteCount;
+
+    /**
+     * The latest time of each instance that has noted or committed a time.
+     */
+    private final Map<EventWriter<T>, Long> instanceTimestamps = new HashMap<>();
+    private long timestamp = Long.MIN_VALUE;
+    private int instanceCount;
+    private boolean closed;
+
+    public MultiplexedEventWriter(EventStreamWriter<T> eventWriter) {
+        this.eventWriter = eventWriter;
+        this.transactionalWriter = null;
+    }
+
+    public MultiplexedEventWriter(TransactionalEventStreamWriter<T> transactionalWriter) {
+        this.eventWriter = null;
+        this.transactionalWriter = transactionalWriter;
+    }
+
+    public static <T> MultiplexedEventWriter<T> create(
+            EventStreamClientFactory clientFactory,
+            String writerId,
+            String streamName,
+            Serializer<T> serializer,
+            EventWriterConfig config,
+            boolean exactlyOnce) {
+        if (exactlyOnce) {
+            return new MultiplexedEventWriter<>(clientFactory.createTransactionalEventWriter(writerId, streamName, serializer, config));
+        } else {
+            return new MultiplexedEventWriter<>(clientFactory.createEventWriter(writerId, streamName, serializer, config));
+        }
+    }
+
+    /**
+     * @return a writer for one device driver instance, or null if the Pravega writer has been closed
+     */
+    public synchronized EventWriter<T> newInstanceWriter() {
+        if (closed) {
+            return null;
+        }
+        instanceCount++;
+        LOGGER.info("newInstanceWriter: {} instances", instanceCount);
+        if (transactionalWriter != null) {
+            return new InstanceTransactionalEventWriter(new TransactionalEventWriter<>(transactionalWriter));
+        }
+        return new InstanceEventWriter();
+    }
+
+    public synchronized int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the Pravega writer, even if instances are still using it.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LOGGER.info("close: closing Pravega writer");
+        if (transactionalWriter != null) {
+            transactionalWriter.close();
+        } else {
+            eventWriter.close();
+        }
+    }
+
+    private synchronized void release(EventWriter<T> instanceWriter) {
+        instanceTimestamps.remove(instanceWriter);
+        instanceCount--;
+        LOGGER.info("release: {} instances", instanceCount);
+        if (instanceCount == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Record the latest time of an instance.
+     * @return the minimum of the latest times of all instances, but not less than the previous value
+     */
+    private synchronized long updateTimestamp(EventWriter<T> instanceWriter, long instanceTimestamp) {
+        instanceTimestamps.put(instanceWriter, instanceTimestamp);
+        timestamp = Long.max(timestamp, Collections.min(instanceTimestamps.values()));
+        return timestamp;
+    }
+
+    private void writeEvent(String routingKey, T event) {
+        eventWriter.writeEvent(routingKey, event);
+        writeCount.incrementAndGet();
+    }
+
+    private void flush() {
+        // All events written before this call have been counted.
+        final long target = writeCount.get();
+        synchronized (flushLock) {
+            if (flushedWriteCount >= target) {
+                LOGGER.debug("flush: events already flushed by another instance");
+                return;
+            }
+            final long count = writeCount.get();
+            eventWriter.flush();
+            flushedWriteCount = count;
+        }
+    }
+
+    private synchronized void noteTime(EventWriter<T> instanceWriter, long instanceTimestamp) {
+        final long previous = timestamp;
+        final long current = updateTimestamp(instanceWriter, instanceTimestamp);
+        if (current > previous) {
+            LOGGER.info("noteTime: noting timestamp {}", current);
+            eventWriter.noteTime(current);
+        }
+    }
+
+    /**
+     * The writer of an instance that shares a non-transactional Pravega writer.
+     */
+    private final class InstanceEventWriter implements EventWriter<T> {
+        private boolean instanceClosed;
+
+        @Override
+        public void writeEvent(String routingKey, T event) {
+            MultiplexedEventWriter.this.writeEvent(routingKey, event);
+        }
+
+        @Override
+        public Optional<UUID> flush() {
+            MultiplexedEventWriter.this.flush();
+            return Optional.empty();
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void commit(long timestamp) {
+            noteTime(this, timestamp);
+        }
+
+        @Override
+        public void commit(UUID txnId) {
+            throw new UnsupportedOperationException("Non-transactional writer cannot commit transactions");
+        }
+
+        @Override
+        public void abort() {
+        }
+
+        @Override
+        public Transaction.Status getTransactionStatus(UUID txnId) {
+            throw new UnsupportedOperationException("Non-transactional writer cannot commit transactions");
+        }
+
+        @Override
+        public Transaction.Status getTransactionStatus() {
+            throw new UnsupportedOperationException("Non-transactional writer do not have transaction status");
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!instanceClosed) {
+                instanceClosed = true;
+                release(this);
+            }
+        }
+    }
+
+    /**
+     * The writer of an instance that shares a transactional Pravega writer. It begins its own transactions.
+     */
+    private final class InstanceTransactionalEventWriter implements EventWriter<T> {
+        private final TransactionalEventWriter<T> writer;
+        private boolean instanceClosed;
+
+        InstanceTransactionalEventWriter(TransactionalEventWriter<T> writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeEvent(String routingKey, T event) throws TxnFailedException {
+            writer.writeEvent(routingKey, event);
+        }
+
+        @Override
+        public Optional<UUID> flush() throws TxnFailedException {
+            return writer.flush();
+        }
+
+        @Override
+        public void commit() throws TxnFailedException {
+            writer.commit();
+        }
+
+        @Override
+        public void commit(long timestamp) throws TxnFailedException {
+            writer.commit(updateTimestamp(this, timestamp));
+        }
+
+        @Override
+        public void commit(UUID txnId) throws TxnFailedException {
+            writer.commit(txnId);
+        }
+
+        @Override
+        public CompletableFuture<Void> commitAsync(long timestamp, Executor executor) {
+            return writer.commitAsync(updateTimestamp(this, timestamp), executor);
+        }
+
+        @Override
+        public void abort() {
+            writer.abort();
+        }
+
+        @Override
+        public Transaction.Status getTransactionStatus(UUID txnId) {
+            return writer.getTransactionStatus(txnId);
+        }
+
+        @Override
+        public Transaction.Status getTransactionStatus() {
+            return writer.getTransactionStatus();
+        }
+
+        /**
+         * Abort the open transaction of this instance, but leave the Pravega writer open for the other instances.
+         */
+        @Override
+        public synchronized void close() {
+            if (instanceClosed) {
+                return;
+            }
+            instanceClosed = true;
+            try {
+                writer.abort();
+            } catch (Exception e) {
+                LOGGER.warn("Error aborting transaction", e);
+            }
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue for exactly one producer thread and one consumer thread.
+ *
+ * Elements are stored in an array of slots that is allocated once, so adding an element does not allocate memory.
+ * The producer and consumer only synchronize through the ordered writes of their own index.
+ * A thread that must wait, because the queue is empty or full, uses the configured {@link WaitStrategy}.
+ * When the queue is full, the {@link FullPolicy} decides whether new elements are dropped or the producer waits.
+ */
+public class RingBufferQueue<E> {
+    /**
+     * Maximum time that a parked thread waits before checking the queue again.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * How a thread waits for the other thread.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spin the CPU. Lowest latency, but uses a full CPU core while waiting.
+         */
+        BUSY_SPIN,
+        /**
+         * Yield the CPU to other threads between checks.
+         */
+        YIELD,
+        /**
+         * Park the thread with an increasing timeout, up to 1 ms, between checks. Uses the least CPU.
+         */
+        PARK
+    }
+
+    /**
+     * What happens when an element is added to a full queue.
+     */
+    public enum FullPolicy {
+        /**
+         * Discard the new element.
+         */
+        DROP,
+        /**
+         * Wait until the consumer has removed an element.
+         */
+        BLOCK
+    }
+
+    private final Object[] slots;
+    private final WaitStrategy waitStrategy;
+    private final FullPolicy fullPolicy;
+    /**
+     * Index of the next element to remove. Only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Index of the next element to add. Only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    public RingBufferQueue(int capacity, WaitStrategy waitStrategy, FullPolicy fullPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.slots = new Object[capacity];
+        this.waitStrategy = waitStrategy;
+        this.fullPolicy = fullPolicy;
+    }
+
+    /**
+     * Add an element. Must only be called by the producer thread.
+     * If the queue is full, the element is dropped or this method waits, depending on the {@link FullPolicy}.
+     * @param element element to add
+     * @return true if the element was added, false if it was dropped
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean offer(E element) throws InterruptedException {
+        final long t = tail.get();
+        long size = t - head.getAcquire();
+        if (size >= slots.length) {
+            if (fullPolicy == FullPolicy.DROP) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            for (int attempt = 0; size >= slots.length; attempt++) {
+                idle(attempt);
+                size = t - head.getAcquire();
+            }
+        }
+        slots[(int) (t % slots.length)] = element;
+        // Publish the element to the consumer.
+        tail.setRelease(t + 1);
+        if (size + 1 > highWaterMark.getPlain()) {
+            highWaterMark.setRelease(size + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the oldest element, waiting up to the timeout if the queue is empty.
+     * Must only be called by the consumer thread.
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return the element, or null if the timeout elapsed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        final long h = head.get();
+        if (tail.getAcquire() == h) {
+            final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+            for (int attempt = 0; tail.getAcquire() == h; attempt++) {
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    return null;
+                }
+                idle(attempt);
+            }
+        }
+        final int index = (int) (h % slots.length);
+        final E element = (E) slots[index];
+        // Release the element for garbage collection.
+        slots[index] = null;
+        // Make the slot available to the producer.
+        head.setRelease(h + 1);
+        return element;
+    }
+
+    /**
+     * @return number of elements in the queue
+     */
+    public int size() {
+        return (int) (tail.getAcquire() - head.getAcquire());
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return number of elements dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return maximum number of elements that have been in the queue
+     */
+    public long getHighWaterMark() {
+        return highWaterMark.getAcquire();
+    }
+
+    private void idle(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                LockSupport.parkNanos(Long.min(MAX_PARK_NANOS, 1000L << Integer.min(attempt, 20)));
+                break;
+        }
+    }
+}
@@ -24,6 +24,11 @@ public class SQliteDBUtility {
             try (final Statement statement = connection.createStatement()) {
                 // Use SQLite exclusive locking mode to ensure that another process or device driver instance is not using this database.
                 //statement.execute("PRAGMA locking_mode = EXCLUSIVE");
+                // With write-ahead logging, a commit appends to the log and syncs it once
+                // instead of syncing both a rollback journal and the database.
+                statement.execute("PRAGMA journal_mode = WAL");
+                // Sync the log on every commit so that committed state survives a power loss.
+                statement.execute("PRAGMA synchronous = FULL");
                 statement.execute(
                         "create table if not exists PendingFiles (" +
                                 "id integer primary key autoincrement, " +
@@ -33,6 +38,10 @@ public class SQliteDBUtility {
                         "create table if not exists CompletedFiles (" +
                                 "fileName string primary key not null, " +
                                 "offset bigint not null)");
+                statement.execute(
+                        "create table if not exists TailedFiles (" +
+                                "fileName string primary key not null, " +
+                                "offset bigint not null)");
                 statement.execute(
                         "create table if not exists SequenceNumber (" +
                                 "id integer primary key check (id = 0), " +
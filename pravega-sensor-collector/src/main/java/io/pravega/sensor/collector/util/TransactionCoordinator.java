@@ -21,7 +21,9 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Coordinate SQLite and Pravega transactions using a two-phase commit protocol.
@@ -57,12 +59,20 @@ import java.util.UUID;
  *     The transaction timeout should be set to a large enough value so that data loss
  *     in such a scenario is acceptable.
  *
+ * Several transactions may be in flight at once when files are ingested in parallel.
+ * Each owner registers its transaction with {@link #trackInFlightTransaction} before step 5
+ * and releases it with {@link #untrackInFlightTransaction} after step 7 or on failure.
+ * Recovery skips tracked transactions so that it never races with a live owner,
+ * and released transactions that remain in TransactionsToCommit are committed by the next recovery.
+ * Access to the shared SQLite connection is serialized by synchronizing on the connection.
+ *
  */
 public class TransactionCoordinator {
     private static final Logger LOGGER = LoggerFactory.getLogger(TransactionCoordinator.class);
 
     private final Connection connection;
     private final EventWriter<byte[]> writer;
+    private final Set<UUID> inFlightTransactions = ConcurrentHashMap.newKeySet();
 
     public TransactionCoordinator(Connection connection, EventWriter<byte[]> writer) {
         this.connection = connection;
@@ -96,10 +106,12 @@ public class TransactionCoordinator {
     public void addTransactionToCommit(Optional<UUID> txnId) {
         try {
             if (txnId.isPresent()) {
-                try (final PreparedStatement statement = connection.prepareStatement(
-                        "insert into TransactionsToCommit (txnId) values (?)")) {
-                    statement.setString(1, txnId.get().toString());
-                    statement.execute();
+                synchronized (connection) {
+                    try (final PreparedStatement statement = connection.prepareStatement(
+                            "insert into TransactionsToCommit (txnId) values (?)")) {
+                        statement.setString(1, txnId.get().toString());
+                        statement.execute();
+                    }
                 }
             }
         } catch (SQLException e) {
@@ -113,12 +125,14 @@ public class TransactionCoordinator {
     public void deleteTransactionToCommit(Optional<UUID> txnId) {
         try {
             if (txnId.isPresent()) {
-                try (final PreparedStatement deleteStatement = connection.prepareStatement(
-                        "delete from TransactionsToCommit where txnId = ?");
-                     final AutoRollback autoRollback = new AutoRollback(connection)) {
-                    deleteStatement.setString(1, txnId.get().toString());
-                    deleteStatement.execute();
-                    autoRollback.commit();
+                synchronized (connection) {
+                    try (final PreparedStatement deleteStatement = connection.prepareStatement(
+                            "delete from TransactionsToCommit where txnId = ?");
+                         final AutoRollback autoRollback = new AutoRollback(connection)) {
+                        deleteStatement.setString(1, txnId.get().toString());
+                        deleteStatement.execute();
+                        autoRollback.commit();
+                    }
                 }
             }
         } catch (SQLException e) {
@@ -126,20 +140,39 @@ public class TransactionCoordinator {
         }
     }
 
+    /**
+     * Mark a flushed transaction as owned by a running writer so that recovery does not commit it concurrently.
+     * @param txnId the Pravega transaction ID
+     */
+    public void trackInFlightTransaction(Optional<UUID> txnId) {
+        txnId.ifPresent(inFlightTransactions::add);
+    }
+
+    /**
+     * Release ownership of a transaction. If it is still recorded in TransactionsToCommit,
+     * it will be committed by the next recovery.
+     * @param txnId the Pravega transaction ID
+     */
+    public void untrackInFlightTransaction(Optional<UUID> txnId) {
+        txnId.ifPresent(inFlightTransactions::remove);
+    }
+
     /**
      * Get the list of Pravega transactions that have been flushed and are ready to commit.
-     * Under normal circumstances, this should return 0 or 1 transactions.
+     * Under normal circumstances, this should return 0 or 1 transactions per concurrent writer.
      * @return List of Pravega transaction IDs
      */
     protected List<UUID> getTransactionsToCommit() {
         try {
-            try (final Statement statement = connection.createStatement();
-                 final ResultSet rs = statement.executeQuery("select txnId from TransactionsToCommit")) {
-                final List<UUID> result = new ArrayList<>();
-                while (rs.next()) {
-                    result.add(UUID.fromString(rs.getString("txnId")));
+            synchronized (connection) {
+                try (final Statement statement = connection.createStatement();
+                     final ResultSet rs = statement.executeQuery("select txnId from TransactionsToCommit")) {
+                    final List<UUID> result = new ArrayList<>();
+                    while (rs.next()) {
+                        result.add(UUID.fromString(rs.getString("txnId")));
+                    }
+                    return result;
                 }
-                return result;
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -148,6 +181,7 @@ public class TransactionCoordinator {
 
     public void performRecovery() {
         final List<UUID> transactionsToCommit = getTransactionsToCommit();
+        transactionsToCommit.removeIf(inFlightTransactions::contains);
         if (transactionsToCommit.isEmpty()) {
             LOGGER.info("performRecovery: No transactions to be recovered");
         } else {
@@ -12,6 +12,7 @@ package io.pravega.sensor.collector.util;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -34,6 +35,15 @@ public interface TransactionStateDB {
      */
     public Pair<FileNameWithOffset, Long> getNextPendingFileRecord() throws SQLException;
 
+    /**
+     * Get next file to process, skipping files that are already being processed by another worker.
+     *
+     * @param excludedFileNames  file names that must not be returned
+     * @return ((file name, begin offset), sequence number) or null if there is no other pending file
+     * @throws SQLException
+     */
+    public Pair<FileNameWithOffset, Long> getNextPendingFileRecord(Collection<String> excludedFileNames) throws SQLException;
+
     /**
      * Update below details
      *      1. Update sequence number into SequenceNumber table
@@ -87,6 +97,15 @@ public interface TransactionStateDB {
      */
     public List<FileNameWithOffset> getCompletedFileRecords() throws SQLException;
 
+    /**
+     * Get the given files that are in completedFiles table with the same end offset.
+     *
+     * @param files  list of file name and file size
+     * @return the completed files among the given files
+     * @throws SQLException
+     */
+    public List<FileNameWithOffset> getCompletedFileRecords(Collection<FileNameWithOffset> files) throws SQLException;
+
     /**
      * Delete completed file record from completedFiles table for given file name.
      *
@@ -95,6 +114,64 @@ public interface TransactionStateDB {
      */
     public void deleteCompletedFileRecord(String fileName) throws SQLException;
 
+    /**
+     * Delete completed file records from completedFiles table for given file names.
+     *
+     * @param fileNames  file names
+     * @throws SQLException
+     */
+    public void deleteCompletedFileRecords(Collection<String> fileNames) throws SQLException;
+
+    /**
+     * Update below details
+     *      1. Update sequence number into SequenceNumber table
+     *      2. Set the committed offset of the given file in TailedFiles table to the end offset
+     *      3. Delete all entry from PendingFiles for given file name offset less than equal to given begin offset value
+     *      4. Add transaction id to TransactionsToCommit table if provided
+     *
+     * @param fileName               file name of tailed file
+     * @param beginOffset            begin offset from where file read starts
+     * @param endOffset              end offset where reading ends. This is the new committed offset.
+     * @param newNextSequenceNumber  next sequence number.
+     * @param txnId                  transaction id (Optional value) from Pravega.
+     * @throws SQLException
+     */
+    public void addTailedFileRecord(String fileName, long beginOffset, long endOffset, long newNextSequenceNumber, Optional<UUID> txnId) throws SQLException;
+
+    /**
+     * Add tailed files to PendingFiles table in a single transaction.
+     * A file is added only if its begin offset is not less than its committed offset in TailedFiles table,
+     * so that a file listing taken before a concurrent commit cannot cause committed bytes to be read again.
+     * The committed offset of a truncated file is first reset to 0 if it is still greater than the file size.
+     *
+     * @param grownFiles      file name and offset from which to continue reading
+     * @param truncatedFiles  file name and file size of files that are smaller than their committed offset
+     * @throws SQLException
+     */
+    public void addTailedPendingFileRecords(List<FileNameWithOffset> grownFiles, List<FileNameWithOffset> truncatedFiles) throws SQLException;
 
+    /**
+     * Get the committed offset of a file from TailedFiles table.
+     *
+     * @param fileName  file name
+     * @return the committed offset, or 0 if the file is not in TailedFiles table
+     * @throws SQLException
+     */
+    public long getTailedFileOffset(String fileName) throws SQLException;
+
+    /**
+     * Get a list of files from TailedFiles table.
+     *
+     * @return list of file name and committed offset
+     * @throws SQLException
+     */
+    public List<FileNameWithOffset> getTailedFileRecords() throws SQLException;
 
+    /**
+     * Delete tailed file record from TailedFiles table for given file name.
+     *
+     * @param fileName  file name
+     * @throws SQLException
+     */
+    public void deleteTailedFileRecord(String fileName) throws SQLException;
 }
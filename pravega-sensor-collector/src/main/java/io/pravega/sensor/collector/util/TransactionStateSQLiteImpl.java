@@ -19,20 +19,38 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Maintain state of pending and completed files in SQLite database.
+ * All access to the connection is synchronized on the connection so that several file workers
+ * and the {@link TransactionCoordinator} may share it.
+ * Prepared statements are created on first use and reused until this is closed.
+ * The CompletedFiles table is read once and then kept in memory, so that checking whether listed files
+ * have already been completed does not read the whole table.
 */
 public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionStateDB {
         private static final Logger LOGGER = LoggerFactory.getLogger(TransactionStateSQLiteImpl.class);
 
         private final Connection connection;
         private final TransactionCoordinator transactionCoordinator;
+        /**
+         * Prepared statements by SQL text. Only used while synchronized on the connection.
+         */
+        private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+        /**
+         * Copy of the CompletedFiles table, mapping file name to end offset. Loaded on first use and updated after
+         * each commit that changes the table. Only used while synchronized on the connection.
+         */
+        private Map<String, Long> completedFileIndex;
 
         public TransactionStateSQLiteImpl(Connection connection, TransactionCoordinator transactionCoordinator) {
             this.connection = connection;
@@ -41,26 +59,71 @@ public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionSt
 
         @Override
         public void close() throws SQLException {
-            connection.close();
+            synchronized (connection) {
+                for (PreparedStatement statement : preparedStatements.values()) {
+                    statement.close();
+                }
+                preparedStatements.clear();
+                connection.close();
+            }
         }
 
         /**
-         * Add file name and begin offset to PendingFiles table.
+         * Get a prepared statement for the given SQL, preparing it only the first time.
+         * The caller must be synchronized on the connection and must not close the statement.
+         */
+        private PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = preparedStatements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                preparedStatements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        /**
+         * Get the in-memory copy of the CompletedFiles table, reading the table the first time.
+         * The caller must be synchronized on the connection.
+         */
+        private Map<String, Long> getCompletedFileIndex() throws SQLException {
+            if (completedFileIndex == null) {
+                final Map<String, Long> index = new LinkedHashMap<>();
+                try (final ResultSet rs = prepare("select fileName, offset from CompletedFiles").executeQuery()) {
+                    while (rs.next()) {
+                        index.put(rs.getString("fileName"), rs.getLong("offset"));
+                    }
+                } finally {
+                    connection.commit();
+                }
+                completedFileIndex = index;
+            }
+            return completedFileIndex;
+        }
+
+        /**
+         * Add file name and begin offset to PendingFiles table. All files are inserted in a single batch.
          *
          *  @param files      List of file name with Offset.
          *
          */
         @Override
         public void addPendingFileRecords(List<FileNameWithOffset> files) throws SQLException {
-            try (final PreparedStatement insertStatement = connection.prepareStatement(
-                    "insert or ignore into PendingFiles (fileName, offset) values (?, ?)");
-                 final AutoRollback autoRollback = new AutoRollback(connection)) {
-                for (FileNameWithOffset file: files) {
-                    insertStatement.setString(1, file.fileName);
-                    insertStatement.setLong(2, file.offset);
-                    insertStatement.execute();
+            if (files.isEmpty()) {
+                return;
+            }
+            synchronized (connection) {
+                final PreparedStatement insertStatement = prepare("insert or ignore into PendingFiles (fileName, offset) values (?, ?)");
+                try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                    for (FileNameWithOffset file: files) {
+                        insertStatement.setString(1, file.fileName);
+                        insertStatement.setLong(2, file.offset);
+                        insertStatement.addBatch();
+                    }
+                    insertStatement.executeBatch();
+                    autoRollback.commit();
+                } finally {
+                    insertStatement.clearBatch();
                 }
-                autoRollback.commit();
             }
         }
 
@@ -71,27 +134,56 @@ public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionSt
          */
         @Override
         public Pair<FileNameWithOffset, Long> getNextPendingFileRecord() throws SQLException {
-            try (final Statement statement = connection.createStatement();
-                 final ResultSet rs = statement.executeQuery("select fileName, offset from PendingFiles order by id limit 1")) {
-                if (rs.next()) {
-                    final FileNameWithOffset fileNameWithOffset = new FileNameWithOffset(rs.getString("fileName"), rs.getLong("offset"));
-                    try (final ResultSet rsSequenceNumber = statement.executeQuery("select nextSequenceNumber from SequenceNumber")) {
-                        rsSequenceNumber.next();
-                        final long nextSequenceNumber = rsSequenceNumber.getLong(1);
-                        return new ImmutablePair<>(fileNameWithOffset, nextSequenceNumber);
+            synchronized (connection) {
+                try (final ResultSet rs = prepare(
+                        "select fileName, offset, nextSequenceNumber from PendingFiles, SequenceNumber order by PendingFiles.id limit 1").executeQuery()) {
+                    if (rs.next()) {
+                        final FileNameWithOffset fileNameWithOffset = new FileNameWithOffset(rs.getString("fileName"), rs.getLong("offset"));
+                        return new ImmutablePair<>(fileNameWithOffset, rs.getLong("nextSequenceNumber"));
+                    } else {
+                        return null;
                     }
-                } else {
-                    return null;
+                } finally {
+                    connection.commit();
+                }
+            }
+        }
+
+        /**
+         * Get next file to process, skipping files that are already being processed by another worker.
+         * Only the first (excluded count + 1) pending files need to be read to find one that is not excluded.
+         *
+         * @param excludedFileNames  file names that must not be returned
+         * @return ((file name, begin offset), sequence number) or null if there is no other pending file
+         */
+        @Override
+        public Pair<FileNameWithOffset, Long> getNextPendingFileRecord(Collection<String> excludedFileNames) throws SQLException {
+            synchronized (connection) {
+                final PreparedStatement pendingFileStatement = prepare(
+                        "select fileName, offset, nextSequenceNumber from PendingFiles, SequenceNumber order by PendingFiles.id limit ?");
+                try {
+                    pendingFileStatement.setInt(1, excludedFileNames.size() + 1);
+                    try (final ResultSet rs = pendingFileStatement.executeQuery()) {
+                        while (rs.next()) {
+                            final String fileName = rs.getString("fileName");
+                            if (!excludedFileNames.contains(fileName)) {
+                                final FileNameWithOffset fileNameWithOffset = new FileNameWithOffset(fileName, rs.getLong("offset"));
+                                return new ImmutablePair<>(fileNameWithOffset, rs.getLong("nextSequenceNumber"));
+                            }
+                        }
+                        return null;
+                    }
+                } finally {
+                    connection.commit();
                 }
-            } finally {
-                connection.commit();
             }
         }
 
 
         /**
          * Update below details
-         *      1. Update sequence number into SequenceNumber table
+         *      1. Update sequence number into SequenceNumber table. The sequence number never decreases,
+         *         even if files that were processed concurrently complete out of order.
          *      2. Add entry into CompletedFiles table for given file name and end offset
          *      3. Delete all entry from PendingFiles for given file name offset less than equal to given begin offset value
          *      4. Add transaction id to TransactionsToCommit table if provided
@@ -105,26 +197,27 @@ public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionSt
          */
         @Override
         public void addCompletedFileRecord(String fileName, long beginOffset, long endOffset, long newNextSequenceNumber, Optional<UUID> txnId) throws SQLException {
-            try (final PreparedStatement updateSequenceNumberStatement = connection.prepareStatement(
-                    "update SequenceNumber set nextSequenceNumber = ?");
-                 final PreparedStatement insertCompletedFileStatement = connection.prepareStatement(
-                         "insert or ignore into CompletedFiles (fileName, offset) values (?, ?)");
-                 final PreparedStatement deletePendingFileStatement = connection.prepareStatement(
-                         "delete from PendingFiles where fileName = ? and offset <= ?");
-                 final AutoRollback autoRollback = new AutoRollback(connection)) {
-                // Update sequence number.
-                updateSequenceNumberStatement.setLong(1, newNextSequenceNumber);
-                updateSequenceNumberStatement.execute();
-                // Add completed file.
-                insertCompletedFileStatement.setString(1, fileName);
-                insertCompletedFileStatement.setLong(2, endOffset);
-                insertCompletedFileStatement.execute();
-                // Remove pending file.
-                deletePendingFileStatement.setString(1, fileName);
-                deletePendingFileStatement.setLong(2, beginOffset);
-                deletePendingFileStatement.execute();
-                transactionCoordinator.addTransactionToCommit(txnId);
-                autoRollback.commit();
+            synchronized (connection) {
+                final PreparedStatement updateSequenceNumberStatement = prepare("update SequenceNumber set nextSequenceNumber = max(nextSequenceNumber, ?)");
+                final PreparedStatement insertCompletedFileStatement = prepare("insert or ignore into CompletedFiles (fileName, offset) values (?, ?)");
+                final PreparedStatement deletePendingFileStatement = prepare("delete from PendingFiles where fileName = ? and offset <= ?");
+                final Map<String, Long> index = getCompletedFileIndex();
+                try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                    // Update sequence number.
+                    updateSequenceNumberStatement.setLong(1, newNextSequenceNumber);
+                    updateSequenceNumberStatement.execute();
+                    // Add completed file.
+                    insertCompletedFileStatement.setString(1, fileName);
+                    insertCompletedFileStatement.setLong(2, endOffset);
+                    insertCompletedFileStatement.execute();
+                    // Remove pending file.
+                    deletePendingFileStatement.setString(1, fileName);
+                    deletePendingFileStatement.setLong(2, beginOffset);
+                    deletePendingFileStatement.execute();
+                    transactionCoordinator.addTransactionToCommit(txnId);
+                    autoRollback.commit();
+                }
+                index.putIfAbsent(fileName, endOffset);
             }
         }
 
@@ -136,8 +229,8 @@ public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionSt
      */
     @Override
     public void deletePendingFile(String fileName, long beginOffset) throws SQLException {
-        try (final PreparedStatement deletePendingFileStatement = connection.prepareStatement(
-                     "delete from PendingFiles where fileName = ? and offset <= ?");) {
+        synchronized (connection) {
+            final PreparedStatement deletePendingFileStatement = prepare("delete from PendingFiles where fileName = ? and offset <= ?");
             // Remove pending file.
             deletePendingFileStatement.setString(1, fileName);
             deletePendingFileStatement.setLong(2, beginOffset);
@@ -179,16 +272,32 @@ public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionSt
      */
     @Override
     public List<FileNameWithOffset> getCompletedFileRecords() throws SQLException {
-        try (final Statement statement = connection.createStatement();
-             final ResultSet rs = statement.executeQuery("select fileName, offset from completedFiles")) {
+        synchronized (connection) {
             final List<FileNameWithOffset> files = new ArrayList<>();
-            while (rs.next()) {
-                final FileNameWithOffset fileNameWithOffset = new FileNameWithOffset(rs.getString("fileName"), rs.getLong("offset"));
-                files.add(fileNameWithOffset);
-            }
+            getCompletedFileIndex().forEach((fileName, offset) -> files.add(new FileNameWithOffset(fileName, offset)));
             return files;
-        } finally {
-            connection.commit();
+        }
+    }
+
+    /**
+     * Get the given files that are in the completedFiles table with the same end offset.
+     * This is answered from memory, so the cost depends only on the number of given files.
+     *
+     * @param files  list of file name and file size
+     * @return the completed files among the given files
+     */
+    @Override
+    public List<FileNameWithOffset> getCompletedFileRecords(Collection<FileNameWithOffset> files) throws SQLException {
+        synchronized (connection) {
+            final Map<String, Long> index = getCompletedFileIndex();
+            final List<FileNameWithOffset> completedFiles = new ArrayList<>();
+            for (FileNameWithOffset file : files) {
+                final Long offset = index.get(file.fileName);
+                if (offset != null && offset == file.offset) {
+                    completedFiles.add(file);
+                }
+            }
+            return completedFiles;
         }
     }
 
@@ -199,12 +308,166 @@ public class TransactionStateSQLiteImpl  implements AutoCloseable, TransactionSt
      */
     @Override
     public void deleteCompletedFileRecord(String fileName) throws SQLException {
-        try (final PreparedStatement deleteStatement = connection.prepareStatement(
-                "delete from CompletedFiles where fileName = ?");
-             final AutoRollback autoRollback = new AutoRollback(connection)) {
-            deleteStatement.setString(1, fileName);
-            deleteStatement.execute();
-            autoRollback.commit();
+        deleteCompletedFileRecords(Collections.singletonList(fileName));
+    }
+
+    /**
+     * Delete completed file records from completedFiles table for given file names in a single batch.
+     *
+     * @param fileNames  file names
+     */
+    @Override
+    public void deleteCompletedFileRecords(Collection<String> fileNames) throws SQLException {
+        if (fileNames.isEmpty()) {
+            return;
+        }
+        synchronized (connection) {
+            final PreparedStatement deleteStatement = prepare("delete from CompletedFiles where fileName = ?");
+            final Map<String, Long> index = getCompletedFileIndex();
+            try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                for (String fileName : fileNames) {
+                    deleteStatement.setString(1, fileName);
+                    deleteStatement.addBatch();
+                }
+                deleteStatement.executeBatch();
+                autoRollback.commit();
+            } finally {
+                deleteStatement.clearBatch();
+            }
+            fileNames.forEach(index::remove);
+        }
+    }
+
+    /**
+     * Update below details
+     *      1. Update sequence number into SequenceNumber table. The sequence number never decreases.
+     *      2. Set the committed offset of the given file in TailedFiles table to the end offset
+     *      3. Delete all entry from PendingFiles for given file name offset less than equal to given begin offset value
+     *      4. Add transaction id to TransactionsToCommit table if provided
+     *
+     * @param fileName               file name of tailed file
+     * @param beginOffset            begin offset from where file read starts
+     * @param endOffset              end offset where reading ends. This is the new committed offset.
+     * @param newNextSequenceNumber  next sequence number.
+     * @param txnId                  transaction id (Optional value) from Pravega.
+     */
+    @Override
+    public void addTailedFileRecord(String fileName, long beginOffset, long endOffset, long newNextSequenceNumber, Optional<UUID> txnId) throws SQLException {
+        synchronized (connection) {
+            final PreparedStatement updateSequenceNumberStatement = prepare("update SequenceNumber set nextSequenceNumber = max(nextSequenceNumber, ?)");
+            final PreparedStatement upsertTailedFileStatement = prepare("insert or replace into TailedFiles (fileName, offset) values (?, ?)");
+            final PreparedStatement deletePendingFileStatement = prepare("delete from PendingFiles where fileName = ? and offset <= ?");
+            try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                updateSequenceNumberStatement.setLong(1, newNextSequenceNumber);
+                updateSequenceNumberStatement.execute();
+                upsertTailedFileStatement.setString(1, fileName);
+                upsertTailedFileStatement.setLong(2, endOffset);
+                upsertTailedFileStatement.execute();
+                deletePendingFileStatement.setString(1, fileName);
+                deletePendingFileStatement.setLong(2, beginOffset);
+                deletePendingFileStatement.execute();
+                transactionCoordinator.addTransactionToCommit(txnId);
+                autoRollback.commit();
+            }
+        }
+    }
+
+    /**
+     * Add tailed files to PendingFiles table in a single transaction.
+     * A file is added only if its begin offset is not less than its committed offset in TailedFiles table,
+     * so that a file listing taken before a concurrent commit cannot cause committed bytes to be read again.
+     * The committed offset of a truncated file is first reset to 0 if it is still greater than the file size.
+     *
+     * @param grownFiles      file name and offset from which to continue reading
+     * @param truncatedFiles  file name and file size of files that are smaller than their committed offset
+     */
+    @Override
+    public void addTailedPendingFileRecords(List<FileNameWithOffset> grownFiles, List<FileNameWithOffset> truncatedFiles) throws SQLException {
+        if (grownFiles.isEmpty()) {
+            return;
+        }
+        synchronized (connection) {
+            final PreparedStatement resetTailedFileStatement = prepare("update TailedFiles set offset = 0 where fileName = ? and offset > ?");
+            final PreparedStatement insertStatement = prepare("insert or ignore into PendingFiles (fileName, offset) "
+                    + "select ?, ? where ? >= coalesce((select offset from TailedFiles where fileName = ?), 0)");
+            try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                for (FileNameWithOffset file: truncatedFiles) {
+                    resetTailedFileStatement.setString(1, file.fileName);
+                    resetTailedFileStatement.setLong(2, file.offset);
+                    resetTailedFileStatement.addBatch();
+                }
+                if (!truncatedFiles.isEmpty()) {
+                    resetTailedFileStatement.executeBatch();
+                }
+                for (FileNameWithOffset file: grownFiles) {
+                    insertStatement.setString(1, file.fileName);
+                    insertStatement.setLong(2, file.offset);
+                    insertStatement.setLong(3, file.offset);
+                    insertStatement.setString(4, file.fileName);
+                    insertStatement.addBatch();
+                }
+                insertStatement.executeBatch();
+                autoRollback.commit();
+            } finally {
+                resetTailedFileStatement.clearBatch();
+                insertStatement.clearBatch();
+            }
+        }
+    }
+
+    /**
+     * Get the committed offset of a file from TailedFiles table.
+     *
+     * @param fileName  file name
+     * @return the committed offset, or 0 if the file is not in TailedFiles table
+     */
+    @Override
+    public long getTailedFileOffset(String fileName) throws SQLException {
+        synchronized (connection) {
+            final PreparedStatement statement = prepare("select offset from TailedFiles where fileName = ?");
+            statement.setString(1, fileName);
+            try (final ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong("offset") : 0;
+            } finally {
+                connection.commit();
+            }
+        }
+    }
+
+    /**
+     * Get a list of files from TailedFiles table.
+     *
+     * @return list of file name and committed offset
+     */
+    @Override
+    public List<FileNameWithOffset> getTailedFileRecords() throws SQLException {
+        synchronized (connection) {
+            try (final ResultSet rs = prepare("select fileName, offset from TailedFiles").executeQuery()) {
+                final List<FileNameWithOffset> files = new ArrayList<>();
+                while (rs.next()) {
+                    files.add(new FileNameWithOffset(rs.getString("fileName"), rs.getLong("offset")));
+                }
+                return files;
+            } finally {
+                connection.commit();
+            }
+        }
+    }
+
+    /**
+     * Delete tailed file record from TailedFiles table for given file name.
+     *
+     * @param fileName  file name
+     */
+    @Override
+    public void deleteTailedFileRecord(String fileName) throws SQLException {
+        synchronized (connection) {
+            final PreparedStatement deleteStatement = prepare("delete from TailedFiles where fileName = ?");
+            try (final AutoRollback autoRollback = new AutoRollback(connection)) {
+                deleteStatement.setString(1, fileName);
+                deleteStatement.execute();
+                autoRollback.commit();
+            }
         }
     }
 }
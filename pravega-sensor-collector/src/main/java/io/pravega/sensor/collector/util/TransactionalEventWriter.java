@@ -17,6 +17,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class TransactionalEventWriter<T> implements EventWriter<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(TransactionalEventWriter.class);
@@ -80,6 +83,24 @@ public class TransactionalEventWriter<T> implements EventWriter<T> {
         }
     }
 
+    @Override
+    public CompletableFuture<Void> commitAsync(long timestamp, Executor executor) {
+        if (currentTxn == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final Transaction<T> txn = currentTxn;
+        // The next event begins a new transaction while this one is being committed.
+        currentTxn = null;
+        return CompletableFuture.runAsync(() -> {
+            LOGGER.info("commitAsync: committing transaction {} with timestamp {}", txn.getTxnId(), timestamp);
+            try {
+                txn.commit(timestamp);
+            } catch (TxnFailedException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
     public void abort() {
         if (currentTxn != null) {
             LOGGER.info("abort: aborting transaction {}", currentTxn.getTxnId());
@@ -31,7 +31,16 @@ public class FileConfig {
 
     public final long minTimeInMillisToUpdateFile;
 
+    /**
+     * If greater than 0, files are read in chunks of at most this many bytes instead of all at once.
+     */
+    public final int rawFileChunkSizeBytes;
+
     public FileConfig(String stateDatabaseFileName, String fileSpec, String fileExtension, String nfsMountPath,String routingKey, String eventTemplateStr, int maxRecordsPerEvent, boolean enableDeleteCompletedFiles, boolean exactlyOnce, double transactionTimeoutMinutes, long minTimeInMillisToUpdateFile, String fileType) {
+        this(stateDatabaseFileName, fileSpec, fileExtension, nfsMountPath, routingKey, eventTemplateStr, maxRecordsPerEvent, enableDeleteCompletedFiles, exactlyOnce, transactionTimeoutMinutes, minTimeInMillisToUpdateFile, fileType, 0);
+    }
+
+    public FileConfig(String stateDatabaseFileName, String fileSpec, String fileExtension, String nfsMountPath,String routingKey, String eventTemplateStr, int maxRecordsPerEvent, boolean enableDeleteCompletedFiles, boolean exactlyOnce, double transactionTimeoutMinutes, long minTimeInMillisToUpdateFile, String fileType, int rawFileChunkSizeBytes) {
         this.stateDatabaseFileName = stateDatabaseFileName;
         this.fileSpec = fileSpec;
         this.fileExtension = fileExtension;
@@ -44,6 +53,7 @@ public class FileConfig {
         this.transactionTimeoutMinutes = transactionTimeoutMinutes;
         this.minTimeInMillisToUpdateFile = minTimeInMillisToUpdateFile;
         this.fileType = fileType;
+        this.rawFileChunkSizeBytes = rawFileChunkSizeBytes;
     }
 
     @Override
@@ -60,6 +70,7 @@ public class FileConfig {
                 + ", enableDeleteCompletedFiles=" + enableDeleteCompletedFiles
                 + ", exactlyOnce=" + exactlyOnce
                 + ", transactionTimeoutMinutes=" + transactionTimeoutMinutes
+                + ", rawFileChunkSizeBytes=" + rawFileChunkSizeBytes
                 + '}';
     }
 }
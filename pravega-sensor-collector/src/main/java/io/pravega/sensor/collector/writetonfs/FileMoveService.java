@@ -9,16 +9,13 @@
  */
 package io.pravega.sensor.collector.writetonfs;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.pravega.sensor.collector.DeviceDriver;
 import io.pravega.sensor.collector.DeviceDriverConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -40,6 +37,7 @@ public abstract class FileMoveService extends DeviceDriver {
     private static final String EXACTLY_ONCE_KEY = "EXACTLY_ONCE";
     private static final String TRANSACTION_TIMEOUT_MINUTES_KEY = "TRANSACTION_TIMEOUT_MINUTES";
     private static final String MIN_TIME_IN_MILLIS_TO_UPDATE_FILE_KEY = "MIN_TIME_IN_MILLIS_TO_UPDATE_FILE";
+    private static final String RAW_FILE_CHUNK_SIZE_BYTES_KEY = "RAW_FILE_CHUNK_SIZE_BYTES";
 
     private static final int DEFAULT_SAMPLES_PER_EVENT_KEY = 100;
 
@@ -65,12 +63,12 @@ public abstract class FileMoveService extends DeviceDriver {
                 getExactlyOnce(),
                 getTransactionTimeoutMinutes(),
                 getMinTimeInMillisToUpdateFile(),
-                config.getClassName());
+                config.getClassName(),
+                getRawFileChunkSizeBytes());
         LOG.info("File Transfer Config: {}", fileSequenceConfig);
         processor = FileProcessor.create(fileSequenceConfig);
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat(
-                FileMoveService.class.getSimpleName() + "-" + config.getInstanceName() + "-%d").build();
-        executor = Executors.newScheduledThreadPool(1, namedThreadFactory);
+        executor = getDriverExecutors().scheduledExecutor(
+                FileMoveService.class.getSimpleName() + "-" + config.getInstanceName() + "-%d", 1);
     }
 
     String getFileSpec() {
@@ -124,6 +122,13 @@ public abstract class FileMoveService extends DeviceDriver {
         return Long.parseLong(getProperty(MIN_TIME_IN_MILLIS_TO_UPDATE_FILE_KEY, "5000"));
     }
 
+    /**
+     * If greater than 0, files are read in chunks of at most this many bytes instead of all at once.
+     */
+    int getRawFileChunkSizeBytes() {
+        return Integer.parseInt(getProperty(RAW_FILE_CHUNK_SIZE_BYTES_KEY, "0"));
+    }
+
     protected void watchFiles() {
         LOG.trace("watchFiles: BEGIN");
         try {
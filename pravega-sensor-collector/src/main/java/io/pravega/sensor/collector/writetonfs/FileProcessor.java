@@ -9,7 +9,6 @@
  */
 package io.pravega.sensor.collector.writetonfs;
 
-import com.google.common.io.CountingInputStream;
 
 import io.pravega.sensor.collector.file.EventGenerator;
 import io.pravega.sensor.collector.util.FileNameWithOffset;
@@ -25,9 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.Path;
@@ -39,6 +36,7 @@ import java.util.Set;
 import java.util.HashSet;
 import java.util.UUID;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -115,7 +113,7 @@ public abstract class FileProcessor {
 
     protected void findAndRecordNewFiles() throws Exception {
         final List<FileNameWithOffset> directoryListing = getDirectoryListing();
-        final List<FileNameWithOffset> completedFiles = state.getCompletedFileRecords();
+        final List<FileNameWithOffset> completedFiles = state.getCompletedFileRecords(directoryListing);
         final List<FileNameWithOffset> newFiles = getNewFiles(directoryListing, completedFiles);
         state.addPendingFileRecords(newFiles);
     }
@@ -176,43 +174,42 @@ public abstract class FileProcessor {
             return;
         }
 
-        try (final InputStream inputStream = new FileInputStream(fileNameWithBeginOffset.fileName)) {
-            final CountingInputStream countingInputStream = new CountingInputStream(inputStream);
-            countingInputStream.skip(fileNameWithBeginOffset.offset);
-            
-            final Pair<Long, Long> result = eventGenerator.generateEventsFromInputStream(countingInputStream, firstSequenceNumber,
-                    e -> {
-                        log.trace("processFile: event={}", e);
-                        try {                            
-                            // MOVE FILE TO NFS STORAGE 
+        // A chunked file produces many events but must be moved only once.
+        final AtomicBoolean moved = new AtomicBoolean(false);
+        final Pair<Long, Long> result = eventGenerator.generateEventsFromFile(fileNameWithBeginOffset, firstSequenceNumber,
+                e -> {
+                    log.trace("processFile: event={}", e);
+                    try {                            
+                        // MOVE FILE TO NFS STORAGE 
+                        if (!moved.getAndSet(true)) {
                             FileUtils.movetoNFS(fileNameWithBeginOffset, nfsPath, config.fileSpec);
-                            numOfBytes.addAndGet(e.bytes.length);
-                        } catch ( IOException ex) {
-                            log.error("processFile: Write event to transaction failed with exception {} while processing file: {}", ex, fileNameWithBeginOffset.fileName);
-                            throw new RuntimeException(ex);
                         }
-                    });
-            
-            //Using a random UUID for txnId
-            final Optional<UUID> txnId = Optional.of(UUID.randomUUID());
-            final long nextSequenceNumber = result.getLeft();
-            final long endOffset = result.getRight();
-
-            log.debug("processFile: Adding completed file: {}",  fileNameWithBeginOffset.fileName);
-            state.addCompletedFileRecord(fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset, endOffset, nextSequenceNumber, txnId);
-            
-            // Add to completed file list only if commit is successfull 
-            if (txnId.isPresent()) {
-                state.deleteTransactionToCommit(txnId);
-            }
+                        numOfBytes.addAndGet(e.bytes.length);
+                    } catch ( IOException ex) {
+                        log.error("processFile: Write event to transaction failed with exception {} while processing file: {}", ex, fileNameWithBeginOffset.fileName);
+                        throw new RuntimeException(ex);
+                    }
+                });
+        
+        //Using a random UUID for txnId
+        final Optional<UUID> txnId = Optional.of(UUID.randomUUID());
+        final long nextSequenceNumber = result.getLeft();
+        final long endOffset = result.getRight();
 
-            double elapsedSec = (System.nanoTime() - timestamp) / 1_000_000_000.0;
-            double megabyteCount = numOfBytes.getAndSet(0) / 1_000_000.0;
-            double megabytesPerSec = megabyteCount / elapsedSec;
-            log.info("Sent {} MB in {} sec. Transfer rate: {} MB/sec ", megabyteCount, elapsedSec, megabytesPerSec);
-            log.info("processFile: Finished transferring file {}; endOffset={}, nextSequenceNumber={}",
-                    fileNameWithBeginOffset.fileName, endOffset, nextSequenceNumber);
+        log.debug("processFile: Adding completed file: {}",  fileNameWithBeginOffset.fileName);
+        state.addCompletedFileRecord(fileNameWithBeginOffset.fileName, fileNameWithBeginOffset.offset, endOffset, nextSequenceNumber, txnId);
+        
+        // Add to completed file list only if commit is successfull 
+        if (txnId.isPresent()) {
+            state.deleteTransactionToCommit(txnId);
         }
+
+        double elapsedSec = (System.nanoTime() - timestamp) / 1_000_000_000.0;
+        double megabyteCount = numOfBytes.getAndSet(0) / 1_000_000.0;
+        double megabytesPerSec = megabyteCount / elapsedSec;
+        log.info("Sent {} MB in {} sec. Transfer rate: {} MB/sec ", megabyteCount, elapsedSec, megabytesPerSec);
+        log.info("processFile: Finished transferring file {}; endOffset={}, nextSequenceNumber={}",
+                fileNameWithBeginOffset.fileName, endOffset, nextSequenceNumber);
         FileUtils.moveCompletedFile(fileNameWithBeginOffset, movedFilesDirectory);
         // Delete file right after transferring
         if (config.enableDeleteCompletedFiles) {
@@ -222,6 +219,7 @@ public abstract class FileProcessor {
 
     void deleteCompletedFiles() throws Exception {
         final List<FileNameWithOffset> completedFiles = state.getCompletedFileRecords();
+        final List<String> deletedFileNames = new ArrayList<>();
         completedFiles.forEach(file -> {
             //Obtain a lock on file
             Path completedFilesPath = movedFilesDirectory.resolve(FileUtils.COMPLETED_FILES);
@@ -232,7 +230,7 @@ public abstract class FileProcessor {
                 /* If file gets deleted from completed files directory, or it does not exist in default source directory
                  * then only remove the record from DB. */
                 if (Files.deleteIfExists(filePath) || Files.notExists(Paths.get(file.fileName))) {
-                    state.deleteCompletedFileRecord(file.fileName);
+                    deletedFileNames.add(file.fileName);
                     log.debug("deleteCompletedFiles: Deleted File default name:{}, and it's completed file name:{}.", file.fileName, filePath);
                 } else {
                     /* This situation occurs because at first attempt moving file to completed directory fails, but the file still exists in default source directory.
@@ -245,6 +243,8 @@ public abstract class FileProcessor {
                 // We can continue on this error. Deletion will be retried on the next iteration.
             }
         });
+        // Remove the records of all deleted files in a single transaction.
+        state.deleteCompletedFileRecords(deletedFileNames);
     }
     
 }
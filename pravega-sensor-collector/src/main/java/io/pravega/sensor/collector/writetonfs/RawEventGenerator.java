@@ -14,6 +14,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.io.CountingInputStream;
 
 import io.pravega.sensor.collector.file.EventGenerator;
+import io.pravega.sensor.collector.util.FileChunk;
+import io.pravega.sensor.collector.util.FileChunker;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.PravegaWriterEvent;
 
 import org.apache.commons.compress.utils.IOUtils;
@@ -24,6 +27,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 /**
@@ -35,24 +43,41 @@ public class RawEventGenerator implements EventGenerator{
     private final String routingKey;
     private final ObjectNode eventTemplate;
     private final ObjectMapper mapper;
+    /**
+     * Splits files into chunks, or null to write each file as a single event.
+     */
+    private final FileChunker chunker;
 
     public RawEventGenerator(String routingKey, ObjectNode eventTemplate, ObjectMapper mapper) {
+        this(routingKey, eventTemplate, mapper, 0);
+    }
+
+    /**
+     * @param chunkSizeBytes if greater than 0, each file is written as a sequence of {@link FileChunk} events
+     *                       with at most this many bytes of data each.
+     */
+    public RawEventGenerator(String routingKey, ObjectNode eventTemplate, ObjectMapper mapper, int chunkSizeBytes) {
         this.routingKey = routingKey;
         this.eventTemplate = eventTemplate;
         this.mapper = mapper;
+        this.chunker = chunkSizeBytes > 0 ? new FileChunker(chunkSizeBytes) : null;
     }
 
-    public static RawEventGenerator create(String routingKey, String eventTemplateStr, String writerId) {
+    public static RawEventGenerator create(String routingKey, String eventTemplateStr, String writerId, int chunkSizeBytes) {
         try {
             final ObjectMapper mapper = new ObjectMapper();
             final ObjectNode eventTemplate = (ObjectNode) mapper.readTree(eventTemplateStr);
             eventTemplate.put("WriterId", writerId);
-            return new RawEventGenerator(routingKey, eventTemplate, mapper);
+            return new RawEventGenerator(routingKey, eventTemplate, mapper, chunkSizeBytes);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    public static RawEventGenerator create(String routingKey, String eventTemplateStr, String writerId) {
+        return create(routingKey, eventTemplateStr, writerId, 0);
+    }
+
     public static RawEventGenerator create(String routingKey) throws IOException {
         return create(routingKey, "{}", "MyWriterId");
     }
@@ -60,6 +85,8 @@ public class RawEventGenerator implements EventGenerator{
 
     /**
      * Convert File to byteArray.
+     * In chunked mode, the stream is instead split into {@link FileChunk} events. The file length is not known
+     * in advance, so only the last chunk contains the total length.
      * @param inputStream
      * @param firstSequenceNumber
      * @param consumer
@@ -68,6 +95,11 @@ public class RawEventGenerator implements EventGenerator{
      */
     public Pair<Long, Long> generateEventsFromInputStream(CountingInputStream inputStream, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
         long nextSequenceNumber = firstSequenceNumber;
+        if (chunker != null) {
+            nextSequenceNumber = chunker.generateEvents(Channels.newChannel(inputStream), UUID.randomUUID(),
+                    FileChunk.UNKNOWN_LENGTH, routingKey, nextSequenceNumber, consumer);
+            return new ImmutablePair<>(nextSequenceNumber, inputStream.getCount());
+        }
         try {
             BufferedInputStream bis = new BufferedInputStream(inputStream);
             byte[] byteArray = IOUtils.toByteArray(bis);
@@ -83,4 +115,22 @@ public class RawEventGenerator implements EventGenerator{
             throw e;
         }
     }
+
+    /**
+     * In chunked mode, read the file through a {@link FileChannel} so that each chunk contains the total length.
+     * Otherwise, the whole file is written as a single event.
+     */
+    @Override
+    public Pair<Long, Long> generateEventsFromFile(FileNameWithOffset file, long firstSequenceNumber, Consumer<PravegaWriterEvent> consumer) throws IOException {
+        if (chunker == null) {
+            return EventGenerator.super.generateEventsFromFile(file, firstSequenceNumber, consumer);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(file.fileName), StandardOpenOption.READ)) {
+            final long endOffset = channel.size();
+            channel.position(file.offset);
+            final long nextSequenceNumber = chunker.generateEvents(channel, UUID.randomUUID(),
+                    Math.max(0, endOffset - file.offset), routingKey, firstSequenceNumber, consumer);
+            return new ImmutablePair<>(nextSequenceNumber, Math.max(endOffset, file.offset));
+        }
+    }
 }
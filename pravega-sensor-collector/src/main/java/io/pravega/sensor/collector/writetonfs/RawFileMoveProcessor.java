@@ -37,7 +37,8 @@ public class RawFileMoveProcessor extends FileProcessor {
         return RawEventGenerator.create(
                 config.routingKey,
                 config.eventTemplateStr,
-                writerId);
+                writerId,
+                config.rawFileChunkSizeBytes);
     }
 
 }
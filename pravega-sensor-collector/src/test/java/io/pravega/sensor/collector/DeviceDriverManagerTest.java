@@ -12,14 +12,38 @@ package io.pravega.sensor.collector;
 import com.google.common.util.concurrent.Service;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DeviceDriverManagerTest {
 
+    /**
+     * A device driver that does not connect to Pravega.
+     */
+    public static class NoopDriver extends DeviceDriver {
+        public NoopDriver(DeviceDriverConfig config) {
+            super(config);
+            getMetricsRegistry().counter("psc_noop_total", "Noop.", config.getInstanceName());
+        }
+
+        @Override
+        protected void doStart() {
+            notifyStarted();
+        }
+
+        @Override
+        protected void doStop() {
+            notifyStopped();
+        }
+    }
+
     @Test
     void doStart() {
         Map<String, String> properties = Parameters.getProperties();
@@ -48,4 +72,57 @@ class DeviceDriverManagerTest {
         assertFalse(driverManager.isRunning());
 
     }
+
+    @Test
+    void doStartInParallel() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("PRAVEGA_SENSOR_COLLECTOR_STARTUP_PARALLELISM", "2");
+        for (int i = 0; i < 5; i++) {
+            properties.put("PRAVEGA_SENSOR_COLLECTOR_NOOP" + i + "_CLASS", NoopDriver.class.getName());
+        }
+        DeviceDriverManager driverManager = new DeviceDriverManager(properties);
+        driverManager.startAsync();
+        assertEquals(Service.State.RUNNING, driverManager.state());
+        driverManager.stopAsync();
+        assertFalse(driverManager.isRunning());
+    }
+
+    @Test
+    void doStopRemovesDriverMetrics() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("PRAVEGA_SENSOR_COLLECTOR_NOOP1_CLASS", NoopDriver.class.getName());
+        DeviceDriverManager driverManager = new DeviceDriverManager(properties);
+        driverManager.startAsync();
+        assertTrue(driverManager.getMetricsRegistry().toPrometheusString().contains("psc_noop_total{driver=\"NOOP1\"}"));
+        driverManager.stopAsync();
+        assertEquals("", driverManager.getMetricsRegistry().toPrometheusString());
+    }
+
+    @Test
+    void doStartFailsIfAnyDriverFails() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("PRAVEGA_SENSOR_COLLECTOR_NOOP1_CLASS", NoopDriver.class.getName());
+        properties.put("PRAVEGA_SENSOR_COLLECTOR_MISSING1_CLASS", "io.pravega.sensor.collector.MissingDriver");
+        DeviceDriverManager driverManager = new DeviceDriverManager(properties);
+        driverManager.startAsync();
+        assertEquals(Service.State.FAILED, driverManager.state());
+    }
+
+    @Test
+    void doStartFailureClosesMetricsHttpServer() throws IOException {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        Map<String, String> properties = new HashMap<>();
+        properties.put("PRAVEGA_SENSOR_COLLECTOR_METRICS_HTTP_PORT", Integer.toString(port));
+        properties.put("PRAVEGA_SENSOR_COLLECTOR_MISSING1_CLASS", "io.pravega.sensor.collector.MissingDriver");
+        DeviceDriverManager driverManager = new DeviceDriverManager(properties);
+        driverManager.startAsync();
+        assertEquals(Service.State.FAILED, driverManager.state());
+        // The port can be bound again only if the server was closed.
+        try (ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            assertEquals(port, socket.getLocalPort());
+        }
+    }
 }
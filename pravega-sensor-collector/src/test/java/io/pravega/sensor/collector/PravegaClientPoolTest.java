@@ -11,11 +11,21 @@ package io.pravega.sensor.collector;
 
 import io.pravega.client.ClientConfig;
 import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.stream.StreamConfiguration;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
 import java.net.URI;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class PravegaClientPoolTest {
 
@@ -32,4 +42,43 @@ class PravegaClientPoolTest {
         EventStreamClientFactory clientFactory = pravegaClientPool.getEventStreamClientFactory(new PravegaClientConfig(URI.create("tcp://localhost:12345"), "testScope"));
         System.out.println("clientConfig = " + clientFactory.toString());
     }
+
+    @Test
+    void testCreateStreamOnce() {
+        final StreamManager streamManager = Mockito.mock(StreamManager.class);
+        final PravegaClientPool pravegaClientPool = new PravegaClientPool() {
+            @Override
+            protected StreamManager createStreamManager(ClientConfig clientConfig) {
+                return streamManager;
+            }
+        };
+        final PravegaClientConfig config = new PravegaClientConfig(URI.create("tcp://localhost:12345"), "testScope");
+        assertSame(streamManager, pravegaClientPool.getStreamManager(config));
+        assertSame(streamManager, pravegaClientPool.getStreamManager(new PravegaClientConfig(URI.create("tcp://localhost:12345"), "otherScope")));
+        pravegaClientPool.createStream(config, "stream1", true);
+        pravegaClientPool.createStream(config, "stream1", true);
+        pravegaClientPool.createStream(config, "stream2", false);
+        verify(streamManager, times(1)).createScope("testScope");
+        verify(streamManager, times(1)).createStream(eq("testScope"), eq("stream1"), any(StreamConfiguration.class));
+        verify(streamManager, times(1)).createStream(eq("testScope"), eq("stream2"), any(StreamConfiguration.class));
+    }
+
+    @Test
+    void testCreateStreamRetriesAfterFailure() {
+        final StreamManager streamManager = Mockito.mock(StreamManager.class);
+        when(streamManager.createStream(eq("testScope"), eq("stream1"), any(StreamConfiguration.class)))
+                .thenThrow(new IllegalStateException("controller unavailable"))
+                .thenReturn(true);
+        final PravegaClientPool pravegaClientPool = new PravegaClientPool() {
+            @Override
+            protected StreamManager createStreamManager(ClientConfig clientConfig) {
+                return streamManager;
+            }
+        };
+        final PravegaClientConfig config = new PravegaClientConfig(URI.create("tcp://localhost:12345"), "testScope");
+        assertThrows(IllegalStateException.class, () -> pravegaClientPool.createStream(config, "stream1", false));
+        pravegaClientPool.createStream(config, "stream1", false);
+        pravegaClientPool.createStream(config, "stream1", false);
+        verify(streamManager, times(2)).createStream(eq("testScope"), eq("stream1"), any(StreamConfiguration.class));
+    }
 }
\ No newline at end of file
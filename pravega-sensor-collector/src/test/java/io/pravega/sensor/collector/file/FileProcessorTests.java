@@ -17,12 +17,14 @@ import io.pravega.sensor.collector.util.EventWriter;
 import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.FileUtils;
 import io.pravega.sensor.collector.util.TransactionCoordinator;
+import io.pravega.sensor.collector.util.TransactionStateInMemoryImpl;
 import io.pravega.sensor.collector.util.TransactionStateSQLiteImpl;
 import io.pravega.sensor.collector.util.TransactionalEventWriter;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -30,15 +32,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
 
@@ -169,6 +174,151 @@ public class FileProcessorTests {
         Mockito.verify(transactionalEventWriter, Mockito.times(1)).commit();
     }
 
+    @Test
+    public void getGrownFilesTest() {
+        final List<FileNameWithOffset> directoryListing = ImmutableList.of(
+                new FileNameWithOffset("file2", 20),
+                new FileNameWithOffset("file1", 10),
+                new FileNameWithOffset("file3", 5),
+                new FileNameWithOffset("file4", 10));
+        final List<FileNameWithOffset> tailedFiles = ImmutableList.of(
+                new FileNameWithOffset("file1", 10),
+                new FileNameWithOffset("file2", 10),
+                new FileNameWithOffset("file3", 10));
+        // file1 has not grown, file2 has grown, file3 was truncated and file4 is new.
+        final List<FileNameWithOffset> expected = ImmutableList.of(
+                new FileNameWithOffset("file2", 10),
+                new FileNameWithOffset("file3", 0),
+                new FileNameWithOffset("file4", 0));
+        RawFileProcessor fileProcessor = new RawFileProcessor(config, state, writer, transactionCoordinator, "writerId");
+        final List<FileNameWithOffset> actual = fileProcessor.getGrownFiles(directoryListing, tailedFiles);
+        Assertions.assertEquals(expected, actual);
+    }
+
+    /*
+     * Process the whole lines appended to a tailed file. The partial last line is left for the next iteration.
+     */
+    @Test
+    public void processTailedFile() throws Exception {
+        final FileConfig tailConfig = new FileConfig("./psc.db", "/opt/pravega-sensor-collector/Files/A", "log", "key12",
+                "stream1", "{}", 10, false,
+                true, 20.0, 5000, "RawFileIngestService", 1, "", 0, true, false);
+        final Path file = Files.createTempFile("tail", ".log");
+        try {
+            Files.write(file, "line1\nline2\nline3\npartial".getBytes(StandardCharsets.UTF_8));
+            FileProcessor fileProcessor = new RawFileProcessor(tailConfig, state, transactionalEventWriter, transactionCoordinator, "test");
+            Mockito.when(transactionalEventWriter.flush()).thenReturn(Optional.empty());
+            fileProcessor.processFile(new FileNameWithOffset(file.toString(), 6), 1L);
+            verify(transactionalEventWriter).writeEvent(anyString(), eq("line2\nline3\n".getBytes(StandardCharsets.UTF_8)));
+            verify(state).addTailedFileRecord(file.toString(), 6, 18, 2L, Optional.empty());
+            Assertions.assertTrue(Files.exists(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * Files that were claimed concurrently with the same next sequence number are given distinct ranges.
+     */
+    @Test
+    public void processConcurrentlyClaimedFiles() throws Exception {
+        final FileConfig tailConfig = new FileConfig("./psc.db", "/opt/pravega-sensor-collector/Files/A", "log", "key12",
+                "stream1", "{}", 10, false,
+                true, 20.0, 5000, "RawFileIngestService", 2, "", 0, true, false);
+        final Path file1 = Files.createTempFile("tail", ".log");
+        final Path file2 = Files.createTempFile("tail", ".log");
+        try {
+            Files.write(file1, "line1\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(file2, "line2\n".getBytes(StandardCharsets.UTF_8));
+            FileProcessor fileProcessor = new RawFileProcessor(tailConfig, state, transactionalEventWriter, transactionCoordinator, "test");
+            Mockito.when(transactionalEventWriter.flush()).thenReturn(Optional.empty());
+            fileProcessor.processFile(new FileNameWithOffset(file1.toString(), 0), 1L);
+            fileProcessor.processFile(new FileNameWithOffset(file2.toString(), 0), 1L);
+            verify(state).addTailedFileRecord(file1.toString(), 0, 6, 2L, Optional.empty());
+            verify(state).addTailedFileRecord(file2.toString(), 0, 6, 3L, Optional.empty());
+        } finally {
+            Files.delete(file1);
+            Files.delete(file2);
+        }
+    }
+
+    /*
+     * A pending record that is older than the committed offset of a tailed file is read from the committed offset.
+     */
+    @Test
+    public void processTailedFileFromCommittedOffset() throws Exception {
+        final FileConfig tailConfig = new FileConfig("./psc.db", "/opt/pravega-sensor-collector/Files/A", "log", "key12",
+                "stream1", "{}", 10, false,
+                true, 20.0, 5000, "RawFileIngestService", 1, "", 0, true, false);
+        final Path file = Files.createTempFile("tail", ".log");
+        try {
+            Files.write(file, "line1\nline2\nline3\npartial".getBytes(StandardCharsets.UTF_8));
+            FileProcessor fileProcessor = new RawFileProcessor(tailConfig, state, transactionalEventWriter, transactionCoordinator, "test");
+            Mockito.when(transactionalEventWriter.flush()).thenReturn(Optional.empty());
+            Mockito.when(state.getTailedFileOffset(file.toString())).thenReturn(12L);
+            fileProcessor.processFile(new FileNameWithOffset(file.toString(), 6), 1L);
+            verify(transactionalEventWriter).writeEvent(anyString(), eq("line3\n".getBytes(StandardCharsets.UTF_8)));
+            verify(state).addTailedFileRecord(file.toString(), 12, 18, 2L, Optional.empty());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * A file worker commits a tailed file after the scan has read the committed offsets.
+     * The scan must not record the file as pending from the old offset.
+     */
+    @Test
+    public void watchTailedFilesInterleavedWithCommit(@TempDir Path directory) throws Exception {
+        final FileConfig tailConfig = new FileConfig("./psc.db", directory.toString(), "log", "key12",
+                "stream1", "{}", 10, false,
+                true, 20.0, 5000, "RawFileIngestService", 1, "", 0, true, false);
+        final Path file = Files.write(directory.resolve("file1.log"), "line1\nline2\n".getBytes(StandardCharsets.UTF_8));
+        final String fileName = file.toAbsolutePath().toString();
+        final TransactionStateInMemoryImpl realState = TransactionStateInMemoryImpl.create(":memory:");
+        realState.addTailedFileRecord(fileName, 0, 6, 1L, Optional.empty());
+        realState.addPendingFileRecords(ImmutableList.of(new FileNameWithOffset(fileName, 6)));
+        final TransactionStateInMemoryImpl interleavedState = Mockito.spy(realState);
+        Mockito.doAnswer(invocation -> {
+            final Object tailedFiles = invocation.callRealMethod();
+            // A file worker commits the pending record after the snapshot.
+            realState.addTailedFileRecord(fileName, 6, 12, 2L, Optional.empty());
+            return tailedFiles;
+        }).when(interleavedState).getTailedFileRecords();
+        FileProcessor fileProcessor = new RawFileProcessor(tailConfig, interleavedState, transactionalEventWriter, transactionCoordinator, "test");
+        fileProcessor.watchFiles();
+        Assertions.assertNull(realState.getNextPendingFileRecord());
+        Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset(fileName, 12)), realState.getTailedFileRecords());
+    }
+
+    /*
+     * With the watch service, the directory is listed once and then only changed files are recorded.
+     */
+    @Test
+    public void watchFilesWithWatchService(@TempDir Path directory) throws Exception {
+        final FileConfig watchConfig = new FileConfig("./psc.db", directory.toString(), "csv", "key12",
+                "stream1", "{}", 10, false,
+                true, 20.0, 0, "RawFileIngestService", 1, "", 0, false, true);
+        final Path file1 = Files.write(directory.resolve("file1.csv"), new byte[] {1});
+        FileProcessor fileProcessor = new RawFileProcessor(watchConfig, state, transactionalEventWriter, transactionCoordinator, "test");
+        fileProcessor.watchFiles();
+        verify(state).addPendingFileRecords(ImmutableList.of(new FileNameWithOffset(file1.toAbsolutePath().toString(), 0)));
+        final Path file2 = Files.write(directory.resolve("file2.csv"), new byte[] {2});
+        final List<FileNameWithOffset> expected = ImmutableList.of(new FileNameWithOffset(file2.toAbsolutePath().toString(), 0));
+        for (int i = 0; i < 100 && Mockito.mockingDetails(state).getInvocations().stream()
+                .noneMatch(invocation -> invocation.getArguments().length == 1 && expected.equals(invocation.getArguments()[0])); i++) {
+            Thread.sleep(100);
+            fileProcessor.watchFiles();
+        }
+        verify(state).addPendingFileRecords(expected);
+        // Once watching has stopped, no more files are discovered.
+        fileProcessor.stopWatching();
+        Mockito.clearInvocations(state);
+        Files.write(directory.resolve("file3.csv"), new byte[] {3});
+        fileProcessor.watchFiles();
+        Mockito.verifyNoInteractions(state);
+    }
+
     /*
      * Before each test we need to copy the files to parquet file directory so that files are available for processing.
      * Post process these files are moved to different directory, so it is important to add them back to the current directory path.
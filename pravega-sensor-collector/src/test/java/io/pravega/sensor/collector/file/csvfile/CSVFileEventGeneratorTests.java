@@ -9,8 +9,13 @@
  */
 package io.pravega.sensor.collector.file.csvfile;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.io.CountingInputStream;
 import io.pravega.sensor.collector.file.EventGenerator;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.PravegaWriterEvent;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Assertions;
@@ -21,6 +26,8 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -117,4 +124,95 @@ public class CSVFileEventGeneratorTests {
         Assertions.assertEquals(103L, (long) nextSequenceNumberAndOffset.getLeft());
         Assertions.assertEquals(csvStr.length(), (long) nextSequenceNumberAndOffset.getRight());
     }
+
+    @Test
+    public void testEventJson() throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        // Infer the schema from the first 2 rows so that the last row contains cells that do not match it.
+        final List<CsvSchema> schemas = new ArrayList<>();
+        final CsvFileEventGenerator eventGenerator = new CsvFileEventGenerator("routingKey1", 2, mapper.createObjectNode(), mapper, 2, schemas::add);
+        final String csvStr =
+                "\"Time\",\"X\",\"Count\",\"Label\"\n"
+                + "\"2020-07-15 23:59:50.352\",\"0.305966\",\"7\",\"abc\"\n"
+                + "\"2020-07-15 23:59:50.362\",\"-1.5e3\",\"-8\",\"\"\n"
+                + "\"2020-07-15 23:59:50.415\",\"NaN\",\"12345678901234567890\",\"1.0.0\"\n";
+        final CountingInputStream inputStream = new CountingInputStream(new ByteArrayInputStream(csvStr.getBytes(StandardCharsets.UTF_8)));
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        eventGenerator.generateEventsFromInputStream(inputStream, 100, events::add);
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals(
+                ImmutableList.of(CsvColumnType.TIMESTAMP, CsvColumnType.DOUBLE, CsvColumnType.LONG, CsvColumnType.STRING),
+                Iterables.getOnlyElement(schemas).getColumnTypes());
+        final JsonNode first = mapper.readTree(events.get(0).bytes);
+        Assertions.assertEquals(2, first.size());
+        Assertions.assertEquals("2020-07-15 23:59:50.352", first.get(0).get("Time").textValue());
+        Assertions.assertEquals(0.305966, first.get(0).get("X").doubleValue());
+        Assertions.assertEquals(7L, first.get(0).get("Count").longValue());
+        Assertions.assertTrue(first.get(0).get("Count").isIntegralNumber());
+        Assertions.assertEquals("abc", first.get(0).get("Label").textValue());
+        Assertions.assertEquals(-1500.0, first.get(1).get("X").doubleValue());
+        Assertions.assertEquals(-8L, first.get(1).get("Count").longValue());
+        Assertions.assertEquals("", first.get(1).get("Label").textValue());
+        final JsonNode second = mapper.readTree(events.get(1).bytes);
+        Assertions.assertEquals(1, second.size());
+        Assertions.assertEquals("NaN", second.get(0).get("X").textValue());
+        Assertions.assertEquals(1.2345678901234567E19, second.get(0).get("Count").doubleValue());
+        Assertions.assertEquals("1.0.0", second.get(0).get("Label").textValue());
+    }
+
+    /*
+     * Numbers that do not fit a LONG column are widened to doubles. Other mismatched cells are written as strings.
+     */
+    @Test
+    public void testMismatchedCellJson() throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final CsvFileEventGenerator eventGenerator = new CsvFileEventGenerator("routingKey1", 10, mapper.createObjectNode(), mapper, 1);
+        final String csvStr =
+                "\"Count\",\"X\",\"Flag\"\n"
+                + "\"7\",\"0.5\",\"true\"\n"
+                + "\"2.5\",\"7\",\"1\"\n"
+                + "\"-1e3\",\"NaN\",\"false\"\n"
+                + "\"n/a\",\"1.0.0\",\"yes\"\n";
+        final CountingInputStream inputStream = new CountingInputStream(new ByteArrayInputStream(csvStr.getBytes(StandardCharsets.UTF_8)));
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        eventGenerator.generateEventsFromInputStream(inputStream, 100, events::add);
+        final JsonNode records = mapper.readTree(Iterables.getOnlyElement(events).bytes);
+        Assertions.assertEquals(4, records.size());
+        Assertions.assertTrue(records.get(0).get("Count").isIntegralNumber());
+        Assertions.assertEquals(2.5, records.get(1).get("Count").doubleValue());
+        Assertions.assertTrue(records.get(1).get("Count").isFloatingPointNumber());
+        Assertions.assertEquals(-1000.0, records.get(2).get("Count").doubleValue());
+        Assertions.assertEquals("n/a", records.get(3).get("Count").textValue());
+        Assertions.assertEquals(7.0, records.get(1).get("X").doubleValue());
+        Assertions.assertEquals("NaN", records.get(2).get("X").textValue());
+        Assertions.assertEquals("1.0.0", records.get(3).get("X").textValue());
+        Assertions.assertEquals("1", records.get(1).get("Flag").textValue());
+        Assertions.assertEquals("yes", records.get(3).get("Flag").textValue());
+    }
+
+    @Test
+    public void testTailedFile() throws IOException {
+        final CsvFileEventGenerator eventGenerator = CsvFileEventGenerator.create("routingKey1", 10);
+        final String header = "\"T\",\"X\"\n";
+        final String firstLines = "1,10\n2,20\n";
+        final String appendedLines = "3,30\n";
+        final Path file = Files.createTempFile("tail", ".csv");
+        try {
+            Files.write(file, (header + firstLines + appendedLines + "4,4").getBytes(StandardCharsets.UTF_8));
+            final long beginOffset = header.length() + firstLines.length();
+            final long endOffset = beginOffset + appendedLines.length();
+            final List<PravegaWriterEvent> events = new ArrayList<>();
+            final Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromFile(
+                    new FileNameWithOffset(file.toString(), beginOffset), endOffset, 100, events::add);
+            Assertions.assertEquals(101L, (long) nextSequenceNumberAndOffset.getLeft());
+            Assertions.assertEquals(endOffset, (long) nextSequenceNumberAndOffset.getRight());
+            Assertions.assertEquals(1, events.size());
+            final JsonNode records = new ObjectMapper().readTree(events.get(0).bytes);
+            Assertions.assertEquals(1, records.size());
+            Assertions.assertEquals(3L, records.get(0).get("T").longValue());
+            Assertions.assertEquals(30L, records.get(0).get("X").longValue());
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
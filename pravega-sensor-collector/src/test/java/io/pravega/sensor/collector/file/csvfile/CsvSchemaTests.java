@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.file.csvfile;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+public class CsvSchemaTests {
+
+    @Test
+    public void testInfer() throws IOException {
+        final String csvStr =
+                "Time,Count,X,Flag,Label,Empty,Mixed\n"
+                + "2020-07-15 23:59:50.352,1,0.5,true,abc,,1\n"
+                + "2020-07-15T23:59:50Z,-2,3,FALSE,,,x\n"
+                + "2020-07-15T23:59:50.1+05:30,,1e-3,false,1,,2\n";
+        final CSVParser parser = CSVParser.parse(csvStr, CSVFormat.DEFAULT.withFirstRecordAsHeader());
+        final List<CSVRecord> sample = parser.getRecords();
+        final CsvSchema schema = CsvSchema.infer(parser.getHeaderNames(), sample);
+        Assertions.assertEquals(parser.getHeaderNames(), schema.getColumnNames());
+        Assertions.assertEquals(ImmutableList.of(
+                CsvColumnType.TIMESTAMP,
+                CsvColumnType.LONG,
+                CsvColumnType.DOUBLE,
+                CsvColumnType.BOOLEAN,
+                CsvColumnType.STRING,
+                CsvColumnType.STRING,
+                CsvColumnType.STRING), schema.getColumnTypes());
+        Assertions.assertEquals(CsvColumnType.STRING, schema.getColumnType(100));
+    }
+
+    @Test
+    public void testIsLong() {
+        Assertions.assertTrue(CsvColumnType.isLong("0"));
+        Assertions.assertTrue(CsvColumnType.isLong("-12"));
+        Assertions.assertTrue(CsvColumnType.isLong("+12"));
+        Assertions.assertTrue(CsvColumnType.isLong(Long.toString(Long.MAX_VALUE)));
+        Assertions.assertTrue(CsvColumnType.isLong(Long.toString(Long.MIN_VALUE)));
+        Assertions.assertFalse(CsvColumnType.isLong("9223372036854775808"));
+        Assertions.assertFalse(CsvColumnType.isLong("-9223372036854775809"));
+        Assertions.assertFalse(CsvColumnType.isLong(""));
+        Assertions.assertFalse(CsvColumnType.isLong("-"));
+        Assertions.assertFalse(CsvColumnType.isLong("1.0"));
+        Assertions.assertFalse(CsvColumnType.isLong(" 1"));
+    }
+
+    @Test
+    public void testIsDecimal() {
+        Assertions.assertTrue(CsvColumnType.isDecimal("1"));
+        Assertions.assertTrue(CsvColumnType.isDecimal("-1.5"));
+        Assertions.assertTrue(CsvColumnType.isDecimal(".5"));
+        Assertions.assertTrue(CsvColumnType.isDecimal("5."));
+        Assertions.assertTrue(CsvColumnType.isDecimal("1.5E+10"));
+        Assertions.assertTrue(CsvColumnType.isDecimal("1e-3"));
+        Assertions.assertFalse(CsvColumnType.isDecimal("."));
+        Assertions.assertFalse(CsvColumnType.isDecimal("1e"));
+        Assertions.assertFalse(CsvColumnType.isDecimal("1.0.0"));
+        Assertions.assertFalse(CsvColumnType.isDecimal("2020-07-15"));
+        Assertions.assertFalse(CsvColumnType.isDecimal(""));
+    }
+
+    @Test
+    public void testIsTimestamp() {
+        Assertions.assertTrue(CsvColumnType.isTimestamp("2020-07-15 23:59:50"));
+        Assertions.assertTrue(CsvColumnType.isTimestamp("2020-07-15 23:59:50.352"));
+        Assertions.assertTrue(CsvColumnType.isTimestamp("2020-07-15T23:59:50Z"));
+        Assertions.assertTrue(CsvColumnType.isTimestamp("2020-07-15T23:59:50.352-0700"));
+        Assertions.assertTrue(CsvColumnType.isTimestamp("2020-07-15T23:59:50+05:30"));
+        Assertions.assertFalse(CsvColumnType.isTimestamp("2020-07-15"));
+        Assertions.assertFalse(CsvColumnType.isTimestamp("2020-07-15 23:59:50."));
+        Assertions.assertFalse(CsvColumnType.isTimestamp("2020-07-15 23:59:50 UTC"));
+        Assertions.assertFalse(CsvColumnType.isTimestamp("2020/07/15 23:59:50"));
+    }
+}
@@ -9,6 +9,8 @@
  */
 package io.pravega.sensor.collector.file.parquet;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.io.CountingInputStream;
 import io.pravega.sensor.collector.file.EventGenerator;
 import io.pravega.sensor.collector.util.FileNameWithOffset;
@@ -22,7 +24,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
@@ -43,4 +48,84 @@ public class ParquetEventGeneratorTests {
         Assert.assertEquals(parquetData.length(), (long) nextSequenceNumberAndOffset.getRight());
     }
 
+    @Test
+    public void TestFileInPlace() throws IOException {
+        final EventGenerator eventGenerator = ParquetEventGenerator.create("routingKey1", 100);
+        final List<FileNameWithOffset> files = FileUtils.getDirectoryListing("../parquet-file-sample-data", "parquet", Paths.get("."), 5000);
+        File parquetData = new File(files.get(0).fileName);
+
+        final List<PravegaWriterEvent> expectedEvents = new ArrayList<>();
+        eventGenerator.generateEventsFromInputStream(new CountingInputStream(new FileInputStream(parquetData)), 1, expectedEvents::add);
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromFile(new FileNameWithOffset(parquetData.getPath(), 0), 1, events::add);
+        Assert.assertEquals(501L, (long) nextSequenceNumberAndOffset.getLeft());
+        Assert.assertEquals(parquetData.length(), (long) nextSequenceNumberAndOffset.getRight());
+        assertSameEvents(expectedEvents, events);
+    }
+
+    /*
+     * The Parquet file begins at a non-zero offset in the local file.
+     */
+    @Test
+    public void TestFileInPlaceWithOffset() throws IOException {
+        final EventGenerator eventGenerator = ParquetEventGenerator.create("routingKey1", 100);
+        final List<FileNameWithOffset> files = FileUtils.getDirectoryListing("../parquet-file-sample-data", "parquet", Paths.get("."), 5000);
+        File parquetData = new File(files.get(0).fileName);
+        final byte[] prefix = "not part of the parquet file".getBytes(StandardCharsets.UTF_8);
+        final File prefixedFile = File.createTempFile("prefixed", ".parquet");
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(prefixedFile)) {
+                outputStream.write(prefix);
+                Files.copy(parquetData.toPath(), outputStream);
+            }
+            final List<PravegaWriterEvent> expectedEvents = new ArrayList<>();
+            eventGenerator.generateEventsFromFile(new FileNameWithOffset(parquetData.getPath(), 0), 1, expectedEvents::add);
+            final List<PravegaWriterEvent> events = new ArrayList<>();
+            Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromFile(
+                    new FileNameWithOffset(prefixedFile.getPath(), prefix.length), 1, events::add);
+            Assert.assertEquals(501L, (long) nextSequenceNumberAndOffset.getLeft());
+            Assert.assertEquals(prefixedFile.length(), (long) nextSequenceNumberAndOffset.getRight());
+            assertSameEvents(expectedEvents, events);
+        } finally {
+            prefixedFile.delete();
+        }
+    }
+
+    /*
+     * The columnar reader must produce the same Json as the Avro reader: sanitized field names and base64 binary values.
+     */
+    @Test
+    public void TestEventJson() throws IOException {
+        final EventGenerator eventGenerator = ParquetEventGenerator.create("routingKey1", 100);
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        eventGenerator.generateEventsFromFile(new FileNameWithOffset("../parquet-file-sample-data/sub1.parquet", 0), 1, events::add);
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode firstEvent = mapper.readTree(events.get(0).bytes);
+        Assert.assertEquals(100, firstEvent.size());
+        final JsonNode expected = mapper.readTree("{\"subscription_status\":\"YWN0aXZl\",\"last_name\":\"Sm9uZXM=\","
+                + "\"phone_num\":1153133580,\"location\":\"Q2hpY2Fnbw==\",\"premium_subscription\":false,\"id\":1,"
+                + "\"first_name\":\"SmFjb2I=\",\"version\":\"UmVk\",\"email\":\"eXpvbmZpQGV4YW1wbGUuY29t\",\"timestamp\":536662800000}");
+        Assert.assertEquals(expected, firstEvent.get(0));
+    }
+
+    @Test
+    public void TestColumnProjection() throws IOException {
+        final EventGenerator eventGenerator = ParquetEventGenerator.create("routingKey1", 100, "{}", "MyWriterId", "id, first name,phone_num");
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromFile(
+                new FileNameWithOffset("../parquet-file-sample-data/sub1.parquet", 0), 1, events::add);
+        Assert.assertEquals(501L, (long) nextSequenceNumberAndOffset.getLeft());
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode firstEvent = mapper.readTree(events.get(0).bytes);
+        final JsonNode expected = mapper.readTree("{\"id\":1,\"first_name\":\"SmFjb2I=\",\"phone_num\":1153133580}");
+        Assert.assertEquals(expected, firstEvent.get(0));
+    }
+
+    private static void assertSameEvents(List<PravegaWriterEvent> expected, List<PravegaWriterEvent> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).sequenceNumber, actual.get(i).sequenceNumber);
+            Assert.assertArrayEquals(expected.get(i).bytes, actual.get(i).bytes);
+        }
+    }
 }
@@ -11,6 +11,9 @@ package io.pravega.sensor.collector.file.rawfile;
 
 import com.google.common.io.CountingInputStream;
 import io.pravega.sensor.collector.file.EventGenerator;
+import io.pravega.sensor.collector.util.FileChunk;
+import io.pravega.sensor.collector.util.FileChunker;
+import io.pravega.sensor.collector.util.FileNameWithOffset;
 import io.pravega.sensor.collector.util.PravegaWriterEvent;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Assert;
@@ -19,10 +22,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.UUID;
 
 public class RawEventGeneratorTests {
     private static final Logger LOG = LoggerFactory.getLogger(RawEventGeneratorTests.class);
@@ -55,4 +65,122 @@ public class RawEventGeneratorTests {
         Assert.assertEquals(rawfileStr.length(), (long) nextSequenceNumberAndOffset.getRight());
     }
 
+    /*
+     * A file is split into chunks that can be reassembled. Each chunk contains the total length of the file.
+     */
+    @Test
+    public void testChunkedFile() throws IOException {
+        final EventGenerator eventGenerator = RawEventGenerator.create("routingKey1", "{}", "MyWriterId", 4096);
+        final byte[] data = randomBytes(10000);
+        final byte[] prefix = new byte[100];
+        final File file = File.createTempFile("raw", ".bin");
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(file)) {
+                outputStream.write(prefix);
+                outputStream.write(data);
+            }
+            final List<PravegaWriterEvent> events = new ArrayList<>();
+            Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromFile(
+                    new FileNameWithOffset(file.getPath(), prefix.length), 100, events::add);
+            Assert.assertEquals(103L, (long) nextSequenceNumberAndOffset.getLeft());
+            Assert.assertEquals(file.length(), (long) nextSequenceNumberAndOffset.getRight());
+            final List<FileChunk> chunks = decode(events);
+            for (FileChunk chunk : chunks) {
+                Assert.assertEquals(data.length, chunk.totalLength);
+            }
+            Assert.assertArrayEquals(data, reassemble(chunks));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /*
+     * When reading from a stream, the total length is only known in the last chunk.
+     */
+    @Test
+    public void testChunkedStream() throws IOException {
+        final EventGenerator eventGenerator = RawEventGenerator.create("routingKey1", "{}", "MyWriterId", 4096);
+        final byte[] data = randomBytes(8192);
+        final CountingInputStream inputStream = new CountingInputStream(new ByteArrayInputStream(data));
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromInputStream(inputStream, 100, events::add);
+        Assert.assertEquals(102L, (long) nextSequenceNumberAndOffset.getLeft());
+        Assert.assertEquals(data.length, (long) nextSequenceNumberAndOffset.getRight());
+        final List<FileChunk> chunks = decode(events);
+        Assert.assertEquals(FileChunk.UNKNOWN_LENGTH, chunks.get(0).totalLength);
+        Assert.assertEquals(data.length, chunks.get(1).totalLength);
+        Assert.assertArrayEquals(data, reassemble(chunks));
+    }
+
+    /*
+     * Bytes appended to a file after its length was taken are left for the next ingestion.
+     */
+    @Test
+    public void testChunkedGrowingFile() throws IOException {
+        final FileChunker chunker = new FileChunker(4096);
+        final byte[] data = randomBytes(10000);
+        final int totalLength = 8000;
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        final long nextSequenceNumber = chunker.generateEvents(Channels.newChannel(new ByteArrayInputStream(data)),
+                UUID.randomUUID(), totalLength, "routingKey1", 100, events::add);
+        Assert.assertEquals(102L, nextSequenceNumber);
+        final List<FileChunk> chunks = decode(events);
+        for (FileChunk chunk : chunks) {
+            Assert.assertEquals(totalLength, chunk.totalLength);
+        }
+        Assert.assertTrue(chunks.get(1).lastChunk);
+        Assert.assertArrayEquals(Arrays.copyOf(data, totalLength), reassemble(chunks));
+    }
+
+    @Test
+    public void testChunkedTruncatedFile() {
+        final FileChunker chunker = new FileChunker(4096);
+        final byte[] data = randomBytes(6000);
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        Assert.assertThrows(IOException.class, () -> chunker.generateEvents(Channels.newChannel(new ByteArrayInputStream(data)),
+                UUID.randomUUID(), 8000, "routingKey1", 100, events::add));
+        Assert.assertTrue(events.stream().noneMatch(event -> FileChunk.decode(event.bytes).lastChunk));
+    }
+
+    @Test
+    public void testChunkedEmptyStream() throws IOException {
+        final EventGenerator eventGenerator = RawEventGenerator.create("routingKey1", "{}", "MyWriterId", 4096);
+        final CountingInputStream inputStream = new CountingInputStream(new ByteArrayInputStream(new byte[0]));
+        final List<PravegaWriterEvent> events = new ArrayList<>();
+        Pair<Long, Long> nextSequenceNumberAndOffset = eventGenerator.generateEventsFromInputStream(inputStream, 100, events::add);
+        Assert.assertEquals(100L, (long) nextSequenceNumberAndOffset.getLeft());
+        Assert.assertTrue(events.isEmpty());
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Decode chunk events and check that they belong to the same file and are in order.
+     */
+    private static List<FileChunk> decode(List<PravegaWriterEvent> events) {
+        final List<FileChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            final FileChunk chunk = FileChunk.decode(events.get(i).bytes);
+            Assert.assertEquals(i, chunk.chunkIndex);
+            Assert.assertEquals(i == events.size() - 1, chunk.lastChunk);
+            if (i > 0) {
+                Assert.assertEquals(chunks.get(0).fileId, chunk.fileId);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static byte[] reassemble(List<FileChunk> chunks) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (FileChunk chunk : chunks) {
+            Assert.assertEquals(outputStream.size(), chunk.chunkOffset);
+            outputStream.write(chunk.data, 0, chunk.data.length);
+        }
+        return outputStream.toByteArray();
+    }
 }
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.loadtest;
+
+import io.pravega.client.stream.Transaction;
+import io.pravega.client.stream.TxnFailedException;
+import io.pravega.sensor.collector.util.EventWriter;
+import io.pravega.sensor.collector.util.LongArrayList;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An in-memory transactional {@link EventWriter} that emulates the latency and failures of a Pravega writer.
+ * Events are discarded when their transaction is committed or aborted. Only their counts are recorded.
+ *
+ * Write, flush and commit each take the configured latency.
+ * An injected write failure aborts the current transaction. An injected commit failure leaves the transaction open,
+ * so that it can be committed by recovery with {@link #commit(UUID)}, which never fails.
+ *
+ * Events should be created with {@link #newEvent(long, int)}, which stores their creation time,
+ * so that their end-to-end latency can be recorded when their transaction is committed.
+ *
+ * Like {@link io.pravega.sensor.collector.util.TransactionalEventWriter}, this is used by one thread at a time,
+ * except that transactions may be committed by the executor passed to {@link #commitAsync(long, Executor)}.
+ */
+public class FakeEventWriter implements EventWriter<byte[]> {
+    private final long writeLatencyNanos;
+    private final long flushLatencyNanos;
+    private final long commitLatencyNanos;
+    private final double writeFailureProbability;
+    private final double commitFailureProbability;
+    private final WriterStatistics statistics;
+    /**
+     * Transactions that have not been committed or aborted.
+     */
+    private final Map<UUID, FakeTransaction> openTransactions = new ConcurrentHashMap<>();
+
+    private FakeTransaction currentTxn = null;
+
+    public FakeEventWriter(long writeLatencyNanos, long flushLatencyNanos, long commitLatencyNanos,
+                           double writeFailureProbability, double commitFailureProbability, WriterStatistics statistics) {
+        this.writeLatencyNanos = writeLatencyNanos;
+        this.flushLatencyNanos = flushLatencyNanos;
+        this.commitLatencyNanos = commitLatencyNanos;
+        this.writeFailureProbability = writeFailureProbability;
+        this.commitFailureProbability = commitFailureProbability;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Create an event whose first 8 bytes are its creation time.
+     * @param createdNanos the creation time from {@link System#nanoTime()}
+     * @param sizeBytes    the size of the event, at least 8 bytes
+     */
+    public static byte[] newEvent(long createdNanos, int sizeBytes) {
+        final byte[] event = new byte[Math.max(Long.BYTES, sizeBytes)];
+        ByteBuffer.wrap(event).putLong(createdNanos);
+        return event;
+    }
+
+    /**
+     * @return the creation time of an event created by {@link #newEvent(long, int)}
+     */
+    public static long getCreatedNanos(byte[] event) {
+        return ByteBuffer.wrap(event).getLong();
+    }
+
+    @Override
+    public void writeEvent(String routingKey, byte[] event) throws TxnFailedException {
+        delay(writeLatencyNanos);
+        if (currentTxn == null) {
+            currentTxn = new FakeTransaction();
+            openTransactions.put(currentTxn.txnId, currentTxn);
+        }
+        if (injectFailure(writeFailureProbability)) {
+            statistics.recordWriteFailure();
+            abort();
+            throw new TxnFailedException("Injected write failure");
+        }
+        currentTxn.add(event);
+    }
+
+    @Override
+    public Optional<UUID> flush() throws TxnFailedException {
+        if (currentTxn == null) {
+            return Optional.empty();
+        }
+        delay(flushLatencyNanos);
+        return Optional.of(currentTxn.txnId);
+    }
+
+    @Override
+    public void commit() throws TxnFailedException {
+        if (currentTxn != null) {
+            commit(currentTxn, true);
+            currentTxn = null;
+        }
+    }
+
+    @Override
+    public void commit(long timestamp) throws TxnFailedException {
+        commit();
+    }
+
+    @Override
+    public void commit(UUID txnId) throws TxnFailedException {
+        final FakeTransaction txn = openTransactions.get(txnId);
+        if (txn != null) {
+            commit(txn, false);
+        }
+    }
+
+    private void commit(FakeTransaction txn, boolean mayFail) throws TxnFailedException {
+        delay(commitLatencyNanos);
+        if (mayFail && injectFailure(commitFailureProbability)) {
+            statistics.recordCommitFailure();
+            throw new TxnFailedException("Injected commit failure");
+        }
+        if (txn.complete(Transaction.Status.COMMITTED)) {
+            openTransactions.remove(txn.txnId);
+            statistics.recordCommit(txn.createdNanos, txn.eventCount, txn.byteCount, System.nanoTime());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> commitAsync(long timestamp, Executor executor) {
+        if (currentTxn == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final FakeTransaction txn = currentTxn;
+        // The next event begins a new transaction while this one is being committed.
+        currentTxn = null;
+        return CompletableFuture.runAsync(() -> {
+            try {
+                commit(txn, true);
+            } catch (TxnFailedException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void abort() {
+        if (currentTxn != null) {
+            if (currentTxn.complete(Transaction.Status.ABORTED)) {
+                openTransactions.remove(currentTxn.txnId);
+            }
+            currentTxn = null;
+        }
+    }
+
+    @Override
+    public Transaction.Status getTransactionStatus(UUID txnId) {
+        final FakeTransaction txn = openTransactions.get(txnId);
+        // Completed transactions are forgotten so that a long run does not run out of memory.
+        return txn == null ? Transaction.Status.COMMITTED : txn.getStatus();
+    }
+
+    @Override
+    public Transaction.Status getTransactionStatus() {
+        return currentTxn == null ? null : currentTxn.getStatus();
+    }
+
+    @Override
+    public void close() {
+        abort();
+    }
+
+    private static boolean injectFailure(double probability) {
+        return probability > 0.0 && ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    private static void delay(long nanos) {
+        if (nanos > 0) {
+            parkUntil(System.nanoTime() + nanos);
+        }
+    }
+
+    /**
+     * Wait until {@link System#nanoTime()} reaches the deadline.
+     */
+    static void parkUntil(long deadlineNanos) {
+        for (long remaining = deadlineNanos - System.nanoTime(); remaining > 0; remaining = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static final class FakeTransaction {
+        private final UUID txnId = UUID.randomUUID();
+        private final LongArrayList createdNanos = new LongArrayList();
+        private long eventCount;
+        private long byteCount;
+        private Transaction.Status status = Transaction.Status.OPEN;
+
+        void add(byte[] event) {
+            if (event.length >= Long.BYTES) {
+                createdNanos.add(getCreatedNanos(event));
+            }
+            eventCount++;
+            byteCount += event.length;
+        }
+
+        synchronized Transaction.Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return true if the transaction was open and is now in the given status
+         */
+        synchronized boolean complete(Transaction.Status newStatus) {
+            if (status != Transaction.Status.OPEN) {
+                return false;
+            }
+            status = newStatus;
+            return true;
+        }
+    }
+}
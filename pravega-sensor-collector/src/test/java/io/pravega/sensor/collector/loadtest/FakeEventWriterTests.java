@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.loadtest;
+
+import io.pravega.client.stream.Transaction;
+import io.pravega.client.stream.TxnFailedException;
+import io.pravega.sensor.collector.util.LongArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class FakeEventWriterTests {
+
+    @Test
+    public void commitRecordsEventsAndLatencyTest() throws Exception {
+        final WriterStatistics statistics = new WriterStatistics();
+        final FakeEventWriter writer = new FakeEventWriter(0, 0, 0, 0.0, 0.0, statistics);
+        final long createdNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+        for (int i = 0; i < 3; i++) {
+            writer.writeEvent("rk", FakeEventWriter.newEvent(createdNanos, 100));
+        }
+        final Optional<UUID> txnId = writer.flush();
+        Assertions.assertTrue(txnId.isPresent());
+        Assertions.assertEquals(Transaction.Status.OPEN, writer.getTransactionStatus(txnId.get()));
+        writer.commit();
+        Assertions.assertNull(writer.getTransactionStatus());
+        Assertions.assertEquals(Transaction.Status.COMMITTED, writer.getTransactionStatus(txnId.get()));
+        Assertions.assertEquals(3, statistics.getEventCount());
+        Assertions.assertEquals(300, statistics.getByteCount());
+        Assertions.assertEquals(1, statistics.getTransactionCount());
+        Assertions.assertTrue(statistics.getLatencyPercentileMs(0.5) >= 5.0);
+    }
+
+    @Test
+    public void injectedFailuresTest() throws Exception {
+        final WriterStatistics statistics = new WriterStatistics();
+        final FakeEventWriter failingWriter = new FakeEventWriter(0, 0, 0, 1.0, 0.0, statistics);
+        Assertions.assertThrows(TxnFailedException.class, () -> failingWriter.writeEvent("rk", FakeEventWriter.newEvent(0, 8)));
+        // A failed write aborts the transaction.
+        Assertions.assertNull(failingWriter.getTransactionStatus());
+        Assertions.assertEquals(1, statistics.getWriteFailureCount());
+
+        final FakeEventWriter writer = new FakeEventWriter(0, 0, 0, 0.0, 1.0, statistics);
+        writer.writeEvent("rk", FakeEventWriter.newEvent(System.nanoTime(), 10));
+        final UUID txnId = writer.flush().get();
+        Assertions.assertThrows(TxnFailedException.class, writer::commit);
+        Assertions.assertEquals(1, statistics.getCommitFailureCount());
+        Assertions.assertEquals(0, statistics.getEventCount());
+        // A failed commit leaves the transaction open for recovery.
+        Assertions.assertEquals(Transaction.Status.OPEN, writer.getTransactionStatus(txnId));
+        writer.commit(txnId);
+        Assertions.assertEquals(Transaction.Status.COMMITTED, writer.getTransactionStatus(txnId));
+        Assertions.assertEquals(1, statistics.getEventCount());
+        Assertions.assertEquals(10, statistics.getByteCount());
+    }
+
+    @Test
+    public void commitAsyncTest() throws Exception {
+        final WriterStatistics statistics = new WriterStatistics();
+        final FakeEventWriter writer = new FakeEventWriter(0, 0, TimeUnit.MILLISECONDS.toNanos(10), 0.0, 0.0, statistics);
+        writer.writeEvent("rk", FakeEventWriter.newEvent(System.nanoTime(), 10));
+        final UUID firstTxnId = writer.flush().get();
+        final CompletableFuture<Void> commit = writer.commitAsync(0, ForkJoinPool.commonPool());
+        // Events written while the first transaction is being committed go into a new transaction.
+        writer.writeEvent("rk", FakeEventWriter.newEvent(System.nanoTime(), 10));
+        final UUID secondTxnId = writer.flush().get();
+        Assertions.assertNotEquals(firstTxnId, secondTxnId);
+        commit.join();
+        Assertions.assertEquals(1, statistics.getEventCount());
+        writer.commit();
+        Assertions.assertEquals(2, statistics.getEventCount());
+        Assertions.assertEquals(2, statistics.getTransactionCount());
+    }
+
+    @Test
+    public void latencyPercentilesTest() {
+        final WriterStatistics statistics = new WriterStatistics();
+        final long nowNanos = System.nanoTime();
+        final LongArrayList createdNanos = new LongArrayList();
+        for (int i = 0; i < 99; i++) {
+            createdNanos.add(nowNanos - TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        createdNanos.add(nowNanos - TimeUnit.MILLISECONDS.toNanos(100));
+        statistics.recordCommit(createdNanos, createdNanos.size(), 1000, nowNanos);
+        Assertions.assertEquals(1.0, statistics.getLatencyPercentileMs(0.5), 0.03);
+        Assertions.assertEquals(1.0, statistics.getLatencyPercentileMs(0.99), 0.03);
+        Assertions.assertEquals(100.0, statistics.getLatencyPercentileMs(1.0), 3.0);
+
+        final WriterStatistics snapshot = statistics.snapshot();
+        final LongArrayList laterCreatedNanos = new LongArrayList();
+        laterCreatedNanos.add(nowNanos - TimeUnit.MILLISECONDS.toNanos(10));
+        statistics.recordCommit(laterCreatedNanos, 1, 10, nowNanos);
+        final WriterStatistics interval = statistics.minus(snapshot);
+        Assertions.assertEquals(1, interval.getEventCount());
+        Assertions.assertEquals(10, interval.getByteCount());
+        Assertions.assertEquals(10.0, interval.getLatencyPercentileMs(0.5), 0.3);
+        Assertions.assertTrue(Double.isNaN(new WriterStatistics().getLatencyPercentileMs(0.5)));
+    }
+}
@@ -0,0 +1,456 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.loadtest;
+
+import com.google.common.util.concurrent.Service;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.pravega.sensor.collector.DeviceDriverConfig;
+import io.pravega.sensor.collector.file.FileConfig;
+import io.pravega.sensor.collector.file.FileProcessor;
+import io.pravega.sensor.collector.file.FileProcessorFactory;
+import io.pravega.sensor.collector.file.rawfile.RawFileIngestService;
+import io.pravega.sensor.collector.simple.PersistentQueue;
+import io.pravega.sensor.collector.simple.PersistentQueueElement;
+import io.pravega.sensor.collector.simple.PersistentQueueSQLiteImpl;
+import io.pravega.sensor.collector.simple.PersistentQueueSegmentLogImpl;
+import io.pravega.sensor.collector.simple.PersistentQueueToPravegaService;
+import io.pravega.sensor.collector.simple.memoryless.DataCollectorService;
+import io.pravega.sensor.collector.util.SQliteDBUtility;
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import io.pravega.sensor.collector.util.TransactionStateDB;
+import io.pravega.sensor.collector.util.TransactionStateSQLiteImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measure the throughput of the collector pipelines without a Pravega cluster, to size gateways and to catch regressions.
+ * This is not run as part of the unit tests. Run it with:
+ *
+ *   ./gradlew loadTest -PloadTest.args="SENSORS=4 SENSOR_EVENTS_PER_SEC=1000 DURATION_SEC=60"
+ *
+ * Three pipelines run concurrently. Each instance writes to its own {@link FakeEventWriter}.
+ * The sensor pipeline adds events to a persistent queue at a fixed rate, as the memory queue service of a
+ * simple device driver would, and a {@link PersistentQueueToPravegaService} writes them.
+ * The memoryless pipeline reads events from a {@link SyntheticMemorylessDriver} with a {@link DataCollectorService}.
+ * The file pipeline drops raw files into a directory at a fixed rate, and a {@link FileProcessor} ingests them.
+ * A pipeline is disabled by setting its rate to 0.
+ *
+ * Every REPORT_INTERVAL_SEC, and at the end for the time after the warmup, the events/sec, bytes/sec and end-to-end
+ * latency percentiles of each pipeline are printed, along with the heap usage and garbage collection statistics.
+ * The end-to-end latency is measured from the time at which an event was due to be created until its transaction is committed,
+ * so that a producer that falls behind does not hide the delay.
+ */
+public class LoadTest {
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String DURATION_SEC_KEY = "DURATION_SEC";
+    private static final String WARMUP_SEC_KEY = "WARMUP_SEC";
+    private static final String REPORT_INTERVAL_SEC_KEY = "REPORT_INTERVAL_SEC";
+
+    private static final String WRITE_LATENCY_US_KEY = "WRITE_LATENCY_US";
+    private static final String FLUSH_LATENCY_US_KEY = "FLUSH_LATENCY_US";
+    private static final String COMMIT_LATENCY_US_KEY = "COMMIT_LATENCY_US";
+    private static final String WRITE_FAILURE_PROBABILITY_KEY = "WRITE_FAILURE_PROBABILITY";
+    private static final String COMMIT_FAILURE_PROBABILITY_KEY = "COMMIT_FAILURE_PROBABILITY";
+
+    private static final String SENSORS_KEY = "SENSORS";
+    private static final String SENSOR_EVENTS_PER_SEC_KEY = "SENSOR_EVENTS_PER_SEC";
+    private static final String SENSOR_EVENT_BYTES_KEY = "SENSOR_EVENT_BYTES";
+    private static final String PERSISTENT_QUEUE_TYPE_KEY = "PERSISTENT_QUEUE_TYPE";
+    private static final String MAX_EVENTS_PER_WRITE_BATCH_KEY = "MAX_EVENTS_PER_WRITE_BATCH";
+    private static final String DELAY_BETWEEN_WRITE_BATCHES_MS_KEY = "DELAY_BETWEEN_WRITE_BATCHES_MS";
+    private static final String MAX_OUTSTANDING_TRANSACTIONS_KEY = "MAX_OUTSTANDING_TRANSACTIONS";
+
+    private static final String MEMORYLESS_SENSORS_KEY = "MEMORYLESS_SENSORS";
+    private static final String MEMORYLESS_EVENTS_PER_SEC_KEY = "MEMORYLESS_EVENTS_PER_SEC";
+    private static final String MEMORYLESS_EVENT_BYTES_KEY = "MEMORYLESS_EVENT_BYTES";
+    private static final String POLL_PERIODICITY_MS_KEY = "POLL_PERIODICITY_MS";
+
+    private static final String FILES_PER_SEC_KEY = "FILES_PER_SEC";
+    private static final String FILE_BYTES_KEY = "FILE_BYTES";
+    private static final String FILE_SCAN_INTERVAL_MS_KEY = "FILE_SCAN_INTERVAL_MS";
+
+    private static final String PERSISTENT_QUEUE_TYPE_SEGMENT_LOG = "segment-log";
+
+    private final Map<String, String> properties;
+    private final WriterStatistics sensorStatistics = new WriterStatistics();
+    private final WriterStatistics memorylessStatistics = new WriterStatistics();
+    private final WriterStatistics fileStatistics = new WriterStatistics();
+    private final List<PersistentQueue> persistentQueues = new ArrayList<>();
+    private final ExecutorService producerExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("load-test-producer-%d").setDaemon(true).build());
+    private final ScheduledExecutorService fileExecutor = Executors.newScheduledThreadPool(2,
+            new ThreadFactoryBuilder().setNameFormat("load-test-file-%d").setDaemon(true).build());
+    private volatile boolean running = true;
+
+    public LoadTest(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param args settings in the form KEY=VALUE
+     */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> properties = new HashMap<>();
+        for (String arg : args) {
+            final int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Arguments must have the form KEY=VALUE: " + arg);
+            }
+            properties.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        final Path directory = Files.createTempDirectory("psc-load-test");
+        // The pipeline services keep running until the process exits, even if the load test fails.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDirectory(directory)));
+        int status = 0;
+        try {
+            new LoadTest(properties).run(directory);
+        } catch (Throwable e) {
+            log.error("Load test failed", e);
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Start the pipelines, print reports until the test duration has elapsed, then stop the producers.
+     * @param directory stores the persistent queues, the state database and the dropped files
+     */
+    public void run(Path directory) throws Exception {
+        System.out.printf("Load test settings: %s%n", properties);
+        startSensors(directory);
+        startMemorylessSensors();
+        startFileIngestion(directory);
+
+        final long startNanos = System.nanoTime();
+        final long warmupEndNanos = startNanos + TimeUnit.SECONDS.toNanos(getWarmupSec());
+        final long endNanos = warmupEndNanos + TimeUnit.SECONDS.toNanos(getDurationSec());
+        final long reportIntervalNanos = TimeUnit.SECONDS.toNanos(getReportIntervalSec());
+        Snapshot previous = new Snapshot();
+        Snapshot afterWarmup = warmupEndNanos == startNanos ? previous : null;
+        for (long reportNanos = startNanos + reportIntervalNanos; afterWarmup == null || previous.nanos < endNanos; reportNanos += reportIntervalNanos) {
+            if (afterWarmup == null && reportNanos >= warmupEndNanos) {
+                FakeEventWriter.parkUntil(warmupEndNanos);
+                afterWarmup = new Snapshot();
+            }
+            FakeEventWriter.parkUntil(Math.min(reportNanos, endNanos));
+            final Snapshot current = new Snapshot();
+            report(String.format("After %.0f sec", (current.nanos - startNanos) * 1e-9), previous, current);
+            previous = current;
+        }
+        running = false;
+        producerExecutor.shutdownNow();
+        fileExecutor.shutdownNow();
+        producerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        fileExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        report("Summary excluding warmup", afterWarmup, previous);
+    }
+
+    private void startSensors(Path directory) throws Exception {
+        final double eventsPerSec = getSensorEventsPerSec();
+        if (eventsPerSec <= 0) {
+            return;
+        }
+        for (int i = 0; i < getSensors(); i++) {
+            final String instanceName = "sensor-" + i;
+            final String fileName = directory.resolve(instanceName + ".db").toString();
+            final FakeEventWriter writer = newWriter(sensorStatistics);
+            final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+            final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, writer);
+            final long capacityEvents = 1000L * 1000L;
+            final PersistentQueue persistentQueue = PERSISTENT_QUEUE_TYPE_SEGMENT_LOG.equalsIgnoreCase(getPersistentQueueType())
+                    ? new PersistentQueueSegmentLogImpl(connection, transactionCoordinator, directory.resolve(instanceName + ".segments"),
+                            64 * 1024 * 1024, capacityEvents)
+                    : new PersistentQueueSQLiteImpl(connection, transactionCoordinator, capacityEvents);
+            persistentQueues.add(persistentQueue);
+            startService(new PersistentQueueToPravegaService(instanceName, persistentQueue, writer,
+                    getMaxEventsPerWriteBatch(), getDelayBetweenWriteBatchesMs(), getMaxOutstandingTransactions()));
+            final int eventBytes = getSensorEventBytes();
+            producerExecutor.submit(() -> produceSensorEvents(persistentQueue, eventsPerSec, eventBytes));
+        }
+    }
+
+    private void produceSensorEvents(PersistentQueue persistentQueue, double eventsPerSec, int eventBytes) {
+        final long startNanos = System.nanoTime();
+        try {
+            for (long i = 0; running; i++) {
+                final long dueNanos = startNanos + (long) (i * 1e9 / eventsPerSec);
+                FakeEventWriter.parkUntil(dueNanos);
+                persistentQueue.add(new PersistentQueueElement(FakeEventWriter.newEvent(dueNanos, eventBytes), "",
+                        System.currentTimeMillis() * 1000L * 1000L));
+            }
+        } catch (Exception e) {
+            if (running) {
+                log.error("Error adding events to the persistent queue", e);
+            }
+        }
+    }
+
+    private void startMemorylessSensors() {
+        final double eventsPerSec = getMemorylessEventsPerSec();
+        if (eventsPerSec <= 0) {
+            return;
+        }
+        for (int i = 0; i < getMemorylessSensors(); i++) {
+            final String instanceName = "memoryless-" + i;
+            final Map<String, String> driverProperties = new HashMap<>();
+            driverProperties.put("SCOPE", "load-test");
+            driverProperties.put("STREAM", instanceName);
+            final DeviceDriverConfig config = new DeviceDriverConfig(instanceName, SyntheticMemorylessDriver.class.getName(),
+                    driverProperties, null);
+            final SyntheticMemorylessDriver driver = new SyntheticMemorylessDriver(config, eventsPerSec, getMemorylessEventBytes());
+            startService(new DataCollectorService<>(instanceName, driver, newWriter(memorylessStatistics), getPollPeriodicityMs()));
+        }
+    }
+
+    private void startFileIngestion(Path directory) throws Exception {
+        final double filesPerSec = getFilesPerSec();
+        if (filesPerSec <= 0) {
+            return;
+        }
+        final Path inputDirectory = Files.createDirectories(directory.resolve("input"));
+        final Path stagingDirectory = Files.createDirectories(directory.resolve("staging"));
+        final FileConfig config = new FileConfig(directory.resolve("file-ingest.db").toString(), inputDirectory.toString(), "raw",
+                "", "load-test", "{}", 1, true, true, 18.0 * 60.0, 0, RawFileIngestService.class.getName());
+        final FakeEventWriter writer = newWriter(fileStatistics);
+        final Connection connection = SQliteDBUtility.createDatabase(config.stateDatabaseFileName);
+        final TransactionCoordinator transactionCoordinator = new TransactionCoordinator(connection, writer);
+        final TransactionStateDB state = new TransactionStateSQLiteImpl(connection, transactionCoordinator);
+        final FileProcessor processor = FileProcessorFactory.createFileSequenceProcessor(config, state, writer, transactionCoordinator, "load-test");
+        // Scan and ingest files as FileIngestService does.
+        fileExecutor.scheduleAtFixedRate(() -> {
+            try {
+                processor.watchFiles();
+            } catch (Exception e) {
+                log.error("watchFiles: error", e);
+            }
+        }, 0, getFileScanIntervalMs(), TimeUnit.MILLISECONDS);
+        fileExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                processor.processFiles();
+            } catch (Exception e) {
+                log.error("processFiles: error", e);
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        final int fileBytes = getFileBytes();
+        producerExecutor.submit(() -> dropFiles(stagingDirectory, inputDirectory, filesPerSec, fileBytes));
+    }
+
+    private void dropFiles(Path stagingDirectory, Path inputDirectory, double filesPerSec, int fileBytes) {
+        final long startNanos = System.nanoTime();
+        try {
+            for (long i = 0; running; i++) {
+                final long dueNanos = startNanos + (long) (i * 1e9 / filesPerSec);
+                FakeEventWriter.parkUntil(dueNanos);
+                final String fileName = String.format("load-test-%012d.raw", i);
+                final Path stagingFile = stagingDirectory.resolve(fileName);
+                Files.write(stagingFile, FakeEventWriter.newEvent(dueNanos, fileBytes));
+                // A partially written file must not be ingested.
+                Files.move(stagingFile, inputDirectory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (Exception e) {
+            if (running) {
+                log.error("Error dropping files", e);
+            }
+        }
+    }
+
+    private FakeEventWriter newWriter(WriterStatistics statistics) {
+        return new FakeEventWriter(
+                TimeUnit.MICROSECONDS.toNanos(getWriteLatencyMicros()),
+                TimeUnit.MICROSECONDS.toNanos(getFlushLatencyMicros()),
+                TimeUnit.MICROSECONDS.toNanos(getCommitLatencyMicros()),
+                getWriteFailureProbability(),
+                getCommitFailureProbability(),
+                statistics);
+    }
+
+    private static void startService(Service service) {
+        service.startAsync();
+        service.awaitRunning();
+    }
+
+    private void report(String title, Snapshot from, Snapshot to) {
+        final double seconds = (to.nanos - from.nanos) * 1e-9;
+        System.out.printf("%s (%.1f sec):%n", title, seconds);
+        reportPipeline("sensor", to.sensor.minus(from.sensor), seconds);
+        reportPipeline("memoryless", to.memoryless.minus(from.memoryless), seconds);
+        reportPipeline("file", to.file.minus(from.file), seconds);
+        final long gcTimeMs = to.gcTimeMs - from.gcTimeMs;
+        System.out.printf("  %-10s heap used=%d MB, committed=%d MB, max=%d MB; gc count=%d, gc time=%d ms (%.1f%%); persistent queue size=%d events%n",
+                "jvm", to.heapUsedBytes >> 20, to.heapCommittedBytes >> 20, to.heapMaxBytes >> 20,
+                to.gcCount - from.gcCount, gcTimeMs, 100.0 * gcTimeMs / (seconds * 1000.0), to.persistentQueueSize);
+    }
+
+    private static void reportPipeline(String name, WriterStatistics statistics, double seconds) {
+        System.out.printf("  %-10s %10.1f events/sec, %8.3f MB/sec, %8.1f txn/sec; latency p50=%.3f ms, p99=%.3f ms, max=%.3f ms; "
+                        + "injected failures: write=%d, commit=%d%n",
+                name,
+                statistics.getEventCount() / seconds,
+                statistics.getByteCount() * 1e-6 / seconds,
+                statistics.getTransactionCount() / seconds,
+                statistics.getLatencyPercentileMs(0.5),
+                statistics.getLatencyPercentileMs(0.99),
+                statistics.getLatencyPercentileMs(1.0),
+                statistics.getWriteFailureCount(),
+                statistics.getCommitFailureCount());
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}", directory, e);
+        }
+    }
+
+    /**
+     * The cumulative statistics at a point in time.
+     */
+    private final class Snapshot {
+        private final long nanos = System.nanoTime();
+        private final WriterStatistics sensor = sensorStatistics.snapshot();
+        private final WriterStatistics memoryless = memorylessStatistics.snapshot();
+        private final WriterStatistics file = fileStatistics.snapshot();
+        private final long persistentQueueSize = persistentQueues.stream().mapToLong(PersistentQueue::size).sum();
+        private final long heapUsedBytes;
+        private final long heapCommittedBytes;
+        private final long heapMaxBytes;
+        private final long gcCount;
+        private final long gcTimeMs;
+
+        Snapshot() {
+            final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            heapUsedBytes = heap.getUsed();
+            heapCommittedBytes = heap.getCommitted();
+            heapMaxBytes = heap.getMax();
+            long count = 0;
+            long timeMs = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                timeMs += Math.max(0, gc.getCollectionTime());
+            }
+            gcCount = count;
+            gcTimeMs = timeMs;
+        }
+    }
+
+    long getDurationSec() {
+        return Long.parseLong(getProperty(DURATION_SEC_KEY, Long.toString(60)));
+    }
+
+    long getWarmupSec() {
+        return Long.parseLong(getProperty(WARMUP_SEC_KEY, Long.toString(10)));
+    }
+
+    long getReportIntervalSec() {
+        return Long.parseLong(getProperty(REPORT_INTERVAL_SEC_KEY, Long.toString(10)));
+    }
+
+    long getWriteLatencyMicros() {
+        return Long.parseLong(getProperty(WRITE_LATENCY_US_KEY, Long.toString(0)));
+    }
+
+    long getFlushLatencyMicros() {
+        return Long.parseLong(getProperty(FLUSH_LATENCY_US_KEY, Long.toString(2000)));
+    }
+
+    long getCommitLatencyMicros() {
+        return Long.parseLong(getProperty(COMMIT_LATENCY_US_KEY, Long.toString(20000)));
+    }
+
+    double getWriteFailureProbability() {
+        return Double.parseDouble(getProperty(WRITE_FAILURE_PROBABILITY_KEY, Double.toString(0.0)));
+    }
+
+    double getCommitFailureProbability() {
+        return Double.parseDouble(getProperty(COMMIT_FAILURE_PROBABILITY_KEY, Double.toString(0.0)));
+    }
+
+    int getSensors() {
+        return Integer.parseInt(getProperty(SENSORS_KEY, Integer.toString(1)));
+    }
+
+    double getSensorEventsPerSec() {
+        return Double.parseDouble(getProperty(SENSOR_EVENTS_PER_SEC_KEY, Double.toString(100.0)));
+    }
+
+    int getSensorEventBytes() {
+        return Integer.parseInt(getProperty(SENSOR_EVENT_BYTES_KEY, Integer.toString(1000)));
+    }
+
+    String getPersistentQueueType() {
+        return getProperty(PERSISTENT_QUEUE_TYPE_KEY, "sqlite");
+    }
+
+    int getMaxEventsPerWriteBatch() {
+        return Integer.parseInt(getProperty(MAX_EVENTS_PER_WRITE_BATCH_KEY, Integer.toString(100)));
+    }
+
+    long getDelayBetweenWriteBatchesMs() {
+        return Long.parseLong(getProperty(DELAY_BETWEEN_WRITE_BATCHES_MS_KEY, Long.toString(1000)));
+    }
+
+    int getMaxOutstandingTransactions() {
+        return Integer.parseInt(getProperty(MAX_OUTSTANDING_TRANSACTIONS_KEY, Integer.toString(1)));
+    }
+
+    int getMemorylessSensors() {
+        return Integer.parseInt(getProperty(MEMORYLESS_SENSORS_KEY, Integer.toString(1)));
+    }
+
+    double getMemorylessEventsPerSec() {
+        return Double.parseDouble(getProperty(MEMORYLESS_EVENTS_PER_SEC_KEY, Double.toString(100.0)));
+    }
+
+    int getMemorylessEventBytes() {
+        return Integer.parseInt(getProperty(MEMORYLESS_EVENT_BYTES_KEY, Integer.toString(1000)));
+    }
+
+    long getPollPeriodicityMs() {
+        return Long.parseLong(getProperty(POLL_PERIODICITY_MS_KEY, Long.toString(10)));
+    }
+
+    double getFilesPerSec() {
+        return Double.parseDouble(getProperty(FILES_PER_SEC_KEY, Double.toString(1.0)));
+    }
+
+    int getFileBytes() {
+        return Integer.parseInt(getProperty(FILE_BYTES_KEY, Integer.toString(1000 * 1000)));
+    }
+
+    long getFileScanIntervalMs() {
+        return Long.parseLong(getProperty(FILE_SCAN_INTERVAL_MS_KEY, Long.toString(1000)));
+    }
+
+    private String getProperty(String key, String defaultValue) {
+        return properties.getOrDefault(key, defaultValue);
+    }
+}
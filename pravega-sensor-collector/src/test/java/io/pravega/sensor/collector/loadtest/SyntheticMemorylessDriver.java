@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.loadtest;
+
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.sensor.collector.DeviceDriverConfig;
+import io.pravega.sensor.collector.simple.memoryless.SimpleMemorylessDriver;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A memoryless sensor that produces events at a fixed rate.
+ * Each raw data element is the time at which the event was due, from {@link System#nanoTime()},
+ * so that a sensor that falls behind is charged for the delay.
+ *
+ * The driver does not connect to Pravega. The writer that it creates is not used,
+ * because the load test writes the events with a {@link FakeEventWriter}.
+ */
+public class SyntheticMemorylessDriver extends SimpleMemorylessDriver<Long> {
+    private final double eventsPerSec;
+    private final int eventBytes;
+    private long startNanos;
+    private long eventCount;
+
+    public SyntheticMemorylessDriver(DeviceDriverConfig config, double eventsPerSec, int eventBytes) {
+        super(config);
+        this.eventsPerSec = eventsPerSec;
+        this.eventBytes = eventBytes;
+    }
+
+    @Override
+    protected EventStreamClientFactory getEventStreamClientFactory(String scopeName) {
+        return Mockito.mock(EventStreamClientFactory.class);
+    }
+
+    @Override
+    protected void createStream(String scopeName, String streamName) {
+    }
+
+    @Override
+    public List<Long> readRawData() {
+        final long now = System.nanoTime();
+        if (startNanos == 0) {
+            startNanos = now;
+        }
+        final long dueCount = (long) ((now - startNanos) * 1e-9 * eventsPerSec);
+        final List<Long> rawData = new ArrayList<>();
+        for (; eventCount < dueCount; eventCount++) {
+            rawData.add(startNanos + (long) (eventCount * 1e9 / eventsPerSec));
+        }
+        return rawData;
+    }
+
+    @Override
+    public byte[] getEvent(Long dueNanos) {
+        return FakeEventWriter.newEvent(dueNanos, eventBytes);
+    }
+
+    @Override
+    public long getTimestamp(Long dueNanos) {
+        return System.currentTimeMillis() * 1000L * 1000L;
+    }
+}
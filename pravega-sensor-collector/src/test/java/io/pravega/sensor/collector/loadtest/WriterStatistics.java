@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.loadtest;
+
+import io.pravega.sensor.collector.util.LongArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative counts of the events committed by one or more {@link FakeEventWriter}s,
+ * and a histogram of their end-to-end latencies.
+ *
+ * The latency histogram has buckets that are 3% wide, from 1 microsecond to several hours,
+ * so recording does not allocate and percentiles are accurate to within 3%.
+ * Statistics for an interval are obtained by subtracting two snapshots.
+ */
+public class WriterStatistics {
+    private static final double BUCKET_RATIO = 1.03;
+    private static final double LOG_BUCKET_RATIO = Math.log(BUCKET_RATIO);
+    private static final int BUCKET_COUNT = 800;
+    private static final double MIN_LATENCY_NANOS = 1000.0;
+
+    private long eventCount;
+    private long byteCount;
+    private long transactionCount;
+    private long writeFailureCount;
+    private long commitFailureCount;
+    private final long[] latencyCounts;
+
+    public WriterStatistics() {
+        this.latencyCounts = new long[BUCKET_COUNT];
+    }
+
+    private WriterStatistics(WriterStatistics other) {
+        this.eventCount = other.eventCount;
+        this.byteCount = other.byteCount;
+        this.transactionCount = other.transactionCount;
+        this.writeFailureCount = other.writeFailureCount;
+        this.commitFailureCount = other.commitFailureCount;
+        this.latencyCounts = other.latencyCounts.clone();
+    }
+
+    /**
+     * Record the events of a committed transaction.
+     * @param createdNanos  the creation time of each event that has one, from {@link System#nanoTime()}
+     * @param events        the number of events in the transaction
+     * @param bytes         the number of bytes in the transaction
+     * @param committedNanos the time at which the transaction was committed, from {@link System#nanoTime()}
+     */
+    public synchronized void recordCommit(LongArrayList createdNanos, long events, long bytes, long committedNanos) {
+        eventCount += events;
+        byteCount += bytes;
+        transactionCount++;
+        for (int i = 0; i < createdNanos.size(); i++) {
+            latencyCounts[bucketIndex(committedNanos - createdNanos.get(i))]++;
+        }
+    }
+
+    public synchronized void recordWriteFailure() {
+        writeFailureCount++;
+    }
+
+    public synchronized void recordCommitFailure() {
+        commitFailureCount++;
+    }
+
+    public synchronized WriterStatistics snapshot() {
+        return new WriterStatistics(this);
+    }
+
+    /**
+     * @return the statistics recorded since the earlier snapshot was taken
+     */
+    public WriterStatistics minus(WriterStatistics earlier) {
+        final WriterStatistics result = snapshot();
+        result.eventCount -= earlier.eventCount;
+        result.byteCount -= earlier.byteCount;
+        result.transactionCount -= earlier.transactionCount;
+        result.writeFailureCount -= earlier.writeFailureCount;
+        result.commitFailureCount -= earlier.commitFailureCount;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result.latencyCounts[i] -= earlier.latencyCounts[i];
+        }
+        return result;
+    }
+
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    public synchronized long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public synchronized long getWriteFailureCount() {
+        return writeFailureCount;
+    }
+
+    public synchronized long getCommitFailureCount() {
+        return commitFailureCount;
+    }
+
+    /**
+     * @param quantile between 0.0 and 1.0, for example 0.99 for the 99th percentile
+     * @return the upper bound of the latency bucket that contains the quantile, in milliseconds, or NaN if no latency was recorded
+     */
+    public synchronized double getLatencyPercentileMs(double quantile) {
+        final long total = Arrays.stream(latencyCounts).sum();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long cumulative = 0;
+        int index = 0;
+        for (; index < BUCKET_COUNT - 1; index++) {
+            cumulative += latencyCounts[index];
+            if (cumulative >= rank) {
+                break;
+            }
+        }
+        return bucketUpperBoundNanos(index) * 1e-6;
+    }
+
+    private static int bucketIndex(long latencyNanos) {
+        if (latencyNanos <= MIN_LATENCY_NANOS) {
+            return 0;
+        }
+        final int index = 1 + (int) (Math.log(latencyNanos / MIN_LATENCY_NANOS) / LOG_BUCKET_RATIO);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    private static double bucketUpperBoundNanos(int index) {
+        return MIN_LATENCY_NANOS * Math.pow(BUCKET_RATIO, index);
+    }
+}
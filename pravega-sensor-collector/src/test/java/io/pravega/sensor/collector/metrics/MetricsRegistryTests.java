@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsRegistryTests {
+
+    @Test
+    public void prometheusFormatTest() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Counter counter = registry.counter("psc_events_written_total", "Events written.", "NET1");
+        counter.add(5);
+        Assertions.assertSame(counter, registry.counter("psc_events_written_total", "Events written.", "NET1"));
+        registry.counter("psc_events_written_total", "Events written.", "ACCEL\"1").increment();
+        registry.gauge("psc_persistent_queue_size", "Queue size.", "NET1", () -> 42);
+        final LatencyHistogram histogram = registry.latencyHistogram("psc_commit_seconds", "Commit time.", "NET1");
+        histogram.record(2, TimeUnit.MILLISECONDS);
+        histogram.record(2, TimeUnit.MINUTES);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.counter("psc_commit_seconds", "Commit time.", "NET1"));
+
+        final String text = registry.toPrometheusString();
+        Assertions.assertTrue(text.contains("# TYPE psc_events_written_total counter\n"), text);
+        Assertions.assertTrue(text.contains("psc_events_written_total{driver=\"NET1\"} 5\n"), text);
+        Assertions.assertTrue(text.contains("psc_events_written_total{driver=\"ACCEL\\\"1\"} 1\n"), text);
+        Assertions.assertTrue(text.contains("# TYPE psc_persistent_queue_size gauge\n"), text);
+        Assertions.assertTrue(text.contains("psc_persistent_queue_size{driver=\"NET1\"} 42\n"), text);
+        Assertions.assertTrue(text.contains("# TYPE psc_commit_seconds histogram\n"), text);
+        Assertions.assertTrue(text.contains("psc_commit_seconds_bucket{driver=\"NET1\",le=\"0.001\"} 0\n"), text);
+        Assertions.assertTrue(text.contains("psc_commit_seconds_bucket{driver=\"NET1\",le=\"0.0025\"} 1\n"), text);
+        Assertions.assertTrue(text.contains("psc_commit_seconds_bucket{driver=\"NET1\",le=\"60.0\"} 1\n"), text);
+        Assertions.assertTrue(text.contains("psc_commit_seconds_bucket{driver=\"NET1\",le=\"+Inf\"} 2\n"), text);
+        Assertions.assertTrue(text.contains("psc_commit_seconds_count{driver=\"NET1\"} 2\n"), text);
+
+        registry.removeInstance("NET1");
+        Assertions.assertFalse(registry.toPrometheusString().contains("NET1"));
+    }
+
+    @Test
+    public void httpServerTest() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("psc_events_written_total", "Events written.", "NET1").add(7);
+        try (MetricsHttpServer server = new MetricsHttpServer(registry, "127.0.0.1", 0)) {
+            server.start();
+            final HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://127.0.0.1:" + server.getPort() + "/metrics").openConnection();
+            Assertions.assertEquals(200, connection.getResponseCode());
+            try (InputStream is = connection.getInputStream()) {
+                final String body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+                Assertions.assertTrue(body.contains("psc_events_written_total{driver=\"NET1\"} 7\n"), body);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveWriteBatchControllerTests {
+
+    private static final long MS = 1000 * 1000;
+
+    @Test
+    public void fixedControllerTest() {
+        final WriteBatchController controller = new WriteBatchController(100, 1000);
+        controller.update(100, 1000, MS, 500);
+        Assertions.assertEquals(100, controller.getBatchSize());
+        Assertions.assertEquals(0, controller.getDelayMs());
+        controller.update(50, 500, MS, 0);
+        Assertions.assertEquals(100, controller.getBatchSize());
+        Assertions.assertEquals(1000, controller.getDelayMs());
+    }
+
+    @Test
+    public void drainBacklogTest() {
+        final AdaptiveWriteBatchController controller = new AdaptiveWriteBatchController(100, 1000, 1000, 1000 * 1000, 1000, 10);
+        Assertions.assertEquals(100, controller.getBatchSize());
+        // The batch size doubles while full batches leave a backlog, up to the maximum.
+        controller.update(100, 100 * 100, 10 * MS, 10000);
+        Assertions.assertEquals(200, controller.getBatchSize());
+        Assertions.assertEquals(0, controller.getDelayMs());
+        controller.update(200, 200 * 100, 10 * MS, 10000);
+        controller.update(400, 400 * 100, 10 * MS, 10000);
+        controller.update(800, 800 * 100, 10 * MS, 10000);
+        Assertions.assertEquals(1000, controller.getBatchSize());
+        // A slow batch halves the batch size.
+        controller.update(1000, 1000 * 100, 2000 * MS, 10000);
+        Assertions.assertEquals(500, controller.getBatchSize());
+        // The batch size does not grow beyond the maximum number of bytes.
+        controller.update(500, 500 * 1200, 10 * MS, 10000);
+        Assertions.assertEquals(500, controller.getBatchSize());
+        controller.update(500, 500 * 4000, 10 * MS, 10000);
+        Assertions.assertEquals(250, controller.getBatchSize());
+        // The batch size is reset once the backlog has been drained.
+        controller.update(250, 250 * 100, 10 * MS, 0);
+        Assertions.assertEquals(100, controller.getBatchSize());
+    }
+
+    @Test
+    public void steadyStateDelayTest() {
+        final AdaptiveWriteBatchController controller = new AdaptiveWriteBatchController(100, 1000, 1000, 1000 * 1000, 1000, 10);
+        Assertions.assertEquals(1000, controller.getDelayMs());
+        // The delay shrinks while events arrive.
+        controller.update(5, 500, MS, 0);
+        Assertions.assertEquals(500, controller.getDelayMs());
+        for (int i = 0; i < 10; i++) {
+            controller.update(1, 100, MS, 0);
+        }
+        Assertions.assertEquals(10, controller.getDelayMs());
+        // The delay grows when no events arrive.
+        controller.update(0, 0, 0, 0);
+        Assertions.assertEquals(20, controller.getDelayMs());
+        for (int i = 0; i < 10; i++) {
+            controller.update(0, 0, 0, 0);
+        }
+        Assertions.assertEquals(1000, controller.getDelayMs());
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class PersistentQueueSQLiteImplTests {
+
+    @Test
+    public void groupCommitTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        try (PersistentQueue queue = new PersistentQueueSQLiteImpl(connection, new TransactionCoordinator(connection), 10, 3, 100);
+             Connection reader = DriverManager.getConnection("jdbc:sqlite:" + fileName)) {
+            queue.add(new PersistentQueueElement("a".getBytes(), "rk", 1));
+            queue.add(new PersistentQueueElement("b".getBytes(), "rk", 2));
+            // Commits must be grouped until the maximum number of elements has been added.
+            Assertions.assertEquals(0, getCommittedCount(reader));
+            queue.add(new PersistentQueueElement("c".getBytes(), "rk", 3));
+            Assertions.assertEquals(3, getCommittedCount(reader));
+            // A single element must be committed after the maximum delay.
+            queue.add(new PersistentQueueElement("d".getBytes(), "rk", 4));
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (getCommittedCount(reader) < 4 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assertions.assertEquals(4, getCommittedCount(reader));
+            // Uncommitted elements must be committed before they are read.
+            queue.add(new PersistentQueueElement("e".getBytes(), "rk", 5));
+            final List<PersistentQueueElement> elements = queue.peek(10);
+            Assertions.assertEquals(5, elements.size());
+            Assertions.assertEquals(5, getCommittedCount(reader));
+            queue.remove(elements.get(4).id, Optional.empty());
+            Assertions.assertEquals(0, getCommittedCount(reader));
+        }
+    }
+
+    @Test
+    public void closeCommitsAddedElementsTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        try (PersistentQueue queue = new PersistentQueueSQLiteImpl(connection, new TransactionCoordinator(connection), 10, 100, 60000)) {
+            queue.add(new PersistentQueueElement("a".getBytes(), "rk", 1));
+        }
+        try (Connection reader = DriverManager.getConnection("jdbc:sqlite:" + fileName)) {
+            Assertions.assertEquals(1, getCommittedCount(reader));
+        }
+    }
+
+    @Test
+    public void coordinatorFailureKeepsAddedElementsTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        final TransactionCoordinator transactionCoordinator = Mockito.spy(new TransactionCoordinator(connection));
+        try (PersistentQueue queue = new PersistentQueueSQLiteImpl(connection, transactionCoordinator, 10, 100, 60000);
+             Connection reader = DriverManager.getConnection("jdbc:sqlite:" + fileName)) {
+            // A failing coordinator rolls back the shared connection.
+            Mockito.doAnswer(invocation -> {
+                connection.rollback();
+                throw new RuntimeException("Injected failure");
+            }).when(transactionCoordinator).deleteTransactionToCommit(Mockito.any());
+            Mockito.doAnswer(invocation -> {
+                connection.rollback();
+                throw new RuntimeException("Injected failure");
+            }).when(transactionCoordinator).performRecovery();
+            queue.add(new PersistentQueueElement("a".getBytes(), "rk", 1));
+            Assertions.assertEquals(0, getCommittedCount(reader));
+            Assertions.assertThrows(RuntimeException.class, () -> queue.deleteTransactionToCommit(Optional.of(UUID.randomUUID())));
+            Assertions.assertEquals(1, getCommittedCount(reader));
+            queue.add(new PersistentQueueElement("b".getBytes(), "rk", 2));
+            Assertions.assertThrows(RuntimeException.class, queue::performRecovery);
+            Assertions.assertEquals(2, getCommittedCount(reader));
+            Assertions.assertEquals(2, queue.peek(10).size());
+        }
+    }
+
+    @Test
+    public void failedAddKeepsAddedElementsTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        try (PersistentQueue queue = new PersistentQueueSQLiteImpl(connection, new TransactionCoordinator(connection), 10, 100, 60000)) {
+            queue.add(new PersistentQueueElement("a".getBytes(), "rk", 1));
+            queue.add(new PersistentQueueElement("b".getBytes(), "rk", 2));
+            // The routing key is required, so the insert fails.
+            Assertions.assertThrows(SQLException.class, () -> queue.add(new PersistentQueueElement("c".getBytes(), null, 3)));
+            Assertions.assertEquals(2, queue.size());
+            final List<PersistentQueueElement> elements = queue.peek(10);
+            Assertions.assertEquals(2, elements.size());
+            Assertions.assertEquals(2, elements.get(1).timestamp);
+        }
+    }
+
+    @Test
+    public void failedDelayedCommitIsRetriedTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        try (PersistentQueue queue = new PersistentQueueSQLiteImpl(connection, new TransactionCoordinator(connection), 10, 100, 100);
+             Connection reader = DriverManager.getConnection("jdbc:sqlite:" + fileName)) {
+            // An open read transaction prevents the queue from committing until the busy timeout of 3 seconds expires.
+            reader.setAutoCommit(false);
+            getCommittedCount(reader);
+            queue.add(new PersistentQueueElement("a".getBytes(), "rk", 1));
+            Thread.sleep(4000);
+            reader.commit();
+            final long deadline = System.currentTimeMillis() + 20000;
+            while (getCommittedCount(reader) < 1 && System.currentTimeMillis() < deadline) {
+                reader.commit();
+                Thread.sleep(20);
+            }
+            reader.commit();
+            Assertions.assertEquals(1, getCommittedCount(reader));
+            Assertions.assertEquals(1, queue.size());
+        }
+    }
+
+    @Test
+    public void removeRangeTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        try (PersistentQueueSQLiteImpl queue = new PersistentQueueSQLiteImpl(connection, new TransactionCoordinator(connection), 5)) {
+            for (int i = 0; i < 5; i++) {
+                queue.add(new PersistentQueueElement(new byte[] {(byte) i}, "rk", i));
+            }
+            final List<PersistentQueueElement> batch1 = queue.peek(2);
+            Assertions.assertEquals(2, batch1.size());
+            // Peek does not remove elements.
+            Assertions.assertEquals(batch1.get(1).id, queue.peek(2).get(1).id);
+            queue.remove(batch1.get(1).id, Optional.empty());
+            // Removing the same elements again has no effect.
+            queue.remove(batch1.get(1).id, Optional.empty());
+            // The capacity of the removed elements is released.
+            queue.add(new PersistentQueueElement(new byte[] {5}, "rk", 5));
+            queue.add(new PersistentQueueElement(new byte[] {6}, "rk", 6));
+            final List<PersistentQueueElement> batch2 = queue.peek(10);
+            Assertions.assertEquals(5, batch2.size());
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertEquals(i + 2, batch2.get(i).timestamp);
+            }
+            queue.remove(batch2.get(4).id, Optional.empty());
+            Assertions.assertTrue(queue.peek(10).isEmpty());
+        }
+    }
+
+    private static long getCommittedCount(Connection reader) throws SQLException {
+        try (Statement statement = reader.createStatement();
+             ResultSet rs = statement.executeQuery("select count(id) from Queue")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
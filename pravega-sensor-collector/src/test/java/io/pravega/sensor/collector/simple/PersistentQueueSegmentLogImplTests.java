@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class PersistentQueueSegmentLogImplTests {
+
+    private static PersistentQueueSegmentLogImpl createQueue(Path directory, int segmentSizeBytes) {
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(directory.resolve("queue.db").toString());
+        return new PersistentQueueSegmentLogImpl(connection, new TransactionCoordinator(connection),
+                directory.resolve("segments"), segmentSizeBytes, 100);
+    }
+
+    private static PersistentQueueElement createElement(int i) {
+        return new PersistentQueueElement(("event" + i).getBytes(StandardCharsets.UTF_8), "rk" + i, i);
+    }
+
+    private static void assertElement(int i, PersistentQueueElement element) {
+        Assertions.assertEquals(i, element.id);
+        Assertions.assertEquals("event" + i, new String(element.bytes, StandardCharsets.UTF_8));
+        Assertions.assertEquals("rk" + i, element.routingKey);
+        Assertions.assertEquals(i, element.timestamp);
+    }
+
+    private static List<Path> listSegments(Path directory) throws Exception {
+        try (Stream<Path> stream = Files.list(directory.resolve("segments"))) {
+            return stream.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void addPeekRemoveTest(@TempDir Path directory) throws Exception {
+        // Each segment holds 2 records.
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 80)) {
+            Assertions.assertTrue(queue.peek(10).isEmpty());
+            for (int i = 0; i < 7; i++) {
+                queue.add(createElement(i));
+            }
+            Assertions.assertEquals(4, listSegments(directory).size());
+            final List<PersistentQueueElement> batch1 = queue.peek(3);
+            Assertions.assertEquals(3, batch1.size());
+            for (int i = 0; i < 3; i++) {
+                assertElement(i, batch1.get(i));
+            }
+            // Peek does not remove elements.
+            Assertions.assertEquals(batch1.size(), queue.peek(3).size());
+            queue.remove(batch1.get(2).id, Optional.empty());
+            Assertions.assertEquals(3, listSegments(directory).size());
+            final List<PersistentQueueElement> batch2 = queue.peek(10);
+            Assertions.assertEquals(4, batch2.size());
+            for (int i = 0; i < 4; i++) {
+                assertElement(i + 3, batch2.get(i));
+            }
+            // Elements that have not been added cannot be removed.
+            Assertions.assertThrows(IllegalArgumentException.class, () -> queue.remove(7, Optional.empty()));
+            queue.remove(batch2.get(3).id, Optional.empty());
+            Assertions.assertTrue(queue.peek(10).isEmpty());
+            Assertions.assertEquals(1, listSegments(directory).size());
+        }
+    }
+
+    @Test
+    public void reopenTest(@TempDir Path directory) throws Exception {
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 80)) {
+            for (int i = 0; i < 5; i++) {
+                queue.add(createElement(i));
+            }
+            queue.remove(queue.peek(3).get(2).id, Optional.empty());
+        }
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 80)) {
+            queue.add(createElement(5));
+            final List<PersistentQueueElement> elements = queue.peek(10);
+            Assertions.assertEquals(3, elements.size());
+            for (int i = 0; i < 3; i++) {
+                assertElement(i + 3, elements.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void partiallyWrittenRecordTest(@TempDir Path directory) throws Exception {
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 1024)) {
+            for (int i = 0; i < 2; i++) {
+                queue.add(createElement(i));
+            }
+        }
+        // Corrupt the last byte of the second record, as if the process failed while writing it.
+        final Path segment = listSegments(directory).get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            final int recordSize = 8 + 12 + "rk0".length() + "event0".length();
+            file.seek(2 * recordSize - 1);
+            file.write(0xff);
+        }
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 1024)) {
+            queue.add(createElement(1));
+            final List<PersistentQueueElement> elements = queue.peek(10);
+            Assertions.assertEquals(2, elements.size());
+            assertElement(0, elements.get(0));
+            assertElement(1, elements.get(1));
+        }
+    }
+
+    @Test
+    public void reclaimSpaceTest(@TempDir Path directory) throws Exception {
+        final int recordSize = 8 + 12 + "rk0".length() + "event0".length();
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 80)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 5; i++) {
+                    queue.add(createElement(i));
+                }
+                final List<PersistentQueueElement> elements = queue.peek(10);
+                queue.remove(elements.get(elements.size() - 1).id, Optional.empty());
+            }
+            // Segments are not preallocated, and only the segment being written remains.
+            final List<Path> segments = listSegments(directory);
+            Assertions.assertEquals(1, segments.size());
+            Assertions.assertTrue(Files.size(segments.get(0)) <= 2 * recordSize);
+        }
+    }
+
+    @Test
+    public void largeElementTest(@TempDir Path directory) throws Exception {
+        try (PersistentQueueSegmentLogImpl queue = createQueue(directory, 64)) {
+            final byte[] bytes = new byte[1000];
+            bytes[999] = 1;
+            queue.add(new PersistentQueueElement(bytes, "rk", 1));
+            queue.add(new PersistentQueueElement(bytes, "rk", 2));
+            final List<PersistentQueueElement> elements = queue.peek(10);
+            Assertions.assertEquals(2, elements.size());
+            Assertions.assertArrayEquals(bytes, elements.get(1).bytes);
+            Assertions.assertEquals(2, elements.get(1).timestamp);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.simple;
+
+import io.pravega.sensor.collector.util.EventWriter;
+import io.pravega.sensor.collector.util.TransactionCoordinator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class PersistentQueueToPravegaServiceTests {
+
+    @Mock
+    private EventWriter<byte[]> writer;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    private static long count(Connection reader, String table) throws Exception {
+        try (Statement statement = reader.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void pipelinedTransactionsTest(@TempDir Path directory) throws Exception {
+        final String fileName = directory.resolve("queue.db").toString();
+        final Connection connection = PersistentQueueSQLiteImpl.createDatabase(fileName);
+        final PersistentQueueSQLiteImpl queue = new PersistentQueueSQLiteImpl(connection, new TransactionCoordinator(connection, writer), 100);
+        for (int i = 0; i < 10; i++) {
+            queue.add(new PersistentQueueElement(new byte[] {(byte) i}, "rk", i));
+        }
+        final List<CompletableFuture<Void>> commits = new CopyOnWriteArrayList<>();
+        when(writer.flush()).thenAnswer(invocation -> Optional.of(UUID.randomUUID()));
+        when(writer.commitAsync(anyLong(), any())).thenAnswer(invocation -> {
+            final CompletableFuture<Void> commit = new CompletableFuture<>();
+            commits.add(commit);
+            return commit;
+        });
+        // Write batches of 2 events with up to 3 outstanding transactions.
+        final PersistentQueueToPravegaService service = new PersistentQueueToPravegaService("test", queue, writer, 2, 10, 3);
+        try (Connection reader = DriverManager.getConnection("jdbc:sqlite:" + fileName)) {
+            service.startAsync().awaitRunning();
+            // Batches are written without waiting for previous transactions to be committed.
+            waitFor(() -> commits.size() == 3);
+            Thread.sleep(200);
+            Assertions.assertEquals(3, commits.size());
+            Assertions.assertEquals(4, count(reader, "Queue"));
+            Assertions.assertEquals(3, count(reader, "TransactionsToCommit"));
+            // Committing the oldest transaction allows the next batch to be written.
+            commits.get(0).complete(null);
+            waitFor(() -> commits.size() == 4);
+            commits.forEach(commit -> commit.complete(null));
+            waitFor(() -> commits.size() == 5);
+            commits.forEach(commit -> commit.complete(null));
+            waitFor(() -> {
+                try {
+                    return count(reader, "TransactionsToCommit") == 0;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Assertions.assertEquals(0, count(reader, "Queue"));
+        }
+    }
+}
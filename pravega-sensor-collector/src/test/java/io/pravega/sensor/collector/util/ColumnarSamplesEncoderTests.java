@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ColumnarSamplesEncoderTests {
+
+    @Test
+    public void roundTripTest() {
+        final int sampleCount = 1000;
+        final double scale = 0.0383;
+        final LongArrayList timestamps = new LongArrayList();
+        final LongArrayList counters = new LongArrayList();
+        final DoubleArrayList axis = new DoubleArrayList();
+        final DoubleArrayList raw = new DoubleArrayList();
+        for (int i = 0; i < sampleCount; i++) {
+            timestamps.add(1_700_000_000_000_000_000L + i * 1_250_000L);
+            counters.add(i % 2 == 0 ? Long.MIN_VALUE : Long.MAX_VALUE);
+            axis.add(((i * 37) % 256 - 128) * scale);
+            raw.add(Math.sqrt(i));
+        }
+        final byte[] bytes = new ColumnarSamplesEncoder(sampleCount)
+                .addAttribute("RemoteAddr", "sensor-1")
+                .addAttribute("Interface", null)
+                .addLongColumn("TimestampNanos", timestamps)
+                .addLongColumn("Counter", counters)
+                .addFixedPointColumn("X", axis, scale)
+                .addDoubleColumn("Raw", raw)
+                .toByteArray();
+
+        Assertions.assertTrue(ColumnarSamplesDecoder.isColumnarSamples(bytes));
+        Assertions.assertFalse(ColumnarSamplesDecoder.isColumnarSamples("{}".getBytes(StandardCharsets.UTF_8)));
+        final ColumnarSamplesDecoder decoder = new ColumnarSamplesDecoder(bytes);
+        Assertions.assertEquals(sampleCount, decoder.getSampleCount());
+        Assertions.assertEquals("sensor-1", decoder.getAttributes().get("RemoteAddr"));
+        Assertions.assertEquals("", decoder.getAttributes().get("Interface"));
+        Assertions.assertArrayEquals(timestamps.toArray(), decoder.getLongColumn("TimestampNanos"));
+        Assertions.assertArrayEquals(counters.toArray(), decoder.getLongColumn("Counter"));
+        Assertions.assertArrayEquals(axis.toArray(), decoder.getDoubleColumn("X"), scale * 1e-9);
+        Assertions.assertArrayEquals(raw.toArray(), decoder.getDoubleColumn("Raw"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.getLongColumn("X"));
+        // Regularly spaced timestamps need about 3 bytes each instead of 8.
+        Assertions.assertTrue(bytes.length < sampleCount * (3 + 20 + 2 + 8) + 100, "length=" + bytes.length);
+    }
+
+    @Test
+    public void columnSizeMismatchTest() {
+        final LongArrayList timestamps = new LongArrayList();
+        timestamps.add(1);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ColumnarSamplesEncoder(2).addLongColumn("TimestampNanos", timestamps));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DirectoryWatcherTests {
+
+    @Test
+    public void changedFilesTest(@TempDir Path directory) throws Exception {
+        try (DirectoryWatcher watcher = new DirectoryWatcher(ImmutableList.of(directory))) {
+            Assertions.assertTrue(watcher.isRescanNeeded());
+            watcher.prepareRescan();
+            Assertions.assertFalse(watcher.isRescanNeeded());
+            final Path file1 = Files.write(directory.resolve("file1.csv"), new byte[] {1});
+            final Path subdirectory = Files.createDirectory(directory.resolve("sub"));
+            final Path file2 = Files.write(subdirectory.resolve("file2.csv"), new byte[] {2});
+            final Set<Path> expected = new HashSet<>(ImmutableList.of(file1, file2));
+            Assertions.assertEquals(expected, waitForChangedFiles(watcher, 0, expected));
+            // Files created in the new subdirectory after it was registered are reported too.
+            final Path file3 = Files.write(subdirectory.resolve("file3.csv"), new byte[] {3});
+            Assertions.assertTrue(waitForChangedFiles(watcher, 0, ImmutableList.of(file3)).contains(file3));
+        }
+    }
+
+    @Test
+    public void recentlyModifiedFilesTest(@TempDir Path directory) throws Exception {
+        try (DirectoryWatcher watcher = new DirectoryWatcher(ImmutableList.of(directory))) {
+            watcher.prepareRescan();
+            final Path file1 = Files.write(directory.resolve("file1.csv"), new byte[] {1});
+            final long minTimeInMillisToUpdateFile = 60000;
+            // Wait for the event to arrive. The file is too new to be returned.
+            Thread.sleep(500);
+            Assertions.assertTrue(watcher.getChangedFiles(minTimeInMillisToUpdateFile).isEmpty());
+            // Once the file is old enough, it is returned.
+            Files.setLastModifiedTime(file1, FileTime.fromMillis(System.currentTimeMillis() - 2 * minTimeInMillisToUpdateFile));
+            Assertions.assertEquals(new HashSet<>(ImmutableList.of(file1)), waitForChangedFiles(watcher, minTimeInMillisToUpdateFile, ImmutableList.of(file1)));
+        }
+    }
+
+    @Test
+    public void recentlyModifiedFilesAtStartupTest(@TempDir Path directory) throws Exception {
+        final long minTimeInMillisToUpdateFile = 60000;
+        final Path file1 = Files.write(directory.resolve("file1.csv"), new byte[] {1});
+        final Path subdirectory = Files.createDirectory(directory.resolve("sub"));
+        final Path file2 = Files.write(subdirectory.resolve("file2.csv"), new byte[] {2});
+        Files.setLastModifiedTime(file2, FileTime.fromMillis(System.currentTimeMillis() - 2 * minTimeInMillisToUpdateFile));
+        try (DirectoryWatcher watcher = new DirectoryWatcher(ImmutableList.of(directory))) {
+            watcher.prepareRescan();
+            // The rescan returns the old file, but the file that is too new is kept without a change event.
+            Assertions.assertEquals(ImmutableList.of(file2), watcher.getChangedFiles(minTimeInMillisToUpdateFile));
+            Files.setLastModifiedTime(file1, FileTime.fromMillis(System.currentTimeMillis() - 2 * minTimeInMillisToUpdateFile));
+            Assertions.assertEquals(ImmutableList.of(file1), watcher.getChangedFiles(minTimeInMillisToUpdateFile));
+        }
+    }
+
+    /**
+     * Change events are delivered asynchronously, so poll until the expected files have been returned.
+     */
+    private static Set<Path> waitForChangedFiles(DirectoryWatcher watcher, long minTimeInMillisToUpdateFile, Collection<Path> expected) throws InterruptedException {
+        final Set<Path> changedFiles = new HashSet<>();
+        for (int i = 0; i < 100 && !changedFiles.containsAll(expected); i++) {
+            final List<Path> files = watcher.getChangedFiles(minTimeInMillisToUpdateFile);
+            changedFiles.addAll(files);
+            if (files.isEmpty()) {
+                Thread.sleep(100);
+            }
+        }
+        return changedFiles;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class DriverExecutorsTests {
+
+    @Test
+    public void platformTest() throws Exception {
+        try (DriverExecutors driverExecutors = new DriverExecutors()) {
+            Assertions.assertEquals(DriverExecutors.Mode.PLATFORM, driverExecutors.getMode());
+            Assertions.assertFalse(driverExecutors.isVirtual());
+            final CompletableFuture<String> threadName = new CompletableFuture<>();
+            driverExecutors.serviceExecutor("service-1").execute(() -> threadName.complete(Thread.currentThread().getName()));
+            Assertions.assertEquals("service-1", threadName.get(10, TimeUnit.SECONDS));
+
+            final ScheduledExecutorService first = driverExecutors.scheduledExecutor("first-%d", 1);
+            final ScheduledExecutorService second = driverExecutors.scheduledExecutor("second-%d", 1);
+            Assertions.assertNotSame(first, second);
+            Assertions.assertEquals("first-0", first.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS));
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    public void sharedTest() throws Exception {
+        final DriverExecutors driverExecutors = new DriverExecutors(DriverExecutors.Mode.SHARED, 2);
+        final ScheduledExecutorService first = driverExecutors.scheduledExecutor("first-%d", 1);
+        final ScheduledExecutorService second = driverExecutors.scheduledExecutor("second-%d", 1);
+        Assertions.assertSame(first, second);
+        Assertions.assertTrue(first.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS)
+                .startsWith("shared-scheduler-"));
+        driverExecutors.close();
+        Assertions.assertTrue(first.isShutdown());
+    }
+
+    @Test
+    public void virtualTest() throws Exception {
+        try (DriverExecutors driverExecutors = new DriverExecutors(DriverExecutors.parseMode(" virtual "), 1)) {
+            Assertions.assertEquals(DriverExecutors.Mode.VIRTUAL, driverExecutors.getMode());
+            // Older JVMs fall back to platform threads.
+            Assertions.assertEquals(Runtime.version().feature() >= 21, driverExecutors.isVirtual());
+            final CompletableFuture<String> threadName = new CompletableFuture<>();
+            driverExecutors.serviceExecutor("service-1").execute(() -> threadName.complete(Thread.currentThread().getName()));
+            Assertions.assertEquals("service-1", threadName.get(10, TimeUnit.SECONDS));
+            final CompletableFuture<String> poolThreadName = new CompletableFuture<>();
+            driverExecutors.threadFactory("pool-%d").newThread(() -> poolThreadName.complete(Thread.currentThread().getName())).start();
+            Assertions.assertEquals("pool-0", poolThreadName.get(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class EventCompressorTests {
+
+    @Test
+    public void deflateTest() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("{\"Timestamp\":").append(1_700_000_000_000L + i).append(",\"Temperature\":21.5},");
+        }
+        final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        final EventCompressor compressor = new EventCompressor(EventCompressor.Codec.DEFLATE, 6);
+        final byte[] compressed = compressor.compress(bytes);
+        Assertions.assertTrue(EventCompressor.isCompressed(compressed));
+        Assertions.assertTrue(compressed.length * 10 < bytes.length, "length=" + compressed.length);
+        Assertions.assertArrayEquals(bytes, EventCompressor.decompress(compressed));
+        // The compressor context is reused by the next event.
+        final byte[] small = "{}".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertArrayEquals(small, EventCompressor.decompress(compressor.compress(small)));
+        Assertions.assertArrayEquals(bytes, EventCompressor.decompress(compressor.compress(bytes)));
+    }
+
+    @Test
+    public void incompressibleTest() throws Exception {
+        final byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        final byte[] compressed = new EventCompressor(EventCompressor.Codec.DEFLATE, 9).compress(bytes);
+        Assertions.assertEquals(EventCompressor.HEADER_LENGTH + bytes.length, compressed.length);
+        Assertions.assertArrayEquals(bytes, EventCompressor.decompress(compressed));
+        Assertions.assertArrayEquals(new byte[0], EventCompressor.decompress(
+                new EventCompressor(EventCompressor.Codec.DEFLATE, 1).compress(new byte[0])));
+    }
+
+    @Test
+    public void noCompressionTest() throws Exception {
+        final byte[] bytes = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = new EventCompressor(EventCompressor.Codec.NONE, 6).compress(bytes);
+        Assertions.assertSame(bytes, compressed);
+        Assertions.assertFalse(EventCompressor.isCompressed(compressed));
+        Assertions.assertSame(bytes, EventCompressor.decompress(compressed));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EventCompressor(EventCompressor.Codec.DEFLATE, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EventCompressor(EventCompressor.Codec.DEFLATE, -1));
+        Assertions.assertArrayEquals(bytes, EventCompressor.decompress(new EventCompressor(EventCompressor.Codec.DEFLATE, 0).compress(bytes)));
+    }
+
+    @Test
+    public void corruptLengthTest() throws Exception {
+        final byte[] bytes = new byte[1000];
+        final byte[] compressed = new EventCompressor(EventCompressor.Codec.DEFLATE, 6).compress(bytes);
+        final byte[] negativeLength = compressed.clone();
+        ByteBuffer.wrap(negativeLength).putInt(EventCompressor.HEADER_LENGTH - Integer.BYTES, -1);
+        Assertions.assertThrows(IOException.class, () -> EventCompressor.decompress(negativeLength));
+        final byte[] hugeLength = compressed.clone();
+        ByteBuffer.wrap(hugeLength).putInt(EventCompressor.HEADER_LENGTH - Integer.BYTES, Integer.MAX_VALUE);
+        Assertions.assertThrows(IOException.class, () -> EventCompressor.decompress(hugeLength));
+        final byte[] stored = new EventCompressor(EventCompressor.Codec.DEFLATE, 6).compress(new byte[] {1, 2, 3});
+        ByteBuffer.wrap(stored).putInt(EventCompressor.HEADER_LENGTH - Integer.BYTES, 4);
+        Assertions.assertThrows(IOException.class, () -> EventCompressor.decompress(stored));
+        // The pooled Inflater is still usable after a failure.
+        Assertions.assertArrayEquals(bytes, EventCompressor.decompress(compressed));
+    }
+}
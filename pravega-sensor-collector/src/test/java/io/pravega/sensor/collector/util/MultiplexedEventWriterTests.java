@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import io.pravega.client.stream.EventStreamWriter;
+import io.pravega.client.stream.Transaction;
+import io.pravega.client.stream.TransactionalEventStreamWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+
+public class MultiplexedEventWriterTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void nonTransactionalTest() throws Exception {
+        final EventStreamWriter<byte[]> eventWriter = Mockito.mock(EventStreamWriter.class);
+        final MultiplexedEventWriter<byte[]> multiplexedWriter = new MultiplexedEventWriter<>(eventWriter);
+        final EventWriter<byte[]> writer1 = multiplexedWriter.newInstanceWriter();
+        final EventWriter<byte[]> writer2 = multiplexedWriter.newInstanceWriter();
+        Assertions.assertEquals(2, multiplexedWriter.getInstanceCount());
+
+        writer1.writeEvent("rk1", new byte[1]);
+        writer2.writeEvent("rk2", new byte[2]);
+        Assertions.assertFalse(writer1.flush().isPresent());
+        // The events of writer2 were flushed by writer1.
+        writer2.flush();
+        Mockito.verify(eventWriter, Mockito.times(1)).flush();
+        writer2.writeEvent("rk2", new byte[2]);
+        writer2.flush();
+        Mockito.verify(eventWriter, Mockito.times(2)).flush();
+
+        writer1.close();
+        writer1.close();
+        Assertions.assertFalse(multiplexedWriter.isClosed());
+        Mockito.verify(eventWriter, Mockito.never()).close();
+        writer2.close();
+        Assertions.assertTrue(multiplexedWriter.isClosed());
+        Mockito.verify(eventWriter, Mockito.times(1)).close();
+        Assertions.assertNull(multiplexedWriter.newInstanceWriter());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void noteTimeTest() throws Exception {
+        final EventStreamWriter<byte[]> eventWriter = Mockito.mock(EventStreamWriter.class);
+        final MultiplexedEventWriter<byte[]> multiplexedWriter = new MultiplexedEventWriter<>(eventWriter);
+        final EventWriter<byte[]> writer1 = multiplexedWriter.newInstanceWriter();
+        final EventWriter<byte[]> writer2 = multiplexedWriter.newInstanceWriter();
+        writer1.commit(100);
+        Mockito.verify(eventWriter).noteTime(100);
+        // The time does not decrease.
+        writer2.commit(50);
+        writer2.commit(200);
+        Mockito.verify(eventWriter, Mockito.times(1)).noteTime(Mockito.anyLong());
+        // The time is the minimum of the latest times of the instances.
+        writer1.commit(300);
+        Mockito.verify(eventWriter).noteTime(200);
+        // A closed instance no longer holds back the time.
+        writer2.close();
+        writer1.commit(400);
+        Mockito.verify(eventWriter).noteTime(400);
+        writer1.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void transactionalTest() throws Exception {
+        final TransactionalEventStreamWriter<byte[]> transactionalWriter = Mockito.mock(TransactionalEventStreamWriter.class);
+        final Transaction<byte[]> txn1 = Mockito.mock(Transaction.class);
+        final Transaction<byte[]> txn2 = Mockito.mock(Transaction.class);
+        final Transaction<byte[]> txn3 = Mockito.mock(Transaction.class);
+        final UUID txnId1 = UUID.randomUUID();
+        final UUID txnId2 = UUID.randomUUID();
+        Mockito.when(txn1.getTxnId()).thenReturn(txnId1);
+        Mockito.when(txn2.getTxnId()).thenReturn(txnId2);
+        Mockito.when(transactionalWriter.beginTxn()).thenReturn(txn1, txn2, txn3);
+        final MultiplexedEventWriter<byte[]> multiplexedWriter = new MultiplexedEventWriter<>(transactionalWriter);
+        final EventWriter<byte[]> writer1 = multiplexedWriter.newInstanceWriter();
+        final EventWriter<byte[]> writer2 = multiplexedWriter.newInstanceWriter();
+
+        // Each instance writes to its own transaction.
+        writer1.writeEvent("rk1", new byte[1]);
+        writer2.writeEvent("rk2", new byte[2]);
+        Assertions.assertEquals(txnId1, writer1.flush().get());
+        Assertions.assertEquals(txnId2, writer2.flush().get());
+        writer1.commit(100);
+        Mockito.verify(txn1).commit(100);
+        writer2.commit(50);
+        Mockito.verify(txn2).commit(100);
+
+        writer1.writeEvent("rk1", new byte[1]);
+        writer1.close();
+        // Closing an instance aborts its transaction but leaves the Pravega writer open.
+        Mockito.verify(txn3).abort();
+        Mockito.verify(txn2, Mockito.never()).abort();
+        Mockito.verify(transactionalWriter, Mockito.never()).close();
+        writer2.close();
+        Mockito.verify(transactionalWriter, Mockito.times(1)).close();
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PrimitiveArrayListTests {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void longArrayListTest() throws Exception {
+        final LongArrayList list = new LongArrayList(2);
+        final List<Long> expected = new ArrayList<>();
+        Assertions.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(list));
+        for (long i = 0; i < 100; i++) {
+            list.add(i * 1_000_000_000_000L - 7);
+            expected.add(i * 1_000_000_000_000L - 7);
+        }
+        Assertions.assertEquals(expected.size(), list.size());
+        Assertions.assertEquals(expected.get(42), list.get(42));
+        Assertions.assertEquals(expected.toString(), list.toString());
+        Assertions.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(list));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> list.get(100));
+        list.clear();
+        Assertions.assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void doubleArrayListTest() throws Exception {
+        final DoubleArrayList list = new DoubleArrayList();
+        final List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(i * 0.0383);
+            expected.add(i * 0.0383);
+        }
+        Assertions.assertEquals(expected.get(99), list.get(99));
+        Assertions.assertEquals(expected.toString(), list.toString());
+        Assertions.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(list));
+    }
+}
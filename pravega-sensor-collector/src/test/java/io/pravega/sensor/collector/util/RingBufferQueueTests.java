@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Dell Inc., or its subsidiaries. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.pravega.sensor.collector.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RingBufferQueueTests {
+
+    @Test
+    public void dropWhenFullTest() throws Exception {
+        final RingBufferQueue<Integer> queue = new RingBufferQueue<>(3, RingBufferQueue.WaitStrategy.PARK, RingBufferQueue.FullPolicy.DROP);
+        Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(queue.offer(i));
+        }
+        Assertions.assertFalse(queue.offer(3));
+        Assertions.assertFalse(queue.offer(4));
+        Assertions.assertEquals(2, queue.getDroppedCount());
+        Assertions.assertEquals(3, queue.size());
+        Assertions.assertEquals(0, queue.poll(0, TimeUnit.MILLISECONDS));
+        Assertions.assertTrue(queue.offer(5));
+        Assertions.assertEquals(1, queue.poll(0, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(2, queue.poll(0, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(5, queue.poll(0, TimeUnit.MILLISECONDS));
+        Assertions.assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0, queue.size());
+        Assertions.assertEquals(3, queue.getHighWaterMark());
+    }
+
+    @Test
+    public void blockWhenFullTest() throws Exception {
+        for (RingBufferQueue.WaitStrategy waitStrategy : RingBufferQueue.WaitStrategy.values()) {
+            transferTest(new RingBufferQueue<>(16, waitStrategy, RingBufferQueue.FullPolicy.BLOCK));
+        }
+    }
+
+    /**
+     * Transfer many elements from a producer thread to this thread and check that none are lost or reordered.
+     */
+    private static void transferTest(RingBufferQueue<Long> queue) throws Exception {
+        final long count = 100000;
+        final AtomicReference<Exception> producerError = new AtomicReference<>();
+        final Thread producer = new Thread(() -> {
+            try {
+                for (long i = 0; i < count; i++) {
+                    Assertions.assertTrue(queue.offer(i));
+                }
+            } catch (Exception e) {
+                producerError.set(e);
+            }
+        });
+        producer.start();
+        for (long i = 0; i < count; i++) {
+            Assertions.assertEquals(i, queue.poll(10, TimeUnit.SECONDS));
+        }
+        producer.join();
+        Assertions.assertNull(producerError.get());
+        Assertions.assertEquals(0, queue.getDroppedCount());
+        Assertions.assertTrue(queue.getHighWaterMark() <= queue.getCapacity());
+    }
+}
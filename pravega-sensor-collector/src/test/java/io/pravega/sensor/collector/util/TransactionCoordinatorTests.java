@@ -192,6 +192,28 @@ public class TransactionCoordinatorTests {
     }
 
 
+    /*
+     * Test to verify perform recovery method.
+     * Transactions owned by a running file worker must not be committed by recovery.
+     */
+    @Test
+    public void testPerformRecoverySkipsInFlightTransaction() throws SQLException, TxnFailedException {
+        final UUID inFlightTxnId = UUID.randomUUID();
+        final UUID abandonedTxnId = UUID.randomUUID();
+        when(mockStatement.executeQuery("select txnId from TransactionsToCommit")).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getString("txnId")).thenReturn(inFlightTxnId.toString(), abandonedTxnId.toString());
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPrepareStatement);
+        when(mockPrepareStatement.execute()).thenReturn(true);
+
+        transactionProcessor.trackInFlightTransaction(Optional.of(inFlightTxnId));
+        transactionProcessor.performRecovery();
+
+        verify(transactionalEventWriter, times(0)).commit(inFlightTxnId);
+        verify(transactionalEventWriter, times(1)).commit(abandonedTxnId);
+        verify(mockConnection, times(1)).prepareStatement("delete from TransactionsToCommit where txnId = ?");
+    }
+
     /*
      * Test to verify perform recovery method.
      * Verify the scenario where transaction commit throw the TxnFailedException
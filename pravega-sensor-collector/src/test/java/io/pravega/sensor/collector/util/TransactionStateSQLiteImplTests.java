@@ -14,12 +14,15 @@ import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 
 public class TransactionStateSQLiteImplTests {
 
@@ -38,6 +41,29 @@ public class TransactionStateSQLiteImplTests {
         Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file1.csv", 0L), 0L), state.getNextPendingFileRecord());
     }
 
+    @Test
+    public void pendingFilesWithExclusionsTest() throws SQLException {
+        final String stateDatabaseFileName = ":memory:";
+        final TransactionStateDB state = TransactionStateInMemoryImpl.create(stateDatabaseFileName);
+        Assertions.assertNull(state.getNextPendingFileRecord(ImmutableSet.of()));
+        state.addPendingFileRecords(ImmutableList.of(
+                new FileNameWithOffset("file1.csv", 0L),
+                new FileNameWithOffset("file2.csv", 0L),
+                new FileNameWithOffset("file3.csv", 0L)));
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file1.csv", 0L), 0L),
+                state.getNextPendingFileRecord(ImmutableSet.of()));
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file2.csv", 0L), 0L),
+                state.getNextPendingFileRecord(ImmutableSet.of("file1.csv")));
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file3.csv", 0L), 0L),
+                state.getNextPendingFileRecord(ImmutableSet.of("file1.csv", "file2.csv")));
+        Assertions.assertNull(state.getNextPendingFileRecord(ImmutableSet.of("file1.csv", "file2.csv", "file3.csv")));
+        // Files completed out of order must not decrease the sequence number.
+        state.addCompletedFileRecord("file2.csv", 0L, 1000L, 20L);
+        state.addCompletedFileRecord("file1.csv", 0L, 1000L, 10L);
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file3.csv", 0L), 20L),
+                state.getNextPendingFileRecord());
+    }
+
     @Test
     public void completedFilesTest() throws SQLException {
         final String stateDatabaseFileName = ":memory:";
@@ -56,6 +82,48 @@ public class TransactionStateSQLiteImplTests {
         Assertions.assertNull(state.getNextPendingFileRecord());
     }
 
+    @Test
+    public void tailedFilesTest() throws SQLException {
+        final String stateDatabaseFileName = ":memory:";
+        final TransactionStateInMemoryImpl state = TransactionStateInMemoryImpl.create(stateDatabaseFileName);
+        state.addPendingFileRecords(ImmutableList.of(new FileNameWithOffset("file1.log", 0L)));
+        state.addTailedFileRecord("file1.log", 0L, 100L, 10L, Optional.empty());
+        Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset("file1.log", 100L)), state.getTailedFileRecords());
+        Assertions.assertNull(state.getNextPendingFileRecord());
+        // The file grew, so it is pending again from its committed offset.
+        state.addPendingFileRecords(ImmutableList.of(new FileNameWithOffset("file1.log", 100L)));
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file1.log", 100L), 10L), state.getNextPendingFileRecord());
+        state.addTailedFileRecord("file1.log", 100L, 250L, 12L, Optional.empty());
+        Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset("file1.log", 250L)), state.getTailedFileRecords());
+        Assertions.assertNull(state.getNextPendingFileRecord());
+        Assertions.assertTrue(state.getCompletedFileRecords().isEmpty());
+        state.deleteTailedFileRecord("file1.log");
+        Assertions.assertTrue(state.getTailedFileRecords().isEmpty());
+    }
+
+    @Test
+    public void tailedPendingFilesTest() throws SQLException {
+        final TransactionStateInMemoryImpl state = TransactionStateInMemoryImpl.create(":memory:");
+        state.addTailedFileRecord("file1.log", 0L, 100L, 10L, Optional.empty());
+        Assertions.assertEquals(100L, state.getTailedFileOffset("file1.log"));
+        Assertions.assertEquals(0L, state.getTailedFileOffset("file2.log"));
+        // A record that begins before the committed offset is from a stale listing.
+        state.addTailedPendingFileRecords(ImmutableList.of(
+                new FileNameWithOffset("file1.log", 50L),
+                new FileNameWithOffset("file2.log", 0L)), ImmutableList.of());
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file2.log", 0L), 10L), state.getNextPendingFileRecord());
+        state.addTailedPendingFileRecords(ImmutableList.of(new FileNameWithOffset("file1.log", 100L)), ImmutableList.of());
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file1.log", 100L), 10L),
+                state.getNextPendingFileRecord(ImmutableSet.of("file2.log")));
+        state.addTailedFileRecord("file1.log", 100L, 250L, 12L, Optional.empty());
+        // The file was truncated to 40 bytes, so it is read again from the beginning.
+        state.addTailedPendingFileRecords(ImmutableList.of(new FileNameWithOffset("file1.log", 0L)),
+                ImmutableList.of(new FileNameWithOffset("file1.log", 40L)));
+        Assertions.assertEquals(0L, state.getTailedFileOffset("file1.log"));
+        Assertions.assertEquals(new ImmutablePair<>(new FileNameWithOffset("file1.log", 0L), 12L),
+                state.getNextPendingFileRecord(ImmutableSet.of("file2.log")));
+    }
+
     @Test
     public void processFilesTest() throws SQLException {
         final String stateDatabaseFileName = ":memory:";
@@ -105,4 +173,50 @@ public class TransactionStateSQLiteImplTests {
         state.deleteCompletedFileRecord("file3.csv");
         Assertions.assertTrue(state.getCompletedFileRecords().isEmpty());
     }
+
+    @Test
+    public void batchedFilesTest() throws SQLException {
+        final String stateDatabaseFileName = ":memory:";
+        final TransactionStateInMemoryImpl state = TransactionStateInMemoryImpl.create(stateDatabaseFileName);
+        // A file that is listed twice in the same batch is recorded once.
+        state.addPendingFileRecords(ImmutableList.of(
+                new FileNameWithOffset("file1.csv", 0L),
+                new FileNameWithOffset("file2.csv", 0L),
+                new FileNameWithOffset("file1.csv", 0L),
+                new FileNameWithOffset("file3.csv", 0L)));
+        state.addPendingFileRecords(ImmutableList.of());
+        for (String fileName : ImmutableList.of("file1.csv", "file2.csv", "file3.csv")) {
+            Assertions.assertEquals(new FileNameWithOffset(fileName, 0L), state.getNextPendingFileRecord().getLeft());
+            state.addCompletedFileRecord(fileName, 0L, 1000L, 10L);
+        }
+        Assertions.assertNull(state.getNextPendingFileRecord());
+        state.deleteCompletedFileRecords(ImmutableList.of("file1.csv", "file3.csv"));
+        Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset("file2.csv", 1000L)), state.getCompletedFileRecords());
+        state.deleteCompletedFileRecords(ImmutableList.of());
+        Assertions.assertEquals(1, state.getCompletedFileRecords().size());
+    }
+
+    @Test
+    public void completedFileIndexTest(@TempDir Path directory) throws SQLException {
+        final String stateDatabaseFileName = directory.resolve("state.db").toString();
+        final List<FileNameWithOffset> directoryListing = ImmutableList.of(
+                new FileNameWithOffset("file1.csv", 1000L),
+                new FileNameWithOffset("file2.csv", 1000L),
+                new FileNameWithOffset("file3.csv", 1000L));
+        try (TransactionStateInMemoryImpl state = TransactionStateInMemoryImpl.create(stateDatabaseFileName)) {
+            Assertions.assertTrue(state.getCompletedFileRecords(directoryListing).isEmpty());
+            state.addPendingFileRecords(ImmutableList.of(new FileNameWithOffset("file1.csv", 0L), new FileNameWithOffset("file2.csv", 0L)));
+            state.addCompletedFileRecord("file1.csv", 0L, 1000L, 10L);
+            // A file with the same name but a different size is not completed.
+            state.addCompletedFileRecord("file2.csv", 0L, 500L, 20L);
+            Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset("file1.csv", 1000L)), state.getCompletedFileRecords(directoryListing));
+        }
+        // The index is loaded from the database when it is opened again.
+        try (TransactionStateInMemoryImpl state = TransactionStateInMemoryImpl.create(stateDatabaseFileName)) {
+            Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset("file1.csv", 1000L)), state.getCompletedFileRecords(directoryListing));
+            state.deleteCompletedFileRecord("file1.csv");
+            Assertions.assertTrue(state.getCompletedFileRecords(directoryListing).isEmpty());
+            Assertions.assertEquals(ImmutableList.of(new FileNameWithOffset("file2.csv", 500L)), state.getCompletedFileRecords());
+        }
+    }
 }